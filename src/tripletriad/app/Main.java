@@ -1,20 +1,39 @@
 package tripletriad.app;
 
+import tripletriad.controller.EventoJogo;
+import tripletriad.controller.InstantaneoJogo;
 import tripletriad.controller.Jogo;
+import tripletriad.controller.ObservadorJogo;
+import tripletriad.controller.PedidosRevanche;
+import tripletriad.model.CardCatalog;
 import tripletriad.model.CartaLoader;
 import tripletriad.model.Jogador;
+import tripletriad.model.Regras;
 import tripletriad.gui.TripleTriadGUI;
+import tripletriad.ia.JogadorIA;
+import tripletriad.replay.GravadorReplays;
+import tripletriad.util.ImagePreloader;
 import tripletriad.util.SoundEffect;
 import tripletriad.util.SoundManager;
 import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
 
 /**
  * Classe principal da aplicação Triple Triad.
  * Responsável por:
  * - Iniciar a aplicação e o primeiro jogo.
  * - Gerenciar instâncias globais como jogadores, o jogo atual e as interfaces gráficas (GUIs) de cada jogador.
- * - Coordenar o processo de reinício do jogo, que requer a confirmação de ambos os jogadores.
- * - Gerenciar o ciclo de vida do `SoundManager`.
+ * - Coordenar o processo de reinício do jogo, que requer a confirmação de ambos os jogadores (`PedidosRevanche`).
+ * - Gerenciar o ciclo de vida do `SoundManager` e tocar o som de cada carta jogada, assinando os eventos do jogo.
+ * - Disparar, antes de abrir as janelas, o carregamento em paralelo das imagens das cartas (`ImagePreloader`).
+ * Com o argumento `--ia`, o Jogador 2 é controlado pelo computador (`JogadorIA`) e só a janela do Jogador 1 é aberta.
+ * Com `--regras same,plus,combo,elemental` (qualquer combinação), as variantes de regra escolhidas valem para todas as partidas.
+ * Com `--replays DIR`, as partidas são gravadas no log de replays do diretório (`GravadorReplays`).
+ * Com `--salvar ARQUIVO`, a partida em andamento é salva no arquivo a cada jogada (`InstantaneoJogo`) e retomada
+ * de onde parou na próxima execução, mesmo depois de uma queda; o arquivo é apagado quando a partida termina.
  */
 
 public class Main {
@@ -25,44 +44,120 @@ public class Main {
     private static Jogo jogoAtual;
     private static TripleTriadGUI gui1Instance;
     private static TripleTriadGUI gui2Instance;
+    private static JogadorIA iaInstance;
+    private static boolean contraIA = false;
+    private static int regras = Regras.BASICA;
+    private static GravadorReplays replays;
+    private static long partidas = 0;
+    private static Path salvamento;
+
+    // O mixer só enfileira o pedido, então o som pode ser tocado direto na thread que publicou a jogada
+    private static final ObservadorJogo SOM_DAS_JOGADAS = eventos -> {
+        for (EventoJogo evento : eventos) {
+            if (evento instanceof EventoJogo.CartaJogada) {
+                soundManager.playSound(SoundEffect.CARD_PLACED);
+            }
+        }
+    };
 
-    private static volatile boolean jogador1QuerReiniciar = false;
-    private static volatile boolean jogador2QuerReiniciar = false;
-    private static volatile boolean reinicioEmProgressoGlobal = false;
+    // Trocado a cada partida, então um pedido atrasado da partida anterior não afeta a nova
+    private static volatile PedidosRevanche revanche = new PedidosRevanche();
 
-    // GETTERS PÚBLICOS ESTÁTICOS para as flags de reinício
-    public static boolean isJogador1QuerReiniciar() { //
-        return jogador1QuerReiniciar; //
+    public static boolean isJogador1QuerReiniciar() {
+        return revanche.isPedida(0);
     }
 
-    public static boolean isJogador2QuerReiniciar() { //
-        return jogador2QuerReiniciar; //
+    public static boolean isJogador2QuerReiniciar() {
+        return revanche.isPedida(1);
     }
 
     public static void main(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if ("--ia".equals(args[i])) {
+                contraIA = true;
+            } else if ("--regras".equals(args[i]) && i + 1 < args.length) {
+                regras = Regras.lerRegras(args[++i]);
+            } else if ("--replays".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    replays = new GravadorReplays(Path.of(args[++i]));
+                } catch (IOException e) {
+                    System.err.println("Não foi possível abrir o log de replays: " + e.getMessage());
+                }
+            } else if ("--salvar".equals(args[i]) && i + 1 < args.length) {
+                salvamento = Path.of(args[++i]);
+            }
+        }
+        ImagePreloader.preloadCardArt(); // Não espera: as janelas mostram marcadores até as imagens chegarem
         soundManager = SoundManager.getInstance();
         soundManager.playThemeSequence();
-        iniciarNovoJogoEfetivamente();
+        iniciarJogo(carregarPartidaSalva());
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             if (soundManager != null) {
                 soundManager.stopAllSounds();
                 soundManager.shutdownExecutor();
             }
+            if (replays != null) {
+                replays.close();
+            }
         }));
     }
 
-    private static void iniciarNovoJogoEfetivamente() {
-        jogador1QuerReiniciar = false;
-        jogador2QuerReiniciar = false;
-        reinicioEmProgressoGlobal = false; // Certifique-se que esta flag também seja resetada aqui
+    private static Jogo carregarPartidaSalva() {
+        if (salvamento == null || !Files.exists(salvamento)) {
+            return null;
+        }
+        try {
+            return InstantaneoJogo.carregar(salvamento, CardCatalog.padrao());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Não foi possível retomar a partida salva em " + salvamento + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Na thread do Swing, onde as jogadas são feitas, então o jogo não muda enquanto é salvo
+    private static void salvarPartida(Jogo jogo) {
+        if (jogo != jogoAtual) {
+            return; // Evento atrasado de uma partida que já foi substituída
+        }
+        try {
+            if (jogo.jogoFinalizado()) {
+                Files.deleteIfExists(salvamento);
+            } else {
+                InstantaneoJogo.salvar(jogo, salvamento);
+            }
+        } catch (IOException e) {
+            System.err.println("Não foi possível salvar a partida em " + salvamento + ": " + e.getMessage());
+        }
+    }
+
+    // Com salvo nulo, distribui as cartas de uma partida nova; senão, continua a partida restaurada
+    private static void iniciarJogo(Jogo salvo) {
+        revanche = new PedidosRevanche();
 
-        jogador1Global = new Jogador("Jogador 1");
-        jogador2Global = new Jogador("Jogador 2");
+        if (salvo != null) {
+            jogoAtual = salvo;
+            jogador1Global = salvo.getJogador1();
+            jogador2Global = salvo.getJogador2();
+        } else {
+            jogador1Global = new Jogador("Jogador 1");
+            jogador2Global = new Jogador(contraIA ? "Computador" : "Jogador 2");
 
-        String caminhoCSV = "src/resources/cards.csv";
-        CartaLoader.distribuirCartas(caminhoCSV, jogador1Global, jogador2Global);
+            Random random = new Random();
+            CartaLoader.distribuirCartas(CardCatalog.padrao(), jogador1Global, jogador2Global, random);
 
-        jogoAtual = new Jogo(jogador1Global, jogador2Global);
+            jogoAtual = new Jogo(jogador1Global, jogador2Global);
+            if (regras != Regras.BASICA) {
+                jogoAtual.setRegras(regras, (regras & Regras.ELEMENTAL) != 0 ? Regras.sortearElementosDasCelulas(random) : 0);
+            }
+        }
+        jogoAtual.addObserver(SOM_DAS_JOGADAS, Runnable::run);
+        if (replays != null && jogoAtual.getCelulasPreenchidas() == 0) { // O replay precisa da partida desde o início
+            replays.acompanhar(jogoAtual, ++partidas);
+        }
+        if (salvamento != null) {
+            Jogo jogo = jogoAtual;
+            jogo.addObserver(eventos -> salvarPartida(jogo), SwingUtilities::invokeLater);
+        }
 
         if (gui1Instance != null) {
             gui1Instance.dispose();
@@ -70,6 +165,10 @@ public class Main {
         if (gui2Instance != null) {
             gui2Instance.dispose();
         }
+        if (iaInstance != null) {
+            iaInstance.encerrar();
+            iaInstance = null;
+        }
 
         final Jogo finalJogoAtual = jogoAtual;
         final Jogador finalJogador1 = jogador1Global;
@@ -80,34 +179,36 @@ public class Main {
             gui1Instance.setVisible(true);
         });
 
+        if (contraIA) {
+            iaInstance = new JogadorIA(finalJogoAtual, finalJogador2, SwingUtilities::invokeLater);
+            iaInstance.iniciar();
+            return;
+        }
+
         SwingUtilities.invokeLater(() -> {
             gui2Instance = new TripleTriadGUI(finalJogador2, finalJogoAtual, () -> Main.solicitarReiniciarJogo(finalJogador2));
             gui2Instance.setVisible(true);
         });
     }
 
-    public static synchronized void solicitarReiniciarJogo(Jogador jogadorSolicitante) {
-        if (reinicioEmProgressoGlobal) {
-            return;
+    /**
+     * Pedido de revanche de um dos jogadores; a nova partida começa quando os dois pediram.
+     * Não precisa de lock: só o pedido que completa o par recebe ACEITA.
+     */
+    public static void solicitarReiniciarJogo(Jogador jogadorSolicitante) {
+        PedidosRevanche pedidos = revanche;
+        boolean ehJogador1 = jogadorSolicitante.equals(jogador1Global);
+        PedidosRevanche.Resultado resultado = pedidos.pedir(ehJogador1 ? 0 : 1);
+        if (contraIA && resultado == PedidosRevanche.Resultado.AGUARDANDO_OPONENTE) {
+            resultado = pedidos.pedir(1); // O computador sempre aceita a revanche
         }
 
-        boolean ambosConfirmaramAntes = isJogador1QuerReiniciar() && isJogador2QuerReiniciar(); // Use os getters
-
-        if (jogadorSolicitante.equals(jogador1Global)) {
-            jogador1QuerReiniciar = true;
-            if (gui1Instance != null && !ambosConfirmaramAntes) {
-                gui1Instance.exibirMensagemAguardandoOponente(true, jogador2Global.getNome());
-            }
-        } else if (jogadorSolicitante.equals(jogador2Global)) {
-            jogador2QuerReiniciar = true;
-            if (gui2Instance != null && !ambosConfirmaramAntes) {
-                gui2Instance.exibirMensagemAguardandoOponente(true, jogador1Global.getNome());
+        if (resultado == PedidosRevanche.Resultado.AGUARDANDO_OPONENTE) {
+            TripleTriadGUI gui = ehJogador1 ? gui1Instance : gui2Instance;
+            if (gui != null) {
+                gui.exibirMensagemAguardandoOponente(true, (ehJogador1 ? jogador2Global : jogador1Global).getNome());
             }
-        }
-
-        if (isJogador1QuerReiniciar() && isJogador2QuerReiniciar()) { // Use os getters
-            reinicioEmProgressoGlobal = true;
-
+        } else if (resultado == PedidosRevanche.Resultado.ACEITA) {
             if (soundManager != null) {
                 soundManager.stopSound(SoundEffect.WIN);
             }
@@ -115,7 +216,7 @@ public class Main {
             if (gui1Instance != null) gui1Instance.exibirMensagemAguardandoOponente(false, null);
             if (gui2Instance != null) gui2Instance.exibirMensagemAguardandoOponente(false, null);
 
-            iniciarNovoJogoEfetivamente();
+            iniciarJogo(null);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,481 @@
+package tripletriad.bench;
+
+import tripletriad.controller.EventoJogo;
+import tripletriad.controller.InstantaneoJogo;
+import tripletriad.controller.Jogo;
+import tripletriad.controller.ObservadorJogo;
+import tripletriad.gui.BackgroundPanel;
+import tripletriad.gui.CardSpriteCache;
+import tripletriad.gui.GameCardPanel;
+import tripletriad.model.CardCatalog;
+import tripletriad.model.Carta;
+import tripletriad.model.CartaLoader;
+import tripletriad.model.CatalogoBinario;
+import tripletriad.model.EstadoTabuleiro;
+import tripletriad.model.Jogador;
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
+import tripletriad.servidor.FotoPartida;
+import tripletriad.servidor.LeitorLinhas;
+import tripletriad.servidor.PoolBuffers;
+import tripletriad.servidor.ProtocoloBinario;
+import tripletriad.servidor.ProtocoloTexto;
+import tripletriad.servidor.QuadroBinario;
+import tripletriad.util.CardAtlas;
+import tripletriad.util.ImageCache;
+import tripletriad.util.ImagePreloader;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Suíte de benchmarks dos caminhos críticos do jogo: aplicação de jogadas (Jogo sem e com assinantes de eventos, e motor primitivo),
+ * fim de jogo e recontagem do placar, instantâneos de uma partida em andamento (gravar e restaurar), leitura do cards.csv e do cards.bin, cache de imagens, atlas de cartas, desenho de cartas
+ * (com o sprite já no cache e renderizando do zero) e do fundo da janela, e a codificação dos protocolos do servidor
+ * (por mensagem e em lotes por um socket local).
+ * Deve ser executada a partir da raiz do projeto, com src/ no classpath, para achar os recursos.
+ *
+ * Uso: BenchmarksTripleTriad [filtro] — roda só os benchmarks cujo nome contém o filtro.
+ */
+
+public final class BenchmarksTripleTriad {
+    private static final String CAMINHO_CSV = "src/resources/cards.csv";
+    private static final Path CAMINHO_CATALOGO = Path.of("src/resources/cards.bin");
+    private static final String IMAGEM_MONSTRO = "/resources/images/card_art/monsters/001.png";
+
+    private static final int MENSAGENS_LOOPBACK = 3 * 64; // 64 jogadas com captura
+
+    private final List<Carta> cartas;
+    private final String filtro;
+    private final MedidorDesempenho medidor = new MedidorDesempenho(3, 5, 1000);
+    private int deslocamento; // Varia as cartas distribuídas entre operações.
+
+    private BenchmarksTripleTriad(String filtro) {
+        this.filtro = filtro;
+        this.cartas = CartaLoader.carregarCartas(CAMINHO_CSV);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true"); // Desenho apenas em imagens fora da tela
+        BenchmarksTripleTriad suite = new BenchmarksTripleTriad(args.length > 0 ? args[0] : "");
+        MedidorDesempenho.imprimirCabecalho();
+        suite.executar();
+        System.out.println("(sumidouro: " + suite.medidor.getSumidouro() + ")");
+    }
+
+    private void executar() {
+        rodar("Jogo.tentarJogarCarta.partidaCompleta", this::partidaCompletaNoJogo);
+        rodar("Jogo.tentarJogarCarta.partidaCompleta.3assinantes", this::partidaCompletaComAssinantes);
+        rodar("Posicao.jogar.partidaCompleta", partidaCompletaNoMotor());
+
+        Jogo jogoTerminado = criarJogo();
+        jogarAteOFim(jogoTerminado);
+        rodar("Jogo.jogoFinalizado", () -> jogoTerminado.jogoFinalizado() ? 1 : 0);
+        rodar("Jogo.recalcularPlacar", () -> {
+            jogoTerminado.recalcularPlacar();
+            return jogoTerminado.getJogador1().getPontuacao();
+        });
+
+        CardCatalog catalogo = CardCatalog.padrao();
+        rodar("InstantaneoJogo.gravar", gravacaoDeInstantaneo());
+        rodar("InstantaneoJogo.restaurar", restauracaoDeInstantaneo(catalogo));
+
+        Random random = new Random(42);
+        rodar("CartaLoader.distribuirCartas", () -> {
+            Jogador j1 = new Jogador("J1");
+            Jogador j2 = new Jogador("J2");
+            CartaLoader.distribuirCartas(catalogo, j1, j2, random);
+            return j1.getCartasNaMao().size();
+        });
+        rodar("CartaLoader.carregarCartas.csv", () -> CartaLoader.carregarCartas(CAMINHO_CSV).size());
+        rodar("CardCatalog.porId", () -> catalogo.porId(1 + random.nextInt(catalogo.getMaiorId())).getTopo());
+        rodar("CatalogoBinario.doClasspath", () -> CatalogoBinario.doClasspath(CatalogoBinario.RECURSO_PADRAO).getQuantidade());
+        rodar("CatalogoBinario.deBuffer.mapeado", leituraDoCatalogoMapeado());
+
+        rodar("ImageCache.getImage.frio", () -> {
+            ImageCache.clear();
+            return ImageCache.getImage(IMAGEM_MONSTRO).hashCode();
+        });
+        rodar("ImageCache.getImage.quente", () -> ImageCache.getImage(IMAGEM_MONSTRO).hashCode());
+        rodar("CardAtlas.load.frio", () -> {
+            ImageCache.clear();
+            return CardAtlas.load().getRegionCount();
+        });
+
+        rodar("GameCardPanel.paintComponent", desenhoDeCarta(false));
+        rodar("GameCardPanel.paintComponent.spriteFrio", desenhoDeCarta(true));
+        rodar("BackgroundPanel.paintComponent", desenhoDoFundo());
+
+        // Uma mensagem por operação (JOGADA, VIRADAS e VEZ alternadas): ns por mensagem = 1e9 / score
+        rodar("ProtocoloBinario.codificar.mensagem", codificacaoBinaria());
+        rodar("ProtocoloBinario.decodificar.mensagem", decodificacaoBinaria());
+        rodar("ProtocoloTexto.codificar.mensagem", codificacaoTexto());
+        rodar("ProtocoloTexto.decodificar.mensagem", decodificacaoTexto());
+        rodar("ProtocoloBinario.codificar.foto", codificacaoDaFoto());
+        rodar("ProtocoloBinario.decodificar.foto", decodificacaoDaFoto());
+        rodar("ProtocoloBinario.loopback." + MENSAGENS_LOOPBACK + "mensagens", loopbackBinario());
+        rodar("ProtocoloTexto.loopback." + MENSAGENS_LOOPBACK + "mensagens", loopbackTexto());
+    }
+
+    private void rodar(String nome, MedidorDesempenho.Operacao operacao) {
+        if (nome.contains(filtro)) {
+            medidor.medir(nome, operacao);
+        }
+    }
+
+    private Jogo criarJogo() {
+        Jogador j1 = new Jogador("J1");
+        Jogador j2 = new Jogador("J2");
+        int inicio = deslocamento;
+        deslocamento = (deslocamento + 1) % (cartas.size() - 10);
+        for (int i = 0; i < 5; i++) {
+            j1.adicionarCarta(cartas.get(inicio + i));
+            j2.adicionarCarta(cartas.get(inicio + 5 + i));
+        }
+        return new Jogo(j1, j2);
+    }
+
+    // Cada jogador joga sempre a primeira carta da mão na primeira célula livre.
+    private static void jogarAteOFim(Jogo jogo) {
+        int celula = 0;
+        while (!jogo.jogoFinalizado()) {
+            Jogador jogador = jogo.getJogadorAtual();
+            jogo.tentarJogarCarta(celula / 3, celula % 3, jogador.getCartasNaMao().get(0), jogador);
+            celula++;
+        }
+    }
+
+    private long partidaCompletaNoJogo() {
+        Jogo jogo = criarJogo();
+        jogarAteOFim(jogo);
+        return jogo.getJogador1().getPontuacao();
+    }
+
+    // Três assinantes chamados na hora (Runnable::run): mede a publicação e a entrega dos eventos, sem troca de thread
+    private long partidaCompletaComAssinantes() {
+        Jogo jogo = criarJogo();
+        long[] recebidos = new long[1];
+        for (int i = 0; i < 3; i++) {
+            ObservadorJogo assinante = eventos -> recebidos[0] += eventos.size();
+            jogo.addObserver(assinante, Runnable::run);
+        }
+        jogarAteOFim(jogo);
+        return recebidos[0];
+    }
+
+    // Partida no meio: 5 jogadas, a última desfeita, para o instantâneo ter também uma jogada a refazer
+    private Jogo criarJogoEmAndamento() {
+        Jogo jogo = criarJogo();
+        for (int celula = 0; celula < 5; celula++) {
+            Jogador jogador = jogo.getJogadorAtual();
+            jogo.tentarJogarCarta(celula / 3, celula % 3, jogador.getCartasNaMao().get(0), jogador);
+        }
+        jogo.desfazerJogada();
+        return jogo;
+    }
+
+    private MedidorDesempenho.Operacao gravacaoDeInstantaneo() {
+        Jogo jogo = criarJogoEmAndamento();
+        ByteBuffer buffer = ByteBuffer.allocate(InstantaneoJogo.TAMANHO_MAXIMO);
+        return () -> {
+            buffer.clear();
+            return InstantaneoJogo.gravar(jogo, buffer);
+        };
+    }
+
+    private MedidorDesempenho.Operacao restauracaoDeInstantaneo(CardCatalog catalogo) {
+        ByteBuffer buffer = ByteBuffer.allocate(InstantaneoJogo.TAMANHO_MAXIMO);
+        InstantaneoJogo.gravar(criarJogoEmAndamento(), buffer);
+        buffer.flip();
+        return () -> {
+            buffer.rewind();
+            return InstantaneoJogo.restaurar(buffer, catalogo).getHash();
+        };
+    }
+
+    private MedidorDesempenho.Operacao partidaCompletaNoMotor() {
+        Posicao inicial = new Posicao();
+        for (int slot = 0; slot < 5; slot++) {
+            inicial.colocarNaMao(0, slot, cartas.get(slot).getId(), EstadoTabuleiro.empacotarRanks(cartas.get(slot)));
+            inicial.colocarNaMao(1, slot, cartas.get(5 + slot).getId(), EstadoTabuleiro.empacotarRanks(cartas.get(5 + slot)));
+        }
+        Posicao posicao = new Posicao();
+        return () -> {
+            posicao.copiarDe(inicial);
+            for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+                int mao = posicao.getMao(posicao.getVez());
+                posicao.jogar(Integer.numberOfTrailingZeros(mao), celula);
+            }
+            return posicao.getHash();
+        };
+    }
+
+    // O mapeamento é feito uma vez só: mapear a cada operação esgotaria a memória nativa antes do GC liberar.
+    private MedidorDesempenho.Operacao leituraDoCatalogoMapeado() {
+        MappedByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(CAMINHO_CATALOGO, StandardOpenOption.READ)) {
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            return () -> { throw e; };
+        }
+        return () -> {
+            CatalogoBinario catalogo = CatalogoBinario.deBuffer(buffer);
+            long soma = 0;
+            for (int i = 0; i < catalogo.getQuantidade(); i++) {
+                soma += catalogo.getRanks(i);
+            }
+            return soma;
+        };
+    }
+
+    // Com spriteFrio, o cache de sprites é limpo antes de cada desenho, medindo a renderização completa da carta
+    private MedidorDesempenho.Operacao desenhoDeCarta(boolean spriteFrio) {
+        ImagePreloader.preloadCardArt().join(); // A pintura não carrega imagens; elas precisam estar no cache
+        GameCardPanel painel = new GameCardPanel(cartas.get(0), new Dimension(100, 140), false);
+        painel.setSize(100, 140);
+        BufferedImage destino = new BufferedImage(100, 140, BufferedImage.TYPE_INT_ARGB);
+        return () -> {
+            if (spriteFrio) {
+                CardSpriteCache.getInstance().clear();
+            }
+            Graphics2D g = destino.createGraphics();
+            painel.paint(g);
+            g.dispose();
+            return destino.getRGB(50, 70);
+        };
+    }
+
+    // Fundo da janela já carregado, no tamanho padrão da janela: mede a cópia da variante pré-escalada
+    private MedidorDesempenho.Operacao desenhoDoFundo() {
+        ImagePreloader.preloadCardArt().join();
+        BackgroundPanel painel = new BackgroundPanel(ImagePreloader.BOARD_BACKGROUND_PATH);
+        painel.setSize(880, 860);
+        BufferedImage destino = new BufferedImage(880, 860, BufferedImage.TYPE_INT_ARGB);
+        return () -> {
+            Graphics2D g = destino.createGraphics();
+            painel.paint(g);
+            g.dispose();
+            return destino.getRGB(440, 430);
+        };
+    }
+
+    // Os eventos de uma jogada com captura, como o servidor os envia
+    private EventoJogo[] eventosDeJogada() {
+        return new EventoJogo[]{
+                new EventoJogo.CartaJogada(4, cartas.get(7), 1, 2),
+                new EventoJogo.CartasViradas(0b000_101_000, 1),
+                new EventoJogo.VezTrocada(0)};
+    }
+
+    private MedidorDesempenho.Operacao codificacaoBinaria() {
+        EventoJogo[] eventos = eventosDeJogada();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ProtocoloBinario.QUADRO_MAXIMO);
+        int[] proximo = new int[1];
+        return () -> {
+            buffer.clear();
+            ProtocoloBinario.escreverEvento(buffer, eventos[proximo[0]++ % eventos.length]);
+            return buffer.position();
+        };
+    }
+
+    private MedidorDesempenho.Operacao decodificacaoBinaria() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ProtocoloBinario.QUADRO_MAXIMO);
+        for (EventoJogo evento : eventosDeJogada()) {
+            ProtocoloBinario.escreverEvento(buffer, evento);
+        }
+        buffer.flip();
+        QuadroBinario quadro = new QuadroBinario();
+        return () -> {
+            if (!quadro.ler(buffer)) {
+                buffer.rewind();
+                quadro.ler(buffer);
+            }
+            return switch (quadro.getTipo()) {
+                case ProtocoloBinario.JOGADA -> quadro.getJogador() + quadro.getSlot() + quadro.getCelula() + quadro.getIdCarta();
+                case ProtocoloBinario.VIRADAS -> quadro.getMascaraViradas() + quadro.getNovoDono();
+                default -> quadro.getVez();
+            };
+        };
+    }
+
+    // Como a ConexaoTexto: a linha formatada vira bytes UTF-8
+    private MedidorDesempenho.Operacao codificacaoTexto() {
+        EventoJogo[] eventos = eventosDeJogada();
+        int[] proximo = new int[1];
+        return () -> ProtocoloTexto.formatar(eventos[proximo[0]++ % eventos.length]).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // Como um cliente de texto: bytes da linha, String, split e parse dos campos
+    private MedidorDesempenho.Operacao decodificacaoTexto() {
+        EventoJogo[] eventos = eventosDeJogada();
+        byte[][] linhas = new byte[eventos.length][];
+        for (int i = 0; i < eventos.length; i++) {
+            linhas[i] = ProtocoloTexto.formatar(eventos[i]).getBytes(StandardCharsets.UTF_8);
+        }
+        int[] proximo = new int[1];
+        return () -> {
+            String[] partes = new String(linhas[proximo[0]++ % linhas.length], StandardCharsets.UTF_8).split(" ");
+            long soma = partes[0].length();
+            for (int i = 1; i < partes.length; i++) {
+                soma += Integer.parseInt(partes[i]);
+            }
+            return soma;
+        };
+    }
+
+    // Foto no meio da partida (4 cartas no tabuleiro, ELEMENTAL), como na ressincronização
+    private FotoPartida fotoDeExemplo() {
+        int[] noTabuleiro = new int[EstadoTabuleiro.NUM_CELULAS];
+        int ocupadas = 0b100_010_011;
+        for (int celula = 0; celula < noTabuleiro.length; celula++) {
+            if ((ocupadas & 1 << celula) != 0) {
+                noTabuleiro[celula] = cartas.get(celula).getId();
+            }
+        }
+        return new FotoPartida(1, Regras.SAME | Regras.ELEMENTAL, 0x3_0000_0510L, 0, false, ocupadas, 0b000_010_001,
+                noTabuleiro, new int[]{cartas.get(10).getId(), cartas.get(11).getId(), cartas.get(12).getId()},
+                new int[]{cartas.get(13).getId()});
+    }
+
+    private MedidorDesempenho.Operacao codificacaoDaFoto() {
+        FotoPartida foto = fotoDeExemplo();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ProtocoloBinario.QUADRO_MAXIMO);
+        return () -> {
+            buffer.clear();
+            ProtocoloBinario.escreverFoto(buffer, foto);
+            return buffer.position();
+        };
+    }
+
+    private MedidorDesempenho.Operacao decodificacaoDaFoto() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ProtocoloBinario.QUADRO_MAXIMO);
+        ProtocoloBinario.escreverFoto(buffer, fotoDeExemplo());
+        buffer.flip();
+        QuadroBinario quadro = new QuadroBinario();
+        return () -> {
+            buffer.rewind();
+            quadro.ler(buffer);
+            long soma = quadro.getVoce() + quadro.getVezNaFoto() + quadro.getRegras() + quadro.getElementos() + quadro.getDonos();
+            for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+                soma += quadro.getCartaNaCelula(celula);
+            }
+            for (int slot = 0; slot < quadro.getTamanhoMao(); slot++) {
+                soma += quadro.getCartaDaMao(slot);
+            }
+            for (int i = 0; i < quadro.getQuantidadeReveladas(); i++) {
+                soma += quadro.getCartaRevelada(i);
+            }
+            return soma;
+        };
+    }
+
+    /**
+     * Envia MENSAGENS_LOOPBACK mensagens por um par de sockets TCP em 127.0.0.1, como a ConexaoBinaria
+     * (buffer direto do pool, uma escrita por lote de eventos), e as decodifica do outro lado na mesma thread.
+     * Os sockets ficam abertos até o fim do processo.
+     */
+    private MedidorDesempenho.Operacao loopbackBinario() {
+        SocketChannel[] par;
+        try {
+            par = parDeCanais();
+        } catch (IOException e) {
+            return () -> { throw e; };
+        }
+        SocketChannel envio = par[0];
+        SocketChannel recepcao = par[1];
+        EventoJogo[] eventos = eventosDeJogada();
+        PoolBuffers pool = new PoolBuffers(1024, 4);
+        ByteBuffer entrada = ByteBuffer.allocateDirect(8192);
+        QuadroBinario quadro = new QuadroBinario();
+        return () -> {
+            ByteBuffer saida = pool.obter();
+            try {
+                for (int i = 0; i < MENSAGENS_LOOPBACK; i++) {
+                    if (saida.remaining() < ProtocoloBinario.QUADRO_MAXIMO) {
+                        escreverTudo(envio, saida);
+                    }
+                    ProtocoloBinario.escreverEvento(saida, eventos[i % eventos.length]);
+                }
+                escreverTudo(envio, saida);
+            } finally {
+                pool.devolver(saida);
+            }
+            long soma = 0;
+            int recebidas = 0;
+            while (recebidas < MENSAGENS_LOOPBACK) {
+                recepcao.read(entrada);
+                entrada.flip();
+                while (quadro.ler(entrada)) {
+                    soma += quadro.getTipo() == ProtocoloBinario.JOGADA ? quadro.getIdCarta() : quadro.getVez();
+                    recebidas++;
+                }
+                entrada.compact();
+            }
+            return soma;
+        };
+    }
+
+    private static void escreverTudo(SocketChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * O mesmo lote pelo protocolo de texto, como a ConexaoTexto (BufferedOutputStream) e um cliente que lê com
+     * LeitorLinhas e interpreta cada linha.
+     */
+    private MedidorDesempenho.Operacao loopbackTexto() {
+        OutputStream saida;
+        LeitorLinhas leitor;
+        try {
+            SocketChannel[] par = parDeCanais();
+            saida = new BufferedOutputStream(par[0].socket().getOutputStream(), 256);
+            leitor = new LeitorLinhas(par[1].socket().getInputStream(), 128);
+        } catch (IOException e) {
+            return () -> { throw e; };
+        }
+        EventoJogo[] eventos = eventosDeJogada();
+        return () -> {
+            for (int i = 0; i < MENSAGENS_LOOPBACK; i++) {
+                saida.write(ProtocoloTexto.formatar(eventos[i % eventos.length]).getBytes(StandardCharsets.UTF_8));
+                saida.write('\n');
+            }
+            saida.flush();
+            long soma = 0;
+            for (int i = 0; i < MENSAGENS_LOOPBACK; i++) {
+                String[] partes = leitor.lerLinha().split(" ");
+                soma += Integer.parseInt(partes[partes.length - 1]);
+            }
+            return soma;
+        };
+    }
+
+    private static SocketChannel[] parDeCanais() throws IOException {
+        try (ServerSocketChannel servidor = ServerSocketChannel.open()) {
+            servidor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel envio = SocketChannel.open(servidor.getLocalAddress());
+            envio.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            return new SocketChannel[]{envio, servidor.accept()};
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package tripletriad.bench;
+
+import tripletriad.servidor.LobbyPareamento;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Rajada de entradas no {@link LobbyPareamento}, sem rede: N jogadores com ratings sorteados em torno de
+ * 1500 entram todos de uma vez, divididos entre T threads, e cada um anota quanto esperou entre entrar e
+ * ser pareado. Para cada número de threads (1, 2, 4... até --threads), mede a vazão de entradas e a
+ * latência de pareamento; quem sobra sozinho na faixa é pareado pelo agendador, depois de --ampliar ms.
+ *
+ * A mesma rajada roda também em um lobby de referência com as mesmas faixas atrás de um lock global, que
+ * não amplia faixas: a comparação mostra o custo de serializar todas as entradas.
+ *
+ * Uso: CargaPareamento [--jogadores N] [--threads T] [--faixa LARGURA] [--ampliar MS] [--semente S]
+ */
+
+public final class CargaPareamento {
+    private static final int DESVIO_RATING = 300;
+    private static final int AMPLIACAO_MAXIMA = 5;
+    private static final int RODADAS_AQUECIMENTO = 5;
+
+    /**
+     * O que as duas implementações têm em comum para a rajada.
+     */
+    private interface Lobby {
+        void entrar(Integer jogador, int rating);
+    }
+
+    /**
+     * Referência: uma espera por faixa, como no LobbyPareamento, mas tudo sob um único lock.
+     */
+    private static final class LobbyComLock implements Lobby {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Integer[] faixas;
+        private final int largura;
+        private final BiConsumer<Integer, Integer> aoParear;
+
+        LobbyComLock(int largura, BiConsumer<Integer, Integer> aoParear) {
+            this.largura = largura;
+            this.faixas = new Integer[largura > 0 ? LobbyPareamento.RATING_MAXIMO / largura + 1 : 1];
+            this.aoParear = aoParear;
+        }
+
+        @Override
+        public void entrar(Integer jogador, int rating) {
+            int faixa = largura > 0 ? Math.min(faixas.length - 1, Math.max(0, rating) / largura) : 0;
+            Integer oponente;
+            lock.lock();
+            try {
+                oponente = faixas[faixa];
+                faixas[faixa] = oponente == null ? jogador : null;
+            } finally {
+                lock.unlock();
+            }
+            if (oponente != null) {
+                aoParear.accept(oponente, jogador);
+            }
+        }
+    }
+
+    private final int jogadores;
+    private final int[] ratings;
+    private final Integer[] ids; // Criados antes, para a rajada não medir o boxing
+    private final long[] entradas;
+    private final long[] latencias;
+
+    private CargaPareamento(int jogadores, long semente) {
+        this.jogadores = jogadores;
+        this.ratings = new int[jogadores];
+        this.ids = new Integer[jogadores];
+        this.entradas = new long[jogadores];
+        this.latencias = new long[jogadores];
+        SplittableRandom random = new SplittableRandom(semente);
+        for (int i = 0; i < jogadores; i++) {
+            int rating = (int) Math.round(LobbyPareamento.RATING_INICIAL + random.nextGaussian() * DESVIO_RATING);
+            ratings[i] = Math.max(0, Math.min(LobbyPareamento.RATING_MAXIMO, rating));
+            ids[i] = i;
+        }
+    }
+
+    private void registrar(Integer primeiro, Integer segundo, CountDownLatch pareados) {
+        long agora = System.nanoTime();
+        latencias[primeiro] = agora - entradas[primeiro];
+        latencias[segundo] = agora - entradas[segundo];
+        pareados.countDown();
+        pareados.countDown();
+    }
+
+    /**
+     * Uma rajada com o número de threads dado; retorna as entradas por segundo.
+     */
+    private double rajada(Lobby lobby, int threads) throws InterruptedException {
+        Arrays.fill(latencias, -1);
+        CountDownLatch largada = new CountDownLatch(1);
+        Thread[] entrantes = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int de = (int) ((long) jogadores * t / threads);
+            int ate = (int) ((long) jogadores * (t + 1) / threads);
+            entrantes[t] = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = de; i < ate; i++) {
+                    entradas[i] = System.nanoTime();
+                    lobby.entrar(ids[i], ratings[i]);
+                }
+            }, "entrada-" + t);
+            entrantes[t].start();
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Thread entrante : entrantes) {
+            entrante.join();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        return jogadores / segundos;
+    }
+
+    private void medirLobby(int threads, int largura, long ampliarMs, boolean imprimir) throws InterruptedException {
+        CountDownLatch pareados = new CountDownLatch(jogadores - jogadores % 2);
+        LobbyPareamento<Integer> lobby = new LobbyPareamento<>(largura, ampliarMs, AMPLIACAO_MAXIMA,
+                (a, b) -> registrar(a, b, pareados), Runnable::run);
+        lobby.iniciar();
+        try {
+            double porSegundo = rajada(lobby::entrar, threads);
+            pareados.await(ampliarMs * (AMPLIACAO_MAXIMA + 2), TimeUnit.MILLISECONDS); // Tempo para o agendador
+            if (imprimir) {
+                imprimir("lobby sem lock", threads, porSegundo);
+                System.out.printf(Locale.ROOT, "    %d na faixa, %d com faixa ampliada, %d sem par%n",
+                        lobby.getPareamentosNaFaixa(), lobby.getPareamentosAmpliados(), lobby.getEsperando());
+            }
+        } finally {
+            lobby.parar();
+        }
+    }
+
+    private void medirReferencia(int threads, int largura, boolean imprimir) throws InterruptedException {
+        CountDownLatch pareados = new CountDownLatch(jogadores);
+        double porSegundo = rajada(new LobbyComLock(largura, (a, b) -> registrar(a, b, pareados)), threads);
+        if (imprimir) {
+            imprimir("lock global", threads, porSegundo);
+        }
+    }
+
+    // Só os pareados entram nos percentis; na referência, quem sobrou na faixa fica esperando para sempre
+    private void imprimir(String nome, int threads, double porSegundo) {
+        long[] pareados = Arrays.stream(latencias).filter(latencia -> latencia >= 0).sorted().toArray();
+        if (pareados.length == 0) {
+            return;
+        }
+        System.out.printf(Locale.ROOT, "%-15s %2d threads: %,10.0f entradas/s; espera p50 %.1f us, p90 %.1f us, p99 %.1f us, máx. %.2f ms (%d pareados)%n",
+                nome, threads, porSegundo, percentil(pareados, 0.50), percentil(pareados, 0.90), percentil(pareados, 0.99),
+                pareados[pareados.length - 1] / 1e6, pareados.length);
+    }
+
+    private static double percentil(long[] ordenadas, double fracao) {
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (fracao * ordenadas.length))] / 1e3;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int jogadores = 50_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int largura = 100;
+        long ampliarMs = 20;
+        long semente = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--jogadores" -> jogadores = Integer.parseInt(valor);
+                case "--threads" -> threads = Integer.parseInt(valor);
+                case "--faixa" -> largura = Integer.parseInt(valor);
+                case "--ampliar" -> ampliarMs = Long.parseLong(valor);
+                case "--semente" -> semente = Long.parseLong(valor);
+                default -> System.err.println("Argumento desconhecido: " + args[i]);
+            }
+        }
+
+        CargaPareamento carga = new CargaPareamento(jogadores, semente);
+        for (int rodada = 0; rodada < RODADAS_AQUECIMENTO; rodada++) {
+            carga.medirLobby(threads, largura, ampliarMs, false);
+            carga.medirReferencia(threads, largura, false);
+        }
+        System.out.printf(Locale.ROOT, "%d jogadores, faixas de %d, ampliação a cada %d ms%n", jogadores, largura, ampliarMs);
+        for (int t = 1; t <= threads; t = t < threads && t * 2 > threads ? threads : t * 2) {
+            carga.medirLobby(t, largura, ampliarMs, true);
+            carga.medirReferencia(t, largura, true);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package tripletriad.bench;
+
+import tripletriad.controller.Jogo;
+import tripletriad.model.CardCatalog;
+import tripletriad.model.CartaLoader;
+import tripletriad.model.Carta;
+import tripletriad.model.Jogador;
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
+import tripletriad.replay.GravadorReplays;
+import tripletriad.replay.LeitorReplays;
+import tripletriad.replay.RegistroReplay;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Carga do log de replays ({@link GravadorReplays} e {@link LeitorReplays}), em três fases:
+ * - Gravação: N partidas de {@link Jogo} com jogadas aleatórias, sem e com o gravador. O custo é medido em
+ *   tempo de CPU da thread que joga, que é o que a gravação não pode aumentar (o resto roda na thread do gravador).
+ * - Leitura: varre o log inteiro em fluxo, conferindo que cada replay reproduzido na {@link Posicao} chega ao
+ *   placar gravado, e mede partidas/s e bytes alocados pela leitura.
+ * - Busca: {@link LeitorReplays#posicionar} em partidas sorteadas, pelo índice de blocos.
+ *
+ * Sem --dir, usa um diretório temporário, apagado no fim.
+ *
+ * Uso: CargaReplays [--partidas N] [--dir DIR] [--segmento MB] [--regras same,plus,combo,elemental] [--semente S]
+ */
+
+public final class CargaReplays {
+    private static final int BUSCAS = 1000;
+    private static final Posicao VAZIA = new Posicao(); // Para limpar a posição reaproveitada na leitura
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final CardCatalog catalogo = CardCatalog.padrao();
+    private final int regras;
+    private final long semente;
+
+    private CargaReplays(int regras, long semente) {
+        this.regras = regras;
+        this.semente = semente;
+    }
+
+    /**
+     * Joga as partidas na thread atual e retorna o tempo de CPU dela em ns.
+     */
+    private long jogar(int partidas, GravadorReplays gravador) {
+        Random random = new Random(semente);
+        SplittableRandom jogadas = new SplittableRandom(semente);
+        long cpuAntes = THREADS.getCurrentThreadCpuTime();
+        for (int partida = 0; partida < partidas; partida++) {
+            Jogador jogador1 = new Jogador("Jogador 1");
+            Jogador jogador2 = new Jogador("Jogador 2");
+            CartaLoader.distribuirCartas(catalogo, jogador1, jogador2, random);
+            Jogo jogo = new Jogo(jogador1, jogador2);
+            if (regras != Regras.BASICA) {
+                jogo.setRegras(regras, (regras & Regras.ELEMENTAL) != 0 ? Regras.sortearElementosDasCelulas(random) : 0);
+            }
+            if (gravador != null) {
+                gravador.acompanhar(jogo, partida);
+            }
+            while (!jogo.jogoFinalizado()) {
+                Jogador vez = jogo.getJogadorAtual();
+                List<Carta> mao = vez.getCartasNaMao();
+                int livres = ~jogo.getTabuleiro().getEstado().getOcupacao() & 0x1FF;
+                int celula = enesimoBit(livres, jogadas.nextInt(Integer.bitCount(livres)));
+                jogo.tentarJogarCarta(celula / 3, celula % 3, mao.get(jogadas.nextInt(mao.size())), vez);
+            }
+        }
+        return THREADS.getCurrentThreadCpuTime() - cpuAntes;
+    }
+
+    private static int enesimoBit(int mascara, int n) {
+        for (int i = 0; i < n; i++) {
+            mascara &= mascara - 1;
+        }
+        return Integer.numberOfTrailingZeros(mascara);
+    }
+
+    private void ler(Path diretorio, long esperadas) throws IOException {
+        RegistroReplay registro = new RegistroReplay();
+        Posicao posicao = new Posicao();
+        long lidas = 0;
+        long vitorias1 = 0;
+        long empates = 0;
+        long divergentes = 0;
+        long idThread = Thread.currentThread().threadId();
+        long bytesAntes = THREADS.getThreadAllocatedBytes(idThread);
+        long inicio = System.nanoTime();
+        try (LeitorReplays leitor = new LeitorReplays(diretorio)) {
+            while (leitor.proximo(registro)) {
+                lidas++;
+                if (registro.getVencedor() == 0) {
+                    vitorias1++;
+                } else if (registro.getVencedor() < 0) {
+                    empates++;
+                }
+                posicao.copiarDe(VAZIA);
+                registro.reproduzir(posicao, catalogo, registro.getQuantidadeJogadas());
+                if (posicao.placar(0) != registro.getPlacar(0) || posicao.placar(1) != registro.getPlacar(1)) {
+                    divergentes++;
+                }
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long bytes = THREADS.getThreadAllocatedBytes(idThread) - bytesAntes;
+        System.out.printf(Locale.ROOT, "leitura: %d partidas em %.2f s (%.0f partidas/s), %.1f KB alocados no total%n",
+                lidas, segundos, lidas / segundos, bytes / 1024.0);
+        System.out.printf(Locale.ROOT, "         jogador 1 venceu %.1f%%, empates %.1f%%; %d replays divergentes, %d faltando%n",
+                100.0 * vitorias1 / lidas, 100.0 * empates / lidas, divergentes, esperadas - lidas);
+    }
+
+    private void buscar(Path diretorio, long partidas) throws IOException {
+        SplittableRandom random = new SplittableRandom(semente);
+        RegistroReplay registro = new RegistroReplay();
+        int erradas = 0;
+        long inicio = System.nanoTime();
+        try (LeitorReplays leitor = new LeitorReplays(diretorio)) {
+            for (int i = 0; i < BUSCAS; i++) {
+                long numero = random.nextLong(partidas);
+                leitor.posicionar(numero);
+                if (!leitor.proximo(registro) || registro.getNumero() != numero || registro.getIdSessao() != numero) {
+                    erradas++;
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "busca:   %d partidas sorteadas, %.1f µs por busca, %d erradas%n",
+                BUSCAS, (System.nanoTime() - inicio) / 1e3 / BUSCAS, erradas);
+    }
+
+    private static long tamanhoDoDiretorio(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            long total = 0;
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                total += Files.size(arquivo);
+            }
+            return total;
+        }
+    }
+
+    private static boolean vazio(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) {
+            return true;
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.findAny().isEmpty();
+        }
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int partidas = 1_000_000;
+        Path diretorio = null;
+        long megasPorSegmento = 8;
+        int regras = Regras.BASICA;
+        long semente = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--partidas" -> partidas = Integer.parseInt(valor);
+                case "--dir" -> diretorio = Path.of(valor);
+                case "--segmento" -> megasPorSegmento = Long.parseLong(valor);
+                case "--regras" -> regras = Regras.lerRegras(valor);
+                case "--semente" -> semente = Long.parseLong(valor);
+                default -> System.err.println("Argumento desconhecido: " + args[i]);
+            }
+        }
+        boolean temporario = diretorio == null;
+        if (temporario) {
+            diretorio = Files.createTempDirectory("replays");
+        } else if (!vazio(diretorio)) {
+            System.err.println("O diretório " + diretorio + " já tem arquivos; use um diretório vazio.");
+            return;
+        }
+
+        CargaReplays carga = new CargaReplays(regras, semente);
+        try {
+            carga.jogar(partidas / 10, null); // Aquecimento
+            long semGravador = carga.jogar(partidas, null);
+            GravadorReplays gravador = new GravadorReplays(diretorio, GravadorReplays.TAMANHO_BLOCO_PADRAO,
+                    megasPorSegmento * 1024 * 1024, GravadorReplays.DESCARREGAR_A_CADA_MS_PADRAO);
+            long inicio = System.nanoTime();
+            long comGravador = carga.jogar(partidas, gravador);
+            gravador.close();
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.printf(Locale.ROOT, "%d partidas (%s); CPU da thread do jogo: %.2f µs por partida sem gravador, %.2f µs com%n",
+                    partidas, Regras.descrever(regras), semGravador / 1e3 / partidas, comGravador / 1e3 / partidas);
+            long bytesNoDisco = tamanhoDoDiretorio(diretorio);
+            System.out.printf(Locale.ROOT, "gravação: %d partidas em %.2f s até o último bloco no disco; %d segmentos, %.1f MB, "
+                            + "%.1f bytes por partida (registros: %.1f bytes, compressão %.1fx)%n",
+                    gravador.getPartidasGravadas(), segundos, gravador.getSegmentosAbertos(), bytesNoDisco / 1e6,
+                    (double) bytesNoDisco / partidas, (double) gravador.getBytesOriginais() / partidas,
+                    (double) gravador.getBytesOriginais() / gravador.getBytesComprimidos());
+            carga.ler(diretorio, partidas);
+            carga.ler(diretorio, partidas);
+            carga.buscar(diretorio, partidas);
+        } finally {
+            if (temporario) {
+                apagar(diretorio);
+            }
+        }
+    }
+}
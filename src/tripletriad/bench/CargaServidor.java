@@ -0,0 +1,288 @@
+package tripletriad.bench;
+
+import tripletriad.model.CartaLoader;
+import tripletriad.model.Regras;
+import tripletriad.servidor.LeitorLinhas;
+import tripletriad.servidor.ProtocoloTexto;
+import tripletriad.servidor.ServidorJogo;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste de carga do {@link ServidorJogo} por TCP: abre 2 x N clientes (virtual threads), espera as N partidas
+ * estarem todas abertas ao mesmo tempo, mede o heap ocupado e então solta os clientes, que jogam cartas e
+ * células aleatórias até o fim. A latência de cada jogada é o tempo entre enviar o JOGAR e receber a
+ * própria JOGADA de volta (ida e volta pela rede, fila e aplicação no servidor).
+ * Com --pausa, cada jogador "pensa" um tempo aleatório (média de --pausa ms) antes de cada jogada, o que
+ * simula partidas reais: a carga vira uma taxa constante em vez de todas as jogadas de uma vez.
+ * Com --revanches N, cada par pede revanche depois de cada partida, N vezes, pela mesma conexão; depois sai.
+ * Antes da medição, uma rodada de AQUECIMENTO sessões aquece o JIT e não é reportada.
+ *
+ * Sem --porta, sobe um servidor no próprio processo, em uma porta livre; nesse caso o heap por sessão inclui
+ * também os dois clientes. Com --host/--porta, usa um servidor externo.
+ *
+ * Uso: CargaServidor [--sessoes N] [--pausa MS] [--revanches N] [--host H] [--porta P] [--regras same,plus,combo,elemental] [--semente S]
+ */
+
+public final class CargaServidor {
+    private static final int AQUECIMENTO = 200;
+
+    private static final class Cliente {
+        final int numero;
+        final SplittableRandom random;
+        final long[] latencias; // Uma por carta da mão, em cada partida
+        int quantidadeLatencias;
+        int partidas;
+        boolean pareado;
+        String erro;
+
+        Cliente(int numero, long semente, int partidas) {
+            this.numero = numero;
+            this.random = new SplittableRandom(semente ^ numero * 0x9E3779B97F4A7C15L);
+            this.latencias = new long[CartaLoader.CARTAS_POR_JOGADOR * partidas];
+        }
+    }
+
+    private final String host;
+    private final int porta;
+    private final int sessoes;
+    private final long semente;
+    private final int pausaMs;
+    private final int revanches;
+    private final CountDownLatch pareados;
+    private final CountDownLatch largada = new CountDownLatch(1);
+    private final CountDownLatch terminados;
+    private final AtomicInteger partidasConcluidas = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Cliente> resultados = new ConcurrentLinkedQueue<>();
+
+    private CargaServidor(String host, int porta, int sessoes, long semente, int pausaMs, int revanches) {
+        this.host = host;
+        this.porta = porta;
+        this.sessoes = sessoes;
+        this.semente = semente;
+        this.pausaMs = pausaMs;
+        this.revanches = revanches;
+        this.pareados = new CountDownLatch(2 * sessoes);
+        this.terminados = new CountDownLatch(2 * sessoes);
+    }
+
+    private void jogar(Cliente cliente) {
+        try (Socket socket = new Socket(host, porta)) {
+            socket.setTcpNoDelay(true);
+            LeitorLinhas leitor = new LeitorLinhas(socket.getInputStream(), 128);
+            OutputStream saida = new BufferedOutputStream(socket.getOutputStream(), 64);
+            List<Integer> mao = new ArrayList<>();
+            boolean[] ocupadas = new boolean[9];
+            int eu = -1;
+            long envio = 0;
+            String linha;
+            while ((linha = leitor.lerLinha()) != null) {
+                String[] partes = linha.split(" ");
+                switch (partes[0]) {
+                    case ProtocoloTexto.INICIO -> {
+                        eu = Integer.parseInt(partes[1]); // Na revanche os jogadores trocam de ordem
+                        mao.clear();
+                        Arrays.fill(ocupadas, false);
+                        if (!cliente.pareado) {
+                            cliente.pareado = true;
+                            pareados.countDown();
+                        }
+                    }
+                    case ProtocoloTexto.MAO -> {
+                        for (int i = 1; i < partes.length; i++) {
+                            mao.add(Integer.parseInt(partes[i]));
+                        }
+                    }
+                    case ProtocoloTexto.VEZ -> {
+                        if (Integer.parseInt(partes[1]) == eu) {
+                            largada.await();
+                            if (pausaMs > 0) {
+                                Thread.sleep(cliente.random.nextInt(2 * pausaMs + 1));
+                            }
+                            int celula = celulaLivreAleatoria(ocupadas, cliente.random);
+                            String comando = ProtocoloTexto.JOGAR + " " + cliente.random.nextInt(mao.size()) + " " + celula;
+                            envio = System.nanoTime();
+                            enviar(saida, comando);
+                        }
+                    }
+                    case ProtocoloTexto.JOGADA -> {
+                        int jogador = Integer.parseInt(partes[1]);
+                        ocupadas[Integer.parseInt(partes[4])] = true;
+                        if (jogador == eu) {
+                            cliente.latencias[cliente.quantidadeLatencias++] = System.nanoTime() - envio;
+                            mao.remove(Integer.parseInt(partes[2]));
+                        }
+                    }
+                    case ProtocoloTexto.FIM -> {
+                        if (eu == 0) {
+                            partidasConcluidas.incrementAndGet();
+                        }
+                        cliente.partidas++;
+                        enviar(saida, cliente.partidas <= revanches ? ProtocoloTexto.REVANCHE : ProtocoloTexto.SAIR);
+                    }
+                    case ProtocoloTexto.OPONENTE_SAIU -> {
+                        if (cliente.partidas <= revanches) { // Depois da última partida é só o aviso de que o oponente também saiu
+                            cliente.erro = linha;
+                            enviar(saida, ProtocoloTexto.SAIR);
+                        }
+                    }
+                    case ProtocoloTexto.ERRO -> cliente.erro = linha;
+                    default -> {
+                        // AGUARDANDO, REVELADAS, VIRADAS, ELEMENTOS, REVANCHE
+                    }
+                }
+            }
+        } catch (IOException e) {
+            cliente.erro = e.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!cliente.pareado) {
+                pareados.countDown(); // Não deixa a medição esperando por um cliente que falhou antes do INICIO
+            }
+            resultados.add(cliente);
+            terminados.countDown();
+        }
+    }
+
+    private static void enviar(OutputStream saida, String comando) throws IOException {
+        saida.write((comando + "\n").getBytes(StandardCharsets.UTF_8));
+        saida.flush();
+    }
+
+    private static int celulaLivreAleatoria(boolean[] ocupadas, SplittableRandom random) {
+        int livres = 0;
+        for (boolean ocupada : ocupadas) {
+            if (!ocupada) livres++;
+        }
+        int escolhida = random.nextInt(livres);
+        for (int celula = 0; celula < ocupadas.length; celula++) {
+            if (!ocupadas[celula] && escolhida-- == 0) {
+                return celula;
+            }
+        }
+        throw new IllegalStateException("Tabuleiro cheio");
+    }
+
+    private void executar(boolean imprimir) throws InterruptedException {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        long heapAntes = heapUsadoAposGc(memoria);
+        long inicio = System.nanoTime();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2 * sessoes; i++) {
+                Cliente cliente = new Cliente(i, semente, 1 + revanches);
+                clientes.execute(() -> jogar(cliente));
+            }
+            if (!pareados.await(120, TimeUnit.SECONDS)) {
+                System.err.println("Nem todos os clientes foram pareados: faltam " + pareados.getCount());
+            }
+            double segundosAbertura = (System.nanoTime() - inicio) / 1e9;
+            long heapAbertas = heapUsadoAposGc(memoria);
+
+            long inicioJogo = System.nanoTime();
+            largada.countDown();
+            if (!terminados.await(300, TimeUnit.SECONDS)) {
+                System.err.println("Clientes ainda jogando após 300 s: " + terminados.getCount());
+            }
+            double segundosJogo = (System.nanoTime() - inicioJogo) / 1e9;
+            if (imprimir) {
+                imprimirResultado(segundosAbertura, segundosJogo, heapAbertas - heapAntes);
+            }
+        }
+    }
+
+    private static long heapUsadoAposGc(MemoryMXBean memoria) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+
+    private void imprimirResultado(double segundosAbertura, double segundosJogo, long bytesHeap) {
+        long[] todas = new long[2 * sessoes * CartaLoader.CARTAS_POR_JOGADOR * (1 + revanches)];
+        int quantidade = 0;
+        int erros = 0;
+        String exemploErro = null;
+        for (Cliente cliente : resultados) {
+            System.arraycopy(cliente.latencias, 0, todas, quantidade, cliente.quantidadeLatencias);
+            quantidade += cliente.quantidadeLatencias;
+            if (cliente.erro != null) {
+                erros++;
+                exemploErro = cliente.erro;
+            }
+        }
+        long[] latencias = Arrays.copyOf(todas, quantidade);
+        Arrays.sort(latencias);
+        System.out.printf(Locale.ROOT, "%d sessões simultâneas abertas em %.2f s; heap: %.1f KB por sessão%n",
+                sessoes, segundosAbertura, bytesHeap / 1024.0 / sessoes);
+        System.out.printf(Locale.ROOT, "%d partidas concluídas, %d jogadas em %.2f s (%.0f jogadas/s)%n",
+                partidasConcluidas.get(), quantidade, segundosJogo, quantidade / segundosJogo);
+        if (quantidade > 0) {
+            System.out.printf(Locale.ROOT, "latência por jogada: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, máx. %.2f ms%n",
+                    percentil(latencias, 0.50), percentil(latencias, 0.90), percentil(latencias, 0.99), latencias[quantidade - 1] / 1e6);
+        }
+        if (erros > 0) {
+            System.out.println(erros + " clientes com erro (ex: " + exemploErro + ")");
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double fracao) {
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (fracao * ordenadas.length))] / 1e6;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessoes = 1000;
+        String host = "127.0.0.1";
+        int porta = 0;
+        int regras = Regras.BASICA;
+        long semente = 42;
+        int pausaMs = 0;
+        int revanches = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--sessoes" -> sessoes = Integer.parseInt(valor);
+                case "--host" -> host = valor;
+                case "--porta" -> porta = Integer.parseInt(valor);
+                case "--regras" -> regras = Regras.lerRegras(valor);
+                case "--semente" -> semente = Long.parseLong(valor);
+                case "--pausa" -> pausaMs = Integer.parseInt(valor);
+                case "--revanches" -> revanches = Integer.parseInt(valor);
+                default -> System.err.println("Argumento desconhecido: " + args[i]);
+            }
+        }
+
+        ServidorJogo servidor = null;
+        if (porta == 0) {
+            servidor = new ServidorJogo(0, regras);
+            servidor.iniciar();
+            porta = servidor.getPorta();
+        }
+        try {
+            new CargaServidor(host, porta, AQUECIMENTO, semente + 1, 0, 0).executar(false);
+            new CargaServidor(host, porta, sessoes, semente, pausaMs, revanches).executar(true);
+        } finally {
+            if (servidor != null) {
+                System.out.println(servidor.descreverEstatisticas());
+                servidor.parar();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package tripletriad.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Executor mínimo de micro-benchmarks, no formato dos relatórios do JMH.
+ * Cada benchmark roda algumas iterações de aquecimento e depois iterações de medição de
+ * duração fixa, reportando a vazão (ops/s, média e desvio padrão) e, como o profiler "gc"
+ * do JMH, a alocação normalizada por operação (B/op) e a taxa de alocação (MB/s),
+ * obtidas pelos contadores de bytes alocados por thread da JVM.
+ */
+
+final class MedidorDesempenho {
+
+    /**
+     * Uma operação medida. O valor retornado é consumido pelo medidor para que o JIT
+     * não elimine o trabalho como código morto.
+     */
+    @FunctionalInterface
+    interface Operacao {
+        long executar() throws Exception;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int iteracoesAquecimento;
+    private final int iteracoesMedicao;
+    private final long nanosPorIteracao;
+    private long sumidouro; // Acumula os retornos das operações (papel do Blackhole do JMH).
+
+    MedidorDesempenho(int iteracoesAquecimento, int iteracoesMedicao, long milisPorIteracao) {
+        this.iteracoesAquecimento = iteracoesAquecimento;
+        this.iteracoesMedicao = iteracoesMedicao;
+        this.nanosPorIteracao = milisPorIteracao * 1_000_000L;
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    static void imprimirCabecalho() {
+        System.out.printf(Locale.ROOT, "%-44s %5s %16s %12s %14s %12s%n",
+                "Benchmark", "Cnt", "Score", "Error", "alloc.norm", "alloc.rate");
+    }
+
+    void medir(String nome, Operacao operacao) {
+        try {
+            for (int i = 0; i < iteracoesAquecimento; i++) {
+                executarIteracao(operacao);
+            }
+            double[] vazoes = new double[iteracoesMedicao];
+            long totalOperacoes = 0;
+            long totalBytes = 0;
+            long totalNanos = 0;
+            for (int i = 0; i < iteracoesMedicao; i++) {
+                long[] iteracao = executarIteracao(operacao);
+                vazoes[i] = iteracao[0] * 1e9 / iteracao[2];
+                totalOperacoes += iteracao[0];
+                totalBytes += iteracao[1];
+                totalNanos += iteracao[2];
+            }
+            double media = 0;
+            for (double v : vazoes) media += v;
+            media /= vazoes.length;
+            double variancia = 0;
+            for (double v : vazoes) variancia += (v - media) * (v - media);
+            double desvio = vazoes.length > 1 ? Math.sqrt(variancia / (vazoes.length - 1)) : 0;
+
+            System.out.printf(Locale.ROOT, "%-44s %5d %12.1f ops/s +- %9.1f %10.1f B/op %7.1f MB/s%n",
+                    nome, iteracoesMedicao, media, desvio,
+                    (double) totalBytes / totalOperacoes,
+                    totalBytes / (totalNanos / 1e9) / (1024 * 1024));
+        } catch (Exception e) {
+            System.out.printf("%-44s falhou: %s%n", nome, e);
+        }
+    }
+
+    // Retorna {operações, bytes alocados, nanos decorridos} de uma iteração.
+    private long[] executarIteracao(Operacao operacao) throws Exception {
+        long idThread = Thread.currentThread().threadId();
+        long operacoes = 0;
+        long bytesAntes = THREADS.getThreadAllocatedBytes(idThread);
+        long inicio = System.nanoTime();
+        long decorrido;
+        do {
+            sumidouro += operacao.executar();
+            operacoes++;
+            decorrido = System.nanoTime() - inicio;
+        } while (decorrido < nanosPorIteracao);
+        long bytes = THREADS.getThreadAllocatedBytes(idThread) - bytesAntes;
+        return new long[]{operacoes, bytes, decorrido};
+    }
+
+    long getSumidouro() {
+        return sumidouro;
+    }
+}
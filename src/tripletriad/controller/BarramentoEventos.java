@@ -0,0 +1,130 @@
+package tripletriad.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Barramento de {@link EventoJogo} com entrega assíncrona. Cada assinante informa o Executor onde quer
+ * ser chamado (a EDT para uma janela, uma thread própria para um log ou a rede, Runnable::run para
+ * ser chamado na hora) e tem sua própria caixa de eventos.
+ *
+ * Publicar só enfileira o evento em cada caixa e, se a caixa não estiver agendada, agenda uma entrega
+ * no executor do assinante; quem publica nunca espera um assinante. Os eventos que chegam enquanto uma
+ * entrega está pendente ou em andamento são agrupados: o assinante recebe a rajada inteira em uma chamada
+ * (ex: jogada, capturas e fim de jogo viram uma única atualização da janela). As entregas de um assinante
+ * são sempre em ordem e nunca simultâneas; assinantes diferentes não esperam uns pelos outros.
+ */
+
+public final class BarramentoEventos {
+
+    private static final class Assinatura {
+        final ObservadorJogo observador;
+        final Executor executor;
+        final ConcurrentLinkedQueue<EventoJogo> caixa = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean agendada = new AtomicBoolean();
+        volatile boolean ativa = true;
+
+        Assinatura(ObservadorJogo observador, Executor executor) {
+            this.observador = observador;
+            this.executor = executor;
+        }
+    }
+
+    private final CopyOnWriteArrayList<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong entregas = new AtomicLong();
+
+    /**
+     * Registra o observador para receber os próximos eventos pelo executor. Não faz nada se já estiver registrado.
+     */
+    public void assinar(ObservadorJogo observador, Executor executor) {
+        if (observador == null || executor == null) {
+            throw new IllegalArgumentException("Observador e executor são obrigatórios.");
+        }
+        synchronized (assinaturas) {
+            for (Assinatura assinatura : assinaturas) {
+                if (assinatura.observador == observador) {
+                    return;
+                }
+            }
+            assinaturas.add(new Assinatura(observador, executor));
+        }
+    }
+
+    /**
+     * Remove o observador; eventos ainda não entregues a ele são descartados.
+     */
+    public void cancelar(ObservadorJogo observador) {
+        for (Assinatura assinatura : assinaturas) {
+            if (assinatura.observador == observador) {
+                assinatura.ativa = false;
+                assinaturas.remove(assinatura);
+            }
+        }
+    }
+
+    /**
+     * Se há alguém para receber eventos; sem assinantes, o jogo nem chega a criá-los.
+     */
+    public boolean temAssinantes() {
+        return !assinaturas.isEmpty();
+    }
+
+    /**
+     * Publica os eventos juntos: são enfileirados antes de a entrega ser agendada, então mesmo um assinante
+     * com executor direto recebe todos na mesma chamada.
+     */
+    public void publicar(EventoJogo... eventos) {
+        publicados.addAndGet(eventos.length);
+        for (Assinatura assinatura : assinaturas) {
+            Collections.addAll(assinatura.caixa, eventos);
+            agendar(assinatura);
+        }
+    }
+
+    private void agendar(Assinatura assinatura) {
+        if (assinatura.agendada.compareAndSet(false, true)) {
+            assinatura.executor.execute(() -> entregar(assinatura));
+        }
+    }
+
+    // A caixa fica marcada como agendada até o fim da entrega, então eventos publicados durante a entrega
+    // (inclusive pelo próprio assinante) esperam a próxima, que é agendada no final
+    private void entregar(Assinatura assinatura) {
+        try {
+            List<EventoJogo> rajada = new ArrayList<>();
+            EventoJogo evento;
+            while ((evento = assinatura.caixa.poll()) != null) {
+                rajada.add(evento);
+            }
+            if (!rajada.isEmpty() && assinatura.ativa) {
+                entregas.incrementAndGet();
+                assinatura.observador.jogoAtualizado(Collections.unmodifiableList(rajada));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro em um observador do jogo: " + e);
+        } finally {
+            assinatura.agendada.set(false);
+            if (!assinatura.caixa.isEmpty() && assinatura.ativa) {
+                agendar(assinatura);
+            }
+        }
+    }
+
+    public long getEventosPublicados() {
+        return publicados.get();
+    }
+
+    /**
+     * Quantas chamadas aos assinantes foram feitas, somando todos; menos que eventos x assinantes quando houve agrupamento.
+     */
+    public long getEntregas() {
+        return entregas.get();
+    }
+}
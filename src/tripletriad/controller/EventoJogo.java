@@ -0,0 +1,45 @@
+package tripletriad.controller;
+
+import tripletriad.model.Carta;
+
+/**
+ * Eventos publicados por um {@link Jogo} no seu {@link BarramentoEventos}. São imutáveis e não guardam
+ * referência ao jogo, então podem ser lidos de qualquer thread (GUI, log, transmissão pela rede).
+ * Jogadores são identificados pelo índice: 0 = jogador1, 1 = jogador2. Células vão de 0 a 8, linha a linha.
+ */
+
+public sealed interface EventoJogo {
+
+    /**
+     * Uma carta saiu do slot da mão do jogador e foi colocada na célula.
+     */
+    record CartaJogada(int celula, Carta carta, int jogador, int slot) implements EventoJogo {
+    }
+
+    /**
+     * As células da máscara (bit i = célula i) passaram a ser do jogador, por captura na mesma jogada.
+     */
+    record CartasViradas(int celulas, int novoDono) implements EventoJogo {
+    }
+
+    /**
+     * A última jogada foi desfeita: a carta voltou ao slot da mão e as células da máscara voltaram ao dono anterior.
+     */
+    record JogadaDesfeita(int celula, Carta carta, int jogador, int slot, int viradas) implements EventoJogo {
+    }
+
+    /**
+     * Passou a ser a vez do jogador.
+     */
+    record VezTrocada(int jogador) implements EventoJogo {
+    }
+
+    /**
+     * O tabuleiro ficou cheio, com o placar final; vencedor() é 0, 1 ou -1 em caso de empate.
+     */
+    record JogoTerminado(int placarJogador1, int placarJogador2) implements EventoJogo {
+        public int vencedor() {
+            return placarJogador1 == placarJogador2 ? -1 : placarJogador1 > placarJogador2 ? 0 : 1;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package tripletriad.controller;
+
+import tripletriad.model.Carta;
+import tripletriad.model.EstadoTabuleiro;
+
+/**
+ * Diário das jogadas de uma partida, usado pelo {@link Jogo} para desfazer e refazer jogadas.
+ * Cada jogada ocupa um int: a célula, o slot da carta na mão, o índice do jogador e a máscara
+ * das células viradas. A carta jogada fica em um array paralelo (as cartas são imutáveis,
+ * então nada é copiado). Como o tabuleiro tem 9 células, o diário nunca passa de 9 entradas.
+ *
+ * Desfazer só move o cursor para trás; as jogadas desfeitas continuam guardadas e podem
+ * ser refeitas até que uma nova jogada seja registrada.
+ */
+
+public final class HistoricoJogadas {
+    // Layout: bits 0-3 célula, bits 4-6 slot, bit 7 jogador, bits 8-16 células viradas
+    private static final int BITS_CELULA = 0xF;
+    private static final int DESLOCAMENTO_SLOT = 4;
+    private static final int BITS_SLOT = 0x7;
+    private static final int DESLOCAMENTO_JOGADOR = 7;
+    private static final int DESLOCAMENTO_VIRADAS = 8;
+    static final int BITS_USADOS = (1 << DESLOCAMENTO_VIRADAS + EstadoTabuleiro.NUM_CELULAS) - 1;
+
+    private final int[] jogadas = new int[EstadoTabuleiro.NUM_CELULAS];
+    private final Carta[] cartas = new Carta[EstadoTabuleiro.NUM_CELULAS];
+    private int cursor = 0; // Quantidade de jogadas aplicadas
+    private int total = 0; // Jogadas aplicadas + jogadas desfeitas que ainda podem ser refeitas
+
+    /**
+     * Registra uma nova jogada no cursor, descartando as jogadas desfeitas que ainda não foram refeitas.
+     */
+    void registrar(int celula, int slot, int jogador, int viradas, Carta carta) {
+        jogadas[cursor] = celula | slot << DESLOCAMENTO_SLOT | jogador << DESLOCAMENTO_JOGADOR | viradas << DESLOCAMENTO_VIRADAS;
+        cartas[cursor] = carta;
+        cursor++;
+        for (int i = cursor; i < total; i++) {
+            cartas[i] = null;
+        }
+        total = cursor;
+    }
+
+    boolean podeDesfazer() {
+        return cursor > 0;
+    }
+
+    boolean podeRefazer() {
+        return cursor < total;
+    }
+
+    /**
+     * Volta o cursor uma jogada e retorna o índice dela.
+     */
+    int voltar() {
+        return --cursor;
+    }
+
+    /**
+     * Avança o cursor uma jogada e retorna o índice dela.
+     */
+    int avancar() {
+        return cursor++;
+    }
+
+    public int getQuantidade() {
+        return cursor;
+    }
+
+    /**
+     * Jogadas aplicadas mais as desfeitas que ainda podem ser refeitas.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    // Usado pelo InstantaneoJogo: recoloca uma entrada já codificada (como em getJogada)
+    void restaurar(int indice, int jogada, Carta carta) {
+        jogadas[indice] = jogada;
+        cartas[indice] = carta;
+    }
+
+    void restaurarCursor(int quantidade, int total) {
+        this.cursor = quantidade;
+        this.total = total;
+    }
+
+    public int getJogada(int indice) {
+        return jogadas[indice];
+    }
+
+    public Carta getCarta(int indice) {
+        return cartas[indice];
+    }
+
+    public static int celulaDe(int jogada) {
+        return jogada & BITS_CELULA;
+    }
+
+    public static int slotDe(int jogada) {
+        return jogada >>> DESLOCAMENTO_SLOT & BITS_SLOT;
+    }
+
+    public static int jogadorDe(int jogada) {
+        return jogada >>> DESLOCAMENTO_JOGADOR & 1;
+    }
+
+    public static int viradasDe(int jogada) {
+        return jogada >>> DESLOCAMENTO_VIRADAS & EstadoTabuleiro.TABULEIRO_CHEIO;
+    }
+}
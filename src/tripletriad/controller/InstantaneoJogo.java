@@ -0,0 +1,347 @@
+package tripletriad.controller;
+
+import tripletriad.model.CardCatalog;
+import tripletriad.model.Carta;
+import tripletriad.model.EstadoTabuleiro;
+import tripletriad.model.Jogador;
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
+import tripletriad.model.Tabuleiro;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Instantâneo binário de um {@link Jogo} inteiro, para salvar uma partida e retomá-la depois (no mesmo
+ * processo ou em outro): nomes dos jogadores, regras e elementos, tabuleiro com os donos, mãos na ordem
+ * dos slots, cartas sorteadas para serem reveladas, vez e o histórico de jogadas (inclusive as desfeitas
+ * que ainda podem ser refeitas). As cartas são gravadas pelo ID e voltam como as instâncias do catálogo,
+ * então o instantâneo não depende do processo que o gravou. Os assinantes de eventos não fazem parte do
+ * instantâneo: quem restaura assina de novo.
+ *
+ * Formato (big-endian), normalmente com pouco mais de 100 bytes:
+ * - Cabeçalho: magic "TTSJ" (int), versão (short) e tamanho total do instantâneo (short).
+ * - Regras (u8), elementos das células (long) e vez (u8).
+ * - Nome de cada jogador: tamanho em bytes (u8) e o nome em UTF-8.
+ * - Tabuleiro: células ocupadas (u16), donos (u16, bit i = célula i é do jogador 2) e o ID (u16) da carta
+ *   de cada célula ocupada, em ordem de célula.
+ * - Mão de cada jogador: quantidade (u8) e os IDs (u16) na ordem dos slots.
+ * - Reveladas de cada jogador: quantidade (u8) e os IDs (u16).
+ * - Histórico: jogadas aplicadas (u8), total (u8) e, para cada uma, a jogada codificada como em
+ *   {@link HistoricoJogadas#getJogada} (int) e o ID da carta (u16).
+ * - CRC32 de todos os bytes anteriores (int).
+ */
+
+public final class InstantaneoJogo {
+    static final int MAGIC = 0x5454534A; // "TTSJ"
+    static final short VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 8;
+    private static final int MAX_NOME = 255;
+    private static final int MAX_CARTAS_NA_MAO = Posicao.MAX_CARTAS_NA_MAO;
+
+    /**
+     * Maior tamanho possível de um instantâneo (com nomes de 255 bytes).
+     */
+    public static final int TAMANHO_MAXIMO = TAMANHO_CABECALHO + 1 + Long.BYTES + 1 + 2 * (1 + MAX_NOME)
+            + 2 + 2 + 2 * EstadoTabuleiro.NUM_CELULAS + 2 * 2 * (1 + 2 * MAX_CARTAS_NA_MAO)
+            + 2 + EstadoTabuleiro.NUM_CELULAS * (Integer.BYTES + 2) + Integer.BYTES;
+
+    private InstantaneoJogo() {
+    }
+
+    /**
+     * Escreve o instantâneo do jogo na posição atual do buffer, que avança até o fim dele, e retorna o
+     * tamanho escrito. O buffer precisa ter espaço para {@link #TAMANHO_MAXIMO} bytes. Deve ser chamado
+     * na thread que joga, como qualquer leitura do jogo.
+     */
+    public static int gravar(Jogo jogo, ByteBuffer destino) {
+        int inicio = destino.position();
+        Jogador[] jogadores = {jogo.getJogador1(), jogo.getJogador2()};
+        EstadoTabuleiro estado = jogo.getTabuleiro().getEstado();
+        destino.putInt(MAGIC);
+        destino.putShort(VERSAO);
+        destino.putShort((short) 0); // Tamanho, preenchido no fim
+        destino.put((byte) estado.getRegras());
+        destino.putLong(estado.getElementosDasCelulas());
+        destino.put((byte) (jogo.getJogadorAtual() == jogadores[0] ? 0 : 1));
+        for (Jogador jogador : jogadores) {
+            byte[] nome = jogador.getNome().getBytes(StandardCharsets.UTF_8);
+            if (nome.length > MAX_NOME) {
+                throw new IllegalArgumentException("Nome de jogador longo demais para o instantâneo: " + jogador.getNome());
+            }
+            destino.put((byte) nome.length);
+            destino.put(nome);
+        }
+
+        int ocupacao = estado.getOcupacao();
+        destino.putShort((short) ocupacao);
+        destino.putShort((short) (estado.getDonos() & ocupacao));
+        for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+            if ((ocupacao & 1 << celula) != 0) {
+                destino.putShort((short) jogo.getTabuleiro().getCarta(celula).getId());
+            }
+        }
+        for (Jogador jogador : jogadores) {
+            escreverCartas(destino, jogador.getCartasNaMao());
+        }
+        for (int indice = 0; indice < 2; indice++) {
+            escreverCartas(destino, jogo.getReveladas(indice));
+        }
+
+        HistoricoJogadas historico = jogo.getHistorico();
+        destino.put((byte) historico.getQuantidade());
+        destino.put((byte) historico.getTotal());
+        for (int i = 0; i < historico.getTotal(); i++) {
+            destino.putInt(historico.getJogada(i));
+            destino.putShort((short) historico.getCarta(i).getId());
+        }
+
+        int tamanho = destino.position() - inicio + Integer.BYTES;
+        destino.putShort(inicio + 6, (short) tamanho);
+        destino.putInt(crc(destino, inicio, tamanho - Integer.BYTES));
+        return tamanho;
+    }
+
+    private static void escreverCartas(ByteBuffer destino, List<Carta> cartas) {
+        if (cartas.size() > MAX_CARTAS_NA_MAO) {
+            throw new IllegalArgumentException("Mais de " + MAX_CARTAS_NA_MAO + " cartas não cabem no instantâneo.");
+        }
+        destino.put((byte) cartas.size());
+        for (Carta carta : cartas) {
+            destino.putShort((short) carta.getId());
+        }
+    }
+
+    /**
+     * Lê um instantâneo a partir da posição atual do buffer, que avança até o fim dele, e monta um jogo
+     * pronto para continuar, com as cartas do catálogo. Lança IllegalArgumentException se o instantâneo
+     * estiver truncado, corrompido, citar cartas que não estão no catálogo ou regras desconhecidas, ou
+     * trouxer um histórico que não leva do tabuleiro vazio ao tabuleiro gravado.
+     */
+    public static Jogo restaurar(ByteBuffer origem, CardCatalog catalogo) {
+        int inicio = origem.position();
+        if (origem.remaining() < TAMANHO_CABECALHO || origem.getInt(inicio) != MAGIC) {
+            throw new IllegalArgumentException("Instantâneo de jogo inválido: cabeçalho ausente ou magic incorreto.");
+        }
+        if (origem.getShort(inicio + 4) != VERSAO) {
+            throw new IllegalArgumentException("Versão de instantâneo de jogo não suportada: " + origem.getShort(inicio + 4));
+        }
+        int tamanho = origem.getShort(inicio + 6) & 0xFFFF;
+        if (tamanho < TAMANHO_CABECALHO + Integer.BYTES || tamanho > origem.remaining()) {
+            throw new IllegalArgumentException("Instantâneo de jogo truncado: " + origem.remaining() + " de " + tamanho + " bytes.");
+        }
+        int fim = inicio + tamanho - Integer.BYTES;
+        if (crc(origem, inicio, fim - inicio) != origem.getInt(fim)) {
+            throw new IllegalArgumentException("Instantâneo de jogo corrompido (CRC incorreto).");
+        }
+
+        // Lê só até o CRC: um campo que passe dele é um instantâneo mal formado, não os bytes de outro
+        ByteBuffer dados = origem.slice(inicio, fim - inicio);
+        try {
+            Jogo jogo = ler(dados.position(TAMANHO_CABECALHO), catalogo);
+            if (dados.hasRemaining()) {
+                throw new IllegalArgumentException("Instantâneo de jogo com " + dados.remaining() + " bytes sobrando.");
+            }
+            origem.position(inicio + tamanho);
+            return jogo;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Instantâneo de jogo mal formado: os campos passam do tamanho declarado.");
+        }
+    }
+
+    private static Jogo ler(ByteBuffer dados, CardCatalog catalogo) {
+        int regras = dados.get() & 0xFF;
+        if ((regras & ~Regras.TODAS) != 0) {
+            throw new IllegalArgumentException("Regras desconhecidas no instantâneo: " + regras);
+        }
+        long elementos = dados.getLong();
+        int vez = dados.get();
+        if (vez != 0 && vez != 1) {
+            throw new IllegalArgumentException("Vez inválida no instantâneo: " + vez);
+        }
+        Jogador jogador1 = new Jogador(lerNome(dados));
+        Jogador jogador2 = new Jogador(lerNome(dados));
+
+        int ocupacao = dados.getShort() & 0xFFFF;
+        int donos = dados.getShort() & 0xFFFF;
+        if ((ocupacao & ~EstadoTabuleiro.TABULEIRO_CHEIO) != 0 || (donos & ~ocupacao) != 0) {
+            throw new IllegalArgumentException("Tabuleiro inválido no instantâneo.");
+        }
+        Carta[] tabuleiro = new Carta[EstadoTabuleiro.NUM_CELULAS];
+        for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+            if ((ocupacao & 1 << celula) != 0) {
+                tabuleiro[celula] = lerCarta(dados, catalogo);
+            }
+        }
+        for (Jogador jogador : new Jogador[]{jogador1, jogador2}) {
+            int quantidade = lerQuantidade(dados, MAX_CARTAS_NA_MAO);
+            for (int slot = 0; slot < quantidade; slot++) {
+                jogador.adicionarCarta(lerCarta(dados, catalogo));
+            }
+        }
+        List<Carta> reveladas1Para2 = lerReveladas(dados, catalogo);
+        List<Carta> reveladas2Para1 = lerReveladas(dados, catalogo);
+
+        Jogo jogo = new Jogo(jogador1, jogador2, reveladas1Para2, reveladas2Para1);
+        jogo.setRegras(regras, elementos);
+        Tabuleiro destino = jogo.getTabuleiro();
+        for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+            if (tabuleiro[celula] != null) {
+                destino.colocarCarta(celula / 3, celula % 3, tabuleiro[celula], donos >>> celula & 1);
+            }
+        }
+
+        int quantidade = dados.get() & 0xFF;
+        int total = lerQuantidade(dados, EstadoTabuleiro.NUM_CELULAS);
+        if (quantidade > total || quantidade != Integer.bitCount(ocupacao) || vez != (quantidade & 1)) {
+            throw new IllegalArgumentException("Histórico inconsistente com o tabuleiro no instantâneo.");
+        }
+        int[] jogadas = new int[total];
+        Carta[] cartas = new Carta[total];
+        for (int i = 0; i < total; i++) {
+            jogadas[i] = dados.getInt();
+            cartas[i] = lerCarta(dados, catalogo);
+        }
+        validarHistorico(jogo, jogadas, cartas, quantidade);
+        HistoricoJogadas historico = jogo.getHistorico();
+        for (int i = 0; i < total; i++) {
+            historico.restaurar(i, jogadas[i], cartas[i]);
+        }
+        historico.restaurarCursor(quantidade, total);
+        jogo.concluirRestauracao(vez);
+        return jogo;
+    }
+
+    // Desfazer e refazer confiam no histórico, então cada entrada é conferida contra o tabuleiro restaurado:
+    // as aplicadas de trás para frente (desfazendo-as numa cópia do estado) e as desfeitas para frente
+    // (refazendo-as). Em cada passo a vez alterna a partir do jogador 1, a carta e o slot batem com o
+    // tabuleiro e a mão daquele momento e as viradas são exatamente as que a regra de captura produz.
+    private static void validarHistorico(Jogo jogo, int[] jogadas, Carta[] cartas, int quantidade) {
+        Tabuleiro tabuleiro = jogo.getTabuleiro();
+        EstadoTabuleiro estado = new EstadoTabuleiro();
+        estado.copiarDe(tabuleiro.getEstado());
+        int[] tamanhoDasMaos = {jogo.getJogador1().getCartasNaMao().size(), jogo.getJogador2().getCartasNaMao().size()};
+        for (int i = quantidade - 1; i >= 0; i--) {
+            int jogada = jogadas[i];
+            int celula = validarCelula(jogada, i);
+            int jogador = HistoricoJogadas.jogadorDe(jogada);
+            int viradas = HistoricoJogadas.viradasDe(jogada);
+            int daJogada = viradas | 1 << celula;
+            int doJogador = jogador == 0 ? estado.getOcupacao() & ~estado.getDonos() : estado.getDonos();
+            if (tabuleiro.getCarta(celula) != cartas[i] || (daJogada & ~doJogador) != 0) {
+                throw new IllegalArgumentException("Jogada " + i + " do histórico não bate com o tabuleiro do instantâneo.");
+            }
+            int slot = HistoricoJogadas.slotDe(jogada);
+            if (slot > tamanhoDasMaos[jogador] || tamanhoDasMaos[jogador] == MAX_CARTAS_NA_MAO) {
+                throw new IllegalArgumentException("Slot inválido na jogada " + i + " do histórico: " + slot);
+            }
+            tamanhoDasMaos[jogador]++;
+            estado.desfazer(celula, viradas);
+            if (estado.simularCaptura(celula, EstadoTabuleiro.empacotarRanks(cartas[i]), jogador) != viradas) {
+                throw new IllegalArgumentException("Viradas da jogada " + i + " do histórico não seguem as regras.");
+            }
+        }
+
+        estado.copiarDe(tabuleiro.getEstado());
+        List<List<Carta>> maos = List.of(new ArrayList<>(jogo.getJogador1().getCartasNaMao()),
+                new ArrayList<>(jogo.getJogador2().getCartasNaMao()));
+        for (int i = quantidade; i < jogadas.length; i++) {
+            int jogada = jogadas[i];
+            int celula = validarCelula(jogada, i);
+            int jogador = HistoricoJogadas.jogadorDe(jogada);
+            int slot = HistoricoJogadas.slotDe(jogada);
+            List<Carta> mao = maos.get(jogador);
+            if (estado.ocupada(celula) || slot >= mao.size() || mao.get(slot) != cartas[i]) {
+                throw new IllegalArgumentException("Jogada desfeita " + i + " do histórico não pode ser refeita.");
+            }
+            mao.remove(slot);
+            if (estado.jogar(celula, EstadoTabuleiro.empacotarRanks(cartas[i]), jogador) != HistoricoJogadas.viradasDe(jogada)) {
+                throw new IllegalArgumentException("Viradas da jogada " + i + " do histórico não seguem as regras.");
+            }
+        }
+    }
+
+    // Célula da entrada, conferindo também o que não depende do tabuleiro: a alternância da vez e os bits livres
+    private static int validarCelula(int jogada, int indice) {
+        int celula = HistoricoJogadas.celulaDe(jogada);
+        if (celula >= EstadoTabuleiro.NUM_CELULAS || HistoricoJogadas.jogadorDe(jogada) != (indice & 1)
+                || (jogada & ~HistoricoJogadas.BITS_USADOS) != 0 || (HistoricoJogadas.viradasDe(jogada) & 1 << celula) != 0) {
+            throw new IllegalArgumentException("Jogada " + indice + " do histórico mal formada: " + jogada);
+        }
+        return celula;
+    }
+
+    private static String lerNome(ByteBuffer dados) {
+        byte[] nome = new byte[dados.get() & 0xFF];
+        dados.get(nome);
+        return new String(nome, StandardCharsets.UTF_8);
+    }
+
+    private static List<Carta> lerReveladas(ByteBuffer dados, CardCatalog catalogo) {
+        int quantidade = lerQuantidade(dados, MAX_CARTAS_NA_MAO);
+        List<Carta> reveladas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            reveladas.add(lerCarta(dados, catalogo));
+        }
+        return reveladas;
+    }
+
+    private static int lerQuantidade(ByteBuffer dados, int maximo) {
+        int quantidade = dados.get() & 0xFF;
+        if (quantidade > maximo) {
+            throw new IllegalArgumentException("Quantidade inválida no instantâneo: " + quantidade + " (máximo " + maximo + ")");
+        }
+        return quantidade;
+    }
+
+    private static Carta lerCarta(ByteBuffer dados, CardCatalog catalogo) {
+        int id = dados.getShort() & 0xFFFF;
+        Carta carta = catalogo.porId(id);
+        if (carta == null) {
+            throw new IllegalArgumentException("Carta " + id + " do instantâneo não está no catálogo.");
+        }
+        return carta;
+    }
+
+    private static int crc(ByteBuffer buffer, int inicio, int tamanho) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(inicio, tamanho));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Salva o instantâneo no arquivo, trocando-o de uma vez: quem lê (ou um processo que cai no meio)
+     * vê o instantâneo anterior inteiro ou o novo inteiro, nunca um arquivo pela metade.
+     */
+    public static void salvar(Jogo jogo, Path arquivo) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_MAXIMO);
+        gravar(jogo, buffer);
+        buffer.flip();
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false); // No disco antes da troca, para sobreviver a uma queda da máquina
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restaura o jogo salvo por {@link #salvar}.
+     */
+    public static Jogo carregar(Path arquivo, CardCatalog catalogo) throws IOException {
+        return restaurar(ByteBuffer.wrap(Files.readAllBytes(arquivo)), catalogo);
+    }
+}
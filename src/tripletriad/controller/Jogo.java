@@ -1,22 +1,30 @@
 package tripletriad.controller;
 
-import tripletriad.gui.TripleTriadGUI;
 import tripletriad.model.Carta;
+import tripletriad.model.Elemento;
+import tripletriad.model.EstadoTabuleiro;
 import tripletriad.model.Jogador;
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
 import tripletriad.model.Tabuleiro;
+import tripletriad.model.Zobrist;
 import tripletriad.util.SoundEffect;
-import tripletriad.util.SoundManager;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Controla a lógica e o estado de uma partida de Triple Triad.
  * Gerencia os jogadores, o tabuleiro, o turno atual e as regras do jogo,
  * como virar cartas e calcular pontuações.
- * Utiliza o padrão Observer para notificar as GUIs (TripleTriadGUI)
- * sobre mudanças no estado do jogo, permitindo que a interface do usuário seja atualizada.
+ * Cada jogada publica eventos tipados ({@link EventoJogo}) em um {@link BarramentoEventos}, que os entrega
+ * de forma assíncrona às GUIs (TripleTriadGUI), à IA (JogadorIA) e a quem mais assinar, cada um no seu executor.
+ * O jogo não conhece a interface nem o som, e sem assinantes nenhum evento é criado.
+ * As jogadas ficam em um {@link HistoricoJogadas}, para poderem ser desfeitas e refeitas,
+ * e o hash de Zobrist da posição é mantido a cada jogada.
+ * O estado inteiro pode ser salvo e restaurado com {@link InstantaneoJogo}.
  */
 
 public class Jogo {
@@ -24,53 +32,96 @@ public class Jogo {
     private Jogador jogador2;
     private Tabuleiro tabuleiro;
     private Jogador jogadorAtual;
-    private List<TripleTriadGUI> observers = new ArrayList<>();
-    private List<Carta> reveladasJogador1ParaJogador2 = new ArrayList<>();
-    private List<Carta> reveladasJogador2ParaJogador1 = new ArrayList<>();
+    private final BarramentoEventos eventos = new BarramentoEventos();
+    private final List<Carta> reveladasJogador1ParaJogador2;
+    private final List<Carta> reveladasJogador2ParaJogador1;
     private static final int NUM_CARTAS_REVELADAS_OPEN = 3;
 
+    // Com -Dtripletriad.debug=true, cada jogada confere os contadores incrementais com uma recontagem completa
+    private static final boolean MODO_DEBUG = Boolean.getBoolean("tripletriad.debug");
+
+    // Placar e preenchimento mantidos de forma incremental (por índice: 0 = jogador1, 1 = jogador2)
+    private final int[] cartasNoTabuleiro = new int[2];
+    private int celulasPreenchidas = 0;
+
+    private final HistoricoJogadas historico = new HistoricoJogadas();
+    private long hash; // Mesmo hash de Zobrist que criarPosicao().getHash(), mantido de forma incremental
+
     public Jogo(Jogador jogador1, Jogador jogador2) {
+        this(jogador1, jogador2, sortearReveladas(jogador1), sortearReveladas(jogador2));
+    }
+
+    // Usado pelo InstantaneoJogo, que traz as cartas reveladas em vez de sorteá-las
+    Jogo(Jogador jogador1, Jogador jogador2, List<Carta> reveladas1Para2, List<Carta> reveladas2Para1) {
         this.jogador1 = jogador1;
         this.jogador2 = jogador2;
         this.tabuleiro = new Tabuleiro();
         this.jogadorAtual = jogador1; // Define o jogador1 como o primeiro a jogar
+        this.reveladasJogador1ParaJogador2 = reveladas1Para2;
+        this.reveladasJogador2ParaJogador1 = reveladas2Para1;
+        this.hash = hashDasMaos();
+    }
 
-        if (this.jogador1 != null && !this.jogador1.getCartasNaMao().isEmpty()) {
-            List<Carta> tempHand1 = new ArrayList<>(this.jogador1.getCartasNaMao());
-            Collections.shuffle(tempHand1); // Embaralha para pegar aleatórias
-            for (int i = 0; i < NUM_CARTAS_REVELADAS_OPEN && i < tempHand1.size(); i++) {
-                reveladasJogador1ParaJogador2.add(tempHand1.get(i));
+    private static List<Carta> sortearReveladas(Jogador jogador) {
+        List<Carta> reveladas = new ArrayList<>();
+        if (jogador != null && !jogador.getCartasNaMao().isEmpty()) {
+            List<Carta> tempHand = new ArrayList<>(jogador.getCartasNaMao());
+            Collections.shuffle(tempHand); // Embaralha para pegar aleatórias
+            for (int i = 0; i < NUM_CARTAS_REVELADAS_OPEN && i < tempHand.size(); i++) {
+                reveladas.add(tempHand.get(i));
             }
         }
-        if (this.jogador2 != null && !this.jogador2.getCartasNaMao().isEmpty()) {
-            List<Carta> tempHand2 = new ArrayList<>(this.jogador2.getCartasNaMao());
-            Collections.shuffle(tempHand2); // Embaralha para pegar aleatórias
-            for (int i = 0; i < NUM_CARTAS_REVELADAS_OPEN && i < tempHand2.size(); i++) {
-                reveladasJogador2ParaJogador1.add(tempHand2.get(i));
-            }
+        return reveladas;
+    }
+
+    private long hashDasMaos() {
+        long chave = 0;
+        if (jogador1 != null) {
+            for (Carta carta : jogador1.getCartasNaMao()) chave ^= Zobrist.cartaNaMao(0, carta.getId());
         }
+        if (jogador2 != null) {
+            for (Carta carta : jogador2.getCartasNaMao()) chave ^= Zobrist.cartaNaMao(1, carta.getId());
+        }
+        return chave;
     }
 
     //Metodos Observers que modificam o estado do jogo em tempo real enquanto é jogado
 
-    public void addObserver(TripleTriadGUI observer) {
-        if (observer != null && !observers.contains(observer)) {
-            observers.add(observer);
-        }
+    /**
+     * Assina os eventos do jogo; o observador é chamado no executor informado (ex: SwingUtilities::invokeLater).
+     */
+    public void addObserver(ObservadorJogo observer, Executor executor) {
+        eventos.assinar(observer, executor);
     }
 
-    public void removeObserver(TripleTriadGUI observer) {
-        observers.remove(observer);
+    public void removeObserver(ObservadorJogo observer) {
+        eventos.cancelar(observer);
     }
 
-    private void notifyObservers() {
-        for (TripleTriadGUI observer : observers) {
-            if (observer != null) {
-                observer.updateGUI();
-            }
+    public BarramentoEventos getEventos() {
+        return eventos;
+    }
+
+    // Publica a jogada recém-aplicada de uma vez: a carta, as capturas e a próxima vez (ou o fim do jogo)
+    private void publicarJogada(int celula, int slot, Carta carta, int indice, int viradas) {
+        if (!eventos.temAssinantes()) {
+            return;
+        }
+        EventoJogo jogada = new EventoJogo.CartaJogada(celula, carta, indice, slot);
+        if (viradas != 0) {
+            eventos.publicar(jogada, new EventoJogo.CartasViradas(viradas, indice), vezOuFim());
+        } else {
+            eventos.publicar(jogada, vezOuFim());
         }
     }
 
+    private EventoJogo vezOuFim() {
+        if (jogoFinalizado()) {
+            return new EventoJogo.JogoTerminado(getPlacar(jogador1), getPlacar(jogador2));
+        }
+        return new EventoJogo.VezTrocada(indiceDoJogador(jogadorAtual));
+    }
+
     public Tabuleiro getTabuleiro() {
         return tabuleiro;
     }
@@ -87,111 +138,308 @@ public class Jogo {
         return jogador2;
     }
 
+    /**
+     * Retorna o jogador que controla a carta na posição do tabuleiro, ou null se a posição estiver vazia.
+     */
+    public Jogador getDonoDaCelula(int linha, int coluna) {
+        int celula = EstadoTabuleiro.celula(linha, coluna);
+        EstadoTabuleiro estado = tabuleiro.getEstado();
+        if (!estado.ocupada(celula)) {
+            return null;
+        }
+        return estado.getDono(celula) == 0 ? jogador1 : jogador2;
+    }
+
+    /**
+     * Ativa variantes de regra (máscara de {@link Regras}) e os elementos das células para a regra ELEMENTAL.
+     * Só pode ser chamado antes da primeira jogada.
+     */
+    public void setRegras(int regras, long elementosDasCelulas) {
+        if (celulasPreenchidas > 0 || historico.getQuantidade() > 0) {
+            throw new IllegalStateException("As regras só podem ser alteradas antes da primeira jogada.");
+        }
+        EstadoTabuleiro estado = tabuleiro.getEstado();
+        hash ^= Zobrist.configuracao(estado.getRegras(), estado.getElementosDasCelulas());
+        estado.setRegras(regras, elementosDasCelulas);
+        hash ^= Zobrist.configuracao(estado.getRegras(), estado.getElementosDasCelulas());
+    }
+
+    public int getRegras() {
+        return tabuleiro.getEstado().getRegras();
+    }
+
+    public Elemento getElementoDaCelula(int linha, int coluna) {
+        return Elemento.doOrdinal(tabuleiro.getEstado().getElementoDaCelula(EstadoTabuleiro.celula(linha, coluna)));
+    }
+
+    /**
+     * Modificador elemental (+1, -1 ou 0) da carta na posição, ou 0 se a posição estiver vazia.
+     */
+    public int getModificadorElemental(int linha, int coluna) {
+        int celula = EstadoTabuleiro.celula(linha, coluna);
+        EstadoTabuleiro estado = tabuleiro.getEstado();
+        return estado.ocupada(celula) ? estado.modificadorElemental(celula, estado.getRanks(celula)) : 0;
+    }
+
+    /**
+     * Monta a posição primitiva equivalente ao estado atual, usada pela busca da IA.
+     * Os slots da mão de cada jogador na posição correspondem aos índices de getCartasNaMao().
+     */
+    public Posicao criarPosicao() {
+        Posicao posicao = new Posicao();
+        EstadoTabuleiro estado = tabuleiro.getEstado();
+        posicao.setRegras(estado.getRegras(), estado.getElementosDasCelulas());
+        for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+            Carta carta = tabuleiro.getCarta(celula);
+            if (carta != null) {
+                posicao.colocarNoTabuleiro(celula, carta.getId(), estado.getRanks(celula), estado.getDono(celula));
+            }
+        }
+        adicionarMaoNaPosicao(posicao, 0, jogador1);
+        adicionarMaoNaPosicao(posicao, 1, jogador2);
+        posicao.setVez(indiceDoJogador(jogadorAtual));
+        return posicao;
+    }
+
+    private void adicionarMaoNaPosicao(Posicao posicao, int indice, Jogador jogador) {
+        List<Carta> mao = jogador.getCartasNaMao();
+        for (int slot = 0; slot < mao.size(); slot++) {
+            Carta carta = mao.get(slot);
+            posicao.colocarNaMao(indice, slot, carta.getId(), EstadoTabuleiro.empacotarRanks(carta));
+        }
+    }
+
     //Metódo que valida todas as jogados dos jogares e vê se são possiveis
-    //Se o metodo for valido, ele define um dono para carta e aplica a regra de batalha
+    //Se o metodo for valido, ele coloca a carta no tabuleiro em nome do jogador e aplica a regra de batalha
 
     public boolean tentarJogarCarta(int linha, int coluna, Carta carta, Jogador jogadorQueJogou) {
         if (jogadorQueJogou != jogadorAtual || tabuleiro.getCarta(linha, coluna) != null || carta == null) {
             return false;
         }
+        int slot = jogadorQueJogou.getCartasNaMao().indexOf(carta);
+        if (slot < 0) {
+            return false; // A carta precisa estar na mão de quem joga
+        }
 
-        boolean sucessoPosicionamento = tabuleiro.colocarCarta(linha, coluna, carta);
-        if (!sucessoPosicionamento) {
-            return false;
+        int celula = EstadoTabuleiro.celula(linha, coluna);
+        int viradas = aplicarJogada(celula, slot, carta, jogadorQueJogou);
+        historico.registrar(celula, slot, indiceDoJogador(jogadorQueJogou), viradas, carta);
+
+        if (jogoFinalizado()) {
+            calcularPontuacaoFinal(); // Garante que a pontuação está correta antes de publicar o fim
         }
+        publicarJogada(celula, slot, carta, indiceDoJogador(jogadorQueJogou), viradas);
+        return true;
+    }
 
-        carta.setDono(jogadorQueJogou);
-        jogadorQueJogou.removerCarta(carta);
+    //Coloca a carta, aplica as capturas, atualiza contadores e hash e troca o jogador da vez
+    //Retorna a máscara das células viradas, que é o que o histórico precisa para desfazer a jogada
 
-        //Troca de jogador após jogada e verifica se o jogo foi finalizado
+    private int aplicarJogada(int celula, int slot, Carta carta, Jogador jogadorQueJogou) {
+        int indice = indiceDoJogador(jogadorQueJogou);
+        tabuleiro.colocarCarta(celula / 3, celula % 3, carta, indice);
+        jogadorQueJogou.getCartasNaMao().remove(slot);
+        celulasPreenchidas++;
+        cartasNoTabuleiro[indice]++;
 
-        virarCartasAdjacentes(linha, coluna, carta, jogadorQueJogou);
+        int viradas = virarCartasAdjacentes(celula / 3, celula % 3, jogadorQueJogou);
+        hash ^= Zobrist.jogada(indice, carta.getId(), celula, viradas);
 
+        //Troca de jogador após jogada
         jogadorAtual = (jogadorAtual == jogador1) ? jogador2 : jogador1;
-        SoundManager.getInstance().playSound(SoundEffect.CARD_PLACED);
-        notifyObservers();
 
-        if (jogoFinalizado()) {
-            calcularPontuacaoFinal(); // Garante que a pontuação está correta e notifica
-            notifyObservers(); // Notifica para exibir o estado final e mensagem de vencedor
+        if (MODO_DEBUG) {
+            verificarConsistencia();
         }
-        return true;
+        return viradas;
     }
 
     //Metodo que pega e compara as cartas para atualizar a pontuação
+    //A comparação dos ranks e a troca de dono são feitas no bitboard do tabuleiro
+
+    private int virarCartasAdjacentes(int linha, int coluna, Jogador jogadorQueJogou) {
+        int indice = indiceDoJogador(jogadorQueJogou);
+        int viradas = tabuleiro.virarAdjacentes(linha, coluna);
+        int quantidadeViradas = Integer.bitCount(viradas);
+        cartasNoTabuleiro[indice] += quantidadeViradas;
+        cartasNoTabuleiro[1 - indice] -= quantidadeViradas;
+        publicarPlacar(); // Atualiza o placar após todas as possíveis viradas da jogada
+        return viradas;
+    }
 
-    private void virarCartasAdjacentes(int linha, int coluna, Carta cartaJogada, Jogador jogadorQueJogou) {
-        int[] dr = {-1, 1, 0, 0}; // Deslocamento nas linhas: Cima, Baixo, Mesmo, Mesmo
-        int[] dc = {0, 0, -1, 1}; // Deslocamento nas colunas: Mesmo, Mesmo, Esquerda, Direita
+    /**
+     * Desfaz a última jogada em O(1): retira a carta do tabuleiro, devolve as células viradas,
+     * recoloca a carta na mesma posição da mão e devolve a vez. Retorna false se não houver jogada.
+     */
+    public boolean desfazerJogada() {
+        if (!historico.podeDesfazer()) {
+            return false;
+        }
+        int indiceHistorico = historico.voltar();
+        int jogada = historico.getJogada(indiceHistorico);
+        Carta carta = historico.getCarta(indiceHistorico);
+        int celula = HistoricoJogadas.celulaDe(jogada);
+        int indice = HistoricoJogadas.jogadorDe(jogada);
+        int viradas = HistoricoJogadas.viradasDe(jogada);
+        Jogador jogador = indice == 0 ? jogador1 : jogador2;
+
+        tabuleiro.removerCarta(celula, viradas);
+        jogador.adicionarCarta(HistoricoJogadas.slotDe(jogada), carta);
+        int quantidadeViradas = Integer.bitCount(viradas);
+        celulasPreenchidas--;
+        cartasNoTabuleiro[indice] -= 1 + quantidadeViradas;
+        cartasNoTabuleiro[1 - indice] += quantidadeViradas;
+        hash ^= Zobrist.jogada(indice, carta.getId(), celula, viradas);
+        jogadorAtual = jogador;
+        publicarPlacar();
+
+        if (MODO_DEBUG) {
+            verificarConsistencia();
+        }
+        if (eventos.temAssinantes()) {
+            eventos.publicar(new EventoJogo.JogadaDesfeita(celula, carta, indice, HistoricoJogadas.slotDe(jogada), viradas), vezOuFim());
+        }
+        return true;
+    }
 
-        for (int i = 0; i < 4; i++) {
-            int nl = linha + dr[i]; // Nova linha (adjacente)
-            int nc = coluna + dc[i]; // Nova coluna (adjacente)
+    /**
+     * Refaz a última jogada desfeita. Retorna false se não houver jogada para refazer.
+     */
+    public boolean refazerJogada() {
+        if (!historico.podeRefazer()) {
+            return false;
+        }
+        int indiceHistorico = historico.avancar();
+        int jogada = historico.getJogada(indiceHistorico);
+        int indice = HistoricoJogadas.jogadorDe(jogada);
+        Jogador jogador = indice == 0 ? jogador1 : jogador2;
+        int celula = HistoricoJogadas.celulaDe(jogada);
+        int slot = HistoricoJogadas.slotDe(jogada);
+        Carta carta = historico.getCarta(indiceHistorico);
+        int viradas = aplicarJogada(celula, slot, carta, jogador);
+        publicarJogada(celula, slot, carta, indice, viradas);
+        return true;
+    }
 
-            if (nl >= 0 && nl < 3 && nc >= 0 && nc < 3) { // Verifica se a posição adjacente está dentro do tabuleiro
-                Carta cartaAdjacente = tabuleiro.getCarta(nl, nc);
-                if (cartaAdjacente != null && cartaAdjacente.getDono() != jogadorQueJogou) {
-                    boolean virou = false;
+    public HistoricoJogadas getHistorico() {
+        return historico;
+    }
 
-                    if (dr[i] == -1 && cartaJogada.getTopo() > cartaAdjacente.getBaixo()) virou = true;       // Checa para CIMA
-                    else if (dr[i] == 1 && cartaJogada.getBaixo() > cartaAdjacente.getTopo()) virou = true;    // Checa para BAIXO
-                    else if (dc[i] == -1 && cartaJogada.getEsquerda() > cartaAdjacente.getDireita()) virou = true; // Checa para ESQUERDA
-                    else if (dc[i] == 1 && cartaJogada.getDireita() > cartaAdjacente.getEsquerda()) virou = true;  // Checa para DIREITA
+    /**
+     * Cartas do jogador de índice dado sorteadas para serem mostradas ao oponente, incluindo as que já
+     * foram jogadas (ao contrário de {@link #getReveladasDoOponenteParaJogador}). Usado pelo InstantaneoJogo.
+     */
+    List<Carta> getReveladas(int indice) {
+        return indice == 0 ? reveladasJogador1ParaJogador2 : reveladasJogador2ParaJogador1;
+    }
 
-                    if (virou) {
-                        cartaAdjacente.setDono(jogadorQueJogou);
-                    }
-                }
+    // Usado pelo InstantaneoJogo depois de setRegras, das mãos e das cartas do tabuleiro (postas com Tabuleiro.colocarCarta):
+    // ajusta a vez e recalcula os contadores e o hash a partir do estado restaurado
+    void concluirRestauracao(int vez) {
+        jogadorAtual = vez == 0 ? jogador1 : jogador2;
+        recalcularPlacar();
+        EstadoTabuleiro estado = tabuleiro.getEstado();
+        long chave = hashDasMaos() ^ Zobrist.configuracao(estado.getRegras(), estado.getElementosDasCelulas())
+                ^ Zobrist.donos(estado.getDonos() & estado.getOcupacao());
+        for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+            Carta carta = tabuleiro.getCarta(celula);
+            if (carta != null) {
+                chave ^= Zobrist.cartaNaCelula(celula, carta.getId());
             }
         }
-        atualizarPlacarComBaseNoTabuleiro(); // Atualiza o placar após todas as possíveis viradas da jogada
+        hash = vez == 1 ? chave ^ Zobrist.vezDoJogador2() : chave;
+    }
+
+    /**
+     * Hash de Zobrist da posição atual (tabuleiro, mãos e vez), igual ao de {@link #criarPosicao()}.
+     */
+    public long getHash() {
+        return hash;
     }
 
-    //Calcula a pontuação de cada jogador somando as cartas na mão com as do tabuleiro
+    // Pontuação = cartas na mão + cartas controladas no tabuleiro, a partir dos contadores incrementais
+    private void publicarPlacar() {
+        if (jogador1 == null || jogador2 == null) return;
+        jogador1.setPontuacao(jogador1.getCartasNaMao().size() + cartasNoTabuleiro[0]);
+        jogador2.setPontuacao(jogador2.getCartasNaMao().size() + cartasNoTabuleiro[1]);
+    }
 
-    private void atualizarPlacarComBaseNoTabuleiro() {
-        if (jogador1 == null || jogador2 == null || tabuleiro == null) return;
+    // Índice usado pelo bitboard: 0 para o jogador1 e 1 para o jogador2
+    private int indiceDoJogador(Jogador jogador) {
+        return jogador == jogador1 ? 0 : 1;
+    }
 
-        int cartasJ1NoTabuleiro = 0;
-        int cartasJ2NoTabuleiro = 0;
+    //Recontagem completa: varre as 9 células e devolve {cartas do jogador1, cartas do jogador2, células preenchidas}
 
+    private int[] contarTabuleiroCompleto() {
+        int[] contagem = new int[3];
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                Carta c = tabuleiro.getCarta(i, j);
-                if (c != null && c.getDono() != null) {
-                    if (c.getDono().equals(jogador1)) {
-                        cartasJ1NoTabuleiro++;
-                    } else if (c.getDono().equals(jogador2)) {
-                        cartasJ2NoTabuleiro++;
-                    }
+                Jogador dono = getDonoDaCelula(i, j);
+                if (dono == jogador1) {
+                    contagem[0]++;
+                } else if (dono == jogador2) {
+                    contagem[1]++;
+                }
+                if (tabuleiro.getCarta(i, j) != null) {
+                    contagem[2]++;
                 }
             }
         }
-        int pontuacaoJ1 = jogador1.getCartasNaMao().size() + cartasJ1NoTabuleiro;
-        int pontuacaoJ2 = jogador2.getCartasNaMao().size() + cartasJ2NoTabuleiro;
-
-        jogador1.setPontuacao(pontuacaoJ1);
-        jogador2.setPontuacao(pontuacaoJ2);
+        return contagem;
     }
 
     //Confere se o tabuleiro está cheio, se sim, o jogo finaliza e ele traz o efeito sonoro de vitória caso um jogador ganhe
 
     public boolean jogoFinalizado() {
         if (tabuleiro == null) return true;
-        int count = 0;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                if (tabuleiro.getCarta(i, j) != null) {
-                    count++;
-                }
-            }
-        }
-        return count == 9;
+        return celulasPreenchidas == EstadoTabuleiro.NUM_CELULAS;
+    }
+
+    public int getCelulasPreenchidas() {
+        return celulasPreenchidas;
+    }
+
+    /**
+     * Placar atual do jogador (cartas na mão + cartas controladas no tabuleiro), em O(1).
+     */
+    public int getPlacar(Jogador jogador) {
+        return jogador.getCartasNaMao().size() + cartasNoTabuleiro[indiceDoJogador(jogador)];
     }
 
     private void calcularPontuacaoFinal() {
 
-        atualizarPlacarComBaseNoTabuleiro(); // Garante a atualização final
+        publicarPlacar(); // Garante a atualização final
+    }
+
+    /**
+     * Recalcula o placar dos dois jogadores varrendo o tabuleiro inteiro e ressincroniza os contadores incrementais.
+     */
+    public void recalcularPlacar() {
+        if (tabuleiro == null) return;
+        int[] contagem = contarTabuleiroCompleto();
+        cartasNoTabuleiro[0] = contagem[0];
+        cartasNoTabuleiro[1] = contagem[1];
+        celulasPreenchidas = contagem[2];
+        publicarPlacar();
+    }
+
+    /**
+     * Compara os contadores incrementais e o hash de Zobrist com uma recontagem completa da posição.
+     * Lança IllegalStateException se divergirem. Chamado a cada jogada no modo debug (-Dtripletriad.debug=true).
+     */
+    public void verificarConsistencia() {
+        int[] contagem = contarTabuleiroCompleto();
+        if (contagem[0] != cartasNoTabuleiro[0] || contagem[1] != cartasNoTabuleiro[1] || contagem[2] != celulasPreenchidas) {
+            throw new IllegalStateException(String.format(
+                    "Placar incremental inconsistente: J1 %d/%d, J2 %d/%d, preenchidas %d/%d (incremental/recontagem)",
+                    cartasNoTabuleiro[0], contagem[0], cartasNoTabuleiro[1], contagem[1], celulasPreenchidas, contagem[2]));
+        }
+        long hashCompleto = criarPosicao().getHash();
+        if (hashCompleto != hash) {
+            throw new IllegalStateException(String.format(
+                    "Hash incremental inconsistente: %016x (incremental) / %016x (recalculado)", hash, hashCompleto));
+        }
     }
 
     public SoundEffect determineEndGameSound() {
@@ -0,0 +1,14 @@
+package tripletriad.controller;
+
+import java.util.List;
+
+/**
+ * Interface para quem precisa ser notificado quando o estado de um {@link Jogo} muda,
+ * como as janelas dos jogadores humanos e o jogador controlado pela IA.
+ * Os eventos chegam pelo {@link BarramentoEventos} do jogo, no executor escolhido ao assinar,
+ * agrupados: cada chamada traz todos os eventos publicados desde a anterior, em ordem.
+ */
+
+public interface ObservadorJogo {
+    void jogoAtualizado(List<EventoJogo> eventos);
+}
@@ -0,0 +1,65 @@
+package tripletriad.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pedidos de revanche dos dois jogadores de uma partida terminada. Todo o estado fica em um único
+ * AtomicInteger (um bit por jogador e um bit de cancelada), então os dois lados podem pedir ou desistir
+ * ao mesmo tempo, de qualquer thread, sem lock: exatamente um pedido recebe {@link Resultado#ACEITA}.
+ * Cada partida tem os seus pedidos, então vários pares podem negociar revanches em paralelo.
+ */
+
+public final class PedidosRevanche {
+
+    public enum Resultado {
+        /** Pedido registrado; falta o oponente. */
+        AGUARDANDO_OPONENTE,
+        /** O jogador já tinha pedido. */
+        REPETIDO,
+        /** Este pedido completou o par: quem o recebeu inicia a revanche. */
+        ACEITA,
+        /** O oponente desistiu (ou a revanche já foi iniciada). */
+        INDISPONIVEL
+    }
+
+    private static final int AMBOS = 0b011;
+    private static final int CANCELADA = 0b100;
+
+    private final AtomicInteger estado = new AtomicInteger();
+
+    /**
+     * Registra o pedido do jogador (0 ou 1).
+     */
+    public Resultado pedir(int jogador) {
+        int bit = 1 << jogador;
+        int anterior = estado.getAndUpdate(atual -> (atual & CANCELADA) != 0 || atual == AMBOS ? atual : atual | bit);
+        if ((anterior & CANCELADA) != 0 || anterior == AMBOS) {
+            return anterior == AMBOS ? Resultado.REPETIDO : Resultado.INDISPONIVEL;
+        }
+        if ((anterior & bit) != 0) {
+            return Resultado.REPETIDO;
+        }
+        return (anterior | bit) == AMBOS ? Resultado.ACEITA : Resultado.AGUARDANDO_OPONENTE;
+    }
+
+    /**
+     * Um dos jogadores desistiu da revanche. Retorna true se esta chamada a cancelou; false se ela já
+     * estava cancelada ou já tinha sido aceita (nesse caso quem recebeu ACEITA cuida da nova partida).
+     */
+    public boolean cancelar() {
+        int anterior = estado.getAndUpdate(atual -> atual == AMBOS ? atual : atual | CANCELADA);
+        return anterior != AMBOS && (anterior & CANCELADA) == 0;
+    }
+
+    public boolean isPedida(int jogador) {
+        return (estado.get() & 1 << jogador) != 0;
+    }
+
+    public boolean isAceita() {
+        return estado.get() == AMBOS;
+    }
+
+    public boolean isCancelada() {
+        return (estado.get() & CANCELADA) != 0;
+    }
+}
@@ -0,0 +1,94 @@
+package tripletriad.gui;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Camada transparente sobre a janela (instalada como glass pane) onde as cartas jogadas deslizam até o slot.
+ * Só fica visível enquanto há cartas em movimento, e não trata eventos de mouse, então os cliques
+ * continuam chegando aos painéis de baixo. O {@link CardAnimator} move as cartas e repinta só a região suja.
+ */
+
+public class AnimationLayer extends JComponent {
+
+    /**
+     * Uma carta em movimento: o painel de destino (que sabe desenhar a carta), a origem e a posição atual.
+     */
+    static final class Flight {
+        final GameCardPanel card;
+        final Rectangle from;
+        final Rectangle current;
+
+        Flight(GameCardPanel card, Rectangle from) {
+            this.card = card;
+            this.from = new Rectangle(from);
+            this.current = new Rectangle(from);
+        }
+    }
+
+    private final List<Flight> flights = new ArrayList<>();
+
+    public AnimationLayer() {
+        setOpaque(false);
+        setVisible(false);
+    }
+
+    Flight addFlight(GameCardPanel card, Rectangle from) {
+        Flight flight = new Flight(card, from);
+        flights.add(flight);
+        setVisible(true);
+        repaint(flight.current);
+        return flight;
+    }
+
+    /**
+     * Move a carta para a fração t (0 a 1) do caminho entre a origem e o slot; retorna a nova área ocupada.
+     */
+    Rectangle moveFlight(Flight flight, float t) {
+        Rectangle to = targetBounds(flight.card);
+        flight.current.setBounds(
+                Math.round(flight.from.x + (to.x - flight.from.x) * t),
+                Math.round(flight.from.y + (to.y - flight.from.y) * t),
+                to.width,
+                to.height);
+        return new Rectangle(flight.current);
+    }
+
+    void removeFlight(Flight flight) {
+        flights.remove(flight);
+        repaint(flight.current);
+        if (flights.isEmpty()) {
+            setVisible(false);
+        }
+    }
+
+    /**
+     * Área do painel nas coordenadas desta camada.
+     */
+    Rectangle targetBounds(JComponent panel) {
+        return SwingUtilities.convertRectangle(panel.getParent(), panel.getBounds(), this);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        Rectangle clip = g.getClipBounds();
+        for (Flight flight : flights) {
+            if (clip != null && !clip.intersects(flight.current)) {
+                continue;
+            }
+            Graphics2D g2d = (Graphics2D) g.create(flight.current.x, flight.current.y, flight.current.width, flight.current.height);
+            try {
+                flight.card.paintCardOn(g2d, flight.current.width, flight.current.height);
+            } finally {
+                g2d.dispose();
+            }
+        }
+        CardAnimator.getInstance().getStats().paint(System.nanoTime() - start);
+    }
+}
@@ -1,42 +1,75 @@
 package tripletriad.gui; // Ou o pacote onde você quer colocar esta classe
 
+import tripletriad.util.ImageCache;
+import tripletriad.util.ImagePreloader;
+import tripletriad.util.ImageScaler;
+
 import javax.swing.*;
 import java.awt.*;
-import java.io.IOException;
-import javax.imageio.ImageIO;
-import java.net.URL;
 
 /**
  * Um JPanel customizado que desenha uma imagem de fundo.
  * A imagem é carregada a partir de um caminho de recurso especificado
  * e é redimensionada para preencher todo o painel.
+ * O carregamento é feito pelo `ImagePreloader`; até a imagem chegar, o painel fica cinza-escuro.
+ *
+ * A imagem não é escalada a cada pintura: o painel guarda uma variante já no tamanho em pixels da tela
+ * (tamanho do painel x escala HiDPI), e pintar é uma cópia 1:1. Durante um redimensionamento, a variante
+ * anterior é esticada rapidamente e a nova só é gerada quando o tamanho para de mudar por RESCALE_DELAY_MS.
  */
 
 public class BackgroundPanel extends JPanel {
 
+    private static final int RESCALE_DELAY_MS = 150;
+
     private Image backgroundImage;
+    private Image scaledImage; // Variante no tamanho em pixels da tela; null até a primeira pintura
+    private boolean rescaleDue = false;
+    private final Timer rescaleTimer = new Timer(RESCALE_DELAY_MS, e -> {
+        rescaleDue = true;
+        repaint();
+    });
 
     public BackgroundPanel(String imagePath) {
-        try {
-            URL imageUrl = getClass().getResource(imagePath);
-            if (imageUrl == null) {
-                System.err.println("Recurso de imagem não encontrado: " + imagePath);
-                setBackground(Color.DARK_GRAY);
-            } else {
-                backgroundImage = ImageIO.read(imageUrl);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.err.println("Erro ao carregar a imagem de fundo: " + imagePath);
-            setBackground(Color.DARK_GRAY);
+        rescaleTimer.setRepeats(false);
+        setBackground(Color.DARK_GRAY);
+        backgroundImage = ImageCache.getCachedImage(imagePath);
+        if (backgroundImage == null) {
+            ImagePreloader.load(imagePath).thenAccept(image -> {
+                if (image == null) {
+                    System.err.println("Erro ao carregar a imagem de fundo: " + imagePath);
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> {
+                    backgroundImage = image;
+                    scaledImage = null;
+                    repaint();
+                });
+            });
         }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (backgroundImage != null) {
-            g.drawImage(backgroundImage, 0, 0, getWidth(), getHeight(), this);
+        int width = getWidth();
+        int height = getHeight();
+        if (backgroundImage == null || width <= 0 || height <= 0) {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g;
+        int pixelWidth = ImageScaler.devicePixels(width, g2d.getTransform().getScaleX());
+        int pixelHeight = ImageScaler.devicePixels(height, g2d.getTransform().getScaleY());
+        if (scaledImage == null || scaledImage.getWidth(null) != pixelWidth || scaledImage.getHeight(null) != pixelHeight) {
+            if (scaledImage != null && !rescaleDue) {
+                // Ainda redimensionando: estica a variante antiga e deixa a nova para quando o tamanho estabilizar
+                g2d.drawImage(scaledImage, 0, 0, width, height, null);
+                rescaleTimer.restart();
+                return;
+            }
+            scaledImage = ImageScaler.scale(backgroundImage, pixelWidth, pixelHeight, g2d.getDeviceConfiguration());
+            rescaleDue = false;
         }
+        g2d.drawImage(scaledImage, 0, 0, width, height, null);
     }
-}
\ No newline at end of file
+}
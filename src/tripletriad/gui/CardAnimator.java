@@ -0,0 +1,190 @@
+package tripletriad.gui;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Animações de cartas (chegada ao tabuleiro e giro ao trocar de dono), movidas por um único
+ * javax.swing.Timer compartilhado por todas as janelas. O timer só roda enquanto há animações ativas
+ * e agrupa os quadros atrasados (coalesce), então uma EDT ocupada pula quadros em vez de acumulá-los.
+ *
+ * Cada quadro não repinta a janela: cada animação pede o repaint só da sua região suja
+ * (união da área desenhada no quadro anterior com a do quadro atual), e o RepaintManager junta
+ * essas regiões em uma pintura. As cartas vêm do {@link CardSpriteCache}, então cada quadro custa
+ * alguns drawImage.
+ *
+ * As animações podem ser desligadas com -Dtripletriad.animations=false; com -Dtripletriad.debug=true,
+ * as estatísticas de quadros ({@link FrameStats}) são impressas quando as animações terminam.
+ * Deve ser usado só na EDT.
+ */
+
+public final class CardAnimator {
+    public static final int FRAME_MS = 16; // ~60 quadros por segundo
+    public static final int SLIDE_MS = 220;
+    public static final int FLIP_MS = 320;
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("tripletriad.animations"));
+    private static final boolean DEBUG = Boolean.getBoolean("tripletriad.debug");
+    private static final CardAnimator INSTANCE = new CardAnimator();
+
+    private final Timer timer = new Timer(FRAME_MS, e -> tick());
+    private final List<Animation> active = new ArrayList<>();
+    private final FrameStats stats = new FrameStats(FRAME_MS);
+
+    private abstract static class Animation {
+        final GameCardPanel panel;
+        final long startNanos;
+        final long durationNanos;
+        Rectangle lastDirty; // Região desenhada no quadro anterior, nas coordenadas de dirtyTarget()
+
+        Animation(GameCardPanel panel, long startNanos, int durationMs) {
+            this.panel = panel;
+            this.startNanos = startNanos;
+            this.durationNanos = durationMs * 1_000_000L;
+        }
+
+        // Avança para o progresso t (0 a 1) e retorna a região que ficou suja
+        abstract Rectangle apply(float t);
+
+        abstract JComponent dirtyTarget();
+
+        abstract void finish();
+    }
+
+    private CardAnimator() {
+        timer.setCoalesce(true);
+    }
+
+    public static CardAnimator getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Gira a carta do painel, mostrando a tintura antiga na primeira metade. Com delayMs, o giro começa
+     * depois (por exemplo, quando a carta jogada termina de chegar ao slot).
+     */
+    public void flip(GameCardPanel panel, int fromTint, int delayMs) {
+        if (!ENABLED || !panel.isShowing()) {
+            panel.repaint();
+            return;
+        }
+        cancel(panel);
+        panel.setFlipState(0f, fromTint); // Até o giro começar, a carta continua com a tintura antiga
+        start(new Animation(panel, System.nanoTime() + delayMs * 1_000_000L, FLIP_MS) {
+            @Override
+            Rectangle apply(float t) {
+                panel.setFlipState(t, fromTint);
+                return panel.flipBounds();
+            }
+
+            @Override
+            JComponent dirtyTarget() {
+                return panel;
+            }
+
+            @Override
+            void finish() {
+                panel.setFlipState(-1f, 0);
+                panel.repaint();
+            }
+        });
+        panel.repaint();
+    }
+
+    /**
+     * Faz a carta do slot deslizar pela camada de animação, da posição de origem (nas coordenadas da camada)
+     * até o slot. Enquanto isso o slot fica desenhado vazio.
+     */
+    public void slide(AnimationLayer layer, GameCardPanel target, Rectangle from) {
+        if (!ENABLED || layer == null || from == null || !target.isShowing()) {
+            target.repaint();
+            return;
+        }
+        cancel(target);
+        AnimationLayer.Flight flight = layer.addFlight(target, from);
+        target.setArriving(true);
+        target.repaint();
+        start(new Animation(target, System.nanoTime(), SLIDE_MS) {
+            @Override
+            Rectangle apply(float t) {
+                return layer.moveFlight(flight, easeOut(t));
+            }
+
+            @Override
+            JComponent dirtyTarget() {
+                return layer;
+            }
+
+            @Override
+            void finish() {
+                layer.removeFlight(flight);
+                target.setArriving(false);
+                target.repaint();
+            }
+        });
+    }
+
+    private static float easeOut(float t) {
+        float inverse = 1f - t;
+        return 1f - inverse * inverse * inverse;
+    }
+
+    private void start(Animation animation) {
+        active.add(animation);
+        if (!timer.isRunning()) {
+            stats.begin();
+            timer.start();
+        }
+    }
+
+    // Uma nova animação do mesmo painel termina a anterior na hora (ex: a carta gira de novo em uma cadeia de COMBO)
+    private void cancel(GameCardPanel panel) {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            if (active.get(i).panel == panel) {
+                active.remove(i).finish();
+            }
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Animation animation = active.get(i);
+            float t = (float) (now - animation.startNanos) / animation.durationNanos;
+            if (t >= 1f || !animation.dirtyTarget().isShowing()) {
+                active.remove(i);
+                animation.finish();
+                continue;
+            }
+            if (t < 0f) {
+                continue; // Ainda esperando o atraso inicial
+            }
+            Rectangle dirty = animation.apply(t);
+            Rectangle region = animation.lastDirty != null ? dirty.union(animation.lastDirty) : dirty;
+            animation.dirtyTarget().repaint(region.x, region.y, region.width, region.height);
+            animation.lastDirty = dirty;
+        }
+        stats.frame(now, System.nanoTime() - now);
+        if (active.isEmpty()) {
+            timer.stop();
+            if (DEBUG) {
+                System.out.println(stats.describe());
+            }
+        }
+    }
+
+    public boolean isAnimating() {
+        return !active.isEmpty();
+    }
+
+    public FrameStats getStats() {
+        return stats;
+    }
+}
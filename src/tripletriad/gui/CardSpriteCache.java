@@ -0,0 +1,187 @@
+package tripletriad.gui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache dos sprites de cartas já renderizados, usado pelo {@link GameCardPanel}.
+ * Cada sprite é renderizado uma vez em uma BufferedImage na resolução do dispositivo (tamanho x fator de escala).
+ * Quando há tela, ele também é copiado para uma VolatileImage, para cópias aceleradas.
+ * Pintar uma carta que está no cache é um único drawImage.
+ *
+ * A chave junta tudo o que muda a aparência da carta (ver {@link #key}).
+ * O cache é um LRU limitado a MAX_SPRITES entradas.
+ * Sprites renderizados em outra escala não batem mais com a chave e saem por idade.
+ * Mudar de tela (GraphicsDevice) limpa o cache inteiro.
+ * Deve ser usado só na thread de pintura (EDT).
+ */
+
+public final class CardSpriteCache {
+    private static final int MAX_SPRITES = 128;
+
+    private static final CardSpriteCache INSTANCE = new CardSpriteCache();
+
+    /**
+     * Desenha o conteúdo da carta no tamanho lógico; o cache aplica o fator de escala antes.
+     */
+    public interface SpriteRenderer {
+        void render(Graphics2D g2d, int width, int height);
+    }
+
+    private static final class Sprite {
+        final BufferedImage image;
+        VolatileImage accelerated;
+
+        Sprite(BufferedImage image) {
+            this.image = image;
+        }
+    }
+
+    private final Map<Long, Sprite> sprites = new LinkedHashMap<>(MAX_SPRITES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Sprite> eldest) {
+            if (size() > MAX_SPRITES) {
+                flush(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private GraphicsDevice lastDevice;
+    private long hits;
+    private long misses;
+
+    private CardSpriteCache() {
+    }
+
+    public static CardSpriteCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Monta a chave do sprite: id da carta (0 = sem carta), tintura do dono (0 nenhum, 1 jogador 1, 2 jogador 2),
+     * se está virada para baixo, modificador elemental (-1, 0, +1), elemento da célula, se a arte da carta
+     * (fundo e imagem do monstro) já estava carregada, tamanho lógico e fator de escala (em centésimos).
+     */
+    public static long key(int cardId, int tint, boolean faceDown, int modifier, int cellElement,
+                           boolean artLoaded, int width, int height, double scale) {
+        long scaleHundredths = Math.min(1023, Math.round(scale * 100));
+        return (cardId & 0xFFFFL)
+                | (long) (tint & 0x3) << 16
+                | (faceDown ? 1L : 0L) << 18
+                | (long) ((modifier + 1) & 0x3) << 19
+                | (long) (cellElement & 0xF) << 21
+                | (artLoaded ? 1L : 0L) << 25
+                | (long) (width & 0xFFF) << 26
+                | (long) (height & 0xFFF) << 38
+                | scaleHundredths << 50;
+    }
+
+    /**
+     * Desenha o sprite da chave em (0, 0) no tamanho lógico, renderizando-o antes se não estiver no cache.
+     */
+    public void draw(Graphics2D g2d, long key, int width, int height, double scale,
+                     GraphicsConfiguration gc, SpriteRenderer renderer) {
+        if (gc != null && gc.getDevice() != lastDevice) {
+            clear(); // Outra tela: as imagens aceleradas e o formato dos pixels não valem mais
+            lastDevice = gc.getDevice();
+        }
+
+        Sprite sprite = sprites.get(key);
+        if (sprite == null) {
+            misses++;
+            sprite = new Sprite(render(width, height, scale, gc, renderer));
+            sprites.put(key, sprite);
+        } else {
+            hits++;
+        }
+
+        if (gc != null && !GraphicsEnvironment.isHeadless() && drawAccelerated(g2d, sprite, width, height, gc)) {
+            return;
+        }
+        g2d.drawImage(sprite.image, 0, 0, width, height, null);
+    }
+
+    private static BufferedImage render(int width, int height, double scale, GraphicsConfiguration gc, SpriteRenderer renderer) {
+        int pixelWidth = Math.max(1, (int) Math.ceil(width * scale));
+        int pixelHeight = Math.max(1, (int) Math.ceil(height * scale));
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT)
+                : new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(scale, scale);
+            renderer.render(g, width, height);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    // Retorna false se a cópia acelerada não pôde ser usada, e então quem chama desenha a BufferedImage
+    private static boolean drawAccelerated(Graphics2D g2d, Sprite sprite, int width, int height, GraphicsConfiguration gc) {
+        BufferedImage source = sprite.image;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (sprite.accelerated == null
+                    || sprite.accelerated.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                flush(sprite);
+                sprite.accelerated = gc.createCompatibleVolatileImage(source.getWidth(), source.getHeight(), Transparency.TRANSLUCENT);
+                if (sprite.accelerated == null) {
+                    return false;
+                }
+                copyInto(sprite.accelerated, source);
+            } else if (sprite.accelerated.contentsLost()) {
+                copyInto(sprite.accelerated, source);
+            }
+            g2d.drawImage(sprite.accelerated, 0, 0, width, height, null);
+            if (!sprite.accelerated.contentsLost()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void copyInto(VolatileImage target, BufferedImage source) {
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src); // Substitui os pixels antigos, inclusive a transparência
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static void flush(Sprite sprite) {
+        if (sprite.accelerated != null) {
+            sprite.accelerated.flush();
+            sprite.accelerated = null;
+        }
+    }
+
+    public void clear() {
+        for (Sprite sprite : sprites.values()) {
+            flush(sprite);
+        }
+        sprites.clear();
+    }
+
+    public int size() {
+        return sprites.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
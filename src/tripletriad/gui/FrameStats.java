@@ -0,0 +1,91 @@
+package tripletriad.gui;
+
+import java.util.Locale;
+
+/**
+ * Estatísticas de quadros do {@link CardAnimator}: intervalo entre quadros (de onde sai a taxa de quadros),
+ * pior intervalo, quadros atrasados (intervalo acima de 1,5 vez o período alvo) e o tempo gasto em cada quadro,
+ * somando o passo do timer e a pintura das regiões animadas.
+ * Acumula desde o início do programa; o intervalo entre o fim de uma animação e o início da próxima não conta.
+ */
+
+public final class FrameStats {
+    private final long targetNanos;
+    private long lastFrameNanos = -1;
+    private long frames;
+    private long intervals;
+    private long totalIntervalNanos;
+    private long worstIntervalNanos;
+    private long lateFrames;
+    private long totalWorkNanos;
+    private long worstWorkNanos;
+    private long totalPaintNanos;
+
+    FrameStats(int targetFrameMs) {
+        this.targetNanos = targetFrameMs * 1_000_000L;
+    }
+
+    // Chamado quando o timer volta a rodar: o próximo quadro não tem intervalo anterior
+    void begin() {
+        lastFrameNanos = -1;
+    }
+
+    void frame(long startNanos, long workNanos) {
+        frames++;
+        totalWorkNanos += workNanos;
+        worstWorkNanos = Math.max(worstWorkNanos, workNanos);
+        if (lastFrameNanos >= 0) {
+            long interval = startNanos - lastFrameNanos;
+            intervals++;
+            totalIntervalNanos += interval;
+            worstIntervalNanos = Math.max(worstIntervalNanos, interval);
+            if (interval * 2 > targetNanos * 3) {
+                lateFrames++;
+            }
+        }
+        lastFrameNanos = startNanos;
+    }
+
+    // Pintura de uma carta animada (giro ou deslize), acumulada na pintura média por quadro
+    void paint(long paintNanos) {
+        totalPaintNanos += paintNanos;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getLateFrames() {
+        return lateFrames;
+    }
+
+    public double getAverageIntervalMs() {
+        return intervals == 0 ? 0 : totalIntervalNanos / 1e6 / intervals;
+    }
+
+    public double getWorstIntervalMs() {
+        return worstIntervalNanos / 1e6;
+    }
+
+    public double getFramesPerSecond() {
+        return totalIntervalNanos == 0 ? 0 : intervals * 1e9 / totalIntervalNanos;
+    }
+
+    public double getAverageWorkMs() {
+        return frames == 0 ? 0 : totalWorkNanos / 1e6 / frames;
+    }
+
+    public double getWorstWorkMs() {
+        return worstWorkNanos / 1e6;
+    }
+
+    public double getAveragePaintMs() {
+        return frames == 0 ? 0 : totalPaintNanos / 1e6 / frames;
+    }
+
+    public String describe() {
+        return String.format(Locale.ROOT, "Animações: %d quadros, %.1f fps (intervalo médio %.2f ms, pior %.2f ms), %d atrasados, timer %.3f ms (pior %.3f ms) e pintura %.3f ms por quadro",
+                frames, getFramesPerSecond(), getAverageIntervalMs(), getWorstIntervalMs(), lateFrames,
+                getAverageWorkMs(), getWorstWorkMs(), getAveragePaintMs());
+    }
+}
@@ -1,17 +1,19 @@
 package tripletriad.gui;
 
 import tripletriad.model.Carta;
+import tripletriad.model.Elemento;
 import tripletriad.model.Jogador; // Necessário para comparar dono
 import tripletriad.controller.Jogo; // Necessário para pegar J1 e J2
+import tripletriad.util.CardAtlas;
 import tripletriad.util.ImageCache;
+import tripletriad.util.ImagePreloader;
+import tripletriad.util.ImageScaler;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.IOException;
-import java.net.URL;
-import javax.imageio.ImageIO;
 
 /**
  * Um painel customizado (JPanel) projetado para exibir uma única carta do jogo Triple Triad.
@@ -20,7 +22,9 @@ import javax.imageio.ImageIO;
  * - Indicar visualmente a qual jogador uma carta no tabuleiro pertence (através de uma tintura de cor).
  * - Lidar com interações do mouse, como cliques para selecionar uma carta na mão do jogador
  * ou para tentar jogar uma carta em um slot do tabuleiro.
- * Utiliza `ImageCache` para carregar eficientemente as imagens das cartas.
+ * Utiliza `ImageCache` para carregar eficientemente as imagens das cartas, e a arte dos monstros vem de uma região do `CardAtlas`.
+ * A pintura nunca lê o disco: enquanto a imagem não chega do `ImagePreloader`, a carta mostra um
+ * marcador no lugar da arte e é redesenhada quando a imagem fica pronta.
  */
 
 public class GameCardPanel extends JPanel {
@@ -36,12 +40,32 @@ public class GameCardPanel extends JPanel {
     private static final int NAME_FONT_SIZE = 15;
     private static final Color RANK_COLOR = Color.WHITE;
     private static final Color NAME_COLOR = Color.WHITE;
+    private static final Font RANK_FONT = new Font("Arial", Font.BOLD, RANK_FONT_SIZE);
+    private static final Font NAME_FONT = new Font("Arial", Font.BOLD, NAME_FONT_SIZE);
+    private static final Font EMPTY_FONT = new Font("Arial", Font.ITALIC, 12);
+    private static final Color FACE_DOWN_COLOR = new Color(0, 0, 150);
+    private static final Color EMPTY_SLOT_COLOR = new Color(200, 200, 200, 100);
+    private static final Color PLAYER1_TINT = new Color(0, 100, 255, 70);
+    private static final Color PLAYER2_TINT = new Color(255, 50, 50, 70);
+
+    // Bordas de seleção compartilhadas; a borda vazia tem a mesma espessura, então trocar a seleção não muda o layout
+    private static final int SELECTION_BORDER_THICKNESS = 3;
+    private static final Border NO_SELECTION_BORDER = BorderFactory.createEmptyBorder(
+            SELECTION_BORDER_THICKNESS, SELECTION_BORDER_THICKNESS, SELECTION_BORDER_THICKNESS, SELECTION_BORDER_THICKNESS);
+    private static final Border PLAYER1_SELECTION_BORDER = BorderFactory.createLineBorder(Color.CYAN, SELECTION_BORDER_THICKNESS);
+    private static final Border PLAYER2_SELECTION_BORDER = BorderFactory.createLineBorder(Color.RED, SELECTION_BORDER_THICKNESS);
+    private static final Border OTHER_SELECTION_BORDER = BorderFactory.createLineBorder(Color.YELLOW, SELECTION_BORDER_THICKNESS);
 
     private TripleTriadGUI guiInstance;
     private boolean isBoardSlot;
     private int boardRow = -1, boardCol = -1;
     private int handIndex = -1;
 
+    // Estado de animação controlado pelo CardAnimator
+    private float flipProgress = -1f;
+    private int flipFromTint;
+    private boolean arriving;
+
     public GameCardPanel(Carta carta, Dimension preferredSize, boolean isFaceDown,
                          TripleTriadGUI gui, boolean isBoardSlot, int id1, int id2) {
         this.carta = carta;
@@ -89,58 +113,198 @@ public class GameCardPanel extends JPanel {
     public void definirDestaqueSelecao(boolean selecionado, Jogador jogadorDestaGui, Jogo jogo) {
         if (selecionado && this.carta != null && jogadorDestaGui != null && jogo != null && jogo.getJogador1() != null && jogo.getJogador2() != null) {
             if (jogadorDestaGui == jogo.getJogador1()) {
-                setBorder(BorderFactory.createLineBorder(Color.CYAN, 3));
+                setBorder(PLAYER1_SELECTION_BORDER);
             } else if (jogadorDestaGui == jogo.getJogador2()) {
-                setBorder(BorderFactory.createLineBorder(Color.RED, 3));
+                setBorder(PLAYER2_SELECTION_BORDER);
             } else {
-                setBorder(BorderFactory.createLineBorder(Color.YELLOW, 3));
+                setBorder(OTHER_SELECTION_BORDER);
             }
         } else {
-            setBorder(null);
+            setBorder(NO_SELECTION_BORDER);
         }
         repaint();
     }
 
 
-    private String formatCardId(int id) {
-        return String.format("%03d", id);
+    private int monsterId() {
+        return (this.carta != null && !this.isFaceDown) ? this.carta.getId() : -1;
     }
 
+    // Só usa imagens que já estão carregadas; as que faltam são pedidas ao ImagePreloader e chegam pela EDT
     private void loadImages() {
-        this.cardBackgroundImage = ImageCache.getCardBackgroundImage();
+        this.cardBackgroundImage = ImageCache.getCachedImage(ImageCache.CARD_BACKGROUND_PATH);
         if (this.cardBackgroundImage == null) {
-            System.err.println("Falha ao carregar imagem de fundo da carta do cache.");
+            ImagePreloader.load(ImageCache.CARD_BACKGROUND_PATH).thenAccept(image -> {
+                if (image != null) {
+                    SwingUtilities.invokeLater(() -> {
+                        this.cardBackgroundImage = image;
+                        repaint();
+                    });
+                }
+            });
         }
 
         this.monsterImage = null;
-        if (this.carta != null && !this.isFaceDown) {
-            String monsterImagePath = "/resources/images/card_art/monsters/" + formatCardId(this.carta.getId()) + ".png";
-            this.monsterImage = ImageCache.getImage(monsterImagePath);
-            if (this.monsterImage == null) {
-                System.err.println("Falha ao carregar imagem do monstro '" + monsterImagePath + "' do cache para ID " + this.carta.getId());
-            }
+        if (monsterId() < 0) {
+            return;
+        }
+        CardAtlas atlas = ImagePreloader.getCardAtlas();
+        if (atlas != null) {
+            this.monsterImage = atlas.getRegion(monsterId());
+        } else {
+            ImagePreloader.loadCardAtlas().thenAccept(loaded -> {
+                if (loaded != null) {
+                    SwingUtilities.invokeLater(() -> atlasArrived(loaded));
+                }
+            });
+        }
+    }
+
+    // A carta pode ter mudado enquanto o atlas carregava; usa a carta atual
+    private void atlasArrived(CardAtlas atlas) {
+        if (monsterId() >= 0 && this.monsterImage == null) {
+            this.monsterImage = atlas.getRegion(monsterId());
+            repaint();
+        }
+    }
+
+
+    private Elemento elementoDaCelula() {
+        if (!isBoardSlot || guiInstance == null || guiInstance.getJogo() == null) {
+            return Elemento.NEUTRAL;
+        }
+        return guiInstance.getJogo().getElementoDaCelula(boardRow, boardCol);
+    }
+
+    // 0 = sem tintura, 1 = jogador 1, 2 = jogador 2
+    int ownerTint() {
+        if (!isBoardSlot || guiInstance == null || this.carta == null || this.isFaceDown) {
+            return 0;
         }
+        Jogo jogoAtual = guiInstance.getJogo();
+        return (jogoAtual != null) ? tintFor(jogoAtual, jogoAtual.getDonoDaCelula(boardRow, boardCol)) : 0;
     }
 
+    static int tintFor(Jogo jogo, Jogador dono) {
+        if (dono == null || jogo.getJogador1() == null || jogo.getJogador2() == null) {
+            return 0;
+        }
+        if (dono.equals(jogo.getJogador1())) {
+            return 1;
+        }
+        return dono.equals(jogo.getJogador2()) ? 2 : 0;
+    }
 
+    private int elementalModifier() {
+        if (!isBoardSlot || guiInstance == null || guiInstance.getJogo() == null || this.carta == null) {
+            return 0;
+        }
+        return guiInstance.getJogo().getModificadorElemental(boardRow, boardCol);
+    }
+
+    /**
+     * Estado de giro usado pelo {@link CardAnimator}: progresso de 0 a 1 (ou -1 sem giro) e a tintura
+     * mostrada na primeira metade, antes de a carta "virar" para o novo dono.
+     */
+    void setFlipState(float progress, int fromTint) {
+        this.flipProgress = progress;
+        this.flipFromTint = fromTint;
+    }
+
+    /**
+     * Enquanto a carta jogada desliza até o slot pela {@link AnimationLayer}, o slot continua desenhado vazio.
+     */
+    void setArriving(boolean arriving) {
+        this.arriving = arriving;
+    }
+
+    /**
+     * Largura visível da carta durante o giro (o painel inteiro fora dele), para a região suja do quadro.
+     */
+    Rectangle flipBounds() {
+        if (flipProgress < 0) {
+            return new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int visible = (int) Math.ceil(getWidth() * flipSquash(flipProgress));
+        return new Rectangle((getWidth() - visible) / 2, 0, visible, getHeight());
+    }
+
+    private static double flipSquash(float progress) {
+        return Math.max(0.02, Math.abs(Math.cos(Math.PI * progress)));
+    }
+
+    /**
+     * Desenha a carta completa (ignorando giro e chegada) em outro componente, como a camada de animação.
+     */
+    void paintCardOn(Graphics2D g2d, int width, int height) {
+        drawCard(g2d, this.carta, width, height, ownerTint(), Math.abs(g2d.getTransform().getScaleX()));
+    }
+
+    /**
+     * Desenha a carta a partir do {@link CardSpriteCache}: tudo o que muda a aparência entra na chave,
+     * e uma carta já renderizada custa um único drawImage. Durante um giro, o mesmo sprite é achatado na horizontal.
+     */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g.create();
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Graphics2D g2d = (Graphics2D) g;
+        double scale = Math.abs(g2d.getTransform().getScaleX());
+        if (arriving) {
+            drawCard(g2d, null, width, height, 0, scale);
+        } else if (flipProgress >= 0) {
+            long start = System.nanoTime();
+            Graphics2D flip = (Graphics2D) g2d.create();
+            try {
+                flip.translate(width / 2.0, 0);
+                flip.scale(flipSquash(flipProgress), 1);
+                flip.translate(-width / 2.0, 0);
+                drawCard(flip, this.carta, width, height, flipProgress < 0.5f ? flipFromTint : ownerTint(), scale);
+            } finally {
+                flip.dispose();
+            }
+            CardAnimator.getInstance().getStats().paint(System.nanoTime() - start);
+        } else {
+            drawCard(g2d, this.carta, width, height, ownerTint(), scale);
+        }
+    }
+
+    private void drawCard(Graphics2D g2d, Carta card, int width, int height, int tint, double scale) {
+        int modifier = card != null ? elementalModifier() : 0;
+        int cellElement = (card == null && !this.isFaceDown) ? elementoDaCelula().ordinal() : 0;
+        int cardId = (card != null && !this.isFaceDown) ? card.getId() + 1 : 0;
+
+        boolean artLoaded = cardBackgroundImage != null && (monsterImage != null || cardId == 0);
+
+        long key = CardSpriteCache.key(cardId, tint, this.isFaceDown, modifier, cellElement,
+                artLoaded, width, height, scale);
+        CardSpriteCache.getInstance().draw(g2d, key, width, height, scale, getGraphicsConfiguration(),
+                (sprite, w, h) -> renderCard(sprite, card, w, h, tint, modifier, Elemento.doOrdinal(cellElement)));
+    }
+
+    // Desenho completo da carta; só é chamado quando o sprite ainda não está no cache.
+    // As imagens vêm do ImageScaler já no tamanho em pixels da tela, em vez de serem escaladas aqui.
+    private void renderCard(Graphics2D g2d, Carta card, int width, int height, int tint, int modifier, Elemento elementoCelula) {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
 
-        int width = getWidth();
-        int height = getHeight();
+        if (getFont() != null) {
+            g2d.setFont(getFont()); // Mesma fonte padrão do painel para os textos sem fonte própria
+        }
+
         int nomeAltura = 20;
         int cartaAlturaReal = height - nomeAltura;
 
         if (this.isFaceDown) {
             if (cardBackgroundImage != null) {
-                g2d.drawImage(cardBackgroundImage, 0, 0, width, cartaAlturaReal, this);
+                ImageScaler.draw(g2d, cardBackgroundImage, 0, 0, width, cartaAlturaReal);
             } else {
-                g2d.setColor(new Color(0, 0, 150));
+                g2d.setColor(FACE_DOWN_COLOR);
                 g2d.fillRect(0, 0, width, cartaAlturaReal);
                 g2d.setColor(Color.WHITE);
                 g2d.drawRect(0, 0, width - 1, cartaAlturaReal - 1);
@@ -148,75 +312,67 @@ public class GameCardPanel extends JPanel {
                 String backText = "TT";
                 g2d.drawString(backText, (width - fm.stringWidth(backText)) / 2, (cartaAlturaReal - fm.getHeight()) / 2 + fm.getAscent());
             }
-        } else if (this.carta == null) {
-            g2d.setColor(new Color(200, 200, 200, 100));
+        } else if (card == null) {
+            g2d.setColor(EMPTY_SLOT_COLOR);
             g2d.fillRect(0, 0, width, cartaAlturaReal);
             g2d.setColor(Color.DARK_GRAY);
-            g2d.setFont(new Font("Arial", Font.ITALIC, 12));
+            g2d.setFont(EMPTY_FONT);
             FontMetrics fm = g2d.getFontMetrics();
             String emptyText = "Vazio";
             g2d.drawString(emptyText, (width - fm.stringWidth(emptyText)) / 2, (cartaAlturaReal - fm.getHeight()) / 2 + fm.getAscent());
+            if (elementoCelula != Elemento.NEUTRAL) { // Célula elemental (regra ELEMENTAL)
+                String elementText = elementoCelula.name();
+                g2d.drawString(elementText, (width - fm.stringWidth(elementText)) / 2, (cartaAlturaReal + fm.getHeight()) / 2 + fm.getAscent());
+            }
         } else {
             if (cardBackgroundImage != null) {
-                g2d.drawImage(cardBackgroundImage, 0, 0, width, cartaAlturaReal, this);
+                ImageScaler.draw(g2d, cardBackgroundImage, 0, 0, width, cartaAlturaReal);
             } else {
                 g2d.setColor(Color.DARK_GRAY);
                 g2d.fillRect(0, 0, width, cartaAlturaReal);
             }
 
-            if (isBoardSlot && this.carta.getDono() != null && guiInstance != null) {
-                Jogo jogoAtual = guiInstance.getJogo();
-                if (jogoAtual != null && jogoAtual.getJogador1() != null && jogoAtual.getJogador2() != null) { // Checagem adicional
-                    Jogador dono = this.carta.getDono();
-                    Color ownerTint = null;
-                    if (dono.equals(jogoAtual.getJogador1())) { // Use .equals() para comparar objetos
-                        ownerTint = new Color(0, 100, 255, 70);
-                    } else if (dono.equals(jogoAtual.getJogador2())) {
-                        ownerTint = new Color(255, 50, 50, 70);
-                    }
-                    if (ownerTint != null) {
-                        g2d.setColor(ownerTint);
-                        g2d.fillRect(1, 1, width - 2, cartaAlturaReal - 2);
-                    }
-                }
+            if (tint != 0) {
+                g2d.setColor(tint == 1 ? PLAYER1_TINT : PLAYER2_TINT);
+                g2d.fillRect(1, 1, width - 2, cartaAlturaReal - 2);
             }
 
+            int monsterX = (width - MONSTER_IMAGE_WIDTH) / 2;
+            int monsterY = (cartaAlturaReal - MONSTER_IMAGE_HEIGHT) / 2;
             if (monsterImage != null) {
-                int monsterX = (width - MONSTER_IMAGE_WIDTH) / 2;
-                int monsterY = (cartaAlturaReal - MONSTER_IMAGE_HEIGHT) / 2;
-                g2d.drawImage(monsterImage, monsterX, monsterY, MONSTER_IMAGE_WIDTH, MONSTER_IMAGE_HEIGHT, this);
+                ImageScaler.draw(g2d, monsterImage, monsterX, monsterY, MONSTER_IMAGE_WIDTH, MONSTER_IMAGE_HEIGHT);
             } else {
                 g2d.setColor(Color.LIGHT_GRAY);
-                int monsterX = (width - MONSTER_IMAGE_WIDTH) / 2;
-                int monsterY = (cartaAlturaReal - MONSTER_IMAGE_HEIGHT) / 2;
                 g2d.fillRect(monsterX, monsterY, MONSTER_IMAGE_WIDTH, MONSTER_IMAGE_HEIGHT);
                 g2d.setColor(Color.BLACK);
                 g2d.drawString("?", monsterX + MONSTER_IMAGE_WIDTH / 2 - 3, monsterY + MONSTER_IMAGE_HEIGHT / 2 + 5);
             }
 
-            g2d.setFont(new Font("Arial", Font.BOLD, RANK_FONT_SIZE));
+            g2d.setFont(RANK_FONT);
             g2d.setColor(RANK_COLOR);
-            // ... (desenho dos ranks, como antes) ...
-            String rankTopo = carta.verificandoPontosCartas(carta.getTopo());
-            String rankBaixo = carta.verificandoPontosCartas(carta.getBaixo());
-            String rankEsq = carta.verificandoPontosCartas(carta.getEsquerda());
-            String rankDir = carta.verificandoPontosCartas(carta.getDireita());
+            String rankTopo = card.verificandoPontosCartas(card.getTopo());
+            String rankBaixo = card.verificandoPontosCartas(card.getBaixo());
+            String rankEsq = card.verificandoPontosCartas(card.getEsquerda());
+            String rankDir = card.verificandoPontosCartas(card.getDireita());
             FontMetrics fmRank = g2d.getFontMetrics();
             int margin = 5;
             g2d.drawString(rankTopo, width / 2 - fmRank.stringWidth(rankTopo) / 2, margin + fmRank.getAscent());
             g2d.drawString(rankBaixo, width / 2 - fmRank.stringWidth(rankBaixo) / 2, cartaAlturaReal - margin);
             g2d.drawString(rankEsq, margin, cartaAlturaReal / 2 + fmRank.getAscent() / 2);
             g2d.drawString(rankDir, width - margin - fmRank.stringWidth(rankDir), cartaAlturaReal / 2 + fmRank.getAscent() / 2);
-        }
 
-        if (this.carta != null && !this.isFaceDown) {
-            g2d.setFont(new Font("Arial", Font.BOLD, NAME_FONT_SIZE));
+            if (modifier != 0) { // Bônus ou penalidade da regra ELEMENTAL
+                String modText = modifier > 0 ? "+1" : "-1";
+                g2d.setColor(modifier > 0 ? Color.GREEN : Color.RED);
+                g2d.drawString(modText, margin, margin + fmRank.getAscent());
+            }
+
+            g2d.setFont(NAME_FONT);
             g2d.setColor(NAME_COLOR);
             FontMetrics fmName = g2d.getFontMetrics();
-            String nomeCarta = carta.getNome();
+            String nomeCarta = card.getNome();
             int nomeWidth = fmName.stringWidth(nomeCarta);
             g2d.drawString(nomeCarta, (width - nomeWidth) / 2, height - fmName.getDescent() - 2);
         }
-        g2d.dispose();
     }
 }
\ No newline at end of file
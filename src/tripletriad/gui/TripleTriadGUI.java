@@ -1,10 +1,13 @@
 package tripletriad.gui;
 
 import tripletriad.app.Main;
+import tripletriad.controller.EventoJogo;
 import tripletriad.controller.Jogo;
+import tripletriad.controller.ObservadorJogo;
 import tripletriad.model.Carta;
 import tripletriad.model.Jogador;
 import tripletriad.model.Tabuleiro;
+import tripletriad.util.ImagePreloader;
 import tripletriad.util.SoundManager;
 import tripletriad.util.SoundEffect;
 
@@ -25,16 +28,22 @@ import java.util.List;
  * - Exibir o estado atual do jogo (tabuleiro, mãos dos jogadores, placar, turno).
  * - Capturar as interações do usuário (cliques em cartas na mão e em slots do tabuleiro).
  * - Comunicar essas interações ao controlador do jogo (`Jogo`).
- * - Atualizar sua exibição quando notificada de mudanças no estado do jogo pelo controlador (padrão Observer).
+ * - Atualizar sua exibição quando recebe os eventos do jogo, que o barramento do `Jogo` entrega já na EDT
+ *   e agrupados (uma jogada com capturas e fim de jogo gera uma única atualização).
+ *   Os painéis das cartas (9 do tabuleiro, 5 da mão e 3 reveladas do oponente) são criados uma vez só;
+ *   a cada atualização, apenas os slots cuja carta, dono ou seleção mudou são redefinidos e repintados.
+ *   A carta jogada desliza até o tabuleiro e as cartas viradas giram, pelo `CardAnimator`.
  * - Lidar com o fluxo de fim de jogo e solicitação de reinício.
  */
 
-public class TripleTriadGUI extends JFrame {
+public class TripleTriadGUI extends JFrame implements ObservadorJogo {
 
     private static final int CARD_WIDTH = 100;
     private static final int CARD_HEIGHT = 140;
     private static final int DEFAULT_HGAP_HANDS = 10;
     private static final int BOARD_GRID_GAP = 5;
+    private static final int HAND_SLOTS = 5;
+    private static final int REVEALED_SLOTS = 3;
 
     private Jogador jogador;
     private Jogo jogo;
@@ -54,6 +63,19 @@ public class TripleTriadGUI extends JFrame {
     private JLabel lblPlayer2Score;
     private JLabel lblTurnIndicator;
 
+    // Slots retidos entre atualizações e o que cada um está exibindo no momento
+    private final GameCardPanel[] boardSlots = new GameCardPanel[9];
+    private final Carta[] boardCardsShown = new Carta[9];
+    private final Jogador[] boardOwnersShown = new Jogador[9];
+    private final GameCardPanel[] handSlots = new GameCardPanel[HAND_SLOTS];
+    private final Carta[] handCardsShown = new Carta[HAND_SLOTS];
+    private final boolean[] handSelectionShown = new boolean[HAND_SLOTS];
+    private final GameCardPanel[] revealedSlots = new GameCardPanel[REVEALED_SLOTS];
+    private final Carta[] revealedCardsShown = new Carta[REVEALED_SLOTS];
+
+    // Camada onde as cartas jogadas deslizam até o tabuleiro (ver CardAnimator)
+    private final AnimationLayer animationLayer = new AnimationLayer();
+
     private Runnable onRestartRequestCallback;
 
 
@@ -64,7 +86,7 @@ public class TripleTriadGUI extends JFrame {
         this.onRestartRequestCallback = onRestartRequest;
 
         if (this.jogo != null) {
-            this.jogo.addObserver(this);
+            this.jogo.addObserver(this, SwingUtilities::invokeLater);
         } else {
             System.err.println("CRÍTICO: Instância de Jogo é nula na criação de TripleTriadGUI para " +
                     (this.jogador != null ? this.jogador.getNome() : "Jogador Desconhecido"));
@@ -95,9 +117,10 @@ public class TripleTriadGUI extends JFrame {
             }
         });
 
-        this.backgroundPanel = new BackgroundPanel("/resources/images/back.png");
+        this.backgroundPanel = new BackgroundPanel(ImagePreloader.BOARD_BACKGROUND_PATH);
         this.backgroundPanel.setLayout(new BorderLayout(10, 10));
         setContentPane(this.backgroundPanel);
+        setGlassPane(this.animationLayer);
 
         initializePanels();
         refreshStatusDisplay();
@@ -166,20 +189,8 @@ public class TripleTriadGUI extends JFrame {
 
         this.gameBoardDisplayPanel = createGameBoardDisplayPanel();
 
-        List<Carta> opponentVisibleCardsList = new ArrayList<>();
-        if (oponente != null && this.jogador != null) {
-            List<Carta> initiallyRevealed = jogo.getReveladasDoOponenteParaJogador(this.jogador);
-            List<Carta> opponentCurrentHand = oponente.getCartasNaMao();
-            if (initiallyRevealed != null && opponentCurrentHand != null) {
-                for (Carta revealedCard : initiallyRevealed) {
-                    if (opponentCurrentHand.contains(revealedCard)) {
-                        opponentVisibleCardsList.add(revealedCard);
-                    }
-                }
-            }
-        }
-        this.leftOpponentCardsPanel = createSideTrianglePanel("Cartas do Oponente", opponentVisibleCardsList, false);
-        this.rightOpponentReservePanel = createSideTrianglePanel("Reserva de " + opponentName, null, true);
+        this.leftOpponentCardsPanel = createSideTrianglePanel("Cartas do Oponente", opponentVisibleCards(), false, revealedSlots);
+        this.rightOpponentReservePanel = createSideTrianglePanel("Reserva de " + opponentName, null, true, null);
 
         this.backgroundPanel.add(this.northPanelContainer, BorderLayout.NORTH);
         this.backgroundPanel.add(this.playerScrollPane, BorderLayout.SOUTH);
@@ -200,29 +211,16 @@ public class TripleTriadGUI extends JFrame {
         JPanel handDisplayPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, DEFAULT_HGAP_HANDS, 10));
         handDisplayPanel.setOpaque(false);
         Dimension cardDimension = new Dimension(CARD_WIDTH, CARD_HEIGHT);
-        int numCartasParaExibir = 5;
-
-        if (cartasNaMao != null) {
-            for (int i = 0; i < cartasNaMao.size(); i++) {
-                Carta carta = cartasNaMao.get(i);
-                GameCardPanel cardPanel = new GameCardPanel(carta, cardDimension, false, this, false, i, -1);
-                if (carta != null && selectedCardFromHand != null && carta.equals(selectedCardFromHand)) {
-                    if (this.jogador == jogo.getJogador1()) {
-                        cardPanel.setBorder(BorderFactory.createLineBorder(Color.CYAN, 3));
-                    } else if (this.jogador == jogo.getJogador2()) {
-                        cardPanel.setBorder(BorderFactory.createLineBorder(Color.RED, 3));
-                    } else {
-                        cardPanel.setBorder(BorderFactory.createLineBorder(Color.YELLOW, 3));
-                    }
-                } else {
-                    cardPanel.setBorder(null);
-                }
-                handDisplayPanel.add(cardPanel);
-            }
-        }
-        int slotsPreenchidos = (cartasNaMao != null) ? cartasNaMao.size() : 0;
-        for (int i = slotsPreenchidos; i < numCartasParaExibir; i++) {
-            handDisplayPanel.add(new GameCardPanel(null, cardDimension, false, null, false, -1, -1));
+        int numCartasParaExibir = HAND_SLOTS;
+
+        // Os slots vazios também são retidos: recebem uma carta se ela voltar para a mão (ao desfazer uma jogada)
+        for (int i = 0; i < numCartasParaExibir; i++) {
+            Carta carta = (cartasNaMao != null && i < cartasNaMao.size()) ? cartasNaMao.get(i) : null;
+            GameCardPanel cardPanel = new GameCardPanel(carta, cardDimension, false, this, false, i, -1);
+            cardPanel.definirDestaqueSelecao(false, this.jogador, jogo);
+            handSlots[i] = cardPanel;
+            handCardsShown[i] = carta;
+            handDisplayPanel.add(cardPanel);
         }
         int preferredWidth = (CARD_WIDTH * numCartasParaExibir) + (DEFAULT_HGAP_HANDS * (numCartasParaExibir + 1));
         if (numCartasParaExibir == 0) preferredWidth = DEFAULT_HGAP_HANDS * 2;
@@ -257,7 +255,11 @@ public class TripleTriadGUI extends JFrame {
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
                 Carta cartaNoSlot = (tabuleiroModel != null) ? tabuleiroModel.getCarta(i, j) : null;
-                boardDisplayPanel.add(new GameCardPanel(cartaNoSlot, cardSlotDimension, false, this, true, i, j));
+                GameCardPanel slot = new GameCardPanel(cartaNoSlot, cardSlotDimension, false, this, true, i, j);
+                boardSlots[i * 3 + j] = slot;
+                boardCardsShown[i * 3 + j] = cartaNoSlot;
+                boardOwnersShown[i * 3 + j] = (jogo != null) ? jogo.getDonoDaCelula(i, j) : null;
+                boardDisplayPanel.add(slot);
             }
         }
         int numGaps = 2;
@@ -269,7 +271,8 @@ public class TripleTriadGUI extends JFrame {
         return boardDisplayPanel;
     }
 
-    private JPanel createSideTrianglePanel(String title, List<Carta> cards, boolean showFaceDown) {
+    // Com retainedSlots não nulo, os 3 painéis criados são guardados nele para as atualizações seguintes
+    private JPanel createSideTrianglePanel(String title, List<Carta> cards, boolean showFaceDown, GameCardPanel[] retainedSlots) {
         JPanel mainSidePanel = new JPanel(new BorderLayout(5, 5));
         mainSidePanel.setOpaque(false);
         mainSidePanel.setBorder(BorderFactory.createTitledBorder(title));
@@ -280,15 +283,21 @@ public class TripleTriadGUI extends JFrame {
 
         JPanel topRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
         topRow.setOpaque(false);
-        Carta card1 = (cards != null && !cards.isEmpty()) ? cards.get(0) : null;
-        topRow.add(new GameCardPanel(card1, cardDimension, showFaceDown, null, false, -1, -1));
+        GameCardPanel[] panels = new GameCardPanel[REVEALED_SLOTS];
+        for (int i = 0; i < REVEALED_SLOTS; i++) {
+            Carta card = (cards != null && i < cards.size()) ? cards.get(i) : null;
+            panels[i] = new GameCardPanel(card, cardDimension, showFaceDown, null, false, -1, -1);
+            if (retainedSlots != null) {
+                retainedSlots[i] = panels[i];
+                revealedCardsShown[i] = card;
+            }
+        }
+        topRow.add(panels[0]);
 
         JPanel bottomRow = new JPanel(new FlowLayout(FlowLayout.CENTER, DEFAULT_HGAP_HANDS, 0));
         bottomRow.setOpaque(false);
-        Carta card2 = (cards != null && cards.size() >= 2) ? cards.get(1) : null;
-        Carta card3 = (cards != null && cards.size() >= 3) ? cards.get(2) : null;
-        bottomRow.add(new GameCardPanel(card2, cardDimension, showFaceDown, null, false, -1, -1));
-        bottomRow.add(new GameCardPanel(card3, cardDimension, showFaceDown, null, false, -1, -1));
+        bottomRow.add(panels[1]);
+        bottomRow.add(panels[2]);
 
         triangleContainer.add(Box.createVerticalGlue());
         triangleContainer.add(topRow);
@@ -332,66 +341,134 @@ public class TripleTriadGUI extends JFrame {
             soundManager.playSound(SoundEffect.ERROR);
             JOptionPane.showMessageDialog(this, "Não é a sua vez!", "Aguarde", JOptionPane.INFORMATION_MESSAGE);
         } else if (this.selectedCardFromHand == null && !jogo.jogoFinalizado()) {
-            if (jogo.getTabuleiro() != null && !tabuleiroVazio(jogo.getTabuleiro())) {
+            if (jogo.getCelulasPreenchidas() > 0) {
                 soundManager.playSound(SoundEffect.ERROR);
                 JOptionPane.showMessageDialog(this, "Selecione uma carta da sua mão primeiro.", "Nenhuma Carta Selecionada", JOptionPane.INFORMATION_MESSAGE);
             }
         }
     }
 
-    private boolean tabuleiroVazio(Tabuleiro tab){
-        if (tab == null) return true;
-        for(int i=0; i<3; i++){
-            for(int j=0; j<3; j++){
-                if(tab.getCarta(i,j) != null) return false;
-            }
-        }
-        return true;
+    // Chamado na EDT pelo barramento de eventos do jogo
+    @Override
+    public void jogoAtualizado(List<EventoJogo> eventos) {
+        refreshNow();
     }
 
     public void updateGUI() {
-        SwingUtilities.invokeLater(() -> {
-            if (backgroundPanel == null || jogo == null || jogador == null) return;
-
-            refreshStatusDisplay();
-
-            if (playerScrollPane != null) backgroundPanel.remove(playerScrollPane);
-            if (gameBoardDisplayPanel != null) backgroundPanel.remove(gameBoardDisplayPanel);
-            if (leftOpponentCardsPanel != null) backgroundPanel.remove(leftOpponentCardsPanel);
-
-            List<Carta> maoAtualJogador = (this.jogador != null && this.jogador.getCartasNaMao() != null) ? this.jogador.getCartasNaMao() : Collections.emptyList();
-            JPanel newPlayerHandActualPanel = createPlayerHandDisplayPanel(maoAtualJogador);
-            this.playerScrollPane = new JScrollPane(newPlayerHandActualPanel);
-            configureScrollPane(this.playerScrollPane, "Cartas de " + (this.jogador != null ? this.jogador.getNome():"Jogador"));
-            this.backgroundPanel.add(this.playerScrollPane, BorderLayout.SOUTH);
-
-            this.gameBoardDisplayPanel = createGameBoardDisplayPanel();
-            this.backgroundPanel.add(this.gameBoardDisplayPanel, BorderLayout.CENTER);
-
-            Jogador oponente = (jogo.getJogador1() == this.jogador) ? jogo.getJogador2() : jogo.getJogador1();
-            List<Carta> opponentVisibleCardsList = new ArrayList<>();
-            if (oponente != null && this.jogador != null) {
-                List<Carta> initiallyRevealed = jogo.getReveladasDoOponenteParaJogador(this.jogador);
-                List<Carta> opponentCurrentHand = oponente.getCartasNaMao();
-                if (initiallyRevealed != null && opponentCurrentHand != null) {
-                    for (Carta revealedCard : initiallyRevealed) {
-                        if (opponentCurrentHand.contains(revealedCard)) {
-                            opponentVisibleCardsList.add(revealedCard);
-                        }
-                    }
+        SwingUtilities.invokeLater(this::refreshNow);
+    }
+
+    private void refreshNow() {
+        if (backgroundPanel == null || jogo == null || jogador == null) return;
+
+        refreshStatusDisplay();
+        syncBoardSlots();
+        syncHandSlots();
+        syncRevealedSlots();
+
+        if (jogo.jogoFinalizado() && !alreadyShownWinner) {
+            alreadyShownWinner = true;
+            mostrarVencedorGUI();
+        }
+    }
+
+    // Só os slots cuja carta ou dono mudou são redefinidos/repintados; nada é recriado e não há novo layout.
+    // A carta jogada desliza até o slot e as cartas viradas giram depois que ela chega.
+    private void syncBoardSlots() {
+        boolean cartaJogada = false;
+        for (int celula = 0; celula < boardSlots.length; celula++) {
+            if (boardCardsShown[celula] == null && jogo.getTabuleiro().getCarta(celula) != null) {
+                cartaJogada = true;
+            }
+        }
+        CardAnimator animator = CardAnimator.getInstance();
+        for (int celula = 0; celula < boardSlots.length; celula++) {
+            if (boardSlots[celula] == null) continue;
+            Carta carta = jogo.getTabuleiro().getCarta(celula);
+            Jogador dono = jogo.getDonoDaCelula(celula / 3, celula % 3);
+            if (carta != boardCardsShown[celula]) {
+                Rectangle origem = (carta != null && boardCardsShown[celula] == null) ? origemDaCartaJogada(carta, celula) : null;
+                boardCardsShown[celula] = carta;
+                boardOwnersShown[celula] = dono;
+                boardSlots[celula].definirCarta(carta);
+                if (origem != null) {
+                    animator.slide(animationLayer, boardSlots[celula], origem);
                 }
+            } else if (dono != boardOwnersShown[celula]) {
+                int tintAnterior = GameCardPanel.tintFor(jogo, boardOwnersShown[celula]);
+                boardOwnersShown[celula] = dono; // A tintura do dono é lida do jogo ao pintar
+                animator.flip(boardSlots[celula], tintAnterior, cartaJogada ? CardAnimator.SLIDE_MS : 0);
             }
-            this.leftOpponentCardsPanel = createSideTrianglePanel("Cartas do Oponente", opponentVisibleCardsList, false);
-            this.backgroundPanel.add(this.leftOpponentCardsPanel, BorderLayout.WEST);
+        }
+    }
 
-            backgroundPanel.revalidate();
-            backgroundPanel.repaint();
+    // Onde a carta estava antes de ser jogada (nas coordenadas da camada de animação): o slot da mão, a carta
+    // revelada do oponente ou, para uma carta oculta, a mão oculta do oponente. Chamado antes de sincronizar a mão.
+    private Rectangle origemDaCartaJogada(Carta carta, int celula) {
+        if (!isShowing()) {
+            return null;
+        }
+        for (int i = 0; i < handSlots.length; i++) {
+            if (handCardsShown[i] == carta && handSlots[i] != null && handSlots[i].isShowing()) {
+                return animationLayer.targetBounds(handSlots[i]);
+            }
+        }
+        for (int i = 0; i < revealedSlots.length; i++) {
+            if (revealedCardsShown[i] == carta && revealedSlots[i] != null && revealedSlots[i].isShowing()) {
+                return animationLayer.targetBounds(revealedSlots[i]);
+            }
+        }
+        if (opponentHiddenScrollPane != null && opponentHiddenScrollPane.isShowing()) {
+            Rectangle area = animationLayer.targetBounds(opponentHiddenScrollPane);
+            return new Rectangle(area.x + (area.width - CARD_WIDTH) / 2, area.y, CARD_WIDTH, CARD_HEIGHT);
+        }
+        return null;
+    }
 
-            if (jogo.jogoFinalizado() && !alreadyShownWinner) {
-                alreadyShownWinner = true;
-                mostrarVencedorGUI();
+    private void syncHandSlots() {
+        List<Carta> mao = this.jogador.getCartasNaMao();
+        for (int i = 0; i < handSlots.length; i++) {
+            if (handSlots[i] == null) continue;
+            Carta carta = i < mao.size() ? mao.get(i) : null;
+            if (carta != handCardsShown[i]) {
+                handCardsShown[i] = carta;
+                handSlots[i].definirCarta(carta);
             }
-        });
+            boolean selecionada = carta != null && carta.equals(selectedCardFromHand);
+            if (selecionada != handSelectionShown[i]) {
+                handSelectionShown[i] = selecionada;
+                handSlots[i].definirDestaqueSelecao(selecionada, this.jogador, jogo);
+            }
+        }
+    }
+
+    private void syncRevealedSlots() {
+        List<Carta> visiveis = opponentVisibleCards();
+        for (int i = 0; i < revealedSlots.length; i++) {
+            if (revealedSlots[i] == null) continue;
+            Carta carta = i < visiveis.size() ? visiveis.get(i) : null;
+            if (carta != revealedCardsShown[i]) {
+                revealedCardsShown[i] = carta;
+                revealedSlots[i].definirCarta(carta);
+            }
+        }
+    }
+
+    private List<Carta> opponentVisibleCards() {
+        Jogador oponente = (jogo.getJogador1() == this.jogador) ? jogo.getJogador2() : jogo.getJogador1();
+        List<Carta> opponentVisibleCardsList = new ArrayList<>();
+        if (oponente != null && this.jogador != null) {
+            List<Carta> initiallyRevealed = jogo.getReveladasDoOponenteParaJogador(this.jogador);
+            List<Carta> opponentCurrentHand = oponente.getCartasNaMao();
+            if (initiallyRevealed != null && opponentCurrentHand != null) {
+                for (Carta revealedCard : initiallyRevealed) {
+                    if (opponentCurrentHand.contains(revealedCard)) {
+                        opponentVisibleCardsList.add(revealedCard);
+                    }
+                }
+            }
+        }
+        return opponentVisibleCardsList;
     }
 
     private void refreshStatusDisplay() {
@@ -0,0 +1,197 @@
+package tripletriad.ia;
+
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
+
+/**
+ * Busca negamax com poda alfa-beta que resolve a árvore de jogo restante até o fim.
+ * O valor de uma posição é a diferença de placar final (quem tem a vez menos o oponente)
+ * com jogo perfeito dos dois lados.
+ *
+ * Para acelerar a busca usa:
+ * - uma tabela de transposição indexada pelo hash de Zobrist da {@link Posicao};
+ * - ordenação de jogadas (jogada da tabela primeiro, depois as que capturam mais cartas);
+ * - descarte de cartas repetidas na mesma mão (mesmos ranks geram subárvores equivalentes;
+ *   com a regra ELEMENTAL o elemento da carta também precisa ser igual).
+ *
+ * Uma instância não é thread-safe: cada thread deve usar a sua própria busca.
+ */
+
+public final class BuscaNegamax {
+    public static final int SEM_JOGADA = -1;
+
+    private static final int INFINITO = 100;
+    private static final int MAX_JOGADAS = Posicao.MAX_CARTAS_NA_MAO * 9;
+    private static final int NOTA_JOGADA_DA_TABELA = 1 << 10;
+    private static final int BITS_TABELA_PADRAO = 20;
+
+    private final TabelaTransposicao tabela;
+    private final int[][] jogadasPorNivel = new int[10][MAX_JOGADAS];
+    private final int[][] notasPorNivel = new int[10][MAX_JOGADAS];
+    private long nosVisitados;
+    private int ultimoValor;
+
+    public BuscaNegamax() {
+        this(BITS_TABELA_PADRAO);
+    }
+
+    public BuscaNegamax(int bitsTabela) {
+        this.tabela = new TabelaTransposicao(bitsTabela);
+    }
+
+    // Uma jogada é codificada como (slot da mão << 4) | célula.
+    public static int slotDaJogada(int jogada) { return jogada >>> 4; }
+    public static int celulaDaJogada(int jogada) { return jogada & 0xF; }
+
+    /**
+     * Retorna a melhor jogada para quem tem a vez na posição, ou SEM_JOGADA se a partida já terminou.
+     * A posição é restaurada ao estado original ao fim da busca.
+     * Entre jogadas de mesmo valor, escolhe sempre a primeira na ordem de geração, de modo que
+     * o resultado depende apenas da posição (e não do conteúdo atual da tabela de transposição).
+     */
+    public int melhorJogada(Posicao posicao) {
+        if (posicao.terminal()) {
+            return SEM_JOGADA;
+        }
+        int quantidade = gerarJogadas(posicao, 0, SEM_JOGADA);
+        int[] jogadas = jogadasPorNivel[0];
+        int melhor = SEM_JOGADA;
+        int alfa = -INFINITO;
+
+        for (int i = 0; i < quantidade; i++) {
+            int jogada = jogadas[i];
+            int slot = slotDaJogada(jogada);
+            int celula = celulaDaJogada(jogada);
+            int viradas = posicao.jogar(slot, celula);
+            int valor = -negamax(posicao, 1, -INFINITO, -alfa);
+            posicao.desfazer(slot, celula, viradas);
+            if (valor > alfa) {
+                alfa = valor;
+                melhor = jogada;
+            }
+        }
+        ultimoValor = alfa;
+        return melhor;
+    }
+
+    private int negamax(Posicao posicao, int nivel, int alfa, int beta) {
+        nosVisitados++;
+        int vez = posicao.getVez();
+        if (posicao.terminal()) {
+            return posicao.placar(vez) - posicao.placar(vez ^ 1);
+        }
+
+        int alfaOriginal = alfa;
+        long hash = posicao.getHash();
+        int jogadaDaTabela = SEM_JOGADA;
+        int dados = tabela.buscar(hash);
+        if (dados != TabelaTransposicao.NAO_ENCONTRADO) {
+            int valor = TabelaTransposicao.valor(dados);
+            switch (TabelaTransposicao.tipo(dados)) {
+                case TabelaTransposicao.EXATO -> { return valor; }
+                case TabelaTransposicao.LIMITE_INFERIOR -> alfa = Math.max(alfa, valor);
+                default -> beta = Math.min(beta, valor);
+            }
+            if (alfa >= beta) {
+                return valor;
+            }
+            jogadaDaTabela = TabelaTransposicao.jogada(dados);
+        }
+
+        int quantidade = gerarJogadas(posicao, nivel, jogadaDaTabela);
+        int[] jogadas = jogadasPorNivel[nivel];
+        int melhorValor = -INFINITO;
+        int melhorJogada = jogadas[0];
+
+        for (int i = 0; i < quantidade; i++) {
+            int jogada = jogadas[i];
+            int slot = slotDaJogada(jogada);
+            int celula = celulaDaJogada(jogada);
+            int viradas = posicao.jogar(slot, celula);
+            int valor = -negamax(posicao, nivel + 1, -beta, -alfa);
+            posicao.desfazer(slot, celula, viradas);
+
+            if (valor > melhorValor) {
+                melhorValor = valor;
+                melhorJogada = jogada;
+                if (valor > alfa) {
+                    alfa = valor;
+                    if (alfa >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int tipo = melhorValor <= alfaOriginal ? TabelaTransposicao.LIMITE_SUPERIOR
+                : melhorValor >= beta ? TabelaTransposicao.LIMITE_INFERIOR
+                : TabelaTransposicao.EXATO;
+        tabela.guardar(hash, melhorValor, tipo, melhorJogada);
+        return melhorValor;
+    }
+
+    /**
+     * Gera as jogadas de quem tem a vez no buffer do nível, já ordenadas da mais promissora para a menos.
+     * Retorna a quantidade de jogadas geradas.
+     */
+    private int gerarJogadas(Posicao posicao, int nivel, int jogadaDaTabela) {
+        int[] jogadas = jogadasPorNivel[nivel];
+        int[] notas = notasPorNivel[nivel];
+        int vez = posicao.getVez();
+        int mao = posicao.getMao(vez);
+        int livres = posicao.getCelulasLivres();
+        int quantidade = 0;
+        // Sem a regra ELEMENTAL o elemento (bits acima dos ranks) não muda o resultado da jogada
+        int mascaraRanks = (posicao.getTabuleiro().getRegras() & Regras.ELEMENTAL) != 0 ? -1 : 0xFFFF;
+
+        for (int slots = mao; slots != 0; slots &= slots - 1) {
+            int slot = Integer.numberOfTrailingZeros(slots);
+            int ranks = posicao.getRanksNaMao(vez, slot);
+            if (repetidaEmSlotAnterior(posicao, vez, mao, slot, ranks, mascaraRanks)) {
+                continue;
+            }
+            for (int celulas = livres; celulas != 0; celulas &= celulas - 1) {
+                int celula = Integer.numberOfTrailingZeros(celulas);
+                int jogada = slot << 4 | celula;
+                int nota = Integer.bitCount(posicao.getTabuleiro().simularCaptura(celula, ranks, vez));
+                if (jogada == jogadaDaTabela) {
+                    nota += NOTA_JOGADA_DA_TABELA;
+                }
+                // Ordenação por inserção: estável, então empates mantêm a ordem de geração.
+                int i = quantidade++;
+                while (i > 0 && notas[i - 1] < nota) {
+                    jogadas[i] = jogadas[i - 1];
+                    notas[i] = notas[i - 1];
+                    i--;
+                }
+                jogadas[i] = jogada;
+                notas[i] = nota;
+            }
+        }
+        return quantidade;
+    }
+
+    private static boolean repetidaEmSlotAnterior(Posicao posicao, int vez, int mao, int slot, int ranks, int mascaraRanks) {
+        for (int anteriores = mao & ((1 << slot) - 1); anteriores != 0; anteriores &= anteriores - 1) {
+            if (((posicao.getRanksNaMao(vez, Integer.numberOfTrailingZeros(anteriores)) ^ ranks) & mascaraRanks) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void limparTabela() {
+        tabela.limpar();
+    }
+
+    /**
+     * Valor (diferença de placar final para quem tinha a vez) da última posição resolvida.
+     */
+    public int getUltimoValor() {
+        return ultimoValor;
+    }
+
+    public long getNosVisitados() {
+        return nosVisitados;
+    }
+}
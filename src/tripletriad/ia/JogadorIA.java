@@ -0,0 +1,104 @@
+package tripletriad.ia;
+
+import tripletriad.controller.EventoJogo;
+import tripletriad.controller.Jogo;
+import tripletriad.controller.ObservadorJogo;
+import tripletriad.model.Carta;
+import tripletriad.model.Jogador;
+import tripletriad.model.Posicao;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Controla um {@link Jogador} com a busca negamax, jogando de forma perfeita.
+ * Assina os eventos do {@link Jogo} no executor do jogo: quando é a vez do seu jogador, tira uma {@link Posicao} do estado atual,
+ * busca a melhor jogada em uma thread própria e aplica o resultado pelo executor do jogo
+ * (na GUI, a EDT do Swing), que é onde as jogadas humanas também são aplicadas.
+ *
+ * A IA conhece a mão completa do oponente (como na regra Open total).
+ */
+
+public class JogadorIA implements ObservadorJogo {
+    private final Jogo jogo;
+    private final Jogador jogador;
+    private final Executor executorDoJogo;
+    private final BuscaNegamax busca = new BuscaNegamax();
+    private final ExecutorService executorBusca = Executors.newSingleThreadExecutor(r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setName("triple-triad-ia");
+        t.setDaemon(true); // Não impede o encerramento da aplicação
+        return t;
+    });
+    private boolean buscaEmAndamento = false; // Acessado apenas pelo executor do jogo
+
+    public JogadorIA(Jogo jogo, Jogador jogador, Executor executorDoJogo) {
+        this.jogo = jogo;
+        this.jogador = jogador;
+        this.executorDoJogo = executorDoJogo;
+    }
+
+    /**
+     * Registra a IA como observadora do jogo e joga imediatamente se for a sua vez.
+     */
+    public void iniciar() {
+        jogo.addObserver(this, executorDoJogo);
+        executorDoJogo.execute(this::verificarVez);
+    }
+
+    @Override
+    public void jogoAtualizado(List<EventoJogo> eventos) {
+        verificarVez(); // Uma rajada de eventos pede no máximo uma busca
+    }
+
+    private void verificarVez() {
+        if (buscaEmAndamento || jogo.jogoFinalizado() || jogo.getJogadorAtual() != jogador) {
+            return;
+        }
+        buscaEmAndamento = true;
+        Posicao posicao = jogo.criarPosicao();
+        executorBusca.execute(() -> {
+            try {
+                int jogada = busca.melhorJogada(posicao);
+                executorDoJogo.execute(() -> aplicarJogada(jogada));
+            } catch (RuntimeException e) {
+                // Sem isso buscaEmAndamento ficaria true e a IA pararia de jogar sem aviso
+                System.err.println("Falha na busca da IA; ela tenta de novo no próximo evento do jogo.");
+                e.printStackTrace();
+                liberarBusca();
+            }
+        });
+    }
+
+    // A próxima rajada de eventos tenta de novo
+    private void liberarBusca() {
+        try {
+            executorDoJogo.execute(() -> buscaEmAndamento = false);
+        } catch (RuntimeException e) {
+            System.err.println("IA não conseguiu voltar ao executor do jogo: " + e);
+        }
+    }
+
+    private void aplicarJogada(int jogada) {
+        buscaEmAndamento = false;
+        if (jogada == BuscaNegamax.SEM_JOGADA || jogo.getJogadorAtual() != jogador) {
+            return;
+        }
+        Carta carta = jogador.getCartasNaMao().get(BuscaNegamax.slotDaJogada(jogada));
+        int celula = BuscaNegamax.celulaDaJogada(jogada);
+        if (!jogo.tentarJogarCarta(celula / 3, celula % 3, carta, jogador)) {
+            System.err.println("IA tentou uma jogada inválida: carta " + carta.getId() + " na célula " + celula);
+        }
+    }
+
+    public void encerrar() {
+        jogo.removeObserver(this);
+        executorBusca.shutdownNow();
+    }
+
+    public Jogador getJogador() {
+        return jogador;
+    }
+}
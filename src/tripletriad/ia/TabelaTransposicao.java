@@ -0,0 +1,57 @@
+package tripletriad.ia;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de transposição de endereçamento direto para a busca negamax.
+ * Cada entrada guarda o hash completo da posição (para descartar colisões de índice)
+ * e, empacotados em um int, o valor encontrado, o tipo de limite e a melhor jogada.
+ * A política de substituição é "sempre substitui", suficiente para uma árvore de 9 níveis.
+ */
+
+final class TabelaTransposicao {
+    static final int EXATO = 1;
+    static final int LIMITE_INFERIOR = 2;
+    static final int LIMITE_SUPERIOR = 3;
+
+    static final int NAO_ENCONTRADO = 0;
+
+    private final long[] chaves;
+    private final int[] dados;
+    private final int mascara;
+
+    TabelaTransposicao(int bitsDeIndice) {
+        int tamanho = 1 << bitsDeIndice;
+        this.chaves = new long[tamanho];
+        this.dados = new int[tamanho];
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Retorna os dados empacotados da posição, ou NAO_ENCONTRADO se ela não está na tabela.
+     */
+    int buscar(long hash) {
+        int indice = (int) (hash ^ (hash >>> 32)) & mascara;
+        return chaves[indice] == hash ? dados[indice] : NAO_ENCONTRADO;
+    }
+
+    void guardar(long hash, int valor, int tipo, int jogada) {
+        int indice = (int) (hash ^ (hash >>> 32)) & mascara;
+        chaves[indice] = hash;
+        dados[indice] = empacotar(valor, tipo, jogada);
+    }
+
+    void limpar() {
+        Arrays.fill(dados, NAO_ENCONTRADO);
+        Arrays.fill(chaves, 0L);
+    }
+
+    // Layout: bits 0-7 valor + 128, bits 8-9 tipo (nunca zero), bits 16-23 jogada.
+    private static int empacotar(int valor, int tipo, int jogada) {
+        return (valor + 128) | tipo << 8 | (jogada & 0xFF) << 16;
+    }
+
+    static int valor(int dados) { return (dados & 0xFF) - 128; }
+    static int tipo(int dados) { return (dados >>> 8) & 0x3; }
+    static int jogada(int dados) { return (dados >>> 16) & 0xFF; }
+}
@@ -0,0 +1,203 @@
+package tripletriad.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Catálogo imutável de todas as cartas do jogo, carregado uma única vez por processo
+ * e compartilhado por todas as partidas (inclusive revanches e simulações).
+ *
+ * As cartas são identificadas por índice (0 a tamanho() - 1, na ordem do arquivo), com busca O(1)
+ * por ID e índices pré-calculados por elemento e pelo rank de cada lado. A distribuição das
+ * cartas para os jogadores é feita à parte, sobre esses índices (ver CartaLoader.distribuirCartas).
+ */
+
+public final class CardCatalog {
+    private static final String CAMINHO_CSV_PADRAO = "src/resources/cards.csv";
+
+    private final Carta[] cartas;
+    private final int[] ids;
+    private final int[] ranks;
+    private final Elemento[] elementos;
+    private final int[] indicePorId; // indicePorId[id] = índice da carta, ou -1
+    private final int[][] indicesPorElemento; // [ordinal do elemento] -> índices
+    private final int[][][] indicesPorRank; // [lado][rank 1-10] -> índices
+
+    // Carregado na primeira chamada a padrao(), de forma preguiçosa e thread-safe. Uma falha fica guardada
+    // e é relançada por padrao(), em vez de escapar do inicializador e inutilizar a classe no processo.
+    private static final class Padrao {
+        static final CardCatalog INSTANCIA;
+        static final RuntimeException FALHA;
+
+        static {
+            CardCatalog catalogo = null;
+            RuntimeException falha = null;
+            try {
+                catalogo = carregarPadrao();
+            } catch (RuntimeException e) {
+                falha = e;
+            }
+            INSTANCIA = catalogo;
+            FALHA = falha;
+        }
+    }
+
+    private CardCatalog(List<Carta> lista) {
+        int n = lista.size();
+        this.cartas = lista.toArray(new Carta[0]);
+        this.ids = new int[n];
+        this.ranks = new int[n];
+        this.elementos = new Elemento[n];
+
+        int maiorId = 0;
+        for (int i = 0; i < n; i++) {
+            ids[i] = cartas[i].getId();
+            if (ids[i] < 1 || ids[i] >= Zobrist.MAX_ID_CARTA) { // Como no CompiladorCatalogo: o hash só tem chaves para esses IDs
+                throw new IllegalArgumentException("ID de carta fora do intervalo 1-" + (Zobrist.MAX_ID_CARTA - 1) + ": " + ids[i]);
+            }
+            ranks[i] = EstadoTabuleiro.empacotarRanks(cartas[i]);
+            elementos[i] = Elemento.doOrdinal(EstadoTabuleiro.elemento(ranks[i])); // O mesmo que a Carta empacotou
+            maiorId = Math.max(maiorId, ids[i]);
+        }
+
+        this.indicePorId = new int[maiorId + 1];
+        Arrays.fill(indicePorId, -1);
+        for (int i = 0; i < n; i++) {
+            if (indicePorId[ids[i]] != -1) {
+                throw new IllegalArgumentException("ID de carta repetido no catálogo: " + ids[i]);
+            }
+            indicePorId[ids[i]] = i;
+        }
+
+        Elemento[] todos = Elemento.values();
+        this.indicesPorElemento = new int[todos.length][];
+        for (Elemento elemento : todos) {
+            indicesPorElemento[elemento.ordinal()] = filtrar(i -> elementos[i] == elemento);
+        }
+
+        this.indicesPorRank = new int[4][11][];
+        for (int lado = 0; lado < 4; lado++) {
+            for (int rank = 1; rank <= 10; rank++) {
+                final int l = lado, r = rank;
+                indicesPorRank[lado][rank] = filtrar(i -> EstadoTabuleiro.rank(ranks[i], l) == r);
+            }
+        }
+    }
+
+    /**
+     * Catálogo compartilhado do processo: vem do catálogo binário no classpath, ou do CSV se ele não existir.
+     * Lança IllegalStateException, a cada chamada, se nenhum dos dois puder ser carregado.
+     */
+    public static CardCatalog padrao() {
+        if (Padrao.FALHA != null) {
+            throw new IllegalStateException("Não foi possível carregar o catálogo de cartas: " + Padrao.FALHA.getMessage(), Padrao.FALHA);
+        }
+        return Padrao.INSTANCIA;
+    }
+
+    /**
+     * Lança IllegalArgumentException se algum ID estiver fora de 1 a Zobrist.MAX_ID_CARTA - 1 ou for repetido.
+     */
+    public static CardCatalog deCartas(List<Carta> cartas) {
+        return new CardCatalog(cartas);
+    }
+
+    public static CardCatalog doBinario(CatalogoBinario binario) {
+        List<Carta> lista = new ArrayList<>(binario.getQuantidade());
+        for (int i = 0; i < binario.getQuantidade(); i++) {
+            lista.add(binario.criarCarta(i));
+        }
+        return new CardCatalog(lista);
+    }
+
+    private static CardCatalog carregarPadrao() {
+        try {
+            CatalogoBinario binario = CatalogoBinario.doClasspath(CatalogoBinario.RECURSO_PADRAO);
+            if (binario != null) {
+                return doBinario(binario);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Catálogo binário indisponível, usando o CSV: " + e.getMessage());
+        }
+        List<Carta> cartas = CartaLoader.carregarCartas(CAMINHO_CSV_PADRAO);
+        if (cartas.isEmpty()) {
+            throw new IllegalStateException("nenhuma carta lida de " + CAMINHO_CSV_PADRAO);
+        }
+        try {
+            return deCartas(cartas);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("CSV " + CAMINHO_CSV_PADRAO + " inválido: " + e.getMessage(), e);
+        }
+    }
+
+    private interface FiltroIndice {
+        boolean aceita(int indice);
+    }
+
+    private int[] filtrar(FiltroIndice filtro) {
+        int[] resultado = new int[cartas.length];
+        int n = 0;
+        for (int i = 0; i < cartas.length; i++) {
+            if (filtro.aceita(i)) {
+                resultado[n++] = i;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    public int tamanho() {
+        return cartas.length;
+    }
+
+    public Carta getCarta(int indice) {
+        return cartas[indice];
+    }
+
+    public int getId(int indice) {
+        return ids[indice];
+    }
+
+    public int getRanks(int indice) {
+        return ranks[indice];
+    }
+
+    public Elemento getElemento(int indice) {
+        return elementos[indice];
+    }
+
+    public int getMaiorId() {
+        return indicePorId.length - 1;
+    }
+
+    /**
+     * Índice da carta com o ID informado, ou -1 se ela não existir.
+     */
+    public int indiceDoId(int id) {
+        return id >= 0 && id < indicePorId.length ? indicePorId[id] : -1;
+    }
+
+    public Carta porId(int id) {
+        int indice = indiceDoId(id);
+        return indice < 0 ? null : cartas[indice];
+    }
+
+    /**
+     * Índices das cartas do elemento. Retorna uma cópia, para manter o catálogo imutável.
+     */
+    public int[] indicesDoElemento(Elemento elemento) {
+        return indicesPorElemento[elemento.ordinal()].clone();
+    }
+
+    /**
+     * Índices das cartas que têm o rank informado (1 a 10) no lado (EstadoTabuleiro.CIMA, DIREITA, BAIXO ou ESQUERDA).
+     * Retorna uma cópia, para manter o catálogo imutável.
+     */
+    public int[] indicesComRank(int lado, int rank) {
+        if (rank < 1 || rank > 10) {
+            return new int[0];
+        }
+        return indicesPorRank[lado][rank].clone();
+    }
+}
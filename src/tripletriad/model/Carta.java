@@ -3,19 +3,20 @@ package tripletriad.model;
 
 /**
  * Representa uma carta individual no jogo Triple Triad.
- * Contém informações sobre seus ranks, nome, ID, tipo (elemento) e
- * o jogador que atualmente a possui (dono).
+ * Contém informações sobre seus ranks, nome, ID e tipo (elemento).
+ * É imutável (flyweight): a mesma instância do catálogo é compartilhada por todas as partidas,
+ * e quem controla a carta no tabuleiro fica no estado da partida (Tabuleiro), não aqui.
  */
 
-public class Carta {
-    private int id; // Identificador único da carta.
-    private String nome; // Nome da carta.
-    private int topo; // Valor do rank superior.
-    private int direita; // Valor do rank direito.
-    private int baixo; // Valor do rank inferior.
-    private int esquerda; // Valor do rank esquerdo.
-    private String tipo; // Elemento da carta (ex: FIRE, ICE, NEUTRAL).
-    private Jogador dono; // Jogador que atualmente controla esta carta.
+public final class Carta {
+    private final int id; // Identificador único da carta.
+    private final String nome; // Nome da carta.
+    private final int topo; // Valor do rank superior.
+    private final int direita; // Valor do rank direito.
+    private final int baixo; // Valor do rank inferior.
+    private final int esquerda; // Valor do rank esquerdo.
+    private final String tipo; // Elemento da carta (ex: FIRE, ICE, NEUTRAL).
+    private final int ranksEmpacotados; // Ranks e elemento no formato do EstadoTabuleiro, calculados uma vez.
 
     public Carta(int id, String nome, int topo, int direita, int baixo, int esquerda, String tipo) { //
         this.id = id; //
@@ -25,6 +26,8 @@ public class Carta {
         this.baixo = baixo; //
         this.esquerda = esquerda; //
         this.tipo = tipo; //
+        this.ranksEmpacotados = EstadoTabuleiro.comElemento(
+                EstadoTabuleiro.empacotarRanks(topo, direita, baixo, esquerda), Elemento.doTextoOuNeutro(tipo));
     }
 
     /**
@@ -57,10 +60,7 @@ public class Carta {
     public int getDireita() { return direita; } //
     public String getNome() { return nome; } //
     public String getTipo() { return tipo; } //
-
-    // Getter e Setter para o dono da carta
-    public Jogador getDono() { return dono; } //
-    public void setDono(Jogador dono) { this.dono = dono; } //
+    public int getRanksEmpacotados() { return ranksEmpacotados; }
 
     /**
      * Compara esta carta com outro objeto para igualdade.
@@ -3,16 +3,48 @@ package tripletriad.model;
 import java.io.*;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Random;
+import java.util.regex.Pattern;
 
 /**
- * Responsável por carregar os dados das cartas de um arquivo CSV.
- * Após o carregamento, as cartas são embaralhadas e distribuídas
- * igualmente entre os dois jogadores participantes.
+ * Responsável por carregar os dados das cartas de um arquivo CSV
+ * e por distribuir cartas do catálogo igualmente entre os dois jogadores participantes.
+ * A leitura acontece uma única vez por processo (ver CardCatalog); a distribuição
+ * apenas sorteia índices do catálogo já carregado.
  */
 
 public class CartaLoader {
-    public static void distribuirCartas(String caminhoCSV, Jogador j1, Jogador j2) { //
+    public static final int CARTAS_POR_JOGADOR = 5;
+
+    // Trecho entre colchetes (ranks), onde o ';' não separa colunas
+    private static final Pattern RANKS_ENTRE_COLCHETES = Pattern.compile("\\[(.*?)]");
+
+    /**
+     * Sorteia 10 cartas distintas do catálogo (Fisher-Yates parcial sobre os índices)
+     * e distribui 5 para cada jogador, alternando entre eles.
+     */
+    public static void distribuirCartas(CardCatalog catalogo, Jogador j1, Jogador j2, Random random) { //
+        int[] indices = new int[catalogo.tamanho()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+
+        for (int i = 0; i < 2 * CARTAS_POR_JOGADOR && i < indices.length; i++) {
+            int j = i + random.nextInt(indices.length - i);
+            int sorteada = indices[j];
+            indices[j] = indices[i];
+            indices[i] = sorteada;
+
+            Jogador jogador = (i % 2 == 0) ? j1 : j2;
+            jogador.adicionarCarta(catalogo.getCarta(sorteada));
+        }
+    }
+
+    /**
+     * Lê todas as cartas do arquivo CSV, na ordem do arquivo, sem embaralhar nem distribuir.
+     * Linhas inválidas são reportadas em System.err e ignoradas.
+     */
+    public static List<Carta> carregarCartas(String caminhoCSV) {
         List<Carta> cartas = new ArrayList<>();
 
         try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(caminhoCSV), "UTF-16"))) {
@@ -24,7 +56,7 @@ public class CartaLoader {
                 if (linha.isEmpty()) continue;
 
                 // Regex para substituir ; por , apenas dentro dos colchetes (ranks)
-                linha = java.util.regex.Pattern.compile("\\[(.*?)]") //
+                linha = RANKS_ENTRE_COLCHETES //
                         .matcher(linha)
                         .replaceAll(match -> "[" + match.group(1).replace(";", ",") + "]");
 
@@ -72,17 +104,6 @@ public class CartaLoader {
             e.printStackTrace();
         }
 
-        Collections.shuffle(cartas); //
-
-        // Distribui 5 cartas para cada jogador
-        for (int i = 0; i < 5 && cartas.size() >= 2; i++) { //
-            Carta c1 = cartas.removeFirst();
-            c1.setDono(j1);
-            j1.adicionarCarta(c1);
-
-            Carta c2 = cartas.removeFirst();
-            c2.setDono(j2);
-            j2.adicionarCarta(c2);
-        }
+        return cartas;
     }
 }
\ No newline at end of file
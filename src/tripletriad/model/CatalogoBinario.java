@@ -0,0 +1,158 @@
+package tripletriad.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Visão somente leitura sobre o catálogo binário de cartas (cards.bin), gerado a partir do
+ * cards.csv pelo {@link CompiladorCatalogo}. Os dados são lidos diretamente do buffer
+ * (mapeado em memória ou carregado do classpath), sem criar objetos por carta:
+ * só o nome, quando pedido, gera uma String.
+ *
+ * Formato (big-endian):
+ * - Cabeçalho de 16 bytes: magic "TTCB", versão (short), quantidade de cartas (short),
+ *   offset da tabela de nomes (int) e tamanho da tabela de nomes (int).
+ * - Um registro de 8 bytes por carta: id (short), ranks empacotados como em
+ *   {@link EstadoTabuleiro#empacotarRanks} (short), ordinal do {@link Elemento} (byte),
+ *   tamanho do nome em bytes (byte) e offset do nome na tabela (short).
+ * - Tabela de nomes: os nomes em UTF-8, concatenados.
+ */
+
+public final class CatalogoBinario {
+    public static final String RECURSO_PADRAO = "/resources/cards.bin";
+
+    static final int MAGIC = 0x54544342; // "TTCB"
+    static final short VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 16;
+    static final int TAMANHO_REGISTRO = 8;
+    private static final int NUM_ELEMENTOS = Elemento.values().length;
+
+    private final ByteBuffer buffer;
+    private final int quantidade;
+    private final int offsetNomes;
+
+    private CatalogoBinario(ByteBuffer buffer) {
+        this.buffer = buffer;
+        validarCabecalho(buffer);
+        this.quantidade = buffer.getShort(6) & 0xFFFF;
+        this.offsetNomes = buffer.getInt(8);
+        validarRegistros();
+    }
+
+    /**
+     * Lê o catálogo de um buffer já preenchido (posição 0 até o limite).
+     */
+    public static CatalogoBinario deBuffer(ByteBuffer buffer) {
+        return new CatalogoBinario(buffer.slice());
+    }
+
+    /**
+     * Mapeia o arquivo em memória com um FileChannel, sem copiar os dados para o heap.
+     */
+    public static CatalogoBinario mapear(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return new CatalogoBinario(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Carrega o catálogo de um recurso do classpath. Retorna null se o recurso não existir.
+     */
+    public static CatalogoBinario doClasspath(String recurso) throws IOException {
+        try (InputStream in = CatalogoBinario.class.getResourceAsStream(recurso)) {
+            if (in == null) {
+                return null;
+            }
+            return new CatalogoBinario(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    private static void validarCabecalho(ByteBuffer buffer) {
+        if (buffer.limit() < TAMANHO_CABECALHO || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Catálogo binário inválido: cabeçalho ausente ou magic incorreto.");
+        }
+        if (buffer.getShort(4) != VERSAO) {
+            throw new IllegalArgumentException("Versão de catálogo binário não suportada: " + buffer.getShort(4));
+        }
+        int quantidade = buffer.getShort(6) & 0xFFFF;
+        int offsetNomes = buffer.getInt(8);
+        int tamanhoNomes = buffer.getInt(12);
+        if (offsetNomes != TAMANHO_CABECALHO + quantidade * TAMANHO_REGISTRO
+                || tamanhoNomes < 0 || (long) offsetNomes + tamanhoNomes != buffer.limit()) {
+            throw new IllegalArgumentException("Catálogo binário inválido: tamanhos inconsistentes.");
+        }
+    }
+
+    private void validarRegistros() {
+        int tamanhoNomes = buffer.getInt(12);
+        for (int i = 0; i < quantidade; i++) {
+            int base = TAMANHO_CABECALHO + i * TAMANHO_REGISTRO;
+            int elemento = buffer.get(base + 4) & 0xFF;
+            int fimNome = (buffer.getShort(base + 6) & 0xFFFF) + (buffer.get(base + 5) & 0xFF);
+            if (elemento >= NUM_ELEMENTOS || fimNome > tamanhoNomes || !ranksValidos(buffer.getShort(base + 2) & 0xFFFF)) {
+                throw new IllegalArgumentException("Catálogo binário inválido: registro " + i + " corrompido.");
+            }
+        }
+    }
+
+    // Os quatro ranks em 1-10, como o CompiladorCatalogo garante ao gravar
+    private static boolean ranksValidos(int ranks) {
+        for (int lado = 0; lado < 4; lado++) {
+            int rank = EstadoTabuleiro.rank(ranks, lado);
+            if (rank < 1 || rank > 10) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public int getId(int indice) {
+        return buffer.getShort(registro(indice)) & 0xFFFF;
+    }
+
+    public int getRanks(int indice) {
+        return buffer.getShort(registro(indice) + 2) & 0xFFFF;
+    }
+
+    public Elemento getElemento(int indice) {
+        return Elemento.doOrdinal(buffer.get(registro(indice) + 4) & 0xFF);
+    }
+
+    public String getNome(int indice) {
+        int base = registro(indice);
+        int tamanho = buffer.get(base + 5) & 0xFF;
+        int inicio = offsetNomes + (buffer.getShort(base + 6) & 0xFFFF);
+        byte[] bytes = new byte[tamanho];
+        buffer.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cria a {@link Carta} correspondente ao registro.
+     */
+    public Carta criarCarta(int indice) {
+        int ranks = getRanks(indice);
+        return new Carta(getId(indice), getNome(indice),
+                EstadoTabuleiro.rank(ranks, EstadoTabuleiro.CIMA),
+                EstadoTabuleiro.rank(ranks, EstadoTabuleiro.DIREITA),
+                EstadoTabuleiro.rank(ranks, EstadoTabuleiro.BAIXO),
+                EstadoTabuleiro.rank(ranks, EstadoTabuleiro.ESQUERDA),
+                getElemento(indice).name());
+    }
+
+    private int registro(int indice) {
+        if (indice < 0 || indice >= quantidade) {
+            throw new IndexOutOfBoundsException("Índice de carta fora do catálogo: " + indice);
+        }
+        return TAMANHO_CABECALHO + indice * TAMANHO_REGISTRO;
+    }
+}
@@ -0,0 +1,167 @@
+package tripletriad.model;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compila o cards.csv (UTF-16) no catálogo binário lido pelo {@link CatalogoBinario}.
+ * Ao contrário do CartaLoader, que ignora linhas inválidas, o compilador é estrito:
+ * qualquer problema (colunas faltando, ID repetido, rank ausente ou fora de 1 a 10,
+ * elemento desconhecido, nome vazio ou longo demais) interrompe a compilação com
+ * uma mensagem indicando a linha.
+ *
+ * Uso: CompiladorCatalogo [cards.csv] [cards.bin]
+ * (padrão: src/resources/cards.csv e src/resources/cards.bin)
+ */
+
+public final class CompiladorCatalogo {
+    private static final String CABECALHO_ESPERADO = "id;name;ranks;element";
+
+    private CompiladorCatalogo() {
+    }
+
+    public static void main(String[] args) {
+        Path csv = Path.of(args.length > 0 ? args[0] : "src/resources/cards.csv");
+        Path destino = Path.of(args.length > 1 ? args[1] : "src/resources/cards.bin");
+        try {
+            byte[] catalogo = compilar(csv);
+            Files.write(destino, catalogo);
+            System.out.println("Catálogo gerado em " + destino + " (" + catalogo.length + " bytes, "
+                    + CatalogoBinario.deBuffer(ByteBuffer.wrap(catalogo)).getQuantidade() + " cartas).");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Falha ao compilar o catálogo: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lê e valida o CSV, retornando o conteúdo do catálogo binário.
+     */
+    public static byte[] compilar(Path csv) throws IOException {
+        List<String> linhas = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(csv, StandardCharsets.UTF_16)) {
+            String linha;
+            while ((linha = br.readLine()) != null) {
+                linhas.add(linha);
+            }
+        }
+        if (linhas.isEmpty() || !linhas.get(0).trim().equalsIgnoreCase(CABECALHO_ESPERADO)) {
+            throw new IllegalArgumentException("cabeçalho esperado '" + CABECALHO_ESPERADO + "'");
+        }
+
+        ByteArrayOutputStream nomes = new ByteArrayOutputStream();
+        List<int[]> registros = new ArrayList<>(); // {id, ranks, elemento, tamanhoNome, offsetNome}
+        Set<Integer> ids = new HashSet<>();
+
+        for (int n = 1; n < linhas.size(); n++) {
+            String linha = linhas.get(n).trim();
+            if (linha.isEmpty()) continue;
+            int numeroLinha = n + 1;
+
+            // Formato: id;nome;[UP:x,LEFT:x;DOWN:x,RIGHT:x];ELEMENTO — o ';' dentro dos colchetes não separa colunas.
+            int abre = linha.indexOf('[');
+            int fecha = linha.indexOf(']');
+            if (abre < 0 || fecha < abre) {
+                throw erro(numeroLinha, "ranks devem estar entre colchetes");
+            }
+            String[] antes = linha.substring(0, abre).split(";", -1);
+            String depois = linha.substring(fecha + 1);
+            if (antes.length != 3 || !antes[2].isEmpty() || !depois.startsWith(";")) {
+                throw erro(numeroLinha, "esperadas 4 colunas (id;name;ranks;element)");
+            }
+
+            int id;
+            try {
+                id = Integer.parseInt(antes[0].trim());
+            } catch (NumberFormatException e) {
+                throw erro(numeroLinha, "id não numérico '" + antes[0] + "'");
+            }
+            if (id < 1 || id >= Zobrist.MAX_ID_CARTA || !ids.add(id)) {
+                throw erro(numeroLinha, "id " + id + " fora do intervalo 1-" + (Zobrist.MAX_ID_CARTA - 1) + " ou repetido");
+            }
+
+            byte[] nome = antes[1].trim().getBytes(StandardCharsets.UTF_8);
+            if (nome.length == 0 || nome.length > 255) {
+                throw erro(numeroLinha, "nome vazio ou com mais de 255 bytes");
+            }
+
+            int ranks = lerRanks(linha.substring(abre + 1, fecha), numeroLinha);
+
+            Elemento elemento;
+            try {
+                elemento = Elemento.doTexto(depois.substring(1));
+            } catch (IllegalArgumentException e) {
+                throw erro(numeroLinha, "elemento desconhecido '" + depois.substring(1).trim() + "'");
+            }
+
+            if (nomes.size() > 0xFFFF) {
+                throw erro(numeroLinha, "tabela de nomes grande demais para o formato");
+            }
+            registros.add(new int[]{id, ranks, elemento.ordinal(), nome.length, nomes.size()});
+            nomes.write(nome);
+        }
+
+        int offsetNomes = CatalogoBinario.TAMANHO_CABECALHO + registros.size() * CatalogoBinario.TAMANHO_REGISTRO;
+        ByteBuffer saida = ByteBuffer.allocate(offsetNomes + nomes.size());
+        saida.putInt(CatalogoBinario.MAGIC)
+                .putShort(CatalogoBinario.VERSAO)
+                .putShort((short) registros.size())
+                .putInt(offsetNomes)
+                .putInt(nomes.size());
+        for (int[] r : registros) {
+            saida.putShort((short) r[0])
+                    .putShort((short) r[1])
+                    .put((byte) r[2])
+                    .put((byte) r[3])
+                    .putShort((short) r[4]);
+        }
+        saida.put(nomes.toByteArray());
+        return saida.array();
+    }
+
+    private static int lerRanks(String bruto, int numeroLinha) {
+        int[] valores = {-1, -1, -1, -1}; // Na ordem de EstadoTabuleiro: CIMA, DIREITA, BAIXO, ESQUERDA
+        for (String par : bruto.split("[,;]")) {
+            String[] kv = par.split(":");
+            if (kv.length != 2) {
+                throw erro(numeroLinha, "rank mal formado '" + par + "'");
+            }
+            int lado = switch (kv[0].trim().toUpperCase()) {
+                case "UP" -> EstadoTabuleiro.CIMA;
+                case "RIGHT" -> EstadoTabuleiro.DIREITA;
+                case "DOWN" -> EstadoTabuleiro.BAIXO;
+                case "LEFT" -> EstadoTabuleiro.ESQUERDA;
+                default -> throw erro(numeroLinha, "lado desconhecido '" + kv[0].trim() + "'");
+            };
+            int valor;
+            try {
+                valor = Integer.parseInt(kv[1].trim());
+            } catch (NumberFormatException e) {
+                throw erro(numeroLinha, "rank não numérico '" + kv[1].trim() + "'");
+            }
+            if (valor < 1 || valor > 10 || valores[lado] != -1) {
+                throw erro(numeroLinha, "rank " + kv[0].trim() + " repetido ou fora de 1-10");
+            }
+            valores[lado] = valor;
+        }
+        for (int valor : valores) {
+            if (valor == -1) {
+                throw erro(numeroLinha, "os quatro ranks (UP, RIGHT, DOWN, LEFT) são obrigatórios");
+            }
+        }
+        return EstadoTabuleiro.empacotarRanks(valores[0], valores[1], valores[2], valores[3]);
+    }
+
+    private static IllegalArgumentException erro(int linha, String mensagem) {
+        return new IllegalArgumentException("linha " + linha + ": " + mensagem);
+    }
+}
@@ -0,0 +1,46 @@
+package tripletriad.model;
+
+/**
+ * Elementos possíveis de uma carta, com os mesmos nomes usados na coluna "element" do cards.csv.
+ * O ordinal é o valor gravado no catálogo binário, então novos elementos devem ser adicionados ao final.
+ */
+
+public enum Elemento {
+    NEUTRAL,
+    FIRE,
+    ICE,
+    THUNDER,
+    EARTH,
+    POISON,
+    WIND,
+    WATER,
+    HOLY;
+
+    private static final Elemento[] VALORES = values();
+
+    public static Elemento doOrdinal(int ordinal) {
+        return VALORES[ordinal];
+    }
+
+    /**
+     * Converte o texto do CSV (ex: "FIRE") no elemento, ignorando espaços e maiúsculas/minúsculas.
+     * Lança IllegalArgumentException se o elemento não existir.
+     */
+    public static Elemento doTexto(String texto) {
+        return valueOf(texto.trim().toUpperCase());
+    }
+
+    /**
+     * Como {@link #doTexto}, mas retorna NEUTRAL para textos nulos ou desconhecidos.
+     */
+    public static Elemento doTextoOuNeutro(String texto) {
+        if (texto == null) {
+            return NEUTRAL;
+        }
+        try {
+            return doTexto(texto);
+        } catch (IllegalArgumentException e) {
+            return NEUTRAL;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package tripletriad.model;
+
+/**
+ * Representação compacta (bitboard) do estado do tabuleiro 3x3.
+ * As 9 células são numeradas de 0 a 8, linha a linha (celula = linha * 3 + coluna).
+ * A ocupação e o dono de cada célula ficam em máscaras de bits, e os quatro ranks
+ * da carta colocada em cada célula ficam empacotados em um único int (4 bits por lado).
+ *
+ * Acima dos ranks (bits 16 a 19) fica o ordinal do {@link Elemento} da carta.
+ *
+ * As variantes de {@link Regras} (SAME, PLUS, COMBO, ELEMENTAL) são resolvidas aqui, sobre a
+ * tabela estática de vizinhos; a cadeia do COMBO usa uma máscara de células pendentes como fila.
+ * Aplicar uma jogada não aloca objetos, e copiar ou desfazer uma posição
+ * custa apenas algumas palavras de memória.
+ */
+
+public final class EstadoTabuleiro {
+    public static final int NUM_CELULAS = 9;
+    public static final int TABULEIRO_CHEIO = (1 << NUM_CELULAS) - 1;
+
+    // Lados da carta, na ordem em que os ranks são empacotados.
+    public static final int CIMA = 0;
+    public static final int DIREITA = 1;
+    public static final int BAIXO = 2;
+    public static final int ESQUERDA = 3;
+
+    // VIZINHOS[celula * 4 + lado] = célula adjacente naquele lado, ou -1 se estiver fora do tabuleiro.
+    private static final int[] VIZINHOS = new int[NUM_CELULAS * 4];
+    // MASCARA_VIZINHOS[celula] = máscara das células adjacentes.
+    private static final int[] MASCARA_VIZINHOS = new int[NUM_CELULAS];
+
+    static {
+        for (int celula = 0; celula < NUM_CELULAS; celula++) {
+            int linha = celula / 3;
+            int coluna = celula % 3;
+            VIZINHOS[celula * 4 + CIMA] = linha > 0 ? celula - 3 : -1;
+            VIZINHOS[celula * 4 + DIREITA] = coluna < 2 ? celula + 1 : -1;
+            VIZINHOS[celula * 4 + BAIXO] = linha < 2 ? celula + 3 : -1;
+            VIZINHOS[celula * 4 + ESQUERDA] = coluna > 0 ? celula - 1 : -1;
+            for (int lado = 0; lado < 4; lado++) {
+                if (VIZINHOS[celula * 4 + lado] >= 0) {
+                    MASCARA_VIZINHOS[celula] |= 1 << VIZINHOS[celula * 4 + lado];
+                }
+            }
+        }
+    }
+
+    private static final int DESLOCAMENTO_ELEMENTO = 16;
+
+    private int ocupacao; // Bit i ligado = célula i ocupada.
+    private int donos; // Bit i ligado = célula i pertence ao jogador de índice 1.
+    private final int[] ranks = new int[NUM_CELULAS]; // Ranks empacotados da carta em cada célula.
+    private final int[] ranksEfetivos = new int[NUM_CELULAS]; // Ranks com o modificador elemental, usados nas comparações.
+    private int regras = Regras.BASICA;
+    private long elementosDasCelulas; // 4 bits por célula: ordinal do Elemento (NEUTRAL = célula sem elemento).
+
+    /**
+     * Empacota os quatro ranks de uma carta em um int (topo, direita, baixo, esquerda).
+     */
+    public static int empacotarRanks(int topo, int direita, int baixo, int esquerda) {
+        return (topo & 0xF) | (direita & 0xF) << 4 | (baixo & 0xF) << 8 | (esquerda & 0xF) << 12;
+    }
+
+    public static int empacotarRanks(Carta carta) {
+        return carta.getRanksEmpacotados();
+    }
+
+    /**
+     * Acrescenta o ordinal do elemento da carta aos ranks empacotados.
+     */
+    public static int comElemento(int ranksEmpacotados, Elemento elemento) {
+        return (ranksEmpacotados & 0xFFFF) | elemento.ordinal() << DESLOCAMENTO_ELEMENTO;
+    }
+
+    public static int elemento(int ranksEmpacotados) {
+        return (ranksEmpacotados >>> DESLOCAMENTO_ELEMENTO) & 0xF;
+    }
+
+    /**
+     * Extrai o rank de um dos lados (CIMA, DIREITA, BAIXO, ESQUERDA) de ranks empacotados.
+     */
+    public static int rank(int ranksEmpacotados, int lado) {
+        return (ranksEmpacotados >>> (lado << 2)) & 0xF;
+    }
+
+    public static int celula(int linha, int coluna) {
+        return linha * 3 + coluna;
+    }
+
+    public static int vizinho(int celula, int lado) {
+        return VIZINHOS[celula * 4 + lado];
+    }
+
+    public boolean ocupada(int celula) {
+        return (ocupacao & (1 << celula)) != 0;
+    }
+
+    public boolean cheio() {
+        return ocupacao == TABULEIRO_CHEIO;
+    }
+
+    /**
+     * Retorna o índice (0 ou 1) do jogador dono da célula. Só faz sentido para células ocupadas.
+     */
+    public int getDono(int celula) {
+        return (donos >>> celula) & 1;
+    }
+
+    public int getRanks(int celula) {
+        return ranks[celula];
+    }
+
+    public int getOcupacao() {
+        return ocupacao;
+    }
+
+    public int getDonos() {
+        return donos;
+    }
+
+    /**
+     * Define as variantes de regra (máscara de {@link Regras}) e os elementos das células
+     * (4 bits por célula, como em {@link Regras#sortearElementosDasCelulas}). Deve ser chamado com o tabuleiro vazio.
+     */
+    public void setRegras(int regras, long elementosDasCelulas) {
+        this.regras = regras;
+        this.elementosDasCelulas = (regras & Regras.ELEMENTAL) != 0 ? elementosDasCelulas : 0;
+    }
+
+    public int getRegras() {
+        return regras;
+    }
+
+    public long getElementosDasCelulas() {
+        return elementosDasCelulas;
+    }
+
+    /**
+     * Ordinal do elemento da célula (0 = NEUTRAL, célula sem elemento).
+     */
+    public int getElementoDaCelula(int celula) {
+        return (int) (elementosDasCelulas >>> (celula * 4)) & 0xF;
+    }
+
+    /**
+     * Modificador elemental (+1, -1 ou 0) que uma carta com esses ranks recebe na célula.
+     */
+    public int modificadorElemental(int celula, int ranksEmpacotados) {
+        int elementoCelula = getElementoDaCelula(celula);
+        if (elementoCelula == 0) {
+            return 0;
+        }
+        return elemento(ranksEmpacotados) == elementoCelula ? 1 : -1;
+    }
+
+    // Aplica o modificador elemental a cada lado, mantendo os ranks entre 1 e 10
+    private int calcularRanksEfetivos(int celula, int ranksEmpacotados) {
+        int modificador = modificadorElemental(celula, ranksEmpacotados);
+        if (modificador == 0) {
+            return ranksEmpacotados;
+        }
+        int efetivos = ranksEmpacotados & ~0xFFFF;
+        for (int lado = 0; lado < 4; lado++) {
+            int valor = Math.max(1, Math.min(10, rank(ranksEmpacotados, lado) + modificador));
+            efetivos |= valor << (lado << 2);
+        }
+        return efetivos;
+    }
+
+    public int contarCelulasDoJogador(int jogador) {
+        return Integer.bitCount(jogador == 0 ? ocupacao & ~donos : donos);
+    }
+
+    /**
+     * Coloca uma carta em uma célula vazia, sem aplicar capturas.
+     */
+    public void colocar(int celula, int ranksEmpacotados, int jogador) {
+        int bit = 1 << celula;
+        ocupacao |= bit;
+        donos = (donos & ~bit) | (-jogador & bit);
+        ranks[celula] = ranksEmpacotados;
+        ranksEfetivos[celula] = calcularRanksEfetivos(celula, ranksEmpacotados);
+    }
+
+    /**
+     * Aplica as regras de captura a partir da carta recém-colocada na célula: a regra básica
+     * (cada vizinha do oponente com rank adjacente menor passa para o dono da célula) e as
+     * variantes ativas. Retorna a máscara das células viradas.
+     */
+    public int capturar(int celula) {
+        int viradas = resolverCaptura(celula, ranks[celula], ranksEfetivos[celula], getDono(celula));
+        donos ^= viradas; // As viradas eram do oponente, então inverter o bit as passa para o jogador.
+        return viradas;
+    }
+
+    /**
+     * Calcula, sem alterar o estado, quais células seriam viradas se a carta fosse jogada
+     * na célula (vazia) pelo jogador. Usado para ordenar jogadas na busca.
+     */
+    public int simularCaptura(int celula, int ranksEmpacotados, int jogador) {
+        if (regras == Regras.BASICA) {
+            return capturasBasicas(celula, ranksEmpacotados, jogador, donos);
+        }
+        return resolverCaptura(celula, ranksEmpacotados, calcularRanksEfetivos(celula, ranksEmpacotados), jogador);
+    }
+
+    // Regra básica com os ranks efetivos, depois SAME/PLUS com os ranks impressos e, se houver, a cadeia do COMBO
+    private int resolverCaptura(int celula, int ranksEmpacotados, int ranksDaCarta, int jogador) {
+        int viradas = capturasBasicas(celula, ranksDaCarta, jogador, donos);
+        if ((regras & (Regras.SAME | Regras.PLUS)) == 0) {
+            return viradas;
+        }
+        int especiais = capturasSamePlus(celula, ranksEmpacotados, jogador);
+        viradas |= especiais;
+        if ((regras & Regras.COMBO) != 0 && especiais != 0) {
+            viradas |= cascataCombo(especiais, jogador, donos ^ viradas);
+        }
+        return viradas;
+    }
+
+    // Regra básica: vizinhas do oponente (segundo a máscara de donos informada) com rank encostado menor
+    private int capturasBasicas(int celula, int ranksDaCarta, int jogador, int donosAtuais) {
+        int viradas = 0;
+        int base = celula * 4;
+        for (int lado = 0; lado < 4; lado++) {
+            int vizinha = VIZINHOS[base + lado];
+            if (vizinha < 0 || (ocupacao & (1 << vizinha)) == 0 || ((donosAtuais >>> vizinha) & 1) == jogador) {
+                continue;
+            }
+            if (rank(ranksDaCarta, lado) > rank(ranksEfetivos[vizinha], (lado + 2) & 3)) {
+                viradas |= 1 << vizinha;
+            }
+        }
+        return viradas;
+    }
+
+    // SAME e PLUS: consideram todas as vizinhas ocupadas (de qualquer dono), mas só viram as do oponente
+    private int capturasSamePlus(int celula, int ranksDaCarta, int jogador) {
+        if (Integer.bitCount(MASCARA_VIZINHOS[celula] & ocupacao) < 2) {
+            return 0; // SAME e PLUS precisam de pelo menos duas vizinhas
+        }
+        int iguais = 0;
+        int quantidadeIguais = 0;
+        int somas = 0; // 5 bits por lado; 0 = lado sem vizinha
+        int base = celula * 4;
+        for (int lado = 0; lado < 4; lado++) {
+            int vizinha = VIZINHOS[base + lado];
+            if (vizinha < 0 || (ocupacao & (1 << vizinha)) == 0) {
+                continue;
+            }
+            int meu = rank(ranksDaCarta, lado);
+            int dela = rank(ranks[vizinha], (lado + 2) & 3);
+            if (meu == dela) {
+                iguais |= 1 << vizinha;
+                quantidadeIguais++;
+            }
+            somas |= (meu + dela) << (lado * 5);
+        }
+
+        int acionadas = 0;
+        if ((regras & Regras.SAME) != 0 && quantidadeIguais >= 2) {
+            acionadas |= iguais;
+        }
+        if ((regras & Regras.PLUS) != 0) {
+            for (int lado = 0; lado < 4; lado++) {
+                int soma = (somas >>> (lado * 5)) & 0x1F;
+                if (soma == 0) continue;
+                for (int outro = lado + 1; outro < 4; outro++) {
+                    if (((somas >>> (outro * 5)) & 0x1F) == soma) {
+                        acionadas |= 1 << VIZINHOS[base + lado] | 1 << VIZINHOS[base + outro];
+                    }
+                }
+            }
+        }
+        int doOponente = jogador == 0 ? donos : ocupacao & ~donos;
+        return acionadas & doOponente;
+    }
+
+    // COMBO: cada carta virada entra na fila (máscara de pendentes) e aplica a regra básica contra as vizinhas
+    private int cascataCombo(int pendentes, int jogador, int donosAtuais) {
+        int viradas = 0;
+        while (pendentes != 0) {
+            int celula = Integer.numberOfTrailingZeros(pendentes);
+            pendentes &= pendentes - 1;
+            int novas = capturasBasicas(celula, ranksEfetivos[celula], jogador, donosAtuais);
+            donosAtuais ^= novas;
+            viradas |= novas;
+            pendentes |= novas;
+        }
+        return viradas;
+    }
+
+    /**
+     * Coloca a carta e aplica as capturas em um só passo. Retorna a máscara das células viradas.
+     */
+    public int jogar(int celula, int ranksEmpacotados, int jogador) {
+        colocar(celula, ranksEmpacotados, jogador);
+        return capturar(celula);
+    }
+
+    /**
+     * Desfaz uma jogada feita com {@link #jogar}, dadas a célula e a máscara de viradas que ela retornou.
+     */
+    public void desfazer(int celula, int viradas) {
+        int bit = 1 << celula;
+        donos ^= viradas;
+        donos &= ~bit;
+        ocupacao &= ~bit;
+    }
+
+    public void copiarDe(EstadoTabuleiro outro) {
+        this.ocupacao = outro.ocupacao;
+        this.donos = outro.donos;
+        System.arraycopy(outro.ranks, 0, this.ranks, 0, NUM_CELULAS);
+        System.arraycopy(outro.ranksEfetivos, 0, this.ranksEfetivos, 0, NUM_CELULAS);
+        this.regras = outro.regras;
+        this.elementosDasCelulas = outro.elementosDasCelulas;
+    }
+
+    public void limpar() {
+        ocupacao = 0;
+        donos = 0;
+    }
+}
@@ -35,6 +35,11 @@ public class Jogador {
         cartasNaMao.add(carta);
     }
 
+    // Recoloca a carta na posição original da mão (usado ao desfazer uma jogada)
+    public void adicionarCarta(int posicao, Carta carta) {
+        cartasNaMao.add(posicao, carta);
+    }
+
     public void removerCarta(Carta carta) {
         cartasNaMao.remove(carta);
     }
@@ -0,0 +1,131 @@
+package tripletriad.model;
+
+/**
+ * Posição completa de uma partida em forma primitiva: o bitboard do tabuleiro,
+ * as mãos dos dois jogadores (ranks empacotados e IDs por slot), a vez e o hash de Zobrist.
+ * É a estrutura usada pela busca da IA e pelas simulações, pois jogar e desfazer
+ * uma jogada não alocam objetos e mantêm o hash atualizado de forma incremental.
+ *
+ * Os jogadores são identificados por índice (0 para o jogador1, 1 para o jogador2)
+ * e as cartas da mão por slot (0 a MAX_CARTAS_NA_MAO - 1).
+ */
+
+public final class Posicao {
+    public static final int MAX_CARTAS_NA_MAO = 5;
+
+    private final EstadoTabuleiro tabuleiro = new EstadoTabuleiro();
+    private final int[] idsNasCelulas = new int[EstadoTabuleiro.NUM_CELULAS];
+    private final int[] ranksNaMao = new int[2 * MAX_CARTAS_NA_MAO];
+    private final int[] idsNaMao = new int[2 * MAX_CARTAS_NA_MAO];
+    private final int[] maos = new int[2]; // Bit s ligado = slot s da mão ainda tem carta.
+    private int vez;
+    private long hash;
+
+    /**
+     * Coloca uma carta diretamente no tabuleiro, sem aplicar capturas (usado para montar a posição).
+     */
+    public void colocarNoTabuleiro(int celula, int idCarta, int ranksEmpacotados, int dono) {
+        tabuleiro.colocar(celula, ranksEmpacotados, dono);
+        idsNasCelulas[celula] = idCarta;
+        hash ^= Zobrist.cartaNaCelula(celula, idCarta);
+        if (dono == 1) {
+            hash ^= Zobrist.donos(1 << celula);
+        }
+    }
+
+    public void colocarNaMao(int jogador, int slot, int idCarta, int ranksEmpacotados) {
+        if (slot < 0 || slot >= MAX_CARTAS_NA_MAO) {
+            throw new IllegalArgumentException("Slot de mão inválido: " + slot);
+        }
+        int indice = jogador * MAX_CARTAS_NA_MAO + slot;
+        if ((maos[jogador] & (1 << slot)) != 0) {
+            hash ^= Zobrist.cartaNaMao(jogador, idsNaMao[indice]);
+        }
+        ranksNaMao[indice] = ranksEmpacotados;
+        idsNaMao[indice] = idCarta;
+        maos[jogador] |= 1 << slot;
+        hash ^= Zobrist.cartaNaMao(jogador, idCarta);
+    }
+
+    /**
+     * Define as variantes de regra e os elementos das células (ver {@link EstadoTabuleiro#setRegras}).
+     */
+    public void setRegras(int regras, long elementosDasCelulas) {
+        hash ^= Zobrist.configuracao(tabuleiro.getRegras(), tabuleiro.getElementosDasCelulas());
+        tabuleiro.setRegras(regras, elementosDasCelulas);
+        hash ^= Zobrist.configuracao(tabuleiro.getRegras(), tabuleiro.getElementosDasCelulas());
+    }
+
+    public void setVez(int jogador) {
+        if (jogador != vez) {
+            vez = jogador;
+            hash ^= Zobrist.vezDoJogador2();
+        }
+    }
+
+    /**
+     * Joga a carta do slot da mão de quem tem a vez na célula indicada, aplica as capturas
+     * e passa a vez. Retorna a máscara das células viradas, necessária para {@link #desfazer}.
+     */
+    public int jogar(int slot, int celula) {
+        int jogador = vez;
+        int indice = jogador * MAX_CARTAS_NA_MAO + slot;
+        int idCarta = idsNaMao[indice];
+
+        maos[jogador] &= ~(1 << slot);
+        idsNasCelulas[celula] = idCarta;
+        int viradas = tabuleiro.jogar(celula, ranksNaMao[indice], jogador);
+
+        hash ^= Zobrist.jogada(jogador, idCarta, celula, viradas);
+        vez = jogador ^ 1;
+        return viradas;
+    }
+
+    /**
+     * Desfaz a última jogada, dados o slot, a célula e as viradas retornadas por {@link #jogar}.
+     */
+    public void desfazer(int slot, int celula, int viradas) {
+        int jogador = vez ^ 1;
+        int idCarta = idsNaMao[jogador * MAX_CARTAS_NA_MAO + slot];
+
+        tabuleiro.desfazer(celula, viradas);
+        maos[jogador] |= 1 << slot;
+
+        hash ^= Zobrist.jogada(jogador, idCarta, celula, viradas);
+        vez = jogador;
+    }
+
+    public void copiarDe(Posicao outra) {
+        tabuleiro.copiarDe(outra.tabuleiro);
+        System.arraycopy(outra.idsNasCelulas, 0, idsNasCelulas, 0, idsNasCelulas.length);
+        System.arraycopy(outra.ranksNaMao, 0, ranksNaMao, 0, ranksNaMao.length);
+        System.arraycopy(outra.idsNaMao, 0, idsNaMao, 0, idsNaMao.length);
+        maos[0] = outra.maos[0];
+        maos[1] = outra.maos[1];
+        vez = outra.vez;
+        hash = outra.hash;
+    }
+
+    /**
+     * A partida termina quando o tabuleiro enche ou quando quem tem a vez não tem mais cartas.
+     */
+    public boolean terminal() {
+        return tabuleiro.cheio() || maos[vez] == 0;
+    }
+
+    /**
+     * Pontuação no estilo do jogo: cartas do jogador no tabuleiro mais as que ainda estão na mão.
+     */
+    public int placar(int jogador) {
+        return tabuleiro.contarCelulasDoJogador(jogador) + Integer.bitCount(maos[jogador]);
+    }
+
+    public EstadoTabuleiro getTabuleiro() { return tabuleiro; }
+    public int getVez() { return vez; }
+    public long getHash() { return hash; }
+    public int getMao(int jogador) { return maos[jogador]; }
+    public int getCelulasLivres() { return ~tabuleiro.getOcupacao() & EstadoTabuleiro.TABULEIRO_CHEIO; }
+    public int getIdNaCelula(int celula) { return idsNasCelulas[celula]; }
+    public int getRanksNaMao(int jogador, int slot) { return ranksNaMao[jogador * MAX_CARTAS_NA_MAO + slot]; }
+    public int getIdNaMao(int jogador, int slot) { return idsNaMao[jogador * MAX_CARTAS_NA_MAO + slot]; }
+}
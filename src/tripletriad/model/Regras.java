@@ -0,0 +1,86 @@
+package tripletriad.model;
+
+import java.util.StringJoiner;
+import java.util.random.RandomGenerator;
+
+/**
+ * Variantes de regra da partida, combinadas em uma máscara de bits guardada no {@link EstadoTabuleiro}.
+ * Com a máscara BASICA (0) vale só a regra básica: rank maior vira a carta vizinha do oponente.
+ *
+ * - SAME: se dois ou mais lados da carta jogada têm o mesmo rank que o lado encostado da vizinha, as vizinhas do oponente nesses lados viram.
+ * - PLUS: se dois ou mais lados somam o mesmo valor (rank da carta + rank encostado da vizinha), as vizinhas do oponente nesses lados viram.
+ * - COMBO: as cartas viradas por SAME ou PLUS aplicam a regra básica contra as vizinhas delas, em cadeia.
+ * - ELEMENTAL: algumas células têm um elemento; a carta do mesmo elemento ganha +1 em todos os ranks e as demais perdem 1.
+ *
+ * SAME e PLUS comparam os ranks impressos na carta; o modificador elemental vale para a regra básica e para o COMBO.
+ */
+
+public final class Regras {
+    public static final int BASICA = 0;
+    public static final int SAME = 1;
+    public static final int PLUS = 1 << 1;
+    public static final int COMBO = 1 << 2;
+    public static final int ELEMENTAL = 1 << 3;
+    public static final int TODAS = SAME | PLUS | COMBO | ELEMENTAL;
+
+    private static final String[] NOMES = {"same", "plus", "combo", "elemental"};
+
+    // Chance de cada célula receber um elemento quando a regra ELEMENTAL está ativa
+    private static final double CHANCE_CELULA_ELEMENTAL = 0.25;
+
+    private Regras() {
+    }
+
+    /**
+     * Converte uma lista separada por vírgulas (ex: "same,plus,combo") na máscara de regras.
+     * Lança IllegalArgumentException para nomes desconhecidos.
+     */
+    public static int lerRegras(String texto) {
+        int regras = BASICA;
+        if (texto == null || texto.isBlank()) {
+            return regras;
+        }
+        for (String parte : texto.split(",")) {
+            String nome = parte.trim().toLowerCase();
+            int bit = -1;
+            for (int i = 0; i < NOMES.length; i++) {
+                if (NOMES[i].equals(nome)) {
+                    bit = 1 << i;
+                }
+            }
+            if (bit < 0) {
+                throw new IllegalArgumentException("Regra desconhecida: '" + parte.trim() + "'");
+            }
+            regras |= bit;
+        }
+        return regras;
+    }
+
+    public static String descrever(int regras) {
+        if (regras == BASICA) {
+            return "basica";
+        }
+        StringJoiner nomes = new StringJoiner(",");
+        for (int i = 0; i < NOMES.length; i++) {
+            if ((regras & (1 << i)) != 0) {
+                nomes.add(NOMES[i]);
+            }
+        }
+        return nomes.toString();
+    }
+
+    /**
+     * Sorteia os elementos das células para a regra ELEMENTAL, no formato de
+     * {@link EstadoTabuleiro#setRegras}: 4 bits por célula com o ordinal do {@link Elemento}.
+     */
+    public static long sortearElementosDasCelulas(RandomGenerator random) {
+        long elementos = 0;
+        int quantidadeElementos = Elemento.values().length - 1; // Sem NEUTRAL
+        for (int celula = 0; celula < EstadoTabuleiro.NUM_CELULAS; celula++) {
+            if (random.nextDouble() < CHANCE_CELULA_ELEMENTAL) {
+                elementos |= (long) (1 + random.nextInt(quantidadeElementos)) << (celula * 4);
+            }
+        }
+        return elementos;
+    }
+}
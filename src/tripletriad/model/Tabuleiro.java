@@ -3,25 +3,57 @@ package tripletriad.model;
 /**
  * Representa o tabuleiro 3x3 do jogo Triple Triad.
  * Armazena as cartas que foram colocadas durante a partida.
+ * A ocupação, os donos e os ranks ficam em um {@link EstadoTabuleiro} (bitboard),
+ * usado pelas regras de captura; o array de cartas serve apenas para exibição.
  */
 
 public class Tabuleiro {
-    private Carta[][] matriz;
+    private final Carta[] cartas;
+    private final EstadoTabuleiro estado;
 
     public Tabuleiro() {
-        matriz = new Carta[3][3];
+        cartas = new Carta[EstadoTabuleiro.NUM_CELULAS];
+        estado = new EstadoTabuleiro();
     }
 
-    public boolean colocarCarta(int linha, int coluna, Carta carta) {
-        if (matriz[linha][coluna] == null) {
-            matriz[linha][coluna] = carta;
-            return true;
+    /**
+     * Coloca a carta na posição para o jogador de índice {@code dono} (0 ou 1), sem aplicar capturas.
+     */
+    public boolean colocarCarta(int linha, int coluna, Carta carta, int dono) {
+        int celula = EstadoTabuleiro.celula(linha, coluna);
+        if (estado.ocupada(celula)) {
+            return false;
         }
-        return false;
+        cartas[celula] = carta;
+        estado.colocar(celula, EstadoTabuleiro.empacotarRanks(carta), dono);
+        return true;
+    }
+
+    /**
+     * Aplica as capturas da carta colocada na posição e retorna a máscara das células viradas.
+     */
+    public int virarAdjacentes(int linha, int coluna) {
+        return estado.capturar(EstadoTabuleiro.celula(linha, coluna));
+    }
+
+    /**
+     * Retira a carta da célula e devolve as células viradas ao dono anterior, desfazendo a jogada.
+     */
+    public void removerCarta(int celula, int viradas) {
+        cartas[celula] = null;
+        estado.desfazer(celula, viradas);
     }
 
     public Carta getCarta(int linha, int coluna) {
-        return matriz[linha][coluna];
+        return cartas[EstadoTabuleiro.celula(linha, coluna)];
+    }
+
+    public Carta getCarta(int celula) {
+        return cartas[celula];
+    }
+
+    public EstadoTabuleiro getEstado() {
+        return estado;
     }
 
 }
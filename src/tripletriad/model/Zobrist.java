@@ -0,0 +1,90 @@
+package tripletriad.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chaves de Zobrist usadas para calcular o hash de uma posição de forma incremental.
+ * O hash de uma posição é o XOR das chaves de cada carta no tabuleiro (por célula),
+ * do dono de cada célula que pertence ao jogador de índice 1, de cada carta ainda na mão
+ * (por jogador) e da vez, quando é o jogador de índice 1 que joga.
+ * As chaves são geradas com semente fixa, então o mesmo hash é obtido em qualquer execução.
+ */
+
+public final class Zobrist {
+    public static final int MAX_ID_CARTA = 128; // IDs de carta válidos: 0 a 127.
+
+    private static final long[] CARTA_NA_CELULA = new long[EstadoTabuleiro.NUM_CELULAS * MAX_ID_CARTA];
+    private static final long[] DONO_DA_CELULA = new long[EstadoTabuleiro.NUM_CELULAS];
+    private static final long[] CARTA_NA_MAO = new long[2 * MAX_ID_CARTA];
+    private static final long VEZ_JOGADOR_2;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x7E1A_7E1AL);
+        for (int i = 0; i < CARTA_NA_CELULA.length; i++) CARTA_NA_CELULA[i] = random.nextLong();
+        for (int i = 0; i < DONO_DA_CELULA.length; i++) DONO_DA_CELULA[i] = random.nextLong();
+        for (int i = 0; i < CARTA_NA_MAO.length; i++) CARTA_NA_MAO[i] = random.nextLong();
+        VEZ_JOGADOR_2 = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long cartaNaCelula(int celula, int idCarta) {
+        return CARTA_NA_CELULA[celula * MAX_ID_CARTA + conferirId(idCarta)];
+    }
+
+    public static long cartaNaMao(int jogador, int idCarta) {
+        return CARTA_NA_MAO[jogador * MAX_ID_CARTA + conferirId(idCarta)];
+    }
+
+    // Um ID fora do intervalo não pode virar outro ID (duas posições com o mesmo hash enganariam a
+    // tabela de transposição): o CardCatalog já os recusa, e aqui é só a garantia para cartas de outra origem
+    private static int conferirId(int idCarta) {
+        if ((idCarta & ~(MAX_ID_CARTA - 1)) != 0) {
+            throw new IllegalArgumentException("ID de carta fora do intervalo 0-" + (MAX_ID_CARTA - 1) + ": " + idCarta);
+        }
+        return idCarta;
+    }
+
+    public static long vezDoJogador2() {
+        return VEZ_JOGADOR_2;
+    }
+
+    /**
+     * Retorna o XOR das chaves de dono das células presentes na máscara.
+     * Usado para atualizar o hash quando um conjunto de células troca de dono.
+     */
+    public static long donos(int mascaraCelulas) {
+        long chave = 0;
+        while (mascaraCelulas != 0) {
+            chave ^= DONO_DA_CELULA[Integer.numberOfTrailingZeros(mascaraCelulas)];
+            mascaraCelulas &= mascaraCelulas - 1;
+        }
+        return chave;
+    }
+
+    /**
+     * Chave das variantes de regra e dos elementos das células, que não mudam durante a partida.
+     * É 0 para a regra básica sem elementos, e assim o hash das partidas básicas não muda;
+     * nas demais, posições iguais com regras diferentes não compartilham entradas da tabela de transposição.
+     */
+    public static long configuracao(int regras, long elementosDasCelulas) {
+        if (regras == Regras.BASICA && elementosDasCelulas == 0) {
+            return 0;
+        }
+        long z = elementosDasCelulas ^ ((long) regras << 40) ^ 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Diferença de hash causada pela jogada: a carta sai da mão, entra na célula,
+     * as células viradas (e a jogada, se for do jogador de índice 1) trocam de dono e a vez passa.
+     * Aplicar o mesmo XOR de novo desfaz a jogada.
+     */
+    public static long jogada(int jogador, int idCarta, int celula, int viradas) {
+        return cartaNaMao(jogador, idCarta) ^ cartaNaCelula(celula, idCarta)
+                ^ donos(jogador == 1 ? viradas | (1 << celula) : viradas) ^ VEZ_JOGADOR_2;
+    }
+}
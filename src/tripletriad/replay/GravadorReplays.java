@@ -0,0 +1,309 @@
+package tripletriad.replay;
+
+import tripletriad.controller.Jogo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Log de replays só de acréscimo: cada partida acompanhada ({@link #acompanhar}) vira um registro compacto
+ * ({@link RegistroReplay}) quando termina. Os registros são juntados em blocos comprimidos com Deflate, e os
+ * blocos vão para segmentos de tamanho limitado, cada um com um índice do número da primeira partida de
+ * cada bloco para o offset do bloco. Segmentos fechados nunca são reescritos.
+ *
+ * Na thread do jogo, o replay só anota um byte por jogada e, no fim, entra em uma fila sem lock; montar o
+ * registro, comprimir e escrever rodam na única thread do gravador, que esvazia a fila e, quando ela está
+ * vazia, dorme {@link #ESPERA_FILA_VAZIA_NS} em vez de ser acordada: quem joga nunca espera o gravador nem
+ * paga para acordá-lo. O bloco atual é descarregado quando enche e a cada {@code descarregarACadaMs}, então
+ * uma queda perde no máximo esse intervalo de partidas.
+ *
+ * Arquivos do diretório (big-endian), com N = número da primeira partida do segmento, em 20 dígitos:
+ * - N.ttr: cabeçalho de 16 bytes (magic "TTRP", versão (short), reservado (short), N (long)) e os blocos.
+ *   Bloco: tamanho comprimido (int), tamanho original (int), quantidade de registros (int), CRC32 dos dados
+ *   comprimidos (int), número da primeira partida (long) e os dados comprimidos.
+ * - N.idx: uma entrada de 16 bytes por bloco: número da primeira partida (long) e offset do bloco (long).
+ *
+ * Ao abrir um diretório existente, a numeração continua depois do último bloco completo, em um segmento
+ * novo; um bloco cortado no fim do último segmento (queda durante a escrita) é ignorado pela leitura.
+ */
+
+public final class GravadorReplays implements AutoCloseable {
+    public static final int TAMANHO_BLOCO_PADRAO = 64 * 1024;
+    public static final long TAMANHO_SEGMENTO_PADRAO = 64L * 1024 * 1024;
+    public static final long DESCARREGAR_A_CADA_MS_PADRAO = 1000;
+
+    private static final long ESPERA_FILA_VAZIA_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    static final int MAGICO = 0x54545250; // "TTRP"
+    static final short VERSAO = 1;
+    static final int CABECALHO_SEGMENTO = 16;
+    static final int CABECALHO_BLOCO = 24;
+    static final int ENTRADA_INDICE = 16;
+    static final String EXTENSAO_SEGMENTO = ".ttr";
+    static final String EXTENSAO_INDICE = ".idx";
+
+    private final Path diretorio;
+    private final long tamanhoSegmento;
+    private final long descarregarACadaNs;
+    private final ConcurrentLinkedQueue<ReplayPartida> concluidos = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean fechado;
+
+    // Só a thread do gravador mexe nestes campos
+    private final ByteBuffer bloco;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_BLOCO);
+    private final ByteBuffer entradaIndice = ByteBuffer.allocate(ENTRADA_INDICE);
+    private byte[] comprimido;
+    private FileChannel segmento;
+    private FileChannel indice;
+    private long offsetNoSegmento;
+    private long primeiraDoBloco;
+    private int registrosNoBloco;
+    private long ultimaDescarga = System.nanoTime();
+
+    private volatile long partidasGravadas;
+    private volatile long bytesOriginais;
+    private volatile long bytesComprimidos;
+    private volatile long segmentosAbertos;
+
+    public GravadorReplays(Path diretorio) throws IOException {
+        this(diretorio, TAMANHO_BLOCO_PADRAO, TAMANHO_SEGMENTO_PADRAO, DESCARREGAR_A_CADA_MS_PADRAO);
+    }
+
+    /**
+     * @param tamanhoBloco       bytes de registros (antes da compressão) por bloco
+     * @param tamanhoSegmento    tamanho a partir do qual o próximo bloco abre um segmento novo
+     * @param descarregarACadaMs intervalo máximo para um bloco incompleto ir para o disco
+     */
+    public GravadorReplays(Path diretorio, int tamanhoBloco, long tamanhoSegmento, long descarregarACadaMs) throws IOException {
+        if (tamanhoBloco < RegistroReplay.TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("Bloco menor que um registro: " + tamanhoBloco);
+        }
+        this.diretorio = Files.createDirectories(diretorio);
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.bloco = ByteBuffer.allocate(tamanhoBloco);
+        this.comprimido = new byte[tamanhoBloco + tamanhoBloco / 8 + 64];
+        this.descarregarACadaNs = TimeUnit.MILLISECONDS.toNanos(descarregarACadaMs);
+        this.primeiraDoBloco = recuperarProximaPartida(diretorio);
+        this.thread = new Thread(this::gravarConcluidos, "gravador-replays");
+        thread.setDaemon(true); // Não impede o encerramento; close() descarrega o que falta
+        thread.start();
+    }
+
+    /**
+     * Passa a gravar o jogo, que ainda não pode ter jogadas; chamado na thread dona do jogo.
+     * Retorna o replay, que pode ser {@link ReplayPartida#abandonar() abandonado} se a partida não terminar.
+     */
+    public ReplayPartida acompanhar(Jogo jogo, long idSessao) {
+        if (jogo.getCelulasPreenchidas() > 0) {
+            throw new IllegalStateException("O replay precisa acompanhar o jogo desde a primeira jogada.");
+        }
+        ReplayPartida replay = new ReplayPartida(this, jogo, idSessao);
+        jogo.addObserver(replay, Runnable::run); // Na thread do jogo: só anota a jogada
+        return replay;
+    }
+
+    // Chamado uma vez por replay, pela thread que o concluiu; depois disso o replay é só do gravador
+    void concluir(ReplayPartida replay) {
+        if (!fechado) {
+            concluidos.offer(replay);
+        }
+    }
+
+    // Laço da thread do gravador
+    private void gravarConcluidos() {
+        while (true) {
+            boolean fechando = fechado; // Lido antes da fila: o que entrou antes de fechar é gravado
+            ReplayPartida replay;
+            while ((replay = concluidos.poll()) != null) {
+                gravar(replay);
+            }
+            if (fechando) {
+                descarregarBloco();
+                fecharSegmento();
+                return;
+            }
+            if (System.nanoTime() - ultimaDescarga >= descarregarACadaNs) {
+                descarregarBloco();
+            }
+            LockSupport.parkNanos(ESPERA_FILA_VAZIA_NS);
+        }
+    }
+
+    private void gravar(ReplayPartida replay) {
+        if (bloco.remaining() < replay.tamanho()) {
+            descarregarBloco();
+        }
+        replay.escrever(bloco, System.currentTimeMillis());
+        registrosNoBloco++;
+    }
+
+    // Na thread do gravador: comprime o bloco atual e o acrescenta ao segmento, com a entrada no índice
+    private void descarregarBloco() {
+        ultimaDescarga = System.nanoTime();
+        if (registrosNoBloco == 0) {
+            return;
+        }
+        int original = bloco.position();
+        int tamanho = comprimir(original);
+        try {
+            if (segmento == null || offsetNoSegmento + CABECALHO_BLOCO + tamanho > tamanhoSegmento && offsetNoSegmento > CABECALHO_SEGMENTO) {
+                abrirSegmento();
+            }
+            crc.reset();
+            crc.update(comprimido, 0, tamanho);
+            cabecalho.clear();
+            cabecalho.putInt(tamanho).putInt(original).putInt(registrosNoBloco).putInt((int) crc.getValue()).putLong(primeiraDoBloco).flip();
+            escreverTudo(segmento, cabecalho, ByteBuffer.wrap(comprimido, 0, tamanho));
+            entradaIndice.clear();
+            entradaIndice.putLong(primeiraDoBloco).putLong(offsetNoSegmento).flip();
+            escreverTudo(indice, entradaIndice);
+            offsetNoSegmento += CABECALHO_BLOCO + tamanho;
+            partidasGravadas += registrosNoBloco;
+            bytesOriginais += original;
+            bytesComprimidos += CABECALHO_BLOCO + tamanho;
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar " + registrosNoBloco + " replays: " + e.getMessage());
+            fecharSegmento(); // Tenta de novo em um segmento novo no próximo bloco
+        }
+        primeiraDoBloco += registrosNoBloco; // Mesmo com erro: os números já usados não se repetem
+        registrosNoBloco = 0;
+        bloco.clear();
+    }
+
+    private int comprimir(int original) {
+        deflater.reset();
+        deflater.setInput(bloco.array(), 0, original);
+        deflater.finish();
+        int tamanho = 0;
+        while (!deflater.finished()) {
+            if (tamanho == comprimido.length) {
+                comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+            }
+            tamanho += deflater.deflate(comprimido, tamanho, comprimido.length - tamanho);
+        }
+        return tamanho;
+    }
+
+    private void abrirSegmento() throws IOException {
+        fecharSegmento();
+        String nome = String.format("%020d", primeiraDoBloco);
+        segmento = FileChannel.open(diretorio.resolve(nome + EXTENSAO_SEGMENTO),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        indice = FileChannel.open(diretorio.resolve(nome + EXTENSAO_INDICE),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer cabecalhoSegmento = ByteBuffer.allocate(CABECALHO_SEGMENTO);
+        cabecalhoSegmento.putInt(MAGICO).putShort(VERSAO).putShort((short) 0).putLong(primeiraDoBloco).flip();
+        escreverTudo(segmento, cabecalhoSegmento);
+        offsetNoSegmento = CABECALHO_SEGMENTO;
+        segmentosAbertos++;
+    }
+
+    // Segmento completo: força para o disco e fecha; não é mais aberto para escrita
+    private void fecharSegmento() {
+        try {
+            if (segmento != null) {
+                segmento.force(true);
+                segmento.close();
+            }
+            if (indice != null) {
+                indice.force(true);
+                indice.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o segmento de replays: " + e.getMessage());
+        }
+        segmento = null;
+        indice = null;
+    }
+
+    private static void escreverTudo(FileChannel canal, ByteBuffer... buffers) throws IOException {
+        long restante = 0;
+        for (ByteBuffer buffer : buffers) {
+            restante += buffer.remaining();
+        }
+        while (restante > 0) {
+            restante -= canal.write(buffers);
+        }
+    }
+
+    /**
+     * Grava as partidas já concluídas, fecha o segmento e para a thread do gravador. As partidas que
+     * terminarem depois disso não são gravadas.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // A thread ainda pode estar usando o deflater
+        }
+        deflater.end();
+    }
+
+    public long getPartidasGravadas() {
+        return partidasGravadas;
+    }
+
+    public long getBytesOriginais() {
+        return bytesOriginais;
+    }
+
+    public long getBytesComprimidos() {
+        return bytesComprimidos;
+    }
+
+    public long getSegmentosAbertos() {
+        return segmentosAbertos;
+    }
+
+    /**
+     * Segmentos do diretório, em ordem de numeração.
+     */
+    static List<Path> listarSegmentos(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) {
+            return List.of();
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            List<Path> segmentos = new ArrayList<>(arquivos.filter(p -> p.getFileName().toString().endsWith(EXTENSAO_SEGMENTO)).toList());
+            segmentos.sort(null); // Os nomes têm largura fixa, então a ordem do nome é a da numeração
+            return segmentos;
+        }
+    }
+
+    // Número da próxima partida: o do último bloco completo do último segmento, mais os registros dele
+    private static long recuperarProximaPartida(Path diretorio) throws IOException {
+        List<Path> segmentos = listarSegmentos(diretorio);
+        if (segmentos.isEmpty()) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(segmentos.get(segmentos.size() - 1), StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_BLOCO);
+            long proxima = LeitorReplays.lerCabecalhoSegmento(canal, cabecalho);
+            long offset = CABECALHO_SEGMENTO;
+            while (LeitorReplays.lerCabecalhoBloco(canal, offset, cabecalho)) {
+                proxima = cabecalho.getLong(16) + cabecalho.getInt(8);
+                offset += CABECALHO_BLOCO + cabecalho.getInt(0);
+            }
+            return proxima;
+        }
+    }
+}
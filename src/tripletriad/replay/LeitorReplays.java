@@ -0,0 +1,232 @@
+package tripletriad.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Leitura em fluxo do log de replays gravado pelo {@link GravadorReplays}: os segmentos são lidos um bloco
+ * por vez, em buffers reaproveitados, e cada registro é lido no lugar pelo {@link RegistroReplay}. A memória
+ * usada é a de um bloco, qualquer que seja o tamanho do log, então dá para varrer milhões de partidas.
+ *
+ * {@link #posicionar} salta para uma partida pelo número usando o nome dos segmentos e o índice de blocos,
+ * sem ler o que vem antes. Um bloco cortado no fim de um segmento (queda durante a escrita) encerra o
+ * segmento; um bloco com CRC errado lança IOException.
+ */
+
+public final class LeitorReplays implements AutoCloseable {
+    private final List<Path> segmentos;
+    private final long[] primeiras; // Número da primeira partida de cada segmento
+    private final ByteBuffer cabecalho = ByteBuffer.allocate(GravadorReplays.CABECALHO_BLOCO);
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private byte[] comprimido = new byte[GravadorReplays.TAMANHO_BLOCO_PADRAO];
+    private ByteBuffer bloco = ByteBuffer.allocate(GravadorReplays.TAMANHO_BLOCO_PADRAO);
+
+    private int segmentoAtual = -1;
+    private FileChannel canal;
+    private long offsetProximoBloco;
+    private int posicaoNoBloco;
+    private long proximoNumero;
+
+    public LeitorReplays(Path diretorio) throws IOException {
+        this.segmentos = GravadorReplays.listarSegmentos(diretorio);
+        this.primeiras = new long[segmentos.size()];
+        for (int i = 0; i < primeiras.length; i++) {
+            String nome = segmentos.get(i).getFileName().toString();
+            primeiras[i] = Long.parseLong(nome.substring(0, nome.length() - GravadorReplays.EXTENSAO_SEGMENTO.length()));
+        }
+        bloco.limit(0);
+    }
+
+    /**
+     * Aponta o registro para a próxima partida do log. Retorna false no fim do log.
+     */
+    public boolean proximo(RegistroReplay registro) throws IOException {
+        while (posicaoNoBloco >= bloco.limit()) {
+            if (!lerProximoBloco()) {
+                return false;
+            }
+        }
+        int tamanho = bloco.get(posicaoNoBloco) & 0xFF;
+        if (tamanho < RegistroReplay.TAMANHO_FIXO || posicaoNoBloco + tamanho > bloco.limit()) {
+            throw new IOException("Registro de replay inválido na partida " + proximoNumero + " de " + segmentos.get(segmentoAtual));
+        }
+        registro.apontar(bloco, posicaoNoBloco, proximoNumero++);
+        posicaoNoBloco += tamanho;
+        return true;
+    }
+
+    /**
+     * Faz o próximo {@link #proximo} ler a partida de número dado (ou a primeira depois dela que exista).
+     */
+    public void posicionar(long numero) throws IOException {
+        int segmento = Arrays.binarySearch(primeiras, numero);
+        if (segmento < 0) {
+            segmento = Math.max(0, -segmento - 2); // O último segmento que começa antes do número
+        }
+        if (segmento >= segmentos.size()) {
+            return;
+        }
+        abrirSegmento(segmento);
+        offsetProximoBloco = offsetDoBloco(segmento, numero);
+        while (lerProximoBloco() && proximoNumero + contarRegistros() <= numero) {
+            // Blocos inteiros antes do número: só acontece se o índice estiver incompleto
+        }
+        while (posicaoNoBloco < bloco.limit() && proximoNumero < numero) {
+            posicaoNoBloco += bloco.get(posicaoNoBloco) & 0xFF;
+            proximoNumero++;
+        }
+    }
+
+    private int contarRegistros() {
+        return cabecalho.getInt(8);
+    }
+
+    // Busca binária no índice do segmento pela última entrada com primeira partida <= número
+    private long offsetDoBloco(int segmento, long numero) throws IOException {
+        Path arquivo = segmentos.get(segmento);
+        String nome = arquivo.getFileName().toString();
+        Path indice = arquivo.resolveSibling(nome.substring(0, nome.length() - GravadorReplays.EXTENSAO_SEGMENTO.length())
+                + GravadorReplays.EXTENSAO_INDICE);
+        long offset = GravadorReplays.CABECALHO_SEGMENTO;
+        try (FileChannel canalIndice = FileChannel.open(indice, StandardOpenOption.READ)) {
+            ByteBuffer entrada = ByteBuffer.allocate(GravadorReplays.ENTRADA_INDICE);
+            long baixo = 0;
+            long alto = canalIndice.size() / GravadorReplays.ENTRADA_INDICE - 1;
+            while (baixo <= alto) {
+                long meio = (baixo + alto) >>> 1;
+                entrada.clear();
+                lerTudo(canalIndice, entrada, meio * GravadorReplays.ENTRADA_INDICE);
+                if (entrada.getLong(0) <= numero) {
+                    offset = entrada.getLong(8);
+                    baixo = meio + 1;
+                } else {
+                    alto = meio - 1;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Sem índice: percorre os blocos desde o início do segmento
+        }
+        return offset;
+    }
+
+    // Lê e descomprime o próximo bloco, passando para o próximo segmento quando o atual acaba
+    private boolean lerProximoBloco() throws IOException {
+        while (true) {
+            if (canal != null && lerCabecalhoBloco(canal, offsetProximoBloco, cabecalho)) {
+                break;
+            }
+            if (segmentoAtual + 1 >= segmentos.size()) {
+                fecharCanal();
+                bloco.limit(0);
+                posicaoNoBloco = 0;
+                return false;
+            }
+            abrirSegmento(segmentoAtual + 1);
+        }
+        int tamanho = cabecalho.getInt(0);
+        int original = cabecalho.getInt(4);
+        if (comprimido.length < tamanho) {
+            comprimido = new byte[tamanho];
+        }
+        if (bloco.capacity() < original) {
+            bloco = ByteBuffer.allocate(original);
+        }
+        lerTudo(canal, ByteBuffer.wrap(comprimido, 0, tamanho), offsetProximoBloco + GravadorReplays.CABECALHO_BLOCO);
+        crc.reset();
+        crc.update(comprimido, 0, tamanho);
+        if ((int) crc.getValue() != cabecalho.getInt(12)) {
+            throw new IOException("Bloco de replays corrompido em " + segmentos.get(segmentoAtual) + ", offset " + offsetProximoBloco);
+        }
+        inflater.reset();
+        inflater.setInput(comprimido, 0, tamanho);
+        try {
+            if (inflater.inflate(bloco.array(), 0, original) != original || !inflater.finished()) {
+                throw new IOException("Bloco de replays com tamanho inconsistente em " + segmentos.get(segmentoAtual));
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco de replays inválido em " + segmentos.get(segmentoAtual), e);
+        }
+        bloco.clear().limit(original);
+        posicaoNoBloco = 0;
+        proximoNumero = cabecalho.getLong(16);
+        offsetProximoBloco += GravadorReplays.CABECALHO_BLOCO + tamanho;
+        return true;
+    }
+
+    private void abrirSegmento(int segmento) throws IOException {
+        fecharCanal();
+        canal = FileChannel.open(segmentos.get(segmento), StandardOpenOption.READ);
+        segmentoAtual = segmento;
+        lerCabecalhoSegmento(canal, cabecalho);
+        offsetProximoBloco = GravadorReplays.CABECALHO_SEGMENTO;
+        bloco.limit(0);
+        posicaoNoBloco = 0;
+    }
+
+    /**
+     * Confere o cabeçalho do segmento e retorna o número da primeira partida dele.
+     */
+    static long lerCabecalhoSegmento(FileChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(GravadorReplays.CABECALHO_SEGMENTO);
+        if (canal.size() < GravadorReplays.CABECALHO_SEGMENTO) {
+            throw new IOException("Segmento de replays sem cabeçalho");
+        }
+        lerTudo(canal, buffer, 0);
+        if (buffer.getInt(0) != GravadorReplays.MAGICO) {
+            throw new IOException("Segmento de replays inválido: magic incorreto");
+        }
+        if (buffer.getShort(4) != GravadorReplays.VERSAO) {
+            throw new IOException("Versão de segmento de replays não suportada: " + buffer.getShort(4));
+        }
+        return buffer.getLong(8);
+    }
+
+    /**
+     * Lê o cabeçalho do bloco no offset; retorna false se não há um bloco completo ali (fim do segmento).
+     */
+    static boolean lerCabecalhoBloco(FileChannel canal, long offset, ByteBuffer buffer) throws IOException {
+        long tamanhoArquivo = canal.size();
+        if (offset + GravadorReplays.CABECALHO_BLOCO > tamanhoArquivo) {
+            return false;
+        }
+        buffer.clear().limit(GravadorReplays.CABECALHO_BLOCO);
+        lerTudo(canal, buffer, offset);
+        int tamanho = buffer.getInt(0);
+        int original = buffer.getInt(4);
+        return tamanho > 0 && original > 0 && buffer.getInt(8) > 0
+                && offset + GravadorReplays.CABECALHO_BLOCO + tamanho <= tamanhoArquivo;
+    }
+
+    private static void lerTudo(FileChannel canal, ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            int lidos = canal.read(buffer, posicao);
+            if (lidos < 0) {
+                throw new IOException("Fim inesperado do arquivo de replays");
+            }
+            posicao += lidos;
+        }
+    }
+
+    private void fecharCanal() throws IOException {
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fecharCanal();
+        inflater.end();
+    }
+}
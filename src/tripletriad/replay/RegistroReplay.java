@@ -0,0 +1,151 @@
+package tripletriad.replay;
+
+import tripletriad.model.CardCatalog;
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Visão de um registro de partida dentro de um bloco do log de replays, sem copiar nem criar objetos:
+ * o {@link LeitorReplays} reaponta a mesma instância para cada registro, então varrer milhões de
+ * partidas não aloca por partida.
+ *
+ * Formato (big-endian), com tamanho variável:
+ * - tamanho do registro (u8), id da sessão (long), fim da partida em ms desde a época (long),
+ *   regras (u8, máscara de {@link Regras}) e estado (u8: CONCLUIDA ou ABANDONADA).
+ * - Distribuição: os IDs das 5 cartas de cada jogador, na ordem da mão inicial (10 x u16).
+ * - Reveladas: uma máscara por jogador (u8), bit s = carta do slot s mostrada ao oponente.
+ * - Placar final dos dois jogadores (2 x u8) e quantidade de jogadas (u8, até 9).
+ * - Uma jogada por byte: célula nos bits 0-3 e slot da mão inicial nos bits 4-6. Os jogadores
+ *   alternam a partir do jogador 1. O slot é o da mão inicial (não o da lista que encolhe a cada
+ *   jogada), que é como a {@link Posicao} identifica as cartas.
+ * - Com a regra ELEMENTAL, os elementos das células (long, como em {@link Regras#sortearElementosDasCelulas}).
+ */
+
+public final class RegistroReplay {
+    public static final int CONCLUIDA = 0;
+    public static final int ABANDONADA = 1;
+
+    static final int TAMANHO_FIXO = 44;
+    static final int TAMANHO_MAXIMO = TAMANHO_FIXO + 9 + Long.BYTES;
+    static final int CARTAS_POR_JOGADOR = Posicao.MAX_CARTAS_NA_MAO;
+
+    static final int OFFSET_ID = 1;
+    static final int OFFSET_FIM = 9;
+    static final int OFFSET_REGRAS = 17;
+    static final int OFFSET_ESTADO = 18;
+    static final int OFFSET_CARTAS = 19;
+    static final int OFFSET_REVELADAS = 39;
+    static final int OFFSET_PLACAR = 41;
+    static final int OFFSET_QUANTIDADE_JOGADAS = 43;
+    static final int OFFSET_JOGADAS = 44;
+    static final int DESLOCAMENTO_SLOT = 4;
+
+    private ByteBuffer buffer;
+    private int inicio;
+    private long numero;
+
+    // Chamado pelo LeitorReplays, que já conferiu que o registro cabe no bloco
+    void apontar(ByteBuffer buffer, int inicio, long numero) {
+        this.buffer = buffer;
+        this.inicio = inicio;
+        this.numero = numero;
+    }
+
+    /**
+     * Número sequencial da partida no log (ordem de gravação, a partir de 0).
+     */
+    public long getNumero() {
+        return numero;
+    }
+
+    public int getTamanho() {
+        return u8(0);
+    }
+
+    public long getIdSessao() {
+        return buffer.getLong(inicio + OFFSET_ID);
+    }
+
+    public long getFimEmMillis() {
+        return buffer.getLong(inicio + OFFSET_FIM);
+    }
+
+    public int getRegras() {
+        return u8(OFFSET_REGRAS);
+    }
+
+    public boolean isAbandonada() {
+        return u8(OFFSET_ESTADO) == ABANDONADA;
+    }
+
+    public int getCarta(int jogador, int slot) {
+        return buffer.getShort(inicio + OFFSET_CARTAS + 2 * (jogador * CARTAS_POR_JOGADOR + slot)) & 0xFFFF;
+    }
+
+    public boolean isRevelada(int jogador, int slot) {
+        return (u8(OFFSET_REVELADAS + jogador) & 1 << slot) != 0;
+    }
+
+    public int getPlacar(int jogador) {
+        return u8(OFFSET_PLACAR + jogador);
+    }
+
+    /**
+     * 0 ou 1 para o vencedor, -1 em caso de empate.
+     */
+    public int getVencedor() {
+        int placar1 = getPlacar(0);
+        int placar2 = getPlacar(1);
+        return placar1 == placar2 ? -1 : placar1 > placar2 ? 0 : 1;
+    }
+
+    public int getQuantidadeJogadas() {
+        return u8(OFFSET_QUANTIDADE_JOGADAS);
+    }
+
+    public int getCelula(int jogada) {
+        return u8(OFFSET_JOGADAS + jogada) & 0xF;
+    }
+
+    public int getSlot(int jogada) {
+        return u8(OFFSET_JOGADAS + jogada) >>> DESLOCAMENTO_SLOT;
+    }
+
+    /**
+     * Jogador (0 ou 1) que fez a jogada de índice dado.
+     */
+    public int getJogador(int jogada) {
+        return jogada & 1;
+    }
+
+    public long getElementos() {
+        if ((getRegras() & Regras.ELEMENTAL) == 0) {
+            return 0;
+        }
+        return buffer.getLong(inicio + OFFSET_JOGADAS + getQuantidadeJogadas());
+    }
+
+    /**
+     * Monta na posição (que deve estar vazia) a partida depois das primeiras {@code jogadas} jogadas,
+     * com as mesmas capturas do jogo original. As cartas são buscadas pelo ID no catálogo.
+     */
+    public void reproduzir(Posicao posicao, CardCatalog catalogo, int jogadas) {
+        posicao.setRegras(getRegras(), getElementos());
+        for (int jogador = 0; jogador < 2; jogador++) {
+            for (int slot = 0; slot < CARTAS_POR_JOGADOR; slot++) {
+                int id = getCarta(jogador, slot);
+                posicao.colocarNaMao(jogador, slot, id, catalogo.getRanks(catalogo.indiceDoId(id)));
+            }
+        }
+        posicao.setVez(0);
+        for (int jogada = 0; jogada < jogadas; jogada++) {
+            posicao.jogar(getSlot(jogada), getCelula(jogada));
+        }
+    }
+
+    private int u8(int offset) {
+        return buffer.get(inicio + offset) & 0xFF;
+    }
+}
@@ -0,0 +1,136 @@
+package tripletriad.replay;
+
+import tripletriad.controller.EventoJogo;
+import tripletriad.controller.Jogo;
+import tripletriad.controller.ObservadorJogo;
+import tripletriad.model.Carta;
+import tripletriad.model.EstadoTabuleiro;
+import tripletriad.model.Jogador;
+import tripletriad.model.Regras;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replay de uma partida em andamento, criado por {@link GravadorReplays#acompanhar}. A distribuição, as
+ * cartas reveladas e as regras são copiadas do {@link Jogo} na criação; as jogadas chegam pelo barramento
+ * de eventos, com executor direto, na própria thread do jogo, e cada uma custa um byte no array de jogadas.
+ * Quando o jogo termina (ou é abandonado), o replay é entregue ao gravador, que monta o registro e o grava
+ * na thread dele.
+ */
+
+public final class ReplayPartida implements ObservadorJogo {
+    private final GravadorReplays gravador;
+    private final Jogo jogo;
+    private final long idSessao;
+    private final int regras;
+    private final long elementos;
+    private final int[] cartas = new int[2 * RegistroReplay.CARTAS_POR_JOGADOR];
+    private final int[] reveladas = new int[2];
+    private final byte[] jogadas = new byte[EstadoTabuleiro.NUM_CELULAS];
+    private final int[] placar = new int[2];
+    private int quantidadeJogadas;
+    private int estado = RegistroReplay.CONCLUIDA;
+    private final AtomicBoolean concluido = new AtomicBoolean();
+
+    // Chamado antes da primeira jogada, na thread dona do jogo
+    ReplayPartida(GravadorReplays gravador, Jogo jogo, long idSessao) {
+        this.gravador = gravador;
+        this.jogo = jogo;
+        this.idSessao = idSessao;
+        this.regras = jogo.getRegras();
+        this.elementos = jogo.getTabuleiro().getEstado().getElementosDasCelulas();
+        Jogador[] jogadores = {jogo.getJogador1(), jogo.getJogador2()};
+        for (int jogador = 0; jogador < 2; jogador++) {
+            List<Carta> mao = jogadores[jogador].getCartasNaMao();
+            List<Carta> vistas = jogo.getReveladasDoOponenteParaJogador(jogadores[1 - jogador]);
+            for (int slot = 0; slot < mao.size() && slot < RegistroReplay.CARTAS_POR_JOGADOR; slot++) {
+                cartas[jogador * RegistroReplay.CARTAS_POR_JOGADOR + slot] = mao.get(slot).getId();
+                if (vistas.contains(mao.get(slot))) {
+                    reveladas[jogador] |= 1 << slot;
+                }
+            }
+        }
+        placar[0] = jogadores[0].getCartasNaMao().size();
+        placar[1] = jogadores[1].getCartasNaMao().size();
+    }
+
+    @Override
+    public void jogoAtualizado(List<EventoJogo> eventos) {
+        for (EventoJogo evento : eventos) {
+            switch (evento) {
+                case EventoJogo.CartaJogada jogada -> jogadas[quantidadeJogadas++] =
+                        (byte) (jogada.celula() | slotInicial(jogada.jogador(), jogada.carta()) << RegistroReplay.DESLOCAMENTO_SLOT);
+                case EventoJogo.CartasViradas viradas -> virar(viradas.novoDono(), Integer.bitCount(viradas.celulas()));
+                case EventoJogo.JogadaDesfeita desfeita -> {
+                    quantidadeJogadas--;
+                    virar(1 - desfeita.jogador(), Integer.bitCount(desfeita.viradas()));
+                }
+                case EventoJogo.JogoTerminado fim -> concluir(RegistroReplay.CONCLUIDA);
+                case EventoJogo.VezTrocada vez -> {
+                    // Os jogadores alternam
+                }
+            }
+        }
+    }
+
+    // Placar = mão + cartas controladas: jogar só move a carta da mão para o tabuleiro, virar muda o placar
+    private void virar(int novoDono, int quantidade) {
+        placar[novoDono] += quantidade;
+        placar[1 - novoDono] -= quantidade;
+    }
+
+    private int slotInicial(int jogador, Carta carta) {
+        int base = jogador * RegistroReplay.CARTAS_POR_JOGADOR;
+        for (int slot = 0; slot < RegistroReplay.CARTAS_POR_JOGADOR; slot++) {
+            if (cartas[base + slot] == carta.getId()) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("Carta " + carta.getId() + " não estava na mão inicial do jogador " + jogador);
+    }
+
+    /**
+     * A partida foi interrompida antes do fim (ex: um jogador desconectou): grava as jogadas feitas até aqui.
+     * Quem chama não pode mais jogar nesse jogo. Não faz nada se a partida já foi gravada.
+     */
+    public void abandonar() {
+        concluir(RegistroReplay.ABANDONADA);
+    }
+
+    private void concluir(int estado) {
+        if (concluido.compareAndSet(false, true)) {
+            this.estado = estado;
+            jogo.removeObserver(this);
+            gravador.concluir(this); // A fila publica os campos para a thread do gravador
+        }
+    }
+
+    int tamanho() {
+        return RegistroReplay.TAMANHO_FIXO + quantidadeJogadas + ((regras & Regras.ELEMENTAL) != 0 ? Long.BYTES : 0);
+    }
+
+    /**
+     * Escreve o registro (ver {@link RegistroReplay}) na posição atual do buffer.
+     */
+    void escrever(ByteBuffer buffer, long fimEmMillis) {
+        buffer.put((byte) tamanho());
+        buffer.putLong(idSessao);
+        buffer.putLong(fimEmMillis);
+        buffer.put((byte) regras);
+        buffer.put((byte) estado);
+        for (int id : cartas) {
+            buffer.putShort((short) id);
+        }
+        buffer.put((byte) reveladas[0]);
+        buffer.put((byte) reveladas[1]);
+        buffer.put((byte) placar[0]);
+        buffer.put((byte) placar[1]);
+        buffer.put((byte) quantidadeJogadas);
+        buffer.put(jogadas, 0, quantidadeJogadas);
+        if ((regras & Regras.ELEMENTAL) != 0) {
+            buffer.putLong(elementos);
+        }
+    }
+}
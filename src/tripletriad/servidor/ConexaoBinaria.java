@@ -0,0 +1,173 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.EventoJogo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Conexão que fala o {@link ProtocoloBinario}, sobre um SocketChannel em modo bloqueante (que na virtual
+ * thread bloqueia sem ocupar a thread do sistema).
+ *
+ * A leitura usa um buffer direto pequeno da própria conexão, onde os quadros são decodificados no lugar
+ * pelo {@link QuadroBinario}. Cada envio pega um buffer do {@link PoolBuffers} do servidor, codifica todas
+ * as mensagens nele e o devolve depois da escrita, então ler comandos e enviar eventos não aloca no heap.
+ */
+
+final class ConexaoBinaria extends ConexaoCliente {
+    private final SocketChannel canal;
+    private final PoolBuffers pool;
+    private final ByteBuffer entrada = ByteBuffer.allocateDirect(ProtocoloBinario.QUADRO_MAXIMO);
+    private final QuadroBinario quadro = new QuadroBinario();
+
+    ConexaoBinaria(SocketChannel canal, ServidorJogo servidor, PoolBuffers pool) {
+        super(servidor);
+        this.canal = canal;
+        this.pool = pool;
+    }
+
+    /**
+     * Troca o OLA com o cliente; versões diferentes recebem ERRO VERSAO_INCOMPATIVEL e a conexão é encerrada.
+     */
+    @Override
+    protected boolean cumprimentar() throws IOException {
+        enviar(ProtocoloBinario::escreverOla);
+        boolean recebido = false;
+        boolean compativel = false;
+        while (!recebido) {
+            if (canal.read(entrada) < 0) {
+                return false;
+            }
+            entrada.flip();
+            try {
+                recebido = quadro.ler(entrada);
+                compativel = recebido && quadro.getTipo() == ProtocoloBinario.OLA && quadro.isOlaValido()
+                        && quadro.getVersao() == ProtocoloBinario.VERSAO;
+            } catch (IllegalArgumentException e) {
+                recebido = true;
+            }
+            entrada.compact();
+        }
+        if (!compativel) {
+            enviarErro(ErroJogada.VERSAO_INCOMPATIVEL);
+            encerrarSaida();
+            return false;
+        }
+        enviar(buffer -> ProtocoloBinario.escreverSinal(buffer, ProtocoloBinario.AGUARDANDO));
+        return true;
+    }
+
+    @Override
+    protected void lerComandos() throws IOException {
+        do {
+            entrada.flip(); // O que sobrou do OLA ou da leitura anterior
+            try {
+                while (quadro.ler(entrada)) {
+                    if (!processar()) {
+                        return;
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                enviarErro(ErroJogada.COMANDO_INVALIDO);
+                encerrarSaida();
+                return; // Depois de um quadro malformado não dá para achar o início do próximo
+            }
+            entrada.compact();
+        } while (canal.read(entrada) >= 0);
+    }
+
+    // Retorna false quando o cliente pede para sair
+    private boolean processar() {
+        switch (quadro.getTipo()) {
+            case ProtocoloBinario.JOGAR -> jogar(quadro.getSlot(), quadro.getCelula());
+            case ProtocoloBinario.RESSINCRONIZAR -> ressincronizar();
+            case ProtocoloBinario.REVANCHE -> pedirRevanche();
+            case ProtocoloBinario.NOVA -> novaPartida();
+            case ProtocoloBinario.PING -> {
+                long carimbo = quadro.getCarimbo();
+                enviar(buffer -> ProtocoloBinario.escreverCarimbo(buffer, ProtocoloBinario.PONG, carimbo));
+            }
+            case ProtocoloBinario.SAIR -> {
+                return false;
+            }
+            default -> enviarErro(ErroJogada.COMANDO_INVALIDO);
+        }
+        return true;
+    }
+
+    @Override
+    void enviarFoto(FotoPartida foto) {
+        enviar(buffer -> ProtocoloBinario.escreverFoto(buffer, foto));
+    }
+
+    @Override
+    void enviarErro(ErroJogada erro) {
+        enviar(buffer -> ProtocoloBinario.escreverErro(buffer, erro));
+    }
+
+    @Override
+    void enviarOponenteSaiu() {
+        enviar(buffer -> ProtocoloBinario.escreverSinal(buffer, ProtocoloBinario.OPONENTE_SAIU));
+    }
+
+    @Override
+    void enviarRevanchePedida(int jogador) {
+        enviar(buffer -> ProtocoloBinario.escreverRevanchePedida(buffer, jogador));
+    }
+
+    /**
+     * Envio avulso (fora do barramento de eventos): codifica em um buffer do pool e escreve sob o lock.
+     * Se a escrita falhar, a conexão é fechada.
+     */
+    private void enviar(Consumer<ByteBuffer> codificador) {
+        escrita.lock();
+        ByteBuffer buffer = pool.obter();
+        try {
+            codificador.accept(buffer);
+            escreverTudo(buffer);
+        } catch (IOException e) {
+            fechar();
+        } finally {
+            pool.devolver(buffer);
+            escrita.unlock();
+        }
+    }
+
+    // Já com o lock de escrita (ver ConexaoCliente.enviarEventos)
+    @Override
+    protected void escreverEventos(List<EventoJogo> eventos) throws IOException {
+        ByteBuffer buffer = pool.obter();
+        try {
+            for (EventoJogo evento : eventos) {
+                if (buffer.remaining() < ProtocoloBinario.QUADRO_MAXIMO) {
+                    escreverTudo(buffer); // Lote maior que o buffer: envia o que já foi codificado
+                }
+                ProtocoloBinario.escreverEvento(buffer, evento);
+            }
+            escreverTudo(buffer);
+        } finally {
+            pool.devolver(buffer);
+        }
+    }
+
+    private void escreverTudo(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    protected void fecharEscrita() throws IOException {
+        canal.shutdownOutput();
+    }
+
+    @Override
+    protected void fecharSocket() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,249 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.EventoJogo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Um cliente conectado ao {@link ServidorJogo}, independente do protocolo ({@link ConexaoTexto} ou
+ * {@link ConexaoBinaria}). A leitura dos comandos roda em uma virtual thread própria ({@link #atender()}),
+ * que fica bloqueada no socket sem ocupar uma thread do sistema.
+ *
+ * Os eventos do {@link tripletriad.controller.Jogo} da sessão chegam pelo barramento em outra virtual
+ * thread ({@link #enviarEventos}) e são escritos no socket; quem jogou não espera a escrita para o oponente.
+ * As escritas (eventos, respostas e erros) são serializadas pelo lock {@link #escrita}, que, ao contrário de
+ * synchronized, não prende a virtual thread à thread do sistema enquanto o socket bloqueia.
+ *
+ * A conexão sobrevive à partida: depois do FIM o cliente pode pedir revanche ou voltar ao lobby, com o
+ * rating atualizado pelo resultado, e a mesma conexão passa por várias sessões.
+ */
+
+abstract sealed class ConexaoCliente permits ConexaoTexto, ConexaoBinaria {
+    private static final int ESPERA_FECHAMENTO_MS = 5000;
+    private static final int ESPERA_DECISAO_MS = 30_000; // Para pedir REVANCHE ou NOVA depois da partida
+
+    protected final ServidorJogo servidor;
+    protected final ReentrantLock escrita = new ReentrantLock();
+    private volatile SessaoJogo sessao;
+    private volatile int indice; // Índice do jogador na sessão
+    private volatile LobbyPareamento.Espera<ConexaoCliente> espera;
+    private volatile int rating = LobbyPareamento.RATING_INICIAL;
+    private volatile boolean fechada;
+    private volatile boolean encerrando; // encerrarSaida() em andamento: o socket fecha ao fim da espera
+
+    ConexaoCliente(ServidorJogo servidor) {
+        this.servidor = servidor;
+    }
+
+    /**
+     * Laço de leitura da conexão: entra no lobby e processa os comandos até o cliente sair ou a conexão cair.
+     */
+    final void atender() {
+        try {
+            if (cumprimentar()) {
+                servidor.entrarNoLobby(this);
+                lerComandos();
+            }
+        } catch (IOException e) {
+            // Conexão encerrada pelo cliente ou fechada pela sessão
+        } finally {
+            if (!encerrando) {
+                fechar(); // Antes de ler a sessão: ver SessaoJogo.iniciar()
+            } // Senão já conta como fechada e o socket fecha depois da espera de encerrarSaida()
+            SessaoJogo atual = sessao;
+            if (atual != null) {
+                atual.desconectar(this);
+            } else {
+                servidor.sairDaFila(this);
+            }
+        }
+    }
+
+    /**
+     * Primeiras mensagens da conexão, antes do pareamento; retorna false para recusar o cliente.
+     */
+    protected abstract boolean cumprimentar() throws IOException;
+
+    /**
+     * Lê e processa os comandos até o cliente sair ou o stream terminar.
+     */
+    protected abstract void lerComandos() throws IOException;
+
+    /**
+     * Envia o estado da partida: no início ({@link SessaoJogo#iniciar()}) e a pedido do cliente.
+     */
+    abstract void enviarFoto(FotoPartida foto);
+
+    abstract void enviarErro(ErroJogada erro);
+
+    abstract void enviarOponenteSaiu();
+
+    abstract void enviarRevanchePedida(int jogador);
+
+    /**
+     * Escreve os eventos no socket e descarrega; chamado com o lock de escrita.
+     */
+    protected abstract void escreverEventos(List<EventoJogo> eventos) throws IOException;
+
+    /**
+     * Descarrega o que falta e fecha o lado de escrita do socket; chamado com o lock de escrita.
+     */
+    protected abstract void fecharEscrita() throws IOException;
+
+    protected abstract void fecharSocket() throws IOException;
+
+    protected final void jogar(int slot, int celula) {
+        SessaoJogo atual = sessao;
+        if (atual == null) {
+            enviarErro(ErroJogada.AGUARDANDO_OPONENTE);
+        } else {
+            atual.jogar(this, slot, celula);
+        }
+    }
+
+    protected final void ressincronizar() {
+        SessaoJogo atual = sessao;
+        if (atual == null) {
+            enviarErro(ErroJogada.AGUARDANDO_OPONENTE);
+        } else {
+            atual.ressincronizar(this);
+        }
+    }
+
+    protected final void pedirRevanche() {
+        SessaoJogo atual = sessao;
+        if (atual == null) {
+            enviarErro(ErroJogada.AGUARDANDO_OPONENTE);
+        } else {
+            atual.pedirRevanche(this);
+        }
+    }
+
+    /**
+     * Deixa a sessão terminada e volta ao lobby, com o rating atual.
+     */
+    protected final void novaPartida() {
+        SessaoJogo atual = sessao;
+        if (atual == null) {
+            enviarErro(ErroJogada.AGUARDANDO_OPONENTE);
+        } else if (atual.sair(this)) {
+            sessao = null; // Antes de entrar: o lobby pode parear e dar a nova sessão ainda nesta chamada
+            servidor.entrarNoLobby(this);
+        } else {
+            enviarErro(ErroJogada.PARTIDA_EM_ANDAMENTO);
+        }
+    }
+
+    final void entrarNaSessao(SessaoJogo sessao, int indice) {
+        this.indice = indice;
+        this.sessao = sessao;
+    }
+
+    final int getIndice() {
+        return indice;
+    }
+
+    final LobbyPareamento.Espera<ConexaoCliente> getEspera() {
+        return espera;
+    }
+
+    final void setEspera(LobbyPareamento.Espera<ConexaoCliente> espera) {
+        this.espera = espera;
+    }
+
+    final int getRating() {
+        return rating;
+    }
+
+    final void setRating(int rating) {
+        this.rating = rating;
+    }
+
+    /**
+     * Escreve um lote de eventos da sessão; retorna false se a escrita falhou (e a conexão foi fechada).
+     * Chamado pelo barramento de eventos da sessão, em uma virtual thread, nunca em paralelo para esta conexão.
+     */
+    final boolean enviarEventos(List<EventoJogo> eventos) {
+        escrita.lock();
+        try {
+            escreverEventos(eventos);
+            return true;
+        } catch (IOException e) {
+            fechar();
+            return false;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * A partida terminada desta conexão acabou (FIM ou OPONENTE_SAIU): se em ESPERA_DECISAO_MS o cliente
+     * não pedir revanche nem voltar ao lobby, a conexão é encerrada.
+     */
+    final void aguardarDecisao(SessaoJogo terminada) {
+        Thread.startVirtualThread(() -> {
+            try {
+                Thread.sleep(ESPERA_DECISAO_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (sessao == terminada && !fechada) {
+                encerrarSaida();
+            }
+        });
+    }
+
+    /**
+     * True depois de {@link #fechar()} ou de {@link #encerrarSaida()}: a conexão não recebe mais partidas.
+     */
+    final boolean isFechada() {
+        return fechada || encerrando;
+    }
+
+    /**
+     * Depois da última mensagem (partida terminada sem decisão, versão recusada, quadro malformado), fecha só o lado de escrita: o cliente lê tudo o que
+     * foi enviado e recebe o fim do stream. Fechar o socket inteiro poderia descartar a última mensagem
+     * (RST) se ainda houvesse bytes do cliente não lidos. Se o cliente não fechar a conexão em
+     * ESPERA_FECHAMENTO_MS, ela é fechada pelo servidor.
+     */
+    final void encerrarSaida() {
+        if (encerrando || fechada) {
+            return;
+        }
+        encerrando = true;
+        escrita.lock();
+        try {
+            fecharEscrita();
+        } catch (IOException e) {
+            fechar();
+            return;
+        } finally {
+            escrita.unlock();
+        }
+        Thread.startVirtualThread(() -> {
+            try {
+                Thread.sleep(ESPERA_FECHAMENTO_MS);
+            } catch (InterruptedException e) {
+                // Fecha já
+            }
+            fechar();
+        });
+    }
+
+    /**
+     * Fecha o socket; a virtual thread de leitura acorda com uma exceção e termina.
+     */
+    final void fechar() {
+        if (fechada) {
+            return;
+        }
+        fechada = true;
+        try {
+            fecharSocket();
+        } catch (IOException e) {
+            // Já fechado
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.EventoJogo;
+import tripletriad.model.Elemento;
+import tripletriad.model.Regras;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Conexão que fala o {@link ProtocoloTexto}, sobre os streams bloqueantes do socket.
+ */
+
+final class ConexaoTexto extends ConexaoCliente {
+    private static final int BUFFER_LEITURA = 128;
+    private static final int BUFFER_ESCRITA = 256;
+
+    private final Socket socket;
+    private final LeitorLinhas leitor;
+    private final OutputStream saida;
+
+    ConexaoTexto(Socket socket, ServidorJogo servidor) throws IOException {
+        super(servidor);
+        this.socket = socket;
+        this.leitor = new LeitorLinhas(socket.getInputStream(), BUFFER_LEITURA);
+        this.saida = new BufferedOutputStream(socket.getOutputStream(), BUFFER_ESCRITA);
+    }
+
+    @Override
+    protected boolean cumprimentar() {
+        enviar(ProtocoloTexto.AGUARDANDO);
+        return true;
+    }
+
+    @Override
+    protected void lerComandos() throws IOException {
+        String linha;
+        while ((linha = leitor.lerLinha()) != null && processar(linha)) {
+            // Cada comando é tratado em processar
+        }
+    }
+
+    // Retorna false quando o cliente pede para sair
+    private boolean processar(String linha) {
+        String[] partes = linha.trim().split(" ");
+        switch (partes[0]) {
+            case ProtocoloTexto.JOGAR -> {
+                if (partes.length != 3) {
+                    enviar(ProtocoloTexto.ERRO + " uso: JOGAR slot celula");
+                } else {
+                    try {
+                        jogar(Integer.parseInt(partes[1]), Integer.parseInt(partes[2]));
+                    } catch (NumberFormatException e) {
+                        enviar(ProtocoloTexto.ERRO + " slot e celula devem ser numeros");
+                    }
+                }
+            }
+            case ProtocoloTexto.REVANCHE -> pedirRevanche();
+            case ProtocoloTexto.NOVA -> novaPartida();
+            case ProtocoloTexto.PING -> enviar(ProtocoloTexto.PONG);
+            case ProtocoloTexto.SAIR -> {
+                return false;
+            }
+            default -> enviar(ProtocoloTexto.ERRO + " comando desconhecido: " + partes[0]);
+        }
+        return true;
+    }
+
+    /**
+     * O protocolo de texto não tem ressincronização, então a foto é sempre a do início de uma partida.
+     */
+    @Override
+    void enviarFoto(FotoPartida foto) {
+        String inicio = ProtocoloTexto.INICIO + " " + foto.voce() + " " + foto.regras();
+        String mao = linhaDeCartas(ProtocoloTexto.MAO, foto.mao());
+        String reveladas = linhaDeCartas(ProtocoloTexto.REVELADAS, foto.reveladas());
+        String vez = ProtocoloTexto.VEZ + " " + foto.vez();
+        if ((foto.regras() & Regras.ELEMENTAL) != 0) {
+            enviar(inicio, linhaDosElementos(foto.elementos()), mao, reveladas, vez);
+        } else {
+            enviar(inicio, mao, reveladas, vez);
+        }
+    }
+
+    private static String linhaDosElementos(long elementos) {
+        StringBuilder linha = new StringBuilder(ProtocoloTexto.ELEMENTOS);
+        for (int celula = 0; celula < 9; celula++) {
+            linha.append(' ').append(Elemento.doOrdinal((int) (elementos >>> (celula * 4)) & 0xF).name());
+        }
+        return linha.toString();
+    }
+
+    private static String linhaDeCartas(String mensagem, int[] ids) {
+        StringBuilder linha = new StringBuilder(mensagem);
+        for (int id : ids) {
+            linha.append(' ').append(id);
+        }
+        return linha.toString();
+    }
+
+    @Override
+    void enviarErro(ErroJogada erro) {
+        enviar(ProtocoloTexto.ERRO + " " + erro.getMensagem());
+    }
+
+    @Override
+    void enviarOponenteSaiu() {
+        enviar(ProtocoloTexto.OPONENTE_SAIU);
+    }
+
+    @Override
+    void enviarRevanchePedida(int jogador) {
+        enviar(ProtocoloTexto.REVANCHE + " " + jogador);
+    }
+
+    @Override
+    protected void escreverEventos(List<EventoJogo> eventos) throws IOException {
+        for (EventoJogo evento : eventos) {
+            String linha = ProtocoloTexto.formatar(evento);
+            if (linha != null) {
+                escrever(linha);
+            }
+        }
+        saida.flush();
+    }
+
+    /**
+     * Envia as linhas com uma única descarga do buffer. Se a escrita falhar, a conexão é fechada.
+     */
+    private void enviar(String... linhas) {
+        escrita.lock();
+        try {
+            for (String linha : linhas) {
+                escrever(linha);
+            }
+            saida.flush();
+        } catch (IOException e) {
+            fechar();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private void escrever(String linha) throws IOException {
+        saida.write(linha.getBytes(StandardCharsets.UTF_8));
+        saida.write('\n');
+    }
+
+    @Override
+    protected void fecharEscrita() throws IOException {
+        saida.flush();
+        socket.shutdownOutput();
+    }
+
+    @Override
+    protected void fecharSocket() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,42 @@
+package tripletriad.servidor;
+
+/**
+ * Motivos pelos quais o servidor recusa um comando. O protocolo binário envia o código; o de texto, a mensagem.
+ */
+
+public enum ErroJogada {
+    AGUARDANDO_OPONENTE(1, "aguardando oponente"),
+    PARTIDA_ENCERRADA(2, "partida encerrada"),
+    NAO_E_SUA_VEZ(3, "nao e a sua vez"),
+    JOGADA_INVALIDA(4, "slot ou celula invalido"),
+    CELULA_OCUPADA(5, "celula ocupada"),
+    COMANDO_INVALIDO(6, "comando invalido"),
+    VERSAO_INCOMPATIVEL(7, "versao do protocolo incompativel"),
+    PARTIDA_EM_ANDAMENTO(8, "partida em andamento"),
+    REVANCHE_INDISPONIVEL(9, "o oponente saiu");
+
+    private static final ErroJogada[] VALORES = values();
+
+    private final int codigo;
+    private final String mensagem;
+
+    ErroJogada(int codigo, String mensagem) {
+        this.codigo = codigo;
+        this.mensagem = mensagem;
+    }
+
+    public int getCodigo() {
+        return codigo;
+    }
+
+    public String getMensagem() {
+        return mensagem;
+    }
+
+    /**
+     * Erro correspondente ao código recebido pelo protocolo binário, ou null se o código não existir.
+     */
+    public static ErroJogada doCodigo(int codigo) {
+        return codigo >= 1 && codigo <= VALORES.length ? VALORES[codigo - 1] : null;
+    }
+}
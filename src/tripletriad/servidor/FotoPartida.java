@@ -0,0 +1,20 @@
+package tripletriad.servidor;
+
+/**
+ * Estado completo de uma partida do ponto de vista de um dos jogadores, enviado no início e quando o
+ * cliente pede para ressincronizar. Só contém o que o jogador pode ver: a própria mão e as cartas do
+ * oponente que lhe foram reveladas.
+ *
+ * @param voce       índice do jogador (0 ou 1)
+ * @param regras     máscara de {@link tripletriad.model.Regras}
+ * @param elementos  elementos das células, 4 bits por célula (ver EstadoTabuleiro)
+ * @param vez        jogador da vez
+ * @param ocupadas   bit i = célula i ocupada
+ * @param donos      bit i = célula i é do jogador 1 (só vale para as ocupadas)
+ * @param cartas     ID da carta de cada célula (as vazias são ignoradas)
+ * @param mao        IDs da mão do jogador, na ordem dos slots
+ * @param reveladas  IDs das cartas do oponente reveladas ao jogador
+ */
+public record FotoPartida(int voce, int regras, long elementos, int vez, boolean terminada,
+                   int ocupadas, int donos, int[] cartas, int[] mao, int[] reveladas) {
+}
@@ -0,0 +1,59 @@
+package tripletriad.servidor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Leitor de linhas do protocolo de texto com buffers pequenos, em vez de um BufferedReader (8 KB de caracteres
+ * mais 8 KB de bytes do decodificador por conexão). As linhas do protocolo têm poucas dezenas de bytes;
+ * uma linha acima de TAMANHO_MAXIMO encerra a leitura com IOException.
+ * Aceita tanto "\n" quanto "\r\n" como fim de linha.
+ */
+
+public final class LeitorLinhas {
+    public static final int TAMANHO_MAXIMO = 1024;
+
+    private final InputStream entrada;
+    private final byte[] buffer;
+    private int inicio;
+    private int fim;
+    private byte[] linha = new byte[64];
+
+    public LeitorLinhas(InputStream entrada, int tamanhoBuffer) {
+        this.entrada = entrada;
+        this.buffer = new byte[tamanhoBuffer];
+    }
+
+    /**
+     * Lê a próxima linha, sem o fim de linha, ou retorna null no fim do stream.
+     */
+    public String lerLinha() throws IOException {
+        int tamanho = 0;
+        while (true) {
+            if (inicio == fim) {
+                int lidos = entrada.read(buffer);
+                if (lidos < 0) {
+                    return tamanho > 0 ? new String(linha, 0, tamanho, StandardCharsets.UTF_8) : null;
+                }
+                inicio = 0;
+                fim = lidos;
+            }
+            byte b = buffer[inicio++];
+            if (b == '\n') {
+                if (tamanho > 0 && linha[tamanho - 1] == '\r') {
+                    tamanho--;
+                }
+                return new String(linha, 0, tamanho, StandardCharsets.UTF_8);
+            }
+            if (tamanho == linha.length) {
+                if (tamanho >= TAMANHO_MAXIMO) {
+                    throw new IOException("Linha maior que " + TAMANHO_MAXIMO + " bytes.");
+                }
+                linha = Arrays.copyOf(linha, Math.min(tamanho * 2, TAMANHO_MAXIMO));
+            }
+            linha[tamanho++] = b;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package tripletriad.servidor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Fila de pareamento por faixas de rating, sem lock global. Cada faixa é um slot atômico: quem entra
+ * pega o jogador que espera na sua faixa (CAS) ou passa a esperar nela, então nunca há mais de um
+ * jogador esperando por faixa e um pareamento custa alguns CAS, sem fila para percorrer. Entradas em
+ * faixas diferentes não disputam nada entre si.
+ *
+ * Quem espera sozinho na faixa é pareado com as faixas vizinhas pelo agendador do lobby, que amplia
+ * o alcance em uma faixa a cada {@code ampliarACadaMs} de espera, até {@code ampliacaoMaxima}. Com
+ * largura de faixa 0 há uma faixa só, e o lobby vira uma fila por ordem de chegada.
+ *
+ * O pareamento é entregue a {@code aoParear(primeiro, segundo)}, com quem esperava há mais tempo como
+ * primeiro: na thread de quem completou o par ou, para faixas ampliadas, no executor do lobby.
+ */
+
+public final class LobbyPareamento<T> {
+    public static final int RATING_INICIAL = 1500;
+    public static final int RATING_MAXIMO = 3000;
+
+    private static final int ESPERANDO = 0;
+    private static final int RESERVADO = 1; // O agendador está pareando com outra faixa
+    private static final int PAREADO = 2;
+    private static final int CANCELADO = 3;
+
+    /**
+     * Um jogador na fila; devolvido por {@link #entrar} para que ele possa {@link #sair}.
+     */
+    public static final class Espera<T> {
+        private final T jogador;
+        private final int rating;
+        private final int faixa;
+        private final long desde = System.nanoTime();
+        private volatile int estado = ESPERANDO; // Pelo ESTADO: um objeto por entrada, sem AtomicInteger
+
+        private Espera(T jogador, int rating, int faixa) {
+            this.jogador = jogador;
+            this.rating = rating;
+            this.faixa = faixa;
+        }
+
+        public T getJogador() {
+            return jogador;
+        }
+
+        public int getRating() {
+            return rating;
+        }
+
+        public long getDesde() {
+            return desde;
+        }
+
+        public boolean isPareado() {
+            return estado == PAREADO;
+        }
+
+        private boolean trocar(int de, int para) {
+            return ESTADO.compareAndSet(this, de, para);
+        }
+    }
+
+    private static final VarHandle ESTADO;
+
+    static {
+        try {
+            ESTADO = MethodHandles.lookup().findVarHandle(Espera.class, "estado", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int larguraFaixa;
+    private final AtomicReferenceArray<Espera<T>> faixas;
+    private final long nanosPorFaixaAmpliada;
+    private final int ampliacaoMaxima;
+    private final BiConsumer<T, T> aoParear;
+    private final Executor executor;
+    private ScheduledExecutorService agendador;
+
+    private final LongAdder pareamentosNaFaixa = new LongAdder();
+    private final LongAdder pareamentosAmpliados = new LongAdder();
+    private final LongAdder desistencias = new LongAdder();
+
+    /**
+     * @param larguraFaixa    largura de cada faixa de rating, ou 0 para uma faixa só
+     * @param ampliarACadaMs  espera para alcançar mais uma faixa vizinha
+     * @param ampliacaoMaxima quantas faixas vizinhas, no máximo, em cada direção
+     * @param aoParear        cria a sessão dos dois jogadores
+     * @param executor        onde rodar aoParear para os pares formados pelo agendador
+     */
+    public LobbyPareamento(int larguraFaixa, long ampliarACadaMs, int ampliacaoMaxima, BiConsumer<T, T> aoParear, Executor executor) {
+        this.larguraFaixa = larguraFaixa;
+        this.faixas = new AtomicReferenceArray<>(larguraFaixa > 0 ? RATING_MAXIMO / larguraFaixa + 1 : 1);
+        this.nanosPorFaixaAmpliada = TimeUnit.MILLISECONDS.toNanos(Math.max(1, ampliarACadaMs));
+        this.ampliacaoMaxima = ampliacaoMaxima;
+        this.aoParear = aoParear;
+        this.executor = executor;
+    }
+
+    /**
+     * Inicia o agendador que amplia as faixas (desnecessário com uma faixa só).
+     */
+    public void iniciar() {
+        if (faixas.length() == 1 || ampliacaoMaxima <= 0) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lobby-pareamento");
+            t.setDaemon(true); // Não impede o encerramento do servidor
+            return t;
+        });
+        long periodo = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanosPorFaixaAmpliada) / 4);
+        agendador.scheduleWithFixedDelay(this::ampliarFaixas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    public void parar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    private int faixaDe(int rating) {
+        if (larguraFaixa <= 0) {
+            return 0;
+        }
+        return Math.min(faixas.length() - 1, Math.max(0, rating) / larguraFaixa);
+    }
+
+    /**
+     * Pareia o jogador com quem espera na sua faixa ou o deixa esperando. Se já houver par, aoParear
+     * roda nesta thread antes de retornar.
+     */
+    public Espera<T> entrar(T jogador, int rating) {
+        Espera<T> espera = new Espera<>(jogador, rating, faixaDe(rating));
+        int faixa = espera.faixa;
+        while (true) {
+            Espera<T> atual = faixas.get(faixa);
+            if (atual == null) {
+                if (faixas.compareAndSet(faixa, null, espera)) {
+                    return espera;
+                }
+            } else if (atual.trocar(ESPERANDO, PAREADO)) {
+                faixas.compareAndSet(faixa, atual, null);
+                espera.estado = PAREADO; // Ainda não visível para outras threads
+                pareamentosNaFaixa.increment();
+                aoParear.accept(atual.jogador, jogador);
+                return espera;
+            } else if (atual.estado == RESERVADO) {
+                Thread.yield(); // Reserva do agendador: cede a thread até ele a resolver
+            } else {
+                faixas.compareAndSet(faixa, atual, null); // Pareado ou desistente: libera a faixa
+            }
+        }
+    }
+
+    /**
+     * Tira o jogador da fila. Retorna false se ele já foi pareado (a sessão cuida da saída).
+     */
+    public boolean sair(Espera<T> espera) {
+        while (true) {
+            int estado = espera.estado;
+            if (estado == RESERVADO) {
+                Thread.yield();
+            } else if (estado != ESPERANDO) {
+                return false;
+            } else if (espera.trocar(ESPERANDO, CANCELADO)) {
+                faixas.compareAndSet(espera.faixa, espera, null);
+                desistencias.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Uma passada do agendador: cada jogador esperando é pareado com o da faixa vizinha mais próxima
+     * ao seu alcance atual. Só o agendador reserva, então não há reservas concorrentes.
+     */
+    void ampliarFaixas() {
+        long agora = System.nanoTime();
+        for (int faixa = 0; faixa < faixas.length(); faixa++) {
+            Espera<T> espera = faixas.get(faixa);
+            if (espera == null || espera.estado != ESPERANDO) {
+                continue;
+            }
+            int alcance = (int) Math.min(ampliacaoMaxima, (agora - espera.desde) / nanosPorFaixaAmpliada);
+            for (int distancia = 1; distancia <= alcance; distancia++) {
+                if (tentarParear(espera, faixa - distancia) || tentarParear(espera, faixa + distancia)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Retorna true se a espera não está mais na fila (pareada agora, ou saiu/foi pareada por outra thread)
+    private boolean tentarParear(Espera<T> espera, int outraFaixa) {
+        if (outraFaixa < 0 || outraFaixa >= faixas.length()) {
+            return false;
+        }
+        Espera<T> outra = faixas.get(outraFaixa);
+        if (outra == null || outra.estado != ESPERANDO) {
+            return false;
+        }
+        if (!espera.trocar(ESPERANDO, RESERVADO)) {
+            return true;
+        }
+        if (!outra.trocar(ESPERANDO, PAREADO)) {
+            espera.estado = ESPERANDO;
+            return false;
+        }
+        espera.estado = PAREADO;
+        faixas.compareAndSet(espera.faixa, espera, null);
+        faixas.compareAndSet(outraFaixa, outra, null);
+        pareamentosAmpliados.increment();
+        Espera<T> primeiro = espera.desde <= outra.desde ? espera : outra;
+        Espera<T> segundo = primeiro == espera ? outra : espera;
+        executor.execute(() -> aoParear.accept(primeiro.jogador, segundo.jogador));
+        return true;
+    }
+
+    /**
+     * Jogadores esperando agora (no máximo um por faixa).
+     */
+    public int getEsperando() {
+        int esperando = 0;
+        for (int faixa = 0; faixa < faixas.length(); faixa++) {
+            Espera<T> espera = faixas.get(faixa);
+            if (espera != null && espera.estado == ESPERANDO) {
+                esperando++;
+            }
+        }
+        return esperando;
+    }
+
+    public long getPareamentosNaFaixa() {
+        return pareamentosNaFaixa.sum();
+    }
+
+    public long getPareamentosAmpliados() {
+        return pareamentosAmpliados.sum();
+    }
+
+    public long getDesistencias() {
+        return desistencias.sum();
+    }
+}
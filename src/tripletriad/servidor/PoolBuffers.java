@@ -0,0 +1,61 @@
+package tripletriad.servidor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de ByteBuffers diretos de tamanho fixo para a escrita do {@link ProtocoloBinario}. Buffers diretos são
+ * escritos no socket sem a cópia intermediária que o NIO faz para buffers do heap, e o pool evita alocar
+ * (e liberar fora do heap) um buffer por envio. Um buffer só fica emprestado durante uma escrita, então
+ * o pool guarda cerca de um buffer por escrita simultânea, não um por conexão.
+ *
+ * Seguro para várias threads; buffers além de {@code maximoLivres} são descartados na devolução. A fila é um
+ * ArrayBlockingQueue, que não aloca nós a cada devolução como a ConcurrentLinkedQueue.
+ */
+
+public final class PoolBuffers {
+    private final int tamanho;
+    private final ArrayBlockingQueue<ByteBuffer> livres;
+    private final LongAdder alocados = new LongAdder();
+    private final LongAdder emprestimos = new LongAdder();
+
+    public PoolBuffers(int tamanho, int maximoLivres) {
+        this.tamanho = tamanho;
+        this.livres = new ArrayBlockingQueue<>(maximoLivres);
+    }
+
+    /**
+     * Um buffer limpo (position 0, limit = capacidade), do pool ou recém-alocado.
+     */
+    public ByteBuffer obter() {
+        emprestimos.increment();
+        ByteBuffer buffer = livres.poll();
+        if (buffer == null) {
+            alocados.increment();
+            return ByteBuffer.allocateDirect(tamanho);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * Devolve o buffer ao pool; ele não pode mais ser usado por quem o devolveu.
+     */
+    public void devolver(ByteBuffer buffer) {
+        if (buffer.capacity() == tamanho && buffer.isDirect()) {
+            livres.offer(buffer); // Com o pool cheio, o buffer é descartado
+        }
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public long getAlocados() {
+        return alocados.sum();
+    }
+
+    public long getEmprestimos() {
+        return emprestimos.sum();
+    }
+}
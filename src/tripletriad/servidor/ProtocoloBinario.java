@@ -0,0 +1,187 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.EventoJogo;
+import tripletriad.model.Regras;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Protocolo binário versionado entre o {@link ServidorJogo} e os clientes (porta binária), alternativa compacta
+ * ao {@link ProtocoloTexto}. As mensagens são codificadas direto em um ByteBuffer (de preferência direto,
+ * vindo do {@link PoolBuffers}) e lidas no próprio buffer pelo {@link QuadroBinario}, sem objetos intermediários.
+ *
+ * Cada quadro é [tamanho u8][tipo u8][dados], em que tamanho conta o tipo e os dados (quadro de até 256 bytes).
+ * Inteiros de 16 bits são big-endian. Ao conectar, o servidor e o cliente trocam OLA com o número da versão;
+ * versões diferentes recebem ERRO VERSAO_INCOMPATIVEL e a conexão é fechada.
+ *
+ *   OLA             u16 'TT', u8 versão                            (ambos os lados)
+ *   AGUARDANDO      -                                               servidor: esperando um oponente
+ *   FOTO            ver {@link #escreverFoto}                       servidor: estado completo (início ou RESSINCRONIZAR)
+ *   JOGADA          u8 jogador<<7 | slot<<4 | célula, u16 id carta  servidor
+ *   VIRADAS         u16 dono<<15 | máscara das 9 células            servidor
+ *   VEZ             u8 jogador                                      servidor
+ *   FIM             u8 placar1, u8 placar2                          servidor
+ *   ERRO            u8 código ({@link ErroJogada})                  servidor
+ *   OPONENTE_SAIU   -                                               servidor
+ *   REVANCHE_PEDIDA u8 jogador                                      servidor
+ *   JOGAR           u8 slot<<4 | célula                             cliente
+ *   RESSINCRONIZAR  -                                               cliente: pede uma FOTO
+ *   REVANCHE / NOVA -                                               cliente, depois do FIM (ver {@link ProtocoloTexto})
+ *   PING / PONG     u64 carimbo (devolvido sem alteração)           cliente / servidor
+ *   SAIR            -                                               cliente
+ *
+ * Uma jogada ocupa 3 bytes do cliente para o servidor e 5 bytes de volta (mais 4 com capturas e 3 da vez),
+ * contra cerca de 30 bytes no protocolo de texto.
+ */
+
+public final class ProtocoloBinario {
+    public static final int VERSAO = 1;
+    public static final int MAGICO = 0x5454; // "TT"
+    public static final int QUADRO_MAXIMO = 256;
+
+    public static final int OLA = 0x01;
+    public static final int AGUARDANDO = 0x02;
+    public static final int FOTO = 0x03;
+    public static final int JOGADA = 0x10;
+    public static final int VIRADAS = 0x11;
+    public static final int VEZ = 0x12;
+    public static final int FIM = 0x13;
+    public static final int ERRO = 0x20;
+    public static final int OPONENTE_SAIU = 0x21;
+    public static final int REVANCHE_PEDIDA = 0x22;
+    public static final int JOGAR = 0x30;
+    public static final int RESSINCRONIZAR = 0x31;
+    public static final int PING = 0x32;
+    public static final int PONG = 0x33;
+    public static final int SAIR = 0x34;
+    public static final int REVANCHE = 0x35;
+    public static final int NOVA = 0x36;
+
+    private ProtocoloBinario() {
+    }
+
+    /**
+     * Tamanho dos dados das mensagens de tamanho fixo, ou -1 para a FOTO (variável) e tipos desconhecidos.
+     */
+    public static int tamanhoDosDados(int tipo) {
+        return switch (tipo) {
+            case AGUARDANDO, OPONENTE_SAIU, RESSINCRONIZAR, SAIR, REVANCHE, NOVA -> 0;
+            case VEZ, ERRO, JOGAR, REVANCHE_PEDIDA -> 1;
+            case VIRADAS, FIM -> 2;
+            case OLA, JOGADA -> 3;
+            case PING, PONG -> 8;
+            default -> -1;
+        };
+    }
+
+    private static void cabecalho(ByteBuffer buffer, int tipo, int tamanhoDados) {
+        buffer.put((byte) (tamanhoDados + 1)).put((byte) tipo);
+    }
+
+    public static void escreverOla(ByteBuffer buffer) {
+        cabecalho(buffer, OLA, 3);
+        buffer.putShort((short) MAGICO).put((byte) VERSAO);
+    }
+
+    /**
+     * Mensagens sem dados: AGUARDANDO, OPONENTE_SAIU, RESSINCRONIZAR, SAIR, REVANCHE e NOVA.
+     */
+    public static void escreverSinal(ByteBuffer buffer, int tipo) {
+        cabecalho(buffer, tipo, 0);
+    }
+
+    public static void escreverJogada(ByteBuffer buffer, int jogador, int slot, int celula, int idCarta) {
+        cabecalho(buffer, JOGADA, 3);
+        buffer.put((byte) (jogador << 7 | slot << 4 | celula)).putShort((short) idCarta);
+    }
+
+    public static void escreverViradas(ByteBuffer buffer, int mascara, int dono) {
+        cabecalho(buffer, VIRADAS, 2);
+        buffer.putShort((short) (dono << 15 | mascara));
+    }
+
+    public static void escreverVez(ByteBuffer buffer, int jogador) {
+        cabecalho(buffer, VEZ, 1);
+        buffer.put((byte) jogador);
+    }
+
+    public static void escreverRevanchePedida(ByteBuffer buffer, int jogador) {
+        cabecalho(buffer, REVANCHE_PEDIDA, 1);
+        buffer.put((byte) jogador);
+    }
+
+    public static void escreverFim(ByteBuffer buffer, int placar1, int placar2) {
+        cabecalho(buffer, FIM, 2);
+        buffer.put((byte) placar1).put((byte) placar2);
+    }
+
+    public static void escreverErro(ByteBuffer buffer, ErroJogada erro) {
+        cabecalho(buffer, ERRO, 1);
+        buffer.put((byte) erro.getCodigo());
+    }
+
+    public static void escreverJogar(ByteBuffer buffer, int slot, int celula) {
+        cabecalho(buffer, JOGAR, 1);
+        buffer.put((byte) (slot << 4 | celula));
+    }
+
+    /**
+     * PING do cliente ou PONG do servidor, com o carimbo que o servidor devolve.
+     */
+    public static void escreverCarimbo(ByteBuffer buffer, int tipo, long carimbo) {
+        cabecalho(buffer, tipo, 8);
+        buffer.putLong(carimbo);
+    }
+
+    /**
+     * Escreve o evento do jogo como quadro; retorna false para eventos que não são enviados aos clientes.
+     */
+    public static boolean escreverEvento(ByteBuffer buffer, EventoJogo evento) {
+        switch (evento) {
+            case EventoJogo.CartaJogada jogada ->
+                    escreverJogada(buffer, jogada.jogador(), jogada.slot(), jogada.celula(), jogada.carta().getId());
+            case EventoJogo.CartasViradas viradas -> escreverViradas(buffer, viradas.celulas(), viradas.novoDono());
+            case EventoJogo.VezTrocada vez -> escreverVez(buffer, vez.jogador());
+            case EventoJogo.JogoTerminado fim -> escreverFim(buffer, fim.placarJogador1(), fim.placarJogador2());
+            case EventoJogo.JogadaDesfeita desfeita -> {
+                return false; // O servidor não desfaz jogadas
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FOTO: u8 flags (bit 0 = você é o jogador 1, bit 1 = vez do jogador 1, bit 2 = partida terminada), u8 regras,
+     * 5 bytes com os elementos das células (4 bits por célula, só com ELEMENTAL), u24 células ocupadas | donos << 9
+     * (bit i do dono = célula i é do jogador 1), u16 id de cada carta do tabuleiro (células ocupadas em ordem),
+     * u8 quantidade + u16 ids da sua mão e u8 quantidade + u16 ids das cartas do oponente reveladas a você.
+     */
+    public static void escreverFoto(ByteBuffer buffer, FotoPartida foto) {
+        int inicio = buffer.position();
+        buffer.position(inicio + 2); // O cabeçalho é escrito no fim, quando o tamanho é conhecido
+        buffer.put((byte) (foto.voce() | foto.vez() << 1 | (foto.terminada() ? 4 : 0)));
+        buffer.put((byte) foto.regras());
+        if ((foto.regras() & Regras.ELEMENTAL) != 0) {
+            long elementos = foto.elementos();
+            buffer.put((byte) (elementos >>> 32)).putInt((int) elementos);
+        }
+        int celulas = foto.ocupadas() | (foto.donos() & foto.ocupadas()) << 9;
+        buffer.put((byte) (celulas >>> 16)).putShort((short) celulas);
+        for (int celula = 0; celula < 9; celula++) {
+            if ((foto.ocupadas() & 1 << celula) != 0) {
+                buffer.putShort((short) foto.cartas()[celula]);
+            }
+        }
+        escreverIds(buffer, foto.mao());
+        escreverIds(buffer, foto.reveladas());
+        int fim = buffer.position();
+        buffer.put(inicio, (byte) (fim - inicio - 1)).put(inicio + 1, (byte) FOTO);
+    }
+
+    private static void escreverIds(ByteBuffer buffer, int[] ids) {
+        buffer.put((byte) ids.length);
+        for (int id : ids) {
+            buffer.putShort((short) id);
+        }
+    }
+}
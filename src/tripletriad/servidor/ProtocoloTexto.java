@@ -0,0 +1,72 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.EventoJogo;
+
+/**
+ * Protocolo de linhas de texto (UTF-8, uma mensagem por linha, campos separados por espaço) entre o
+ * {@link ServidorJogo} e os clientes. Jogadores são 0 ou 1 e células vão de 0 a 8, linha a linha;
+ * cartas são identificadas pelo ID do catálogo.
+ *
+ * Do servidor para o cliente:
+ *   AGUARDANDO                        conectado, esperando um oponente
+ *   INICIO voce regras                a partida começou; voce = 0 ou 1, regras = máscara de Regras
+ *   ELEMENTOS e0 ... e8               elementos das células (só com a regra ELEMENTAL)
+ *   MAO id ...                        a mão do cliente, na ordem dos slots
+ *   REVELADAS id ...                  as cartas do oponente reveladas ao cliente
+ *   JOGADA jogador slot id celula     uma carta foi jogada (o slot sai da mão do jogador)
+ *   VIRADAS mascara dono              as células da máscara (bit i = célula i) passaram ao dono
+ *   VEZ jogador                       é a vez do jogador
+ *   FIM placar1 placar2               fim da partida
+ *   OPONENTE_SAIU                     o oponente desconectou (ou não quer revanche)
+ *   REVANCHE jogador                  o jogador pediu revanche; com os dois pedidos, começa outro INICIO
+ *   PONG                              resposta ao PING
+ *   ERRO mensagem                     o último comando foi recusado
+ *
+ * Do cliente para o servidor:
+ *   JOGAR slot celula                 joga a carta do slot da mão na célula
+ *   REVANCHE                          depois do FIM: joga de novo com o mesmo oponente, quem começa se inverte
+ *   NOVA                              depois do FIM ou OPONENTE_SAIU: volta ao lobby para outro oponente
+ *   PING
+ *   SAIR
+ *
+ * Depois do FIM ou de OPONENTE_SAIU, se o cliente não pedir REVANCHE ou NOVA em alguns segundos, o servidor
+ * fecha a conexão.
+ */
+
+public final class ProtocoloTexto {
+    public static final String AGUARDANDO = "AGUARDANDO";
+    public static final String INICIO = "INICIO";
+    public static final String ELEMENTOS = "ELEMENTOS";
+    public static final String MAO = "MAO";
+    public static final String REVELADAS = "REVELADAS";
+    public static final String JOGADA = "JOGADA";
+    public static final String VIRADAS = "VIRADAS";
+    public static final String VEZ = "VEZ";
+    public static final String FIM = "FIM";
+    public static final String OPONENTE_SAIU = "OPONENTE_SAIU";
+    public static final String PONG = "PONG";
+    public static final String ERRO = "ERRO";
+    public static final String REVANCHE = "REVANCHE";
+
+    public static final String JOGAR = "JOGAR";
+    public static final String NOVA = "NOVA";
+    public static final String PING = "PING";
+    public static final String SAIR = "SAIR";
+
+    private ProtocoloTexto() {
+    }
+
+    /**
+     * Linha correspondente ao evento do jogo, ou null se o evento não é enviado aos clientes.
+     */
+    public static String formatar(EventoJogo evento) {
+        return switch (evento) {
+            case EventoJogo.CartaJogada jogada ->
+                    JOGADA + " " + jogada.jogador() + " " + jogada.slot() + " " + jogada.carta().getId() + " " + jogada.celula();
+            case EventoJogo.CartasViradas viradas -> VIRADAS + " " + viradas.celulas() + " " + viradas.novoDono();
+            case EventoJogo.VezTrocada vez -> VEZ + " " + vez.jogador();
+            case EventoJogo.JogoTerminado fim -> FIM + " " + fim.placarJogador1() + " " + fim.placarJogador2();
+            case EventoJogo.JogadaDesfeita desfeita -> null; // O servidor não desfaz jogadas
+        };
+    }
+}
@@ -0,0 +1,207 @@
+package tripletriad.servidor;
+
+import tripletriad.model.Regras;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Leitor de quadros do {@link ProtocoloBinario} sem cópia: {@link #ler} localiza o próximo quadro completo
+ * no buffer e os acessores leem os campos direto dele, por posição absoluta. Um único QuadroBinario é
+ * reutilizado para todos os quadros de uma conexão; os acessores só valem até o buffer ser compactado
+ * ou sobrescrito.
+ *
+ * Uso típico: ler do canal para o buffer, flip(), {@code while (quadro.ler(buffer)) ...}, compact().
+ */
+
+public final class QuadroBinario {
+    private ByteBuffer buffer;
+    private int dados; // Posição do primeiro byte de dados no buffer
+    private int tamanhoDados;
+    private int tipo;
+
+    /**
+     * Avança o buffer sobre o próximo quadro, se ele já chegou inteiro. Retorna false (sem consumir nada)
+     * se faltam bytes. Lança IllegalArgumentException se o quadro é malformado: tamanho zero, ou uma
+     * mensagem de tamanho fixo com o tamanho errado.
+     */
+    public boolean ler(ByteBuffer buffer) {
+        int inicio = buffer.position();
+        if (buffer.limit() - inicio < 2) {
+            return false;
+        }
+        int tamanho = buffer.get(inicio) & 0xFF;
+        if (tamanho == 0) {
+            throw new IllegalArgumentException("Quadro de tamanho zero");
+        }
+        if (buffer.limit() - inicio < 1 + tamanho) {
+            return false;
+        }
+        int tipoLido = buffer.get(inicio + 1) & 0xFF;
+        int esperado = ProtocoloBinario.tamanhoDosDados(tipoLido);
+        if (esperado >= 0 && esperado != tamanho - 1) {
+            throw new IllegalArgumentException("Tamanho inválido para o tipo " + tipoLido + ": " + (tamanho - 1));
+        }
+        this.buffer = buffer;
+        this.tipo = tipoLido;
+        this.dados = inicio + 2;
+        this.tamanhoDados = tamanho - 1;
+        buffer.position(inicio + 1 + tamanho);
+        return true;
+    }
+
+    public int getTipo() {
+        return tipo;
+    }
+
+    public int getTamanhoDados() {
+        return tamanhoDados;
+    }
+
+    private int u8(int deslocamento) {
+        return buffer.get(dados + deslocamento) & 0xFF;
+    }
+
+    private int u16(int deslocamento) {
+        return buffer.getShort(dados + deslocamento) & 0xFFFF;
+    }
+
+    // OLA
+
+    public boolean isOlaValido() {
+        return u16(0) == ProtocoloBinario.MAGICO;
+    }
+
+    public int getVersao() {
+        return u8(2);
+    }
+
+    // JOGADA e JOGAR: slot e célula ficam no primeiro byte nas duas mensagens
+
+    public int getJogador() {
+        return u8(0) >>> 7;
+    }
+
+    public int getSlot() {
+        return u8(0) >>> 4 & 0x7;
+    }
+
+    public int getCelula() {
+        return u8(0) & 0xF;
+    }
+
+    public int getIdCarta() {
+        return u16(1);
+    }
+
+    // VIRADAS
+
+    public int getMascaraViradas() {
+        return u16(0) & 0x1FF;
+    }
+
+    public int getNovoDono() {
+        return u16(0) >>> 15;
+    }
+
+    // VEZ, REVANCHE_PEDIDA, ERRO e FIM
+
+    public int getVez() {
+        return u8(0);
+    }
+
+    public int getJogadorRevanche() {
+        return u8(0);
+    }
+
+    public int getCodigoErro() {
+        return u8(0);
+    }
+
+    public int getPlacar(int jogador) {
+        return u8(jogador);
+    }
+
+    // PING e PONG
+
+    public long getCarimbo() {
+        return buffer.getLong(dados);
+    }
+
+    // FOTO: os campos de tamanho variável são percorridos a cada acesso (a mensagem é rara e pequena)
+
+    public int getVoce() {
+        return u8(0) & 1;
+    }
+
+    public int getVezNaFoto() {
+        return u8(0) >>> 1 & 1;
+    }
+
+    public boolean isTerminada() {
+        return (u8(0) & 4) != 0;
+    }
+
+    public int getRegras() {
+        return u8(1);
+    }
+
+    public long getElementos() {
+        if ((getRegras() & Regras.ELEMENTAL) == 0) {
+            return 0;
+        }
+        return (long) u8(2) << 32 | buffer.getInt(dados + 3) & 0xFFFFFFFFL;
+    }
+
+    private int inicioCelulas() {
+        return (getRegras() & Regras.ELEMENTAL) != 0 ? 7 : 2;
+    }
+
+    private int celulas() {
+        int inicio = inicioCelulas();
+        return u8(inicio) << 16 | u16(inicio + 1);
+    }
+
+    public int getOcupadas() {
+        return celulas() & 0x1FF;
+    }
+
+    public int getDonos() {
+        return celulas() >>> 9 & 0x1FF;
+    }
+
+    /**
+     * ID da carta na célula, ou 0 se ela estiver vazia.
+     */
+    public int getCartaNaCelula(int celula) {
+        int ocupadas = getOcupadas();
+        if ((ocupadas & 1 << celula) == 0) {
+            return 0;
+        }
+        int ordem = Integer.bitCount(ocupadas & (1 << celula) - 1);
+        return u16(inicioCelulas() + 3 + 2 * ordem);
+    }
+
+    private int inicioMao() {
+        return inicioCelulas() + 3 + 2 * Integer.bitCount(getOcupadas());
+    }
+
+    public int getTamanhoMao() {
+        return u8(inicioMao());
+    }
+
+    public int getCartaDaMao(int slot) {
+        return u16(inicioMao() + 1 + 2 * slot);
+    }
+
+    private int inicioReveladas() {
+        return inicioMao() + 1 + 2 * getTamanhoMao();
+    }
+
+    public int getQuantidadeReveladas() {
+        return u8(inicioReveladas());
+    }
+
+    public int getCartaRevelada(int indice) {
+        return u16(inicioReveladas() + 1 + 2 * indice);
+    }
+}
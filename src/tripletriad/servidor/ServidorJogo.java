@@ -0,0 +1,309 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.Jogo;
+import tripletriad.model.Regras;
+import tripletriad.replay.GravadorReplays;
+import tripletriad.replay.ReplayPartida;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.file.Path;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor de partidas sem interface gráfica: aceita clientes por TCP, forma pares pelo {@link LobbyPareamento}
+ * (por faixa de rating, sem lock global) e hospeda cada par em uma {@link SessaoJogo} isolada. Cada conexão
+ * começa com o rating inicial, que muda a cada partida concluída; depois da partida o cliente pode pedir
+ * revanche ou voltar ao lobby. Há duas portas: uma com o protocolo de linhas ({@link ProtocoloTexto})
+ * e, opcionalmente, outra com o {@link ProtocoloBinario}; os clientes das duas entram na mesma fila e podem
+ * jogar entre si.
+ *
+ * Cada conexão é atendida por uma virtual thread que bloqueia na leitura do socket, e os eventos das partidas
+ * são escritos por virtual threads de curta duração, então milhares de partidas simultâneas ocupam
+ * só algumas threads do sistema. Não há estado global: várias instâncias podem rodar no mesmo processo
+ * (em portas diferentes), o que é usado pelo teste de carga (tripletriad.bench.CargaServidor).
+ *
+ * Com um {@link GravadorReplays} ({@code --replays DIR}), toda partida, concluída ou abandonada, é gravada no log de replays.
+ *
+ * Uso: ServidorJogo [--porta P] [--porta-binaria P, -1 desliga] [--faixa LARGURA, 0 = sem faixas] [--regras same,plus,combo,elemental]
+ *                   [--replays DIR]
+ */
+
+public final class ServidorJogo {
+    public static final int PORTA_PADRAO = 7777;
+    public static final int PORTA_BINARIA_PADRAO = 7778;
+    public static final int SEM_PORTA = -1;
+    private static final int FILA_CONEXOES = 4096;
+    private static final int BUFFER_ESCRITA_BINARIA = 1024;
+    private static final int BUFFERS_LIVRES = 256;
+    public static final int LARGURA_FAIXA_PADRAO = 100;
+    private static final int AMPLIAR_FAIXA_A_CADA_MS = 2000;
+    private static final int AMPLIACAO_MAXIMA = 5;
+
+    private final int portaSolicitada;
+    private final int portaBinariaSolicitada;
+    private final int regras;
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<Long, SessaoJogo> sessoes = new ConcurrentHashMap<>();
+    private final AtomicLong proximaSessao = new AtomicLong();
+    private final LobbyPareamento<ConexaoCliente> lobby;
+    private ServerSocket servidor;
+    private ServerSocketChannel servidorBinario;
+    private final PoolBuffers buffers = new PoolBuffers(BUFFER_ESCRITA_BINARIA, BUFFERS_LIVRES);
+    private volatile boolean rodando;
+    private volatile GravadorReplays replays;
+
+    private final LongAdder conexoes = new LongAdder();
+    private final LongAdder sessoesConcluidas = new LongAdder();
+    private final LongAdder sessoesAbandonadas = new LongAdder();
+    private final LongAdder jogadas = new LongAdder();
+    private final LongAdder nanosJogadas = new LongAdder();
+
+    /**
+     * Servidor só com a porta do protocolo de texto.
+     */
+    public ServidorJogo(int porta, int regras) {
+        this(porta, SEM_PORTA, regras, LARGURA_FAIXA_PADRAO);
+    }
+
+    /**
+     * @param porta         porta TCP do protocolo de texto, ou 0 para uma porta livre qualquer (ver {@link #getPorta()})
+     * @param portaBinaria  porta do protocolo binário, 0 para uma livre ou SEM_PORTA
+     * @param regras        máscara de {@link Regras} usada em todas as partidas
+     * @param larguraFaixa  largura das faixas de rating do lobby, ou 0 para parear por ordem de chegada
+     */
+    public ServidorJogo(int porta, int portaBinaria, int regras, int larguraFaixa) {
+        this.portaSolicitada = porta;
+        this.portaBinariaSolicitada = portaBinaria;
+        this.regras = regras;
+        this.lobby = new LobbyPareamento<>(larguraFaixa, AMPLIAR_FAIXA_A_CADA_MS, AMPLIACAO_MAXIMA, this::parear, threads);
+    }
+
+    /**
+     * Abre as portas e começa a aceitar conexões em virtual threads; retorna imediatamente.
+     */
+    public void iniciar() throws IOException {
+        servidor = new ServerSocket();
+        servidor.setReuseAddress(true);
+        servidor.bind(new InetSocketAddress(portaSolicitada), FILA_CONEXOES);
+        if (portaBinariaSolicitada != SEM_PORTA) {
+            servidorBinario = ServerSocketChannel.open();
+            servidorBinario.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            servidorBinario.bind(new InetSocketAddress(portaBinariaSolicitada), FILA_CONEXOES);
+        }
+        rodando = true;
+        lobby.iniciar();
+        threads.execute(this::aceitarConexoes);
+        if (servidorBinario != null) {
+            threads.execute(this::aceitarConexoesBinarias);
+        }
+    }
+
+    private void aceitarConexoes() {
+        while (rodando) {
+            try {
+                Socket socket = servidor.accept();
+                socket.setTcpNoDelay(true); // Mensagens curtas: não esperar para juntar pacotes
+                conexoes.increment();
+                ConexaoCliente conexao = new ConexaoTexto(socket, this);
+                threads.execute(conexao::atender);
+            } catch (IOException e) {
+                if (rodando) {
+                    System.err.println("Erro ao aceitar conexão: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void aceitarConexoesBinarias() {
+        while (rodando) {
+            try {
+                SocketChannel canal = servidorBinario.accept();
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                conexoes.increment();
+                ConexaoCliente conexao = new ConexaoBinaria(canal, this, buffers);
+                threads.execute(conexao::atender);
+            } catch (IOException e) {
+                if (rodando) {
+                    System.err.println("Erro ao aceitar conexão binária: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    void entrarNoLobby(ConexaoCliente conexao) {
+        conexao.setEspera(lobby.entrar(conexao, conexao.getRating()));
+    }
+
+    void sairDaFila(ConexaoCliente conexao) {
+        LobbyPareamento.Espera<ConexaoCliente> espera = conexao.getEspera();
+        if (espera != null) {
+            lobby.sair(espera);
+        }
+    }
+
+    // Chamado pelo lobby. Quem caiu enquanto esperava ainda pode ser pareado antes de sair da fila: o outro volta a ela
+    private void parear(ConexaoCliente primeira, ConexaoCliente segunda) {
+        if (primeira.isFechada() || segunda.isFechada()) {
+            for (ConexaoCliente conexao : new ConexaoCliente[]{primeira, segunda}) {
+                if (!conexao.isFechada()) {
+                    entrarNoLobby(conexao);
+                }
+            }
+            return;
+        }
+        iniciarSessao(primeira, segunda);
+    }
+
+    /**
+     * Cria e inicia a sessão do par (pareamento pelo lobby ou revanche); a primeira conexão começa jogando.
+     */
+    void iniciarSessao(ConexaoCliente primeira, ConexaoCliente segunda) {
+        SessaoJogo sessao = new SessaoJogo(proximaSessao.incrementAndGet(), this, primeira, segunda, regras, threads);
+        sessoes.put(sessao.getId(), sessao);
+        sessao.iniciar();
+    }
+
+    /**
+     * Grava as partidas das próximas sessões no log de replays (null desliga). Quem criou o gravador o fecha.
+     */
+    public void setGravadorReplays(GravadorReplays replays) {
+        this.replays = replays;
+    }
+
+    // Chamado pela sessão, antes da primeira jogada; null se não há gravador
+    ReplayPartida acompanharReplay(Jogo jogo, long idSessao) {
+        GravadorReplays gravador = replays;
+        return gravador != null ? gravador.acompanhar(jogo, idSessao) : null;
+    }
+
+    void sessaoEncerrada(SessaoJogo sessao, boolean concluida) {
+        if (sessoes.remove(sessao.getId()) != null) {
+            (concluida ? sessoesConcluidas : sessoesAbandonadas).increment();
+        }
+    }
+
+    void registrarJogada(long nanos) {
+        jogadas.increment();
+        nanosJogadas.add(nanos);
+    }
+
+    /**
+     * Para de aceitar conexões e fecha todas as sessões em andamento.
+     */
+    public void parar() {
+        rodando = false;
+        try {
+            if (servidor != null) {
+                servidor.close();
+            }
+            if (servidorBinario != null) {
+                servidorBinario.close();
+            }
+        } catch (IOException e) {
+            // Já fechado
+        }
+        for (SessaoJogo sessao : sessoes.values()) {
+            sessao.fechar();
+        }
+        lobby.parar(); // Quem ainda espera no lobby é fechado com as virtual threads, a seguir
+        threads.shutdownNow();
+    }
+
+    public int getPorta() {
+        return servidor != null ? servidor.getLocalPort() : portaSolicitada;
+    }
+
+    /**
+     * Porta do protocolo binário, ou SEM_PORTA se ele está desligado.
+     */
+    public int getPortaBinaria() {
+        if (servidorBinario == null) {
+            return portaBinariaSolicitada;
+        }
+        try {
+            return ((InetSocketAddress) servidorBinario.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return portaBinariaSolicitada;
+        }
+    }
+
+    public int getSessoesAtivas() {
+        return sessoes.size();
+    }
+
+    public long getSessoesConcluidas() {
+        return sessoesConcluidas.sum();
+    }
+
+    public long getSessoesAbandonadas() {
+        return sessoesAbandonadas.sum();
+    }
+
+    public LobbyPareamento<?> getLobby() {
+        return lobby;
+    }
+
+    public long getJogadas() {
+        return jogadas.sum();
+    }
+
+    public String descreverEstatisticas() {
+        long totalJogadas = jogadas.sum();
+        return String.format(Locale.ROOT, "%d conexões, %d no lobby, %d sessões ativas, %d concluídas, %d abandonadas, %d jogadas (%.1f µs por jogada no servidor)",
+                conexoes.sum(), lobby.getEsperando(), sessoes.size(), sessoesConcluidas.sum(), sessoesAbandonadas.sum(), totalJogadas,
+                totalJogadas == 0 ? 0 : nanosJogadas.sum() / 1e3 / totalJogadas);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int porta = PORTA_PADRAO;
+        int portaBinaria = PORTA_BINARIA_PADRAO;
+        int regras = Regras.BASICA;
+        int larguraFaixa = LARGURA_FAIXA_PADRAO;
+        Path diretorioReplays = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--porta" -> porta = Integer.parseInt(valor);
+                case "--porta-binaria" -> portaBinaria = Integer.parseInt(valor);
+                case "--regras" -> regras = Regras.lerRegras(valor);
+                case "--faixa" -> larguraFaixa = Integer.parseInt(valor);
+                case "--replays" -> diretorioReplays = Path.of(valor);
+                default -> System.err.println("Argumento desconhecido: " + args[i]);
+            }
+        }
+
+        ServidorJogo servidor = new ServidorJogo(porta, portaBinaria, regras, larguraFaixa);
+        GravadorReplays replays = diretorioReplays != null ? new GravadorReplays(diretorioReplays) : null;
+        servidor.setGravadorReplays(replays);
+        servidor.iniciar();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.parar();
+            if (replays != null) {
+                replays.close();
+            }
+        }));
+        System.out.println("Servidor Triple Triad ouvindo na porta " + servidor.getPorta()
+                + (portaBinaria != SEM_PORTA ? " (binário na " + servidor.getPortaBinaria() + ")" : "")
+                + " (regras: " + Regras.descrever(regras) + ")");
+        String ultimas = "";
+        while (true) {
+            Thread.sleep(10_000);
+            String estatisticas = servidor.descreverEstatisticas();
+            if (!estatisticas.equals(ultimas)) {
+                System.out.println(estatisticas);
+                ultimas = estatisticas;
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package tripletriad.servidor;
+
+import tripletriad.controller.EventoJogo;
+import tripletriad.controller.Jogo;
+import tripletriad.controller.ObservadorJogo;
+import tripletriad.controller.PedidosRevanche;
+import tripletriad.model.CardCatalog;
+import tripletriad.model.Carta;
+import tripletriad.model.CartaLoader;
+import tripletriad.model.EstadoTabuleiro;
+import tripletriad.model.Jogador;
+import tripletriad.model.Regras;
+import tripletriad.replay.ReplayPartida;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uma partida hospedada pelo {@link ServidorJogo}: o {@link Jogo}, os dois jogadores e as duas conexões.
+ * Todo o estado é da sessão, sem nada estático, então as sessões são independentes entre si.
+ *
+ * Os comandos chegam pelas virtual threads de leitura das duas conexões e são aplicados sob o lock
+ * da sessão (um ReentrantLock, para não prender a virtual thread). Os eventos da jogada são entregues
+ * às conexões pelo barramento do jogo, fora do lock, então uma jogada custa o mesmo com uma
+ * ou com milhares de sessões ativas.
+ *
+ * Depois do fim, os pedidos de revanche e as saídas dos dois lados são resolvidos por {@link PedidosRevanche},
+ * sem lock; a revanche é uma nova sessão com as mesmas conexões e a ordem dos jogadores invertida.
+ * O aviso de que o oponente saiu depois do fim só é enviado depois do FIM, que vem pelo barramento:
+ * quem chegar por último entre a entrega do FIM e a saída do oponente envia o aviso ({@link #marcarAviso}).
+ */
+
+final class SessaoJogo {
+    private final long id;
+    private final ServidorJogo servidor;
+    private final ConexaoCliente[] conexoes;
+    private final Jogador[] jogadores;
+    private final Jogo jogo;
+    private final int regras;
+    private final ReplayPartida replay; // null sem gravador de replays
+    private static final int FATOR_ELO = 32;
+    private static final int FIM_ENTREGUE = 0b001;
+    private static final int OPONENTE_SAIU = 0b010;
+    private static final int AVISADO = 0b100;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PedidosRevanche revanche = new PedidosRevanche();
+    private boolean encerrada; // Protegido pelo lock
+    private final ObservadorJogo[] observadores = new ObservadorJogo[2];
+    private final AtomicIntegerArray avisos = new AtomicIntegerArray(2); // Bits acima, por jogador
+
+    SessaoJogo(long id, ServidorJogo servidor, ConexaoCliente conexao1, ConexaoCliente conexao2, int regras, Executor executorEventos) {
+        this.id = id;
+        this.servidor = servidor;
+        this.conexoes = new ConexaoCliente[]{conexao1, conexao2};
+        this.jogadores = new Jogador[]{new Jogador("Jogador 1"), new Jogador("Jogador 2")};
+        this.regras = regras;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CartaLoader.distribuirCartas(CardCatalog.padrao(), jogadores[0], jogadores[1], random);
+        this.jogo = new Jogo(jogadores[0], jogadores[1]);
+        if (regras != Regras.BASICA) {
+            jogo.setRegras(regras, (regras & Regras.ELEMENTAL) != 0 ? Regras.sortearElementosDasCelulas(random) : 0);
+        }
+        this.replay = servidor.acompanharReplay(jogo, id);
+        for (int i = 0; i < observadores.length; i++) {
+            int indice = i;
+            observadores[i] = eventos -> entregar(indice, eventos);
+            jogo.addObserver(observadores[i], executorEventos);
+        }
+    }
+
+    // Chamado pelo barramento, nunca em paralelo para o mesmo jogador
+    private void entregar(int indice, List<EventoJogo> eventos) {
+        ConexaoCliente conexao = conexoes[indice];
+        if (conexao.enviarEventos(eventos) && eventos.get(eventos.size() - 1) instanceof EventoJogo.JogoTerminado) {
+            conexao.aguardarDecisao(this);
+            marcarAviso(indice, FIM_ENTREGUE);
+        }
+    }
+
+    /**
+     * Registra a entrega do FIM ou a saída do oponente; com os dois, envia OPONENTE_SAIU uma única vez.
+     */
+    private void marcarAviso(int indice, int bit) {
+        int anterior = avisos.getAndUpdate(indice, atual -> comAviso(atual | bit));
+        if ((anterior & AVISADO) == 0 && (comAviso(anterior | bit) & AVISADO) != 0) {
+            conexoes[indice].enviarOponenteSaiu();
+        }
+    }
+
+    private static int comAviso(int avisos) {
+        return (avisos & FIM_ENTREGUE) != 0 && (avisos & OPONENTE_SAIU) != 0 ? avisos | AVISADO : avisos;
+    }
+
+    /**
+     * Envia a cada cliente a foto inicial da partida e só então passa a aceitar os comandos deles.
+     */
+    void iniciar() {
+        for (int i = 0; i < conexoes.length; i++) {
+            FotoPartida foto;
+            lock.lock();
+            try {
+                foto = criarFoto(i);
+            } finally {
+                lock.unlock();
+            }
+            conexoes[i].enviarFoto(foto);
+            conexoes[i].entrarNaSessao(this, i);
+        }
+        // Uma conexão que caiu antes de receber a sessão não chamou desconectar(): encerra a partida por ela
+        for (ConexaoCliente conexao : conexoes) {
+            if (conexao.isFechada()) {
+                desconectar(conexao);
+            }
+        }
+    }
+
+    /**
+     * Reenvia o estado atual ao cliente que perdeu o fio da partida.
+     */
+    void ressincronizar(ConexaoCliente conexao) {
+        FotoPartida foto;
+        lock.lock();
+        try {
+            foto = criarFoto(conexao.getIndice());
+        } finally {
+            lock.unlock();
+        }
+        conexao.enviarFoto(foto);
+    }
+
+    // Chamado com o lock
+    private FotoPartida criarFoto(int indice) {
+        EstadoTabuleiro estado = jogo.getTabuleiro().getEstado();
+        int[] cartas = new int[EstadoTabuleiro.NUM_CELULAS];
+        for (int celula = 0; celula < cartas.length; celula++) {
+            if (estado.ocupada(celula)) {
+                cartas[celula] = jogo.getTabuleiro().getCarta(celula).getId();
+            }
+        }
+        int vez = jogo.getJogadorAtual() == jogadores[0] ? 0 : 1;
+        return new FotoPartida(indice, regras, estado.getElementosDasCelulas(), vez, encerrada,
+                estado.getOcupacao(), estado.getDonos(), cartas,
+                ids(jogadores[indice].getCartasNaMao()), ids(jogo.getReveladasDoOponenteParaJogador(jogadores[indice])));
+    }
+
+    private static int[] ids(List<Carta> cartas) {
+        int[] ids = new int[cartas.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cartas.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Aplica a jogada do cliente, ou responde com ERRO se ela não for válida.
+     */
+    void jogar(ConexaoCliente conexao, int slot, int celula) {
+        long inicio = System.nanoTime();
+        ErroJogada erro = null;
+        boolean terminou = false;
+        lock.lock();
+        try {
+            Jogador jogador = jogadores[conexao.getIndice()];
+            List<Carta> mao = jogador.getCartasNaMao();
+            if (encerrada) {
+                erro = ErroJogada.PARTIDA_ENCERRADA;
+            } else if (jogo.getJogadorAtual() != jogador) {
+                erro = ErroJogada.NAO_E_SUA_VEZ;
+            } else if (slot < 0 || slot >= mao.size() || celula < 0 || celula > 8) {
+                erro = ErroJogada.JOGADA_INVALIDA;
+            } else if (!jogo.tentarJogarCarta(celula / 3, celula % 3, mao.get(slot), jogador)) {
+                erro = ErroJogada.CELULA_OCUPADA;
+            } else if (jogo.jogoFinalizado()) {
+                encerrada = true;
+                terminou = true;
+                atualizarRatings(jogo.getPlacar(jogadores[0]), jogo.getPlacar(jogadores[1]));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (erro != null) {
+            conexao.enviarErro(erro);
+            return;
+        }
+        servidor.registrarJogada(System.nanoTime() - inicio);
+        if (terminou) {
+            servidor.sessaoEncerrada(this, true); // As conexões aguardam REVANCHE ou NOVA depois de enviar o FIM
+        }
+    }
+
+    // Elo: o vencedor ganha o que o perdedor perde, mais quanto menos esperada era a vitória
+    private void atualizarRatings(int placar1, int placar2) {
+        int rating1 = conexoes[0].getRating();
+        int rating2 = conexoes[1].getRating();
+        double esperado1 = 1 / (1 + Math.pow(10, (rating2 - rating1) / 400.0));
+        double resultado1 = placar1 > placar2 ? 1 : placar1 == placar2 ? 0.5 : 0;
+        int variacao = (int) Math.round(FATOR_ELO * (resultado1 - esperado1));
+        conexoes[0].setRating(rating1 + variacao);
+        conexoes[1].setRating(rating2 - variacao);
+    }
+
+    /**
+     * Pedido de revanche depois do fim; o pedido que completa o par inicia a nova sessão.
+     */
+    void pedirRevanche(ConexaoCliente conexao) {
+        if (!isEncerrada()) {
+            conexao.enviarErro(ErroJogada.PARTIDA_EM_ANDAMENTO);
+            return;
+        }
+        int indice = conexao.getIndice();
+        switch (revanche.pedir(indice)) {
+            case AGUARDANDO_OPONENTE -> {
+                for (ConexaoCliente destino : conexoes) {
+                    destino.enviarRevanchePedida(indice);
+                }
+            }
+            case ACEITA -> servidor.iniciarSessao(conexoes[1], conexoes[0]);
+            case INDISPONIVEL -> conexao.enviarErro(ErroJogada.REVANCHE_INDISPONIVEL);
+            case REPETIDO -> {
+                // Já pedida
+            }
+        }
+    }
+
+    /**
+     * O cliente deixa a sessão terminada (NOVA ou desconexão): cancela a revanche e avisa o oponente.
+     * Retorna false se a partida está em andamento ou se a revanche já foi aceita.
+     */
+    boolean sair(ConexaoCliente conexao) {
+        if (!isEncerrada()) {
+            return false;
+        }
+        if (revanche.cancelar()) {
+            marcarAviso(1 - conexao.getIndice(), OPONENTE_SAIU);
+            return true;
+        }
+        return !revanche.isAceita(); // Aceita é definitivo: a revanche já está começando
+    }
+
+    private boolean isEncerrada() {
+        lock.lock();
+        try {
+            return encerrada;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A conexão caiu ou o cliente saiu: se a partida ainda estava em andamento, avisa o oponente e a encerra;
+     * se já tinha terminado, é uma saída (ver {@link #sair}).
+     */
+    void desconectar(ConexaoCliente conexao) {
+        boolean emAndamento;
+        lock.lock();
+        try {
+            emAndamento = !encerrada;
+            encerrada = true;
+        } finally {
+            lock.unlock();
+        }
+        if (!emAndamento) {
+            sair(conexao);
+            return;
+        }
+        revanche.cancelar();
+        if (replay != null) {
+            replay.abandonar();
+        }
+        for (int i = 0; i < conexoes.length; i++) {
+            jogo.removeObserver(observadores[i]);
+            if (conexoes[i] != conexao) {
+                conexoes[i].enviarOponenteSaiu();
+                conexoes[i].aguardarDecisao(this);
+            }
+        }
+        servidor.sessaoEncerrada(this, false);
+    }
+
+    /**
+     * Fecha as duas conexões, sem aviso (usado quando o servidor para).
+     */
+    void fechar() {
+        for (ConexaoCliente conexao : conexoes) {
+            conexao.fechar();
+        }
+    }
+
+    long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,84 @@
+package tripletriad.sim;
+
+/**
+ * Acumulador dos resultados de um lote de partidas simuladas.
+ * Guarda apenas somas inteiras (vitórias, empates, diferença de placar, estatísticas por carta
+ * e uma assinatura por partida), de modo que combinar resultados parciais em qualquer ordem
+ * produz exatamente o mesmo total, independente do número de threads.
+ */
+
+public final class ResultadoSimulacao {
+    private final long[] partidasComCarta;
+    private final long[] vitoriasComCarta;
+    private long partidas;
+    private long vitoriasJogador1;
+    private long vitoriasJogador2;
+    private long empates;
+    private long somaDiferencaPlacar; // Placar do jogador1 menos o do jogador2, somado sobre todas as partidas.
+    private long assinatura;
+
+    ResultadoSimulacao(int maxIdCarta) {
+        this.partidasComCarta = new long[maxIdCarta + 1];
+        this.vitoriasComCarta = new long[maxIdCarta + 1];
+    }
+
+    void registrarPartida(long indice, int placarJogador1, int placarJogador2, int[] idsJogador1, int[] idsJogador2, int donosFinais) {
+        partidas++;
+        int diferenca = placarJogador1 - placarJogador2;
+        somaDiferencaPlacar += diferenca;
+        if (diferenca > 0) vitoriasJogador1++;
+        else if (diferenca < 0) vitoriasJogador2++;
+        else empates++;
+
+        for (int id : idsJogador1) {
+            partidasComCarta[id]++;
+            if (diferenca > 0) vitoriasComCarta[id]++;
+        }
+        for (int id : idsJogador2) {
+            partidasComCarta[id]++;
+            if (diferenca < 0) vitoriasComCarta[id]++;
+        }
+        // Soma (comutativa) de uma impressão digital por partida: detecta qualquer divergência entre execuções.
+        assinatura += Simulador.misturar(indice * 31 + (donosFinais << 8 | (diferenca & 0xFF)));
+    }
+
+    void combinar(ResultadoSimulacao outro) {
+        partidas += outro.partidas;
+        vitoriasJogador1 += outro.vitoriasJogador1;
+        vitoriasJogador2 += outro.vitoriasJogador2;
+        empates += outro.empates;
+        somaDiferencaPlacar += outro.somaDiferencaPlacar;
+        assinatura += outro.assinatura;
+        for (int i = 0; i < partidasComCarta.length; i++) {
+            partidasComCarta[i] += outro.partidasComCarta[i];
+            vitoriasComCarta[i] += outro.vitoriasComCarta[i];
+        }
+    }
+
+    public long getPartidas() { return partidas; }
+    public long getVitoriasJogador1() { return vitoriasJogador1; }
+    public long getVitoriasJogador2() { return vitoriasJogador2; }
+    public long getEmpates() { return empates; }
+    public long getAssinatura() { return assinatura; }
+
+    public double getDiferencaMediaPlacar() {
+        return partidas == 0 ? 0 : (double) somaDiferencaPlacar / partidas;
+    }
+
+    public long getPartidasComCarta(int idCarta) { return partidasComCarta[idCarta]; }
+    public long getVitoriasComCarta(int idCarta) { return vitoriasComCarta[idCarta]; }
+
+    /**
+     * Taxa de vitória de quem recebeu a carta, ou NaN se ela nunca foi distribuída.
+     */
+    public double getTaxaVitoriaCarta(int idCarta) {
+        long total = partidasComCarta[idCarta];
+        return total == 0 ? Double.NaN : (double) vitoriasComCarta[idCarta] / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Partidas: %d | Vitórias J1: %d | Vitórias J2: %d | Empates: %d | Diferença média: %.3f | Assinatura: %016x",
+                partidas, vitoriasJogador1, vitoriasJogador2, empates, getDiferencaMediaPlacar(), assinatura);
+    }
+}
@@ -0,0 +1,197 @@
+package tripletriad.sim;
+
+import tripletriad.ia.BuscaNegamax;
+import tripletriad.model.CardCatalog;
+import tripletriad.model.CartaLoader;
+import tripletriad.model.Posicao;
+import tripletriad.model.Regras;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Executa partidas completas de Triple Triad sem interface gráfica, sem som e sem observadores.
+ * As partidas rodam sobre a {@link Posicao} (o mesmo motor de capturas usado por Jogo e pela IA)
+ * e são distribuídas entre as threads de um ForkJoinPool por uma stream paralela.
+ *
+ * Cada partida usa um gerador próprio derivado de (semente, índice da partida), e o estado
+ * reutilizado por thread é reiniciado a cada partida, então o resultado é idêntico
+ * com 1 ou N threads.
+ *
+ * Uso: Simulador [--partidas N] [--semente S] [--threads T] [--j1 aleatoria|ia] [--j2 aleatoria|ia] [--csv caminho]
+ *                 [--regras same,plus,combo,elemental]
+ */
+
+public final class Simulador {
+
+    public enum Estrategia { ALEATORIA, IA }
+
+    private final int[] idsCatalogo;
+    private final int[] ranksCatalogo;
+    private final int maxIdCarta;
+    private final ThreadLocal<Contexto> contextos;
+
+    /**
+     * Estado reutilizado entre as partidas de uma mesma thread, para não alocar por partida.
+     */
+    private static final class Contexto {
+        final Posicao posicao = new Posicao();
+        final Posicao posicaoVazia = new Posicao();
+        final int[] baralho;
+        final int[][] idsDistribuidos = new int[2][CartaLoader.CARTAS_POR_JOGADOR];
+        BuscaNegamax busca; // Criada só quando alguma estratégia usa a IA.
+
+        Contexto(int tamanhoBaralho) {
+            this.baralho = new int[tamanhoBaralho];
+        }
+    }
+
+    public Simulador(CardCatalog catalogo) {
+        if (catalogo.tamanho() < 2 * CartaLoader.CARTAS_POR_JOGADOR) {
+            throw new IllegalArgumentException("São necessárias pelo menos " + 2 * CartaLoader.CARTAS_POR_JOGADOR + " cartas para simular.");
+        }
+        this.idsCatalogo = new int[catalogo.tamanho()];
+        this.ranksCatalogo = new int[catalogo.tamanho()];
+        for (int i = 0; i < catalogo.tamanho(); i++) {
+            idsCatalogo[i] = catalogo.getId(i);
+            ranksCatalogo[i] = catalogo.getRanks(i);
+        }
+        this.maxIdCarta = catalogo.getMaiorId();
+        this.contextos = ThreadLocal.withInitial(() -> new Contexto(idsCatalogo.length));
+    }
+
+    /**
+     * Simula as partidas de índice 0 a (partidas - 1) com a regra básica, usando até {@code threads} threads.
+     */
+    public ResultadoSimulacao simular(long semente, long partidas, Estrategia jogador1, Estrategia jogador2, int threads) {
+        return simular(semente, partidas, jogador1, jogador2, Regras.BASICA, threads);
+    }
+
+    /**
+     * Simula as partidas com as variantes de regra informadas (máscara de {@link Regras}).
+     * Com ELEMENTAL, os elementos das células são sorteados por partida, com o gerador da própria partida.
+     */
+    public ResultadoSimulacao simular(long semente, long partidas, Estrategia jogador1, Estrategia jogador2, int regras, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(0, partidas).parallel().collect(
+                    () -> new ResultadoSimulacao(maxIdCarta),
+                    (resultado, indice) -> jogarPartida(semente, indice, jogador1, jogador2, regras, resultado),
+                    ResultadoSimulacao::combinar)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulação interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha durante a simulação", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void jogarPartida(long semente, long indice, Estrategia estrategia1, Estrategia estrategia2, int regras, ResultadoSimulacao resultado) {
+        Contexto ctx = contextos.get();
+        SplittableRandom random = new SplittableRandom(misturar(semente ^ misturar(indice)));
+        Posicao posicao = ctx.posicao;
+        posicao.copiarDe(ctx.posicaoVazia);
+        distribuir(ctx, random);
+        if (regras != Regras.BASICA) {
+            posicao.setRegras(regras, (regras & Regras.ELEMENTAL) != 0 ? Regras.sortearElementosDasCelulas(random) : 0);
+        }
+
+        while (!posicao.terminal()) {
+            Estrategia estrategia = posicao.getVez() == 0 ? estrategia1 : estrategia2;
+            int jogada = estrategia == Estrategia.IA ? jogadaDaIA(ctx, posicao) : jogadaAleatoria(posicao, random);
+            posicao.jogar(BuscaNegamax.slotDaJogada(jogada), BuscaNegamax.celulaDaJogada(jogada));
+        }
+        resultado.registrarPartida(indice, posicao.placar(0), posicao.placar(1),
+                ctx.idsDistribuidos[0], ctx.idsDistribuidos[1], posicao.getTabuleiro().getDonos());
+    }
+
+    // Fisher-Yates parcial sobre um baralho reiniciado a cada partida: sorteia 10 cartas distintas.
+    private void distribuir(Contexto ctx, SplittableRandom random) {
+        int[] baralho = ctx.baralho;
+        for (int i = 0; i < baralho.length; i++) {
+            baralho[i] = i;
+        }
+        for (int i = 0; i < 2 * CartaLoader.CARTAS_POR_JOGADOR; i++) {
+            int j = i + random.nextInt(baralho.length - i);
+            int carta = baralho[j];
+            baralho[j] = baralho[i];
+            baralho[i] = carta;
+
+            int jogador = i & 1;
+            int slot = i >>> 1;
+            ctx.posicao.colocarNaMao(jogador, slot, idsCatalogo[carta], ranksCatalogo[carta]);
+            ctx.idsDistribuidos[jogador][slot] = idsCatalogo[carta];
+        }
+    }
+
+    private static int jogadaAleatoria(Posicao posicao, SplittableRandom random) {
+        int mao = posicao.getMao(posicao.getVez());
+        int livres = posicao.getCelulasLivres();
+        int slot = nEsimoBit(mao, random.nextInt(Integer.bitCount(mao)));
+        int celula = nEsimoBit(livres, random.nextInt(Integer.bitCount(livres)));
+        return slot << 4 | celula;
+    }
+
+    private static int jogadaDaIA(Contexto ctx, Posicao posicao) {
+        if (ctx.busca == null) {
+            ctx.busca = new BuscaNegamax();
+        }
+        return ctx.busca.melhorJogada(posicao);
+    }
+
+    private static int nEsimoBit(int mascara, int n) {
+        for (int i = 0; i < n; i++) {
+            mascara &= mascara - 1;
+        }
+        return Integer.numberOfTrailingZeros(mascara);
+    }
+
+    // Finalizador do SplitMix64: espalha bem os bits de sementes consecutivas.
+    static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) {
+        long partidas = 1_000_000;
+        long semente = 42;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Estrategia jogador1 = Estrategia.ALEATORIA;
+        Estrategia jogador2 = Estrategia.ALEATORIA;
+        String caminhoCSV = null; // Sem --csv, usa o catálogo compartilhado (CardCatalog.padrao())
+        int regras = Regras.BASICA;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String valor = args[i + 1];
+            switch (args[i]) {
+                case "--partidas" -> partidas = Long.parseLong(valor);
+                case "--semente" -> semente = Long.parseLong(valor);
+                case "--threads" -> threads = Integer.parseInt(valor);
+                case "--j1" -> jogador1 = lerEstrategia(valor);
+                case "--j2" -> jogador2 = lerEstrategia(valor);
+                case "--csv" -> caminhoCSV = valor;
+                case "--regras" -> regras = Regras.lerRegras(valor);
+                default -> System.err.println("Argumento desconhecido: " + args[i]);
+            }
+        }
+
+        CardCatalog catalogo = caminhoCSV == null ? CardCatalog.padrao() : CardCatalog.deCartas(CartaLoader.carregarCartas(caminhoCSV));
+        Simulador simulador = new Simulador(catalogo);
+        long inicio = System.nanoTime();
+        ResultadoSimulacao resultado = simulador.simular(semente, partidas, jogador1, jogador2, regras, threads);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.println(resultado);
+        System.out.printf("%d partidas em %.2f s com %d threads (regras: %s): %.0f partidas/s%n",
+                resultado.getPartidas(), segundos, threads, Regras.descrever(regras), resultado.getPartidas() / segundos);
+    }
+
+    private static Estrategia lerEstrategia(String valor) {
+        return "ia".equalsIgnoreCase(valor) ? Estrategia.IA : Estrategia.ALEATORIA;
+    }
+}
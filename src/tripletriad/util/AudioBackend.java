@@ -0,0 +1,32 @@
+package tripletriad.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * Saída de áudio usada pelo {@link SoundMixer}: uma linha aberta uma vez e mantida durante todo o jogo.
+ * {@link SourceDataLineBackend} toca no dispositivo de som; {@link NullAudioBackend} descarta o áudio
+ * no mesmo ritmo de um dispositivo real, para máquinas sem placa de som e para testes.
+ */
+
+public interface AudioBackend {
+
+    /**
+     * Abre a saída no formato pedido, com um buffer de bufferBytes (que define a latência).
+     */
+    void open(AudioFormat format, int bufferBytes) throws LineUnavailableException;
+
+    /**
+     * Escreve os bytes, bloqueando até que caibam no buffer da saída.
+     */
+    void write(byte[] data, int offset, int length);
+
+    /**
+     * Bytes já escritos que ainda não foram tocados. Zero depois do início indica que a saída ficou sem dados (underrun).
+     */
+    int queuedBytes();
+
+    void close();
+
+    String describe();
+}
@@ -0,0 +1,118 @@
+package tripletriad.util;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Atlas com a arte de todas as cartas: uma única imagem (monsters_atlas.png) e um índice binário
+ * (monsters_atlas.idx) com o sub-retângulo de cada carta, gerados pelo {@link CardAtlasPacker}.
+ * Carregar o atlas custa uma leitura e uma decodificação, em vez de uma por carta.
+ * As regiões são sub-imagens que compartilham os pixels do atlas, então nada é copiado.
+ *
+ * Formato do índice (big-endian):
+ * - Cabeçalho de 12 bytes: magic "TTAT", versão (short), quantidade de regiões (short),
+ *   largura e altura do atlas (short cada).
+ * - Um registro de 10 bytes por região: id da carta, x, y, largura e altura (short cada).
+ */
+
+public final class CardAtlas {
+    public static final String IMAGE_PATH = "/resources/images/card_art/monsters_atlas.png";
+    public static final String INDEX_PATH = "/resources/images/card_art/monsters_atlas.idx";
+
+    static final int MAGIC = 0x54544154; // "TTAT"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_SIZE = 10;
+
+    private final BufferedImage image;
+    private final BufferedImage[] regions; // Indexado pelo id da carta; null se a carta não tem arte
+    private final int regionCount;
+
+    private CardAtlas(BufferedImage image, ByteBuffer index) {
+        if (index.limit() < HEADER_SIZE || index.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Índice de atlas inválido: cabeçalho ausente ou magic incorreto.");
+        }
+        if (index.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("Versão de índice de atlas não suportada: " + index.getShort(4));
+        }
+        int count = index.getShort(6) & 0xFFFF;
+        int width = index.getShort(8) & 0xFFFF;
+        int height = index.getShort(10) & 0xFFFF;
+        if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IllegalArgumentException("O atlas tem " + image.getWidth() + "x" + image.getHeight()
+                    + " pixels, mas o índice espera " + width + "x" + height + ".");
+        }
+        if (index.limit() < HEADER_SIZE + count * RECORD_SIZE) {
+            throw new IllegalArgumentException("Índice de atlas truncado: " + count + " regiões anunciadas.");
+        }
+
+        int maxId = 0;
+        for (int i = 0; i < count; i++) {
+            maxId = Math.max(maxId, index.getShort(HEADER_SIZE + i * RECORD_SIZE) & 0xFFFF);
+        }
+        this.image = image;
+        this.regions = new BufferedImage[maxId + 1];
+        for (int i = 0; i < count; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            int id = index.getShort(offset) & 0xFFFF;
+            int x = index.getShort(offset + 2) & 0xFFFF;
+            int y = index.getShort(offset + 4) & 0xFFFF;
+            int w = index.getShort(offset + 6) & 0xFFFF;
+            int h = index.getShort(offset + 8) & 0xFFFF;
+            if (w == 0 || h == 0 || x + w > width || y + h > height) {
+                throw new IllegalArgumentException("Região da carta " + id + " fora do atlas.");
+            }
+            regions[id] = image.getSubimage(x, y, w, h);
+        }
+        this.regionCount = count;
+    }
+
+    /**
+     * Monta o atlas a partir da imagem e do conteúdo do índice já lidos.
+     */
+    public static CardAtlas fromBuffer(BufferedImage image, ByteBuffer index) {
+        return new CardAtlas(image, index.slice());
+    }
+
+    /**
+     * Lê o índice do classpath e a imagem pelo {@link ImageCache}. Bloqueia durante a leitura e a
+     * decodificação, então não deve ser chamado na EDT (ver {@link ImagePreloader#loadCardAtlas}).
+     * Retorna null se o atlas não existir ou estiver inválido.
+     */
+    public static CardAtlas load() {
+        try (InputStream in = CardAtlas.class.getResourceAsStream(INDEX_PATH)) {
+            if (in == null) {
+                System.err.println("Índice do atlas de cartas não encontrado: " + INDEX_PATH);
+                return null;
+            }
+            ByteBuffer index = ByteBuffer.wrap(in.readAllBytes());
+            Image image = ImageCache.getImage(IMAGE_PATH);
+            if (!(image instanceof BufferedImage atlasImage)) {
+                System.err.println("Imagem do atlas de cartas não encontrada: " + IMAGE_PATH);
+                return null;
+            }
+            return new CardAtlas(atlasImage, index);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Erro ao carregar o atlas de cartas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Arte da carta, ou null se o atlas não tiver o id.
+     */
+    public BufferedImage getRegion(int cardId) {
+        return cardId >= 0 && cardId < regions.length ? regions[cardId] : null;
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+}
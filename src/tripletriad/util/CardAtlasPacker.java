@@ -0,0 +1,164 @@
+package tripletriad.util;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Gera o atlas de arte das cartas ({@link CardAtlas}) a partir dos PNGs individuais (NNN.png, onde NNN é o id da carta).
+ * Cada imagem é reduzida com o {@link ImageScaler} para caber na célula (sem ampliar, mantendo a proporção) e as imagens são empacotadas
+ * em prateleiras, da mais alta para a mais baixa. Como o CompiladorCatalogo, é uma ferramenta de build:
+ * deve ser executada de novo sempre que a arte mudar, e o atlas e o índice gerados vão para o repositório.
+ *
+ * O tamanho padrão da célula (128 px) cobre a arte desenhada a 60 px mesmo em telas com escala 2x.
+ *
+ * Uso: CardAtlasPacker [pastaDosMonstros] [atlas.png] [atlas.idx] [tamanhoDaCelula]
+ * (padrão: src/resources/images/card_art/monsters, monsters_atlas.png e monsters_atlas.idx na pasta card_art, 128)
+ */
+
+public final class CardAtlasPacker {
+    private static final String DEFAULT_SOURCE = "src/resources/images/card_art/monsters";
+    private static final String DEFAULT_ATLAS = "src/resources/images/card_art/monsters_atlas.png";
+    private static final String DEFAULT_INDEX = "src/resources/images/card_art/monsters_atlas.idx";
+    private static final int DEFAULT_CELL_SIZE = 128;
+    private static final int MAX_COORDINATE = 0xFFFF; // As coordenadas do índice são shorts sem sinal
+
+    private record Entry(int id, BufferedImage image) {
+    }
+
+    /**
+     * Imagem do atlas e conteúdo do índice correspondente.
+     */
+    public record Result(BufferedImage atlas, byte[] index) {
+    }
+
+    private CardAtlasPacker() {
+    }
+
+    public static void main(String[] args) {
+        Path source = Path.of(args.length > 0 ? args[0] : DEFAULT_SOURCE);
+        Path atlasFile = Path.of(args.length > 1 ? args[1] : DEFAULT_ATLAS);
+        Path indexFile = Path.of(args.length > 2 ? args[2] : DEFAULT_INDEX);
+        try {
+            int cellSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CELL_SIZE;
+            Result result = pack(source, cellSize);
+            ImageIO.write(result.atlas(), "png", atlasFile.toFile());
+            Files.write(indexFile, result.index());
+
+            // Confere o resultado lendo de volta, como o jogo fará
+            CardAtlas check = CardAtlas.fromBuffer(ImageIO.read(atlasFile.toFile()), ByteBuffer.wrap(result.index()));
+            System.out.println("Atlas gerado em " + atlasFile + " (" + check.getRegionCount() + " imagens, "
+                    + result.atlas().getWidth() + "x" + result.atlas().getHeight() + " px, "
+                    + Files.size(atlasFile) / 1024 + " KB) e índice em " + indexFile + " (" + result.index().length + " bytes).");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Falha ao gerar o atlas: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lê os PNGs da pasta e monta o atlas e o índice. Lança IllegalArgumentException se a pasta não tiver
+     * imagens válidas ou se o atlas passar do limite do formato.
+     */
+    public static Result pack(Path source, int cellSize) throws IOException {
+        if (cellSize < 1 || cellSize > MAX_COORDINATE) {
+            throw new IllegalArgumentException("tamanho de célula inválido: " + cellSize);
+        }
+        List<Entry> entries = readImages(source, cellSize);
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("nenhuma imagem NNN.png em " + source);
+        }
+
+        // Prateleiras: as imagens mais altas primeiro; a largura do atlas fica perto da raiz da área total
+        entries.sort(Comparator.comparingInt((Entry e) -> -e.image().getHeight()).thenComparingInt(Entry::id));
+        long area = 0;
+        int widest = 0;
+        for (Entry entry : entries) {
+            area += (long) entry.image().getWidth() * entry.image().getHeight();
+            widest = Math.max(widest, entry.image().getWidth());
+        }
+        int maxRowWidth = Math.max(widest, (int) Math.ceil(Math.sqrt(area)));
+
+        int[][] positions = new int[entries.size()][];
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        int atlasWidth = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            BufferedImage image = entries.get(i).image();
+            if (x > 0 && x + image.getWidth() > maxRowWidth) {
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            positions[i] = new int[]{x, y};
+            x += image.getWidth();
+            rowHeight = Math.max(rowHeight, image.getHeight());
+            atlasWidth = Math.max(atlasWidth, x);
+        }
+        int atlasHeight = y + rowHeight;
+        if (atlasWidth > MAX_COORDINATE || atlasHeight > MAX_COORDINATE) {
+            throw new IllegalArgumentException("atlas de " + atlasWidth + "x" + atlasHeight + " px passa do limite do índice");
+        }
+
+        BufferedImage atlas = new BufferedImage(atlasWidth, atlasHeight, BufferedImage.TYPE_INT_ARGB);
+        ByteBuffer index = ByteBuffer.allocate(CardAtlas.HEADER_SIZE + entries.size() * CardAtlas.RECORD_SIZE);
+        index.putInt(CardAtlas.MAGIC)
+                .putShort(CardAtlas.VERSION)
+                .putShort((short) entries.size())
+                .putShort((short) atlasWidth)
+                .putShort((short) atlasHeight);
+        Graphics2D g = atlas.createGraphics();
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                BufferedImage image = entry.image();
+                g.drawImage(image, positions[i][0], positions[i][1], null);
+                index.putShort((short) entry.id())
+                        .putShort((short) positions[i][0])
+                        .putShort((short) positions[i][1])
+                        .putShort((short) image.getWidth())
+                        .putShort((short) image.getHeight());
+            }
+        } finally {
+            g.dispose();
+        }
+        return new Result(atlas, index.array());
+    }
+
+    private static List<Entry> readImages(Path source, int cellSize) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(source)) {
+            files = listing.filter(p -> p.getFileName().toString().matches("\\d+\\.png")).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int id = Integer.parseInt(name.substring(0, name.length() - 4));
+            if (id < 1 || id > MAX_COORDINATE) {
+                throw new IllegalArgumentException(name + ": id fora do intervalo 1-" + MAX_COORDINATE);
+            }
+            BufferedImage image = ImageIO.read(file.toFile());
+            if (image == null) {
+                throw new IllegalArgumentException(name + ": formato de imagem não suportado");
+            }
+            entries.add(new Entry(id, fitInCell(image, cellSize)));
+        }
+        return entries;
+    }
+
+    private static BufferedImage fitInCell(BufferedImage image, int cellSize) {
+        double factor = Math.min(1.0, Math.min((double) cellSize / image.getWidth(), (double) cellSize / image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        return ImageScaler.scale(image, width, height, null);
+    }
+}
@@ -2,56 +2,285 @@ package tripletriad.util;
 
 import javax.imageio.ImageIO;
 import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Gerencia um cache de imagens para otimizar o desempenho, evitando
  * carregamentos repetidos de imagens do disco.
- * Utiliza um HashMap para armazenar as instâncias de Image já carregadas,
- * usando o caminho do recurso da imagem como chave.
+ * É thread-safe: pode ser usado ao mesmo tempo pelas janelas (EDT) e por carregadores em segundo plano.
+ *
+ * - As imagens ficam em um LRU limitado por um orçamento de memória em bytes de pixels decodificados
+ *   (padrão de 64 MB, configurável com -Dtripletriad.imagecache.mb=N ou {@link #setBudgetBytes}).
+ * - As imagens que saem do LRU passam para uma SoftReference, e podem ser recuperadas sem
+ *   novo carregamento enquanto o GC não precisar da memória.
+ * - Recursos inexistentes ou que falham ao carregar são lembrados (cache negativo), para não
+ *   serem procurados de novo a cada pintura.
+ * - Contadores de acertos, falhas e remoções ajudam a dimensionar o orçamento.
+ *
+ * A decodificação é feita fora do lock; se duas threads pedirem a mesma imagem ao mesmo tempo,
+ * só a primeira carrega e a outra espera pelo mesmo resultado.
+ * Quem não pode bloquear (a EDT) usa {@link #getCachedImage} e pede o carregamento ao {@link ImagePreloader}.
  * Esta classe segue um padrão de utilidade estática.
  */
 
 public class ImageCache {
-    private static Map<String, Image> cache = new HashMap<>();
+    private static final long DEFAULT_BUDGET_BYTES = Long.getLong("tripletriad.imagecache.mb", 64L) * 1024 * 1024;
+    private static final int MAX_MISSING_ENTRIES = 1024;
+    public static final String CARD_BACKGROUND_PATH = "/resources/images/card_art/card_bg.png";
 
-    // Imagem de fundo padrão
-    private static Image defaultCardBackground = null;
+    private static final Object lock = new Object();
+    // Ordem de acesso: o primeiro elemento é o usado há mais tempo
+    private static final LinkedHashMap<String, Image> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private static final Map<String, SoftEntry> softCache = new HashMap<>();
+    private static final ReferenceQueue<Image> clearedByGc = new ReferenceQueue<>();
+    private static final Set<String> missing = new HashSet<>();
+    private static final Map<String, CompletableFuture<Image>> loading = new HashMap<>();
+    private static long budgetBytes = DEFAULT_BUDGET_BYTES;
+    private static long sizeBytes = 0;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong softHits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong negativeHits = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private static final class SoftEntry extends SoftReference<Image> {
+        final String path;
+
+        SoftEntry(String path, Image image) {
+            super(image, clearedByGc);
+            this.path = path;
+        }
+    }
 
     public static Image getImage(String resourcePath) {
         if (resourcePath == null || resourcePath.isEmpty()) {
             return null;
         }
 
-        // Verifica se a imagem já está no cache
-        if (cache.containsKey(resourcePath)) {
-            return cache.get(resourcePath);
+        CompletableFuture<Image> pending;
+        synchronized (lock) {
+            Image image = cache.get(resourcePath);
+            if (image != null) {
+                hits.incrementAndGet();
+                return image;
+            }
+            if (missing.contains(resourcePath)) {
+                negativeHits.incrementAndGet();
+                return null;
+            }
+            image = recoverSoft(resourcePath);
+            if (image != null) {
+                softHits.incrementAndGet();
+                return image;
+            }
+            pending = loading.get(resourcePath);
+            if (pending == null) {
+                loading.put(resourcePath, new CompletableFuture<>());
+            }
+        }
+        if (pending != null) {
+            return pending.join(); // Outra thread já está carregando esta imagem
         }
 
-        // Se não estiver no cache, carrega a imagem
+        // Se não estiver no cache, carrega a imagem (fora do lock, para não bloquear as outras threads)
+        misses.incrementAndGet();
+        Image loaded = null;
         try {
-            URL imageUrl = ImageCache.class.getResource(resourcePath);
-            if (imageUrl != null) {
-                Image image = ImageIO.read(imageUrl);
-                cache.put(resourcePath, image); // Adiciona ao cache
+            loaded = load(resourcePath);
+        } finally {
+            CompletableFuture<Image> done;
+            synchronized (lock) {
+                done = loading.remove(resourcePath);
+                if (loaded == null) {
+                    if (missing.size() < MAX_MISSING_ENTRIES) {
+                        missing.add(resourcePath);
+                    }
+                } else {
+                    putLocked(resourcePath, loaded);
+                }
+            }
+            done.complete(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Retorna a imagem somente se ela já estiver carregada (no LRU ou ainda na SoftReference), sem nunca
+     * ler o disco; retorna null se ela não foi carregada ainda ou não existe (ver {@link #isMissing}).
+     */
+    public static Image getCachedImage(String resourcePath) {
+        if (resourcePath == null || resourcePath.isEmpty()) {
+            return null;
+        }
+        synchronized (lock) {
+            Image image = cache.get(resourcePath);
+            if (image != null) {
+                hits.incrementAndGet();
                 return image;
-            } else {
+            }
+            image = recoverSoft(resourcePath);
+            if (image != null) {
+                softHits.incrementAndGet();
+            }
+            return image;
+        }
+    }
+
+    /**
+     * Indica se o recurso já foi procurado e não existe ou não pôde ser decodificado.
+     */
+    public static boolean isMissing(String resourcePath) {
+        synchronized (lock) {
+            return missing.contains(resourcePath);
+        }
+    }
+
+    private static Image load(String resourcePath) {
+        try {
+            URL imageUrl = ImageCache.class.getResource(resourcePath);
+            if (imageUrl == null) {
                 System.err.println("Recurso de imagem não encontrado no cache: " + resourcePath);
                 return null;
             }
+            Image image = ImageIO.read(imageUrl);
+            if (image == null) {
+                System.err.println("Formato de imagem não suportado: " + resourcePath);
+            }
+            return image;
         } catch (IOException e) {
             System.err.println("Erro ao carregar imagem do recurso '" + resourcePath + "': " + e.getMessage());
             return null;
         }
     }
 
-    public static Image getCardBackgroundImage() {
-        if (defaultCardBackground == null) {
-            defaultCardBackground = getImage("/resources/images/card_art/card_bg.png");
+    // Deve ser chamado com o lock: recoloca no LRU uma imagem que ainda estava na referência fraca
+    private static Image recoverSoft(String resourcePath) {
+        SoftEntry entry = softCache.remove(resourcePath);
+        Image image = (entry != null) ? entry.get() : null;
+        if (image != null) {
+            putLocked(resourcePath, image);
         }
-        return defaultCardBackground;
+        return image;
+    }
+
+    private static void putLocked(String resourcePath, Image image) {
+        Image previous = cache.put(resourcePath, image);
+        if (previous != null) {
+            sizeBytes -= sizeOf(previous);
+        }
+        sizeBytes += sizeOf(image);
+        softCache.remove(resourcePath);
+        evictLocked();
+    }
+
+    // Remove as menos usadas até caber no orçamento (mantendo pelo menos a mais recente) e as passa para SoftReference
+    private static void evictLocked() {
+        drainClearedLocked();
+        Iterator<Map.Entry<String, Image>> iterator = cache.entrySet().iterator();
+        while (sizeBytes > budgetBytes && cache.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Image> eldest = iterator.next();
+            iterator.remove();
+            sizeBytes -= sizeOf(eldest.getValue());
+            softCache.put(eldest.getKey(), new SoftEntry(eldest.getKey(), eldest.getValue()));
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Tira do mapa as referências que o GC já limpou
+    private static void drainClearedLocked() {
+        Reference<? extends Image> cleared;
+        while ((cleared = clearedByGc.poll()) != null) {
+            SoftEntry entry = (SoftEntry) cleared;
+            if (softCache.get(entry.path) == entry) {
+                softCache.remove(entry.path);
+            }
+        }
+    }
+
+    /**
+     * Bytes ocupados pelos pixels decodificados da imagem.
+     */
+    static long sizeOf(Image image) {
+        if (image instanceof BufferedImage buffered) {
+            DataBuffer data = buffered.getRaster().getDataBuffer();
+            return (long) data.getSize() * data.getNumBanks() * DataBuffer.getDataTypeSize(data.getDataType()) / 8;
+        }
+        return (long) Math.max(0, image.getWidth(null)) * Math.max(0, image.getHeight(null)) * 4;
+    }
+
+    /**
+     * Descarta todas as imagens em cache (inclusive as referências fracas e o cache negativo),
+     * forçando um novo carregamento no próximo acesso. Os contadores são mantidos.
+     */
+    public static void clear() {
+        synchronized (lock) {
+            cache.clear();
+            softCache.clear();
+            missing.clear();
+            sizeBytes = 0;
+        }
+    }
+
+    public static void setBudgetBytes(long bytes) {
+        synchronized (lock) {
+            budgetBytes = Math.max(0, bytes);
+            evictLocked();
+        }
+    }
+
+    public static long getBudgetBytes() {
+        synchronized (lock) {
+            return budgetBytes;
+        }
+    }
+
+    public static long getSizeBytes() {
+        synchronized (lock) {
+            return sizeBytes;
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getSoftHits() {
+        return softHits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getNegativeHits() {
+        return negativeHits.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    public static String describeStats() {
+        return String.format("ImageCache: %d acertos, %d recuperadas de SoftReference, %d carregamentos, %d ausentes evitados, %d remoções, %d/%d KB",
+                getHits(), getSoftHits(), getMisses(), getNegativeHits(), getEvictions(), getSizeBytes() / 1024, getBudgetBytes() / 1024);
+    }
+
+    public static Image getCardBackgroundImage() {
+        return getImage(CARD_BACKGROUND_PATH);
     }
 }
@@ -0,0 +1,108 @@
+package tripletriad.util;
+
+import java.awt.Image;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Carrega imagens em segundo plano, em um pool de threads daemon, e publica o resultado no {@link ImageCache}.
+ * Na inicialização, {@link #preloadCardArt} decodifica em paralelo o fundo das cartas, o fundo do tabuleiro
+ * e o atlas com a arte de todos os monstros ({@link CardAtlas}), para que a EDT nunca precise ler o disco
+ * nem decodificar um PNG.
+ *
+ * Os painéis usam {@link #load} quando a imagem ainda não está no cache: pedidos repetidos do mesmo
+ * recurso compartilham o mesmo carregamento, e o future termina com null se o recurso não existir.
+ * Esta classe segue um padrão de utilidade estática.
+ */
+
+public final class ImagePreloader {
+    public static final String BOARD_BACKGROUND_PATH = "/resources/images/back.png";
+
+    // Decodificar PNG é trabalho de CPU; mais threads que núcleos só disputariam o processador
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "image-preloader-" + threadCount.incrementAndGet());
+        t.setDaemon(true); // Não impede o encerramento da aplicação
+        t.setPriority(Thread.NORM_PRIORITY - 1); // A EDT tem prioridade sobre o carregamento
+        return t;
+    });
+    private static final Map<String, CompletableFuture<Image>> requests = new ConcurrentHashMap<>();
+    private static final AtomicReference<CompletableFuture<CardAtlas>> atlasRequest = new AtomicReference<>();
+
+    private ImagePreloader() {
+    }
+
+    /**
+     * Retorna a imagem já carregada ou agenda o carregamento no pool. Nunca bloqueia quem chama.
+     */
+    public static CompletableFuture<Image> load(String resourcePath) {
+        Image cached = ImageCache.getCachedImage(resourcePath);
+        if (cached != null || resourcePath == null || ImageCache.isMissing(resourcePath)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        CompletableFuture<Image> existing = requests.putIfAbsent(resourcePath, created);
+        if (existing != null) {
+            return existing;
+        }
+        executor.execute(() -> {
+            Image image = null;
+            try {
+                image = ImageCache.getImage(resourcePath);
+            } finally {
+                requests.remove(resourcePath, created);
+                created.complete(image);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Agenda o carregamento do atlas de cartas, feito uma única vez. O future termina com null se o atlas não existir.
+     */
+    public static CompletableFuture<CardAtlas> loadCardAtlas() {
+        CompletableFuture<CardAtlas> request = atlasRequest.get();
+        if (request != null) {
+            return request;
+        }
+        CompletableFuture<CardAtlas> created = new CompletableFuture<>();
+        if (!atlasRequest.compareAndSet(null, created)) {
+            return atlasRequest.get();
+        }
+        executor.execute(() -> {
+            CardAtlas atlas = null;
+            try {
+                atlas = CardAtlas.load();
+            } finally {
+                created.complete(atlas);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * O atlas de cartas, se já terminou de carregar; null caso contrário. Nunca bloqueia.
+     */
+    public static CardAtlas getCardAtlas() {
+        CompletableFuture<CardAtlas> request = atlasRequest.get();
+        return request != null ? request.getNow(null) : null;
+    }
+
+    /**
+     * Agenda o carregamento do fundo das cartas, do fundo do tabuleiro e do atlas de cartas.
+     * O future termina quando todos foram carregados (ou dados como ausentes).
+     */
+    public static CompletableFuture<Void> preloadCardArt() {
+        return CompletableFuture.allOf(
+                load(ImageCache.CARD_BACKGROUND_PATH),
+                load(BOARD_BACKGROUND_PATH),
+                loadCardAtlas());
+    }
+}
@@ -0,0 +1,151 @@
+package tripletriad.util;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Redimensionamento de imagens com qualidade, para desenhar imagens já no tamanho final em vez de escalar a cada pintura.
+ * {@link #scale} reduz pela metade com interpolação bilinear até chegar perto do tamanho final (evita o serrilhado
+ * de uma redução direta) e amplia em um único passo bicúbico.
+ *
+ * {@link #draw} desenha a variante com o tamanho em pixels do dispositivo (tamanho lógico x escala da tela, lida
+ * da transformação do Graphics2D), então em telas HiDPI a imagem fica nítida e o desenho é uma cópia 1:1.
+ * As variantes ficam em um LRU limitado a um orçamento de bytes (padrão de 16 MB, configurável com
+ * -Dtripletriad.imagevariants.mb=N), compartilhado por todos os painéis que desenham a mesma imagem.
+ * Esta classe segue um padrão de utilidade estática.
+ */
+
+public final class ImageScaler {
+    private static final long BUDGET_BYTES = Long.getLong("tripletriad.imagevariants.mb", 16L) * 1024 * 1024;
+
+    private record Key(Image source, int width, int height) {
+    }
+
+    private static final Object lock = new Object();
+    private static final LinkedHashMap<Key, BufferedImage> variants = new LinkedHashMap<>(32, 0.75f, true);
+    private static long sizeBytes = 0;
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private ImageScaler() {
+    }
+
+    /**
+     * Desenha a imagem no retângulo lógico usando a variante pré-escalada para a escala atual do Graphics2D.
+     */
+    public static void draw(Graphics2D g2d, Image source, int x, int y, int width, int height) {
+        int pixelWidth = devicePixels(width, g2d.getTransform().getScaleX());
+        int pixelHeight = devicePixels(height, g2d.getTransform().getScaleY());
+        if (width <= 0 || height <= 0 || pixelWidth <= 0 || pixelHeight <= 0) {
+            return;
+        }
+        g2d.drawImage(getScaled(source, pixelWidth, pixelHeight, g2d.getDeviceConfiguration()), x, y, width, height, null);
+    }
+
+    /**
+     * Tamanho em pixels do dispositivo de uma medida lógica, para a escala informada.
+     */
+    public static int devicePixels(int logical, double scale) {
+        return (int) Math.ceil(logical * Math.abs(scale) - 1e-6);
+    }
+
+    /**
+     * Variante da imagem com o tamanho em pixels pedido, criada na primeira vez e reaproveitada depois.
+     */
+    public static BufferedImage getScaled(Image source, int width, int height, GraphicsConfiguration gc) {
+        Key key = new Key(source, width, height);
+        synchronized (lock) {
+            BufferedImage variant = variants.get(key);
+            if (variant != null) {
+                hits++;
+                return variant;
+            }
+            misses++;
+        }
+        BufferedImage variant = scale(source, width, height, gc);
+        synchronized (lock) {
+            BufferedImage previous = variants.put(key, variant);
+            if (previous != null) {
+                sizeBytes -= ImageCache.sizeOf(previous);
+            }
+            sizeBytes += ImageCache.sizeOf(variant);
+            Iterator<BufferedImage> eldest = variants.values().iterator();
+            while (sizeBytes > BUDGET_BYTES && variants.size() > 1 && eldest.hasNext()) {
+                sizeBytes -= ImageCache.sizeOf(eldest.next());
+                eldest.remove();
+            }
+        }
+        return variant;
+    }
+
+    /**
+     * Cria uma nova imagem com o tamanho pedido. Com uma GraphicsConfiguration, o resultado usa o formato de pixels
+     * da tela, que é desenhado sem conversão.
+     */
+    public static BufferedImage scale(Image source, int width, int height, GraphicsConfiguration gc) {
+        BufferedImage current = toBuffered(source);
+        // Reduções: metade por passo enquanto o resultado ainda for maior que o dobro do destino
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = resample(current, current.getWidth() / 2, current.getHeight() / 2, null,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        if (current.getWidth() == width && current.getHeight() == height && gc == null && current != source) {
+            return current;
+        }
+        return resample(current, width, height, gc, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    private static BufferedImage resample(BufferedImage source, int width, int height, GraphicsConfiguration gc, Object interpolation) {
+        // Imagens opacas continuam opacas: a cópia para a tela dispensa a mistura de alfa
+        boolean opaque = source.getTransparency() == Transparency.OPAQUE;
+        BufferedImage target = gc != null
+                ? gc.createCompatibleImage(width, height, opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setTransform(new AffineTransform()); // As imagens de destino já estão em pixels do dispositivo
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static BufferedImage toBuffered(Image source) {
+        if (source instanceof BufferedImage buffered) {
+            return buffered;
+        }
+        BufferedImage converted = new BufferedImage(Math.max(1, source.getWidth(null)), Math.max(1, source.getHeight(null)),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = converted.createGraphics();
+        try {
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return converted;
+    }
+
+    public static void clear() {
+        synchronized (lock) {
+            variants.clear();
+            sizeBytes = 0;
+        }
+    }
+
+    public static String describeStats() {
+        synchronized (lock) {
+            return String.format("ImageScaler: %d variantes (%d KB), %d acertos, %d criadas",
+                    variants.size(), sizeBytes / 1024, hits, misses);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tripletriad.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Música tocada em streaming pelo {@link SoundMixer}: uma thread decodifica o recurso aos poucos, já no formato
+ * do mixer, e escreve as amostras em um buffer circular pequeno (RING_FRAMES quadros), que o mixer consome
+ * a cada período. A faixa inteira nunca fica decodificada em memória.
+ *
+ * Uma introdução opcional é seguida da faixa principal, que pode repetir sem fim. As faixas são escritas
+ * uma atrás da outra no mesmo buffer, então a passagem da introdução para o loop (e de uma volta do loop
+ * para a próxima) acontece exatamente na amostra seguinte, sem silêncio nem sobreposição.
+ *
+ * O buffer tem um único produtor (a thread da música) e um único consumidor (a thread do mixer)
+ * e não usa locks: cada lado só escreve a sua posição.
+ */
+
+public final class MusicStream {
+    public static final int RING_FRAMES = 16384; // ~370 ms a 44,1 kHz
+    private static final int CHUNK_FRAMES = 1024;
+    private static final int CHANNELS = 2;
+    private static final long FULL_WAIT_NANOS = 2_000_000L;
+
+    private final URL intro;
+    private final URL main;
+    private final boolean looping;
+    private final short[] ring = new short[RING_FRAMES * CHANNELS];
+    private final int mask = ring.length - 1;
+    private final Thread thread;
+
+    private volatile long writePosition; // Em amostras, só cresce; escrita só pela thread da música
+    private volatile long readPosition; // Escrita só pela thread do mixer
+    private volatile boolean finished;
+    private volatile boolean closed;
+    private boolean primed; // Só lido e escrito pela thread do mixer
+    private volatile int loops;
+
+    /**
+     * @param intro   tocada uma vez antes da faixa principal, ou null
+     * @param main    faixa principal
+     * @param looping se a faixa principal repete até a música ser parada
+     */
+    public MusicStream(URL intro, URL main, boolean looping) {
+        this.intro = intro;
+        this.main = main;
+        this.looping = looping;
+        this.thread = new Thread(this::run, "music-streamer");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.NORM_PRIORITY + 2);
+    }
+
+    /**
+     * Começa a decodificar; o mixer só passa a consumir quando o buffer estiver cheio pela metade.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Para a decodificação e fecha o recurso. Não bloqueia.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        try {
+            if (intro != null) {
+                stream(intro);
+            }
+            do {
+                stream(main);
+                if (!closed) {
+                    loops++;
+                }
+            } while (looping && !closed);
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            System.err.println("Error streaming music " + main.getPath() + ": " + e.getMessage());
+        } finally {
+            finished = true;
+        }
+    }
+
+    // Decodifica o recurso em blocos de CHUNK_FRAMES quadros e escreve no buffer, esperando quando está cheio
+    private void stream(URL resource) throws UnsupportedAudioFileException, IOException {
+        byte[] bytes = new byte[CHUNK_FRAMES * CHANNELS * 2];
+        try (AudioInputStream in = openInMixerFormat(resource)) {
+            int read;
+            while (!closed && (read = in.readNBytes(bytes, 0, bytes.length)) > 0) {
+                int samples = read / (CHANNELS * 2) * CHANNELS; // Descarta um quadro incompleto no fim do arquivo
+                while (!closed && writePosition - readPosition + samples > ring.length) {
+                    LockSupport.parkNanos(FULL_WAIT_NANOS);
+                }
+                long position = writePosition;
+                for (int i = 0; i < samples; i++) {
+                    ring[(int) (position + i) & mask] = (short) ((bytes[i * 2] & 0xFF) | bytes[i * 2 + 1] << 8);
+                }
+                writePosition = position + samples; // Publica as amostras depois de escritas
+            }
+        }
+    }
+
+    /**
+     * Abre o recurso convertido para o formato do mixer (16 bits, estéreo, na taxa do mixer) sem lê-lo todo.
+     */
+    static AudioInputStream openInMixerFormat(URL resource) throws UnsupportedAudioFileException, IOException {
+        AudioInputStream source = AudioSystem.getAudioInputStream(resource);
+        AudioFormat format = source.getFormat();
+        if (SoundMixer.FORMAT.matches(format)) {
+            return source;
+        }
+        try {
+            AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                    format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+            AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm16, source);
+            return AudioSystem.getAudioInputStream(SoundMixer.FORMAT, decoded);
+        } catch (IllegalArgumentException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Soma até count amostras da música em mix, a partir de offset. Chamado só pela thread do mixer;
+     * retorna quantas amostras havia no buffer (menos que count quando a decodificação está atrasada).
+     */
+    int mixInto(int[] mix, int offset, int count, float gain) {
+        long position = readPosition;
+        int available = (int) Math.min(count, writePosition - position);
+        for (int i = 0; i < available; i++) {
+            short sample = ring[(int) (position + i) & mask];
+            mix[offset + i] += gain == 1f ? sample : (int) (sample * gain);
+        }
+        readPosition = position + available;
+        return available;
+    }
+
+    /**
+     * Se o mixer já pode consumir: metade do buffer decodificada ou a decodificação terminou.
+     */
+    boolean isPrimed() {
+        if (!primed) {
+            primed = finished || writePosition - readPosition >= ring.length / 2;
+        }
+        return primed;
+    }
+
+    /**
+     * Se a música acabou: a decodificação terminou (ou foi parada) e o buffer foi todo tocado.
+     */
+    boolean isDrained() {
+        return finished && readPosition == writePosition;
+    }
+
+    public List<URL> getSources() {
+        List<URL> sources = new ArrayList<>(2);
+        if (intro != null) {
+            sources.add(intro);
+        }
+        sources.add(main);
+        return Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Quantas vezes a faixa principal foi decodificada até o fim.
+     */
+    public int getLoops() {
+        return loops;
+    }
+
+    public long getFramesPlayed() {
+        return readPosition / CHANNELS;
+    }
+}
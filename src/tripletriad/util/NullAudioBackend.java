@@ -0,0 +1,64 @@
+package tripletriad.util;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Saída de áudio que descarta o som, usada quando não há dispositivo de som (ou com -Dtripletriad.audio=null).
+ * Consome os bytes no ritmo do relógio, como um dispositivo real com o mesmo buffer, então o mixer mantém
+ * o mesmo comportamento de latência. Subclasses podem sobrescrever {@link #consume} para inspecionar o áudio.
+ */
+
+public class NullAudioBackend implements AudioBackend {
+    private int frameSize;
+    private float frameRate;
+    private long bufferFrames;
+    private long startNanos = -1;
+    private long framesWritten;
+
+    @Override
+    public void open(AudioFormat format, int bufferBytes) {
+        this.frameSize = format.getFrameSize();
+        this.frameRate = format.getFrameRate();
+        this.bufferFrames = bufferBytes / frameSize;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        if (startNanos < 0) {
+            startNanos = System.nanoTime();
+        }
+        consume(data, offset, length);
+        framesWritten += length / frameSize;
+        // Como um dispositivo real, só aceita mais dados quando o que já foi escrito cabe no buffer
+        long waitUntil = startNanos + (long) ((framesWritten - bufferFrames) * 1e9 / frameRate);
+        long now;
+        while ((now = System.nanoTime()) < waitUntil) {
+            LockSupport.parkNanos(waitUntil - now);
+        }
+    }
+
+    /**
+     * Recebe o áudio mixado; a implementação padrão o descarta.
+     */
+    protected void consume(byte[] data, int offset, int length) {
+    }
+
+    @Override
+    public int queuedBytes() {
+        if (startNanos < 0) {
+            return 0;
+        }
+        long played = (long) ((System.nanoTime() - startNanos) * (double) frameRate / 1e9);
+        return (int) Math.max(0, framesWritten - played) * frameSize;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String describe() {
+        return "saída nula (sem dispositivo de som), buffer de " + bufferFrames * frameSize + " bytes";
+    }
+}
@@ -0,0 +1,98 @@
+package tripletriad.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Efeito sonoro já decodificado em PCM no formato do {@link SoundMixer} (16 bits, estéreo intercalado,
+ * na taxa do mixer), pronto para ser somado pelo mixer sem nenhuma conversão ao tocar.
+ * É imutável e pode ser tocado em várias vozes ao mesmo tempo.
+ */
+
+public final class PcmSound {
+    private final String name;
+    private final short[] samples; // Esquerda e direita intercaladas
+    private final int frames;
+
+    PcmSound(String name, short[] samples) {
+        this.name = name;
+        this.samples = samples;
+        this.frames = samples.length / 2;
+    }
+
+    /**
+     * Decodifica o recurso e o converte para o formato do mixer (canais, bits e taxa de amostragem).
+     */
+    public static PcmSound decode(URL resource) throws UnsupportedAudioFileException, IOException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(resource)) {
+            short[] samples = toMixerFormat(source);
+            return new PcmSound(resource.getPath(), samples);
+        }
+    }
+
+    /**
+     * Lê todo o stream e retorna as amostras em 16 bits estéreo na taxa do mixer.
+     */
+    static short[] toMixerFormat(AudioInputStream source) throws IOException {
+        AudioFormat format = source.getFormat();
+        int channels = format.getChannels();
+        AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                channels, channels * 2, format.getSampleRate(), false);
+        byte[] bytes;
+        try (AudioInputStream converted = AudioSystem.getAudioInputStream(pcm16, source)) {
+            bytes = converted.readAllBytes();
+        }
+
+        int frames = bytes.length / (channels * 2);
+        short[] stereo = new short[frames * 2];
+        for (int f = 0; f < frames; f++) {
+            int base = f * channels * 2;
+            short left = (short) ((bytes[base] & 0xFF) | bytes[base + 1] << 8);
+            short right = channels > 1 ? (short) ((bytes[base + 2] & 0xFF) | bytes[base + 3] << 8) : left;
+            stereo[f * 2] = left;
+            stereo[f * 2 + 1] = right;
+        }
+        return resample(stereo, format.getSampleRate(), SoundMixer.FORMAT.getSampleRate());
+    }
+
+    // Interpolação linear; só é usada quando o arquivo não está na taxa do mixer
+    private static short[] resample(short[] stereo, float fromRate, float toRate) {
+        if (fromRate == toRate || stereo.length == 0) {
+            return stereo;
+        }
+        int inFrames = stereo.length / 2;
+        int outFrames = (int) ((long) inFrames * toRate / fromRate);
+        short[] out = new short[outFrames * 2];
+        double step = (double) fromRate / toRate;
+        for (int f = 0; f < outFrames; f++) {
+            double position = f * step;
+            int i = (int) position;
+            double frac = position - i;
+            int next = Math.min(i + 1, inFrames - 1);
+            for (int c = 0; c < 2; c++) {
+                out[f * 2 + c] = (short) Math.round(stereo[i * 2 + c] * (1 - frac) + stereo[next * 2 + c] * frac);
+            }
+        }
+        return out;
+    }
+
+    short[] samples() {
+        return samples;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getDurationSeconds() {
+        return frames / (double) SoundMixer.FORMAT.getSampleRate();
+    }
+}
@@ -14,6 +14,13 @@ public enum SoundEffect {
         this.fileName = fileName;
     }
 
+    /**
+     * Músicas de tema são longas e tocadas uma de cada vez; os demais são efeitos curtos, tocados pelo mixer.
+     */
+    public boolean isMusic() {
+        return this == THEME_LOOP || this == THEME_START;
+    }
+
     public String getFileName() {
         return "/resources/sounds/" + fileName; // Caminho relativo à raiz do classpath
     }
@@ -1,11 +1,12 @@
 package tripletriad.util;
 
-import javax.sound.sampled.LineListener;
-import javax.sound.sampled.*;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -14,16 +15,21 @@ import java.util.concurrent.ThreadFactory;
 /**
  * Gerencia o carregamento e a reprodução de efeitos sonoros e música de tema para o jogo.
  * Implementa o padrão Singleton para garantir uma única instância de gerenciamento de som.
- * As operações de som (carregamento, reprodução) são executadas em uma thread separada
- * usando um ExecutorService para evitar o bloqueio da thread principal da aplicação (ex: EDT do Swing).
+ * Os efeitos curtos são decodificados uma vez em PCM e tocados pelo {@link SoundMixer}, que soma vários
+ * efeitos ao mesmo tempo em uma única linha de áudio; tocar um efeito só enfileira um pedido ao mixer.
+ * Sem dispositivo de som (ou com -Dtripletriad.audio=null), o mixer usa a {@link NullAudioBackend}.
+ * As músicas de tema não são carregadas: tocam em streaming ({@link MusicStream}) pelo canal de música do mixer,
+ * e a introdução passa para o loop sem intervalo. A decodificação dos efeitos é executada em uma thread
+ * separada usando um ExecutorService para evitar o bloqueio da thread principal da aplicação (ex: EDT do Swing).
  */
 
 public class SoundManager {
 
     private static SoundManager instance;
-    private final Map<SoundEffect, Clip> soundClips = new HashMap<>();
-    private Clip currentThemeClip = null;
-    private LineListener themeTransitionListener = null;
+    private final Map<SoundEffect, URL> musicSources = new EnumMap<>(SoundEffect.class); // Só as músicas de tema
+    private final Map<SoundEffect, PcmSound> effects = new ConcurrentHashMap<>();
+    private final SoundMixer mixer = openMixer();
+    private volatile MusicStream currentMusic;
     private final ExecutorService soundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
 
         @Override
@@ -36,7 +42,11 @@ public class SoundManager {
 
     private SoundManager() {
         for (SoundEffect effect : SoundEffect.values()) {
-            loadSound(effect);
+            if (effect.isMusic()) {
+                findMusic(effect);
+            } else {
+                loadSound(effect);
+            }
         }
     }
 
@@ -47,6 +57,31 @@ public class SoundManager {
         return instance;
     }
 
+    private static SoundMixer openMixer() {
+        if (!"null".equalsIgnoreCase(System.getProperty("tripletriad.audio"))) {
+            try {
+                return SoundMixer.open(new SourceDataLineBackend());
+            } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+                System.err.println("Dispositivo de som indisponível (" + e.getMessage() + "); os sons serão descartados.");
+            }
+        }
+        try {
+            return SoundMixer.open(new NullAudioBackend());
+        } catch (LineUnavailableException e) {
+            throw new IllegalStateException(e); // A saída nula não depende de dispositivo
+        }
+    }
+
+    // Só localiza o recurso; a música é decodificada aos poucos quando toca
+    private void findMusic(SoundEffect effect) {
+        URL soundURL = SoundManager.class.getResource(effect.getFileName());
+        if (soundURL == null) {
+            System.err.println("Sound file not found: " + effect.getFileName());
+            return;
+        }
+        musicSources.put(effect, soundURL);
+    }
+
     private void loadSound(SoundEffect effect) {
         soundExecutor.submit(() -> {
             try {
@@ -55,128 +90,86 @@ public class SoundManager {
                     System.err.println("Sound file not found: " + effect.getFileName());
                     return;
                 }
-                AudioInputStream audioIn = AudioSystem.getAudioInputStream(soundURL);
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioIn);
-                soundClips.put(effect, clip);
-            } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+                effects.put(effect, PcmSound.decode(soundURL));
+            } catch (UnsupportedAudioFileException | IOException e) {
                 System.err.println("Error loading sound " + effect.getFileName() + ": " + e.getMessage());
             }
         });
     }
 
+    /**
+     * Toca o efeito por cima dos que já estão tocando. Não bloqueia: o pedido vai direto para a fila do mixer.
+     * Uma música de tema toca uma vez, substituindo a atual.
+     */
     public void playSound(SoundEffect effect) {
-        soundExecutor.submit(() -> {
-            Clip clip = soundClips.get(effect);
-            if (clip != null) {
-                if (clip.isRunning()) {
-                    clip.stop();
-                }
-                clip.setFramePosition(0);
-                clip.start();
-            } else {
-                System.err.println("Sound not loaded or clip is null for: " + effect.getFileName() + ". Attempting to reload.");
-                loadSound(effect);
-            }
-        });
+        if (effect.isMusic()) {
+            loopSound(effect, false);
+            return;
+        }
+        PcmSound sound = effects.get(effect);
+        if (sound != null) {
+            mixer.play(sound);
+        } else {
+            System.err.println("Sound not loaded for: " + effect.getFileName() + ". Attempting to reload.");
+            loadSound(effect);
+        }
     }
 
     public void loopSound(SoundEffect effect, boolean loopContinuously) {
-        soundExecutor.submit(() -> {
-            Clip clipToLoop = soundClips.get(effect);
-            if (clipToLoop != null) {
-                if (currentThemeClip != null && currentThemeClip.isRunning()) {
-                    currentThemeClip.stop();
-                }
-                clipToLoop.setFramePosition(0);
-                currentThemeClip = clipToLoop;
-                if (loopContinuously) {
-                    currentThemeClip.loop(Clip.LOOP_CONTINUOUSLY);
-                } else {
-                    currentThemeClip.start();
-                }
-            } else {
-                System.err.println("Theme sound not loaded or clip is null for: " + effect.getFileName());
-                loadSound(effect);
-            }
-        });
+        URL source = musicSources.get(effect);
+        if (source == null) {
+            System.err.println("Theme sound not found: " + effect.getFileName());
+            return;
+        }
+        playMusic(new MusicStream(null, source, loopContinuously));
     }
 
-    public void stopSound(SoundEffect effect) {
-        soundExecutor.submit(() -> {
-            Clip clip = soundClips.get(effect);
-            if (clip != null && clip.isRunning()) {
-                clip.stop();
-            }
-            if (currentThemeClip == clip && effect == SoundEffect.THEME_LOOP || effect == SoundEffect.THEME_START) {
-                currentThemeClip = null; // Clear if it was the current theme
-            }
-        });
+    /**
+     * Toca a introdução do tema e emenda o loop na amostra seguinte ao fim dela.
+     * Sem a introdução, toca só o loop; sem o loop, não toca nada.
+     */
+    public void playThemeSequence() {
+        URL start = musicSources.get(SoundEffect.THEME_START);
+        URL loop = musicSources.get(SoundEffect.THEME_LOOP);
+        if (loop == null) {
+            System.err.println("THEME_LOOP sound not found. No theme will play.");
+            return;
+        }
+        if (start == null) {
+            System.err.println("THEME_START sound not found. Playing THEME_LOOP directly.");
+        }
+        playMusic(new MusicStream(start, loop, true));
     }
 
-    public void stopAllSounds() {
-        soundExecutor.submit(() -> {
-            for (Clip clip : soundClips.values()) {
-                if (clip != null && clip.isRunning()) {
-                    clip.stop();
-                }
-            }
-            if (currentThemeClip != null && currentThemeClip.isRunning()) {
-                currentThemeClip.stop();
-            }
-            currentThemeClip = null;
-        });
+    private void playMusic(MusicStream music) {
+        currentMusic = music;
+        mixer.playMusic(music, 1f);
     }
 
-    public void playThemeSequence() {
-        soundExecutor.submit(() -> {
-            Clip themeStartClip = soundClips.get(SoundEffect.THEME_START);
-            Clip themeLoopClip = soundClips.get(SoundEffect.THEME_LOOP);
-
-            if (themeStartClip == null) {
-                System.err.println("THEME_START sound not loaded. Attempting to play THEME_LOOP directly.");
-                if (themeLoopClip != null) {
-                    loopSound(SoundEffect.THEME_LOOP, true);
-                } else {
-                    System.err.println("THEME_LOOP sound also not loaded. No theme will play.");
-                    loadSound(SoundEffect.THEME_LOOP); // Attempt to load
-                }
-                return;
-            }
-
-            if (currentThemeClip != null && currentThemeClip.isRunning()) {
-                currentThemeClip.stop();
-            }
-
-            themeStartClip.setFramePosition(0);
-            currentThemeClip = themeStartClip;
-
-            if (this.themeTransitionListener != null) {
-                themeStartClip.removeLineListener(this.themeTransitionListener);
-            }
+    public void stopSound(SoundEffect effect) {
+        if (!effect.isMusic()) {
+            mixer.stop(effects.get(effect));
+            return;
+        }
+        MusicStream music = currentMusic;
+        URL source = musicSources.get(effect);
+        if (music != null && source != null && music.getSources().contains(source)) {
+            mixer.stopMusic(music);
+            currentMusic = null;
+        }
+    }
 
-            this.themeTransitionListener = event -> {
-                if (event.getType() == LineEvent.Type.STOP) {
-                    if (currentThemeClip == themeStartClip &&
-                            themeStartClip.getFramePosition() >= themeStartClip.getFrameLength() - 20 && /* Tolerância */
-                            event.getSource() == themeStartClip) {
-
-                        if (themeLoopClip != null) {
-                            loopSound(SoundEffect.THEME_LOOP, true);
-                        } else {
-                            System.err.println("THEME_LOOP not loaded, cannot switch.");
-                            loadSound(SoundEffect.THEME_LOOP); // Attempt to load
-                        }
-                    }
-                }
-            };
+    public void stopAllSounds() {
+        mixer.stopAll();
+        currentMusic = null;
+    }
 
-            themeStartClip.addLineListener(this.themeTransitionListener);
-            themeStartClip.start();
-        });
+    public SoundMixer getMixer() {
+        return mixer;
     }
 
     public void shutdownExecutor() {
+        mixer.close();
         soundExecutor.shutdown();
         try {
             if (!soundExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -187,4 +180,4 @@ public class SoundManager {
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,307 @@
+package tripletriad.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Mixer polifônico em software: soma até MAX_VOICES efeitos pré-decodificados ({@link PcmSound}) em uma
+ * única saída de áudio ({@link AudioBackend}) aberta uma vez, em vez de uma Clip por efeito.
+ * Tocar o mesmo efeito várias vezes seguidas sobrepõe as vozes, em vez de cortar a anterior.
+ *
+ * Uma thread dedicada mistura períodos fixos de PERIOD_FRAMES quadros e os escreve na saída, cujo buffer
+ * tem BUFFER_PERIODS períodos: um efeito pedido começa a tocar em no máximo um buffer mais o período sendo
+ * mixado (~29 ms a 44,1 kHz).
+ * Sem vozes ativas, o mixer escreve silêncio, mantendo a linha aberta e a latência constante.
+ *
+ * Os pedidos (tocar, parar) chegam por uma fila sem bloqueio e são aplicados no início de cada período,
+ * então podem ser feitos de qualquer thread (inclusive a EDT) sem esperar o áudio.
+ * Quando todas as vozes estão ocupadas, a voz mais antiga é reaproveitada.
+ *
+ * Além das vozes, há um canal de música: um {@link MusicStream} decodificado em streaming por outra thread,
+ * somado às vozes a cada período. Tocar outra música substitui (e fecha) a anterior.
+ */
+
+public final class SoundMixer {
+    public static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    public static final int PERIOD_FRAMES = 256;
+    public static final int BUFFER_PERIODS = 4;
+    public static final int MAX_VOICES = 8;
+
+    private static final int CHANNELS = 2;
+    private static final int BYTES_PER_FRAME = CHANNELS * 2;
+
+    private enum Kind {PLAY, STOP, STOP_ALL, MUSIC, STOP_MUSIC}
+
+    private record Command(Kind kind, PcmSound sound, MusicStream music, float gain) {
+    }
+
+    private static final class Voice {
+        PcmSound sound; // null = voz livre
+        int position; // Em amostras (quadro x 2)
+        float gain;
+        long startedAt;
+    }
+
+    private final AudioBackend backend;
+    private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final Voice[] voices = new Voice[MAX_VOICES];
+    private final Thread thread;
+    private volatile boolean running = true;
+    private MusicStream music; // Só usada pela thread do mixer
+    private float musicGain;
+
+    // Estatísticas, escritas só pela thread do mixer
+    private volatile long framesMixed;
+    private volatile long voicesStarted;
+    private volatile long voicesStolen;
+    private volatile long underruns;
+    private volatile long musicUnderruns;
+    private volatile int activeVoices;
+    private volatile int peakVoices;
+    private long periodCount;
+
+    private SoundMixer(AudioBackend backend) {
+        this.backend = backend;
+        for (int i = 0; i < voices.length; i++) {
+            voices[i] = new Voice();
+        }
+        this.thread = new Thread(this::run, "sound-mixer");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MAX_PRIORITY); // Atrasar um período é um estalo audível
+    }
+
+    /**
+     * Abre a saída com o buffer do mixer e começa a mixar.
+     */
+    public static SoundMixer open(AudioBackend backend) throws LineUnavailableException {
+        backend.open(FORMAT, PERIOD_FRAMES * BUFFER_PERIODS * BYTES_PER_FRAME);
+        SoundMixer mixer = new SoundMixer(backend);
+        mixer.thread.start();
+        return mixer;
+    }
+
+    public void play(PcmSound sound) {
+        play(sound, 1f);
+    }
+
+    public void play(PcmSound sound, float gain) {
+        if (sound != null && running) {
+            commands.add(new Command(Kind.PLAY, sound, null, gain));
+        }
+    }
+
+    /**
+     * Para todas as vozes que estão tocando o efeito.
+     */
+    public void stop(PcmSound sound) {
+        if (sound != null) {
+            commands.add(new Command(Kind.STOP, sound, null, 0f));
+        }
+    }
+
+    /**
+     * Para todos os efeitos e a música.
+     */
+    public void stopAll() {
+        commands.add(new Command(Kind.STOP_ALL, null, null, 0f));
+    }
+
+    /**
+     * Troca a música atual pela informada, que é iniciada aqui; a anterior é fechada.
+     */
+    public void playMusic(MusicStream stream, float gain) {
+        if (stream != null && running) {
+            stream.start();
+            commands.add(new Command(Kind.MUSIC, null, stream, gain));
+        }
+    }
+
+    /**
+     * Para a música, se ainda for a informada (null para qualquer uma).
+     */
+    public void stopMusic(MusicStream stream) {
+        commands.add(new Command(Kind.STOP_MUSIC, null, stream, 0f));
+    }
+
+    /**
+     * Para a thread do mixer e fecha a saída.
+     */
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        backend.close();
+        if (music != null) {
+            music.close();
+        }
+    }
+
+    private void run() {
+        int[] mix = new int[PERIOD_FRAMES * CHANNELS];
+        byte[] out = new byte[PERIOD_FRAMES * BYTES_PER_FRAME];
+        while (running) {
+            applyCommands();
+            mixPeriod(mix, out);
+            if (periodCount >= BUFFER_PERIODS && backend.queuedBytes() == 0) {
+                underruns++; // A saída tocou tudo antes de receber este período
+            }
+            backend.write(out, 0, out.length);
+            periodCount++;
+            framesMixed += PERIOD_FRAMES;
+        }
+    }
+
+    private void applyCommands() {
+        Command command;
+        while ((command = commands.poll()) != null) {
+            switch (command.kind()) {
+                case PLAY -> {
+                    Voice voice = freeOrOldestVoice();
+                    voice.sound = command.sound();
+                    voice.position = 0;
+                    voice.gain = command.gain();
+                    voice.startedAt = voicesStarted++;
+                }
+                case STOP, STOP_ALL -> {
+                    for (Voice voice : voices) {
+                        if (command.kind() == Kind.STOP_ALL || voice.sound == command.sound()) {
+                            voice.sound = null;
+                        }
+                    }
+                    if (command.kind() == Kind.STOP_ALL) {
+                        replaceMusic(null, 0f);
+                    }
+                }
+                case MUSIC -> replaceMusic(command.music(), command.gain());
+                case STOP_MUSIC -> {
+                    if (command.music() == null || command.music() == music) {
+                        replaceMusic(null, 0f);
+                    }
+                }
+            }
+        }
+    }
+
+    private void replaceMusic(MusicStream next, float gain) {
+        if (music != null && music != next) {
+            music.close();
+        }
+        music = next;
+        musicGain = gain;
+    }
+
+    private Voice freeOrOldestVoice() {
+        Voice oldest = voices[0];
+        for (Voice voice : voices) {
+            if (voice.sound == null) {
+                return voice;
+            }
+            if (voice.startedAt < oldest.startedAt) {
+                oldest = voice;
+            }
+        }
+        voicesStolen++;
+        return oldest;
+    }
+
+    // Soma as vozes em 32 bits, satura em 16 bits e empacota em little-endian
+    private void mixPeriod(int[] mix, byte[] out) {
+        Arrays.fill(mix, 0);
+        int active = 0;
+        for (Voice voice : voices) {
+            if (voice.sound == null) {
+                continue;
+            }
+            active++;
+            short[] samples = voice.sound.samples();
+            int count = Math.min(mix.length, samples.length - voice.position);
+            int position = voice.position;
+            if (voice.gain == 1f) {
+                for (int i = 0; i < count; i++) {
+                    mix[i] += samples[position + i];
+                }
+            } else {
+                float gain = voice.gain;
+                for (int i = 0; i < count; i++) {
+                    mix[i] += (int) (samples[position + i] * gain);
+                }
+            }
+            voice.position += count;
+            if (voice.position >= samples.length) {
+                voice.sound = null;
+            }
+        }
+        mixMusic(mix);
+        activeVoices = active;
+        if (active > peakVoices) {
+            peakVoices = active;
+        }
+        for (int i = 0; i < mix.length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[i * 2] = (byte) sample;
+            out[i * 2 + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private void mixMusic(int[] mix) {
+        if (music == null || !music.isPrimed()) {
+            return; // Espera o streaming encher metade do buffer antes de começar
+        }
+        int mixed = music.mixInto(mix, 0, mix.length, musicGain);
+        if (music.isDrained()) {
+            music = null;
+        } else if (mixed < mix.length) {
+            musicUnderruns++; // A decodificação não acompanhou; o resto do período fica sem música
+        }
+    }
+
+    public long getFramesMixed() {
+        return framesMixed;
+    }
+
+    public long getVoicesStarted() {
+        return voicesStarted;
+    }
+
+    public long getVoicesStolen() {
+        return voicesStolen;
+    }
+
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    public long getMusicUnderruns() {
+        return musicUnderruns;
+    }
+
+    public boolean isMusicPlaying() {
+        return music != null;
+    }
+
+    public int getActiveVoices() {
+        return activeVoices;
+    }
+
+    public int getPeakVoices() {
+        return peakVoices;
+    }
+
+    /**
+     * Latência máxima entre um pedido e o início do som: o buffer da saída mais o período sendo mixado.
+     */
+    public double getLatencyMs() {
+        return (BUFFER_PERIODS + 1) * PERIOD_FRAMES * 1000.0 / FORMAT.getSampleRate();
+    }
+
+    public String describeStats() {
+        return String.format("SoundMixer: %s, %d vozes tocadas (%d reaproveitadas, pico de %d), %d underruns (%d da música), latência máx. %.1f ms",
+                backend.describe(), voicesStarted, voicesStolen, peakVoices, underruns, musicUnderruns, getLatencyMs());
+    }
+}
@@ -0,0 +1,45 @@
+package tripletriad.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Saída de áudio em uma única SourceDataLine do dispositivo de som padrão.
+ */
+
+public class SourceDataLineBackend implements AudioBackend {
+    private SourceDataLine line;
+
+    @Override
+    public void open(AudioFormat format, int bufferBytes) throws LineUnavailableException {
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, bufferBytes);
+        line.start();
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        line.write(data, offset, length);
+    }
+
+    @Override
+    public int queuedBytes() {
+        return line.getBufferSize() - line.available();
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.stop();
+            line.flush();
+            line.close();
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "SourceDataLine " + (line != null ? line.getFormat() + ", buffer de " + line.getBufferSize() + " bytes" : "(fechada)");
+    }
+}